@@ -0,0 +1,96 @@
+package com.hotel.reservation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds hotels of a given size and booking density for the benchmarks.
+ * Rooms are spread over floors of ROOMS_PER_FLOOR rooms, with one to three beds,
+ * and every other floor handicap accessible.
+ */
+public class BenchmarkHotels {
+
+    public static final int ROOMS_PER_FLOOR = 50;
+    public static final int HORIZON_DAYS = 365;
+
+    public static final Amenity PET = Amenity.builder()
+            .name("pet")
+            .limit(2)
+            .cost(BigDecimal.valueOf(20))
+            .build();
+
+    public static final User USER = User.builder()
+            .userId(UUID.randomUUID())
+            .firstName("Glenn")
+            .lastName("Frey")
+            .build();
+
+    public static LocalDate firstNight() {
+        return LocalDate.now().plusDays(1);
+    }
+
+    public static Hotel build(int numberOfRooms) {
+        Hotel hotel = Hotel.builder()
+                .name("California")
+                .build();
+
+        int numberOfFloors = (numberOfRooms + ROOMS_PER_FLOOR - 1) / ROOMS_PER_FLOOR;
+        for(int floorNo = 1; floorNo <= numberOfFloors; floorNo++) {
+            ArrayList<Amenity> restrictedAmenities = new ArrayList<Amenity>();
+            if(floorNo % 3 == 0) restrictedAmenities.add(PET);
+            hotel.addFloor(floorNo, floorNo % 2 == 1, restrictedAmenities);
+        }
+
+        Map<Integer, Floor> floors = hotel.getFloors();
+        for(int i = 0; i < numberOfRooms; i++) {
+            int floorNo = i / ROOMS_PER_FLOOR + 1;
+            hotel.addRoom(floorNo * 1000 + i % ROOMS_PER_FLOOR, floors.get(floorNo), 1 + i % 3);
+        }
+        return hotel;
+    }
+
+    /**
+     * Books roughly the given fraction of every room's nights over the booking horizon,
+     * writing straight to the room calendars so that setting up large hotels stays quick.
+     */
+    public static void book(Hotel hotel, double bookingDensity, long seed) {
+        if(bookingDensity <= 0) return;
+        Random random = new Random(seed);
+        long firstNight = firstNight().toEpochDay();
+        for(Room room : hotel.getRooms().values()) {
+            AvailabilityCalendar availability = room.getAvailability();
+            int target = (int) (HORIZON_DAYS * bookingDensity);
+            for(int attempts = 0; availability.reservedDays() < target && attempts < HORIZON_DAYS; attempts++) {
+                availability.reserve(firstNight + random.nextInt(HORIZON_DAYS), 1 + random.nextInt(7));
+            }
+        }
+    }
+
+    /**
+     * Same as book but goes through Hotel.makeReservation and returns the bookings,
+     * for benchmarks that also need them stored elsewhere.
+     */
+    public static List<Booking> reserve(Hotel hotel, double bookingDensity, long seed) {
+        List<Booking> bookings = new ArrayList<Booking>();
+        if(bookingDensity <= 0) return bookings;
+        Random random = new Random(seed);
+        LocalDate firstNight = firstNight();
+        List<BookingAmenity> noAmenities = Collections.emptyList();
+        for(Room room : hotel.getRooms().values()) {
+            int target = (int) (HORIZON_DAYS * bookingDensity);
+            for(int attempts = 0; room.getAvailability().reservedDays() < target && attempts < HORIZON_DAYS; attempts++) {
+                LocalDate startDate = firstNight.plusDays(random.nextInt(HORIZON_DAYS));
+                int numberOfDays = 1 + random.nextInt(7);
+                if(!room.isAvailableForDays(startDate, numberOfDays)) continue;
+                bookings.add(hotel.makeReservation(room, startDate, numberOfDays, noAmenities, USER));
+            }
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotel.reservation;
+
+import com.hotel.reservation.Utilities.CostCalculator;
+import com.hotel.reservation.Utilities.RatePlan;
+import com.hotel.reservation.Utilities.RateTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CostCalculatorBenchmark {
+
+    @Param({"0", "1", "3"})
+    int numberOfAmenities;
+
+    @Param({"1", "7", "28"})
+    int numberOfDays;
+
+    @Param({"standard", "seasonal"})
+    String ratePlan;
+
+    RatePlan plan;
+    Room room;
+    List<BookingAmenity> bookingAmenities;
+    LocalDate startDate;
+    long startDay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        startDate = BenchmarkHotels.firstNight();
+        startDay = startDate.toEpochDay();
+        plan = RatePlan.STANDARD;
+        if(ratePlan.equals("seasonal")) {
+            plan = RatePlan.builder(RateTable.STANDARD)
+                    .weekendPercent(20)
+                    .season(startDate.plusDays(30), startDate.plusDays(120), 35)
+                    .season(startDate.plusDays(200), startDate.plusDays(260), -15)
+                    .lengthOfStayDiscount(7, 10)
+                    .surge(80, 25)
+                    .build();
+        }
+
+        Hotel hotel = BenchmarkHotels.build(3);
+        room = hotel.getRooms().values().iterator().next();
+        bookingAmenities = new ArrayList<BookingAmenity>();
+        for(int i = 0; i < numberOfAmenities; i++) {
+            Amenity amenity = Amenity.builder()
+                    .name("amenity" + i)
+                    .limit(2)
+                    .cost(BigDecimal.valueOf(10 + i))
+                    .build();
+            bookingAmenities.add(BookingAmenity.builder()
+                    .amenity(amenity)
+                    .count(1)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotalCosts() {
+        return CostCalculator.calculateTotalCosts(plan, room, bookingAmenities, startDate, numberOfDays, 0);
+    }
+
+    // The allocation free path, run with -prof gc to confirm it allocates nothing per call
+    @Benchmark
+    public long calculateTotalCents() {
+        return CostCalculator.calculateTotalCents(plan, room, bookingAmenities, startDay, numberOfDays, 0);
+    }
+
+    // What the prefix sums replace, its cost grows with the length of the stay
+    @Benchmark
+    public long sumNightlyRates() {
+        long cents = 0;
+        for(int day = 0; day < numberOfDays; day++) cents += plan.nightlyCents(room.getNumberOfBeds(), startDay + day);
+        return cents;
+    }
+}
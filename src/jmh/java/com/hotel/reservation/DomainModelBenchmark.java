@@ -0,0 +1,66 @@
+package com.hotel.reservation;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of putting every room and every booking of a booked up hotel in a hash set, which is
+ * what caches and indexes keyed by the domain objects pay. Rooms hash their number and bookings
+ * their id, so the cost does not depend on how booked the rooms are.
+ *
+ * The heap taken by the bookings is printed once per trial, measured with JOL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainModelBenchmark {
+
+    @Param({"1000"})
+    int numberOfRooms;
+
+    @Param({"0.5"})
+    double bookingDensity;
+
+    Room[] rooms;
+    Booking[] bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Hotel hotel = BenchmarkHotels.build(numberOfRooms);
+        List<Booking> booked = BenchmarkHotels.reserve(hotel, bookingDensity, 42);
+        rooms = new ArrayList<Room>(hotel.getRooms().values()).toArray(new Room[0]);
+        bookings = booked.toArray(new Booking[0]);
+
+        // The rooms, floors and calendars the bookings point at are counted once and taken off
+        long bookingBytes = GraphLayout.parseInstance((Object) bookings).totalSize()
+                - GraphLayout.parseInstance((Object) rooms).totalSize();
+        System.out.printf("%n%d bookings, Booking instance %d bytes, %d bytes per booking with the objects it owns%n",
+                          bookings.length,
+                          ClassLayout.parseClass(Booking.class).instanceSize(),
+                          bookingBytes / Math.max(1, bookings.length));
+    }
+
+    @Benchmark
+    public Set<Room> hashRooms() {
+        Set<Room> set = new HashSet<Room>(rooms.length * 2);
+        for(Room room : rooms) set.add(room);
+        return set;
+    }
+
+    @Benchmark
+    public Set<Booking> hashBookings() {
+        Set<Booking> set = new HashSet<Booking>(bookings.length * 2);
+        for(Booking booking : bookings) set.add(booking);
+        return set;
+    }
+}
@@ -0,0 +1,108 @@
+package com.hotel.reservation;
+
+import com.hotel.reservation.Persistence.HotelImporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a property of numberOfRooms rooms with a year of booking history, about one booking
+ * a week per room, from CSV. The file is generated while it is read so that it never has to be
+ * held in memory, which is what importing a large file from disk or a request body looks like.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"50000"})
+    int numberOfRooms;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    ForkJoinPool pool;
+    HotelImporter importer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        importer = new HotelImporter(pool, parallelism, HotelImporter.DEFAULT_BATCH_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public HotelImporter.Result importCsv() {
+        Hotel hotel = Hotel.builder()
+                .name("California")
+                .build();
+        return importer.importCsv(hotel, new GeneratedCsv(numberOfRooms, 42));
+    }
+
+    /**
+     * A floor per ROOMS_PER_FLOOR rooms, then every room followed by its bookings, a line at a time.
+     */
+    private static class GeneratedCsv extends Reader {
+        private final int numberOfRooms;
+        private final Random random;
+        private final LocalDate firstNight = BenchmarkHotels.firstNight().minusDays(BenchmarkHotels.HORIZON_DAYS);
+        private final StringBuilder buffer = new StringBuilder();
+        private int position;
+        private int floorNo;
+        private int room;
+
+        private GeneratedCsv(int numberOfRooms, long seed) {
+            this.numberOfRooms = numberOfRooms;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) {
+            if(position == buffer.length() && !fill()) return -1;
+            int count = Math.min(length, buffer.length() - position);
+            buffer.getChars(position, position + count, chars, offset);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() {
+            buffer.setLength(0);
+            position = 0;
+            int numberOfFloors = (numberOfRooms + BenchmarkHotels.ROOMS_PER_FLOOR - 1) / BenchmarkHotels.ROOMS_PER_FLOOR;
+            if(floorNo < numberOfFloors) {
+                floorNo++;
+                buffer.append("floor,").append(floorNo).append(',').append(floorNo % 2 == 1).append('\n');
+                return true;
+            }
+            if(room == numberOfRooms) return false;
+
+            int roomNo = (room / BenchmarkHotels.ROOMS_PER_FLOOR + 1) * 1000 + room % BenchmarkHotels.ROOMS_PER_FLOOR;
+            buffer.append("room,").append(roomNo).append(',').append(room / BenchmarkHotels.ROOMS_PER_FLOOR + 1)
+                  .append(',').append(1 + room % 3).append('\n');
+            for(int day = random.nextInt(7); day < BenchmarkHotels.HORIZON_DAYS; day += 7) {
+                int numberOfDays = 1 + random.nextInt(6);
+                buffer.append("booking,").append(new UUID(random.nextLong(), random.nextLong())).append(',').append(roomNo)
+                      .append(',').append(firstNight.plusDays(day)).append(',').append(numberOfDays)
+                      .append(",,Glenn,Frey,100\n");
+            }
+            room++;
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.hotel.reservation;
+
+import com.hotel.reservation.Persistence.HotelStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares answering the same availability search from the in memory index
+ * and from the indexed room_nights table in an in memory Derby database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistedSearchBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int numberOfRooms;
+
+    @Param({"0.0", "0.5"})
+    double bookingDensity;
+
+    ConfigurableApplicationContext context;
+    HotelStore hotelStore;
+    Hotel hotel;
+    LocalDate firstNight;
+    List<Amenity> noAmenities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ReservationApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:derby:memory:benchmark;create=true",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "logging.level.root=WARN")
+                .run();
+        hotelStore = context.getBean(HotelStore.class);
+
+        hotel = BenchmarkHotels.build(numberOfRooms);
+        for(Floor floor : hotel.getFloors().values()) hotelStore.saveFloor(floor);
+        for(Room room : hotel.getRooms().values()) hotelStore.saveRoom(room);
+        hotelStore.saveBookings(BenchmarkHotels.reserve(hotel, bookingDensity, 42));
+
+        firstNight = BenchmarkHotels.firstNight();
+        noAmenities = Collections.emptyList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Room> inMemorySearch() {
+        return hotel.findAvailability(randomStartDate(), 3, 2, true, noAmenities);
+    }
+
+    @Benchmark
+    public List<Integer> persistedSearch() {
+        return hotelStore.findAvailableRoomNumbers(randomStartDate(), 3, 2, true, noAmenities);
+    }
+
+    private LocalDate randomStartDate() {
+        return firstNight.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkHotels.HORIZON_DAYS - 7));
+    }
+}
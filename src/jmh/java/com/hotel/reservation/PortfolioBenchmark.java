@@ -0,0 +1,77 @@
+package com.hotel.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserves random rooms at random properties of a portfolio from eight client threads,
+ * to see booking throughput grow with the number of shards. The portfolio is rebuilt
+ * for every iteration as it fills up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PortfolioBenchmark {
+
+    private static final int NUMBER_OF_PROPERTIES = 64;
+    private static final int ROOMS_PER_PROPERTY = 200;
+    private static final int RESERVATION_WINDOW_DAYS = 20 * 365;
+    private static final String CITY = "Los Angeles";
+
+    @Param({"1", "2", "4", "8"})
+    int numberOfShards;
+
+    Portfolio portfolio;
+    String[] propertyIds;
+    int[] roomNos;
+    LocalDate firstNight;
+    List<BookingAmenity> noAmenities;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolio = new Portfolio(numberOfShards);
+        propertyIds = new String[NUMBER_OF_PROPERTIES];
+        for(int i = 0; i < NUMBER_OF_PROPERTIES; i++) {
+            propertyIds[i] = "property-" + i;
+            portfolio.addHotel(propertyIds[i], CITY, BenchmarkHotels.build(ROOMS_PER_PROPERTY));
+        }
+        roomNos = portfolio.getHotel(propertyIds[0]).getRooms().keySet().stream().mapToInt(Integer::intValue).toArray();
+        firstNight = BenchmarkHotels.firstNight();
+        noAmenities = Collections.emptyList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        portfolio.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Booking makeReservation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String propertyId = propertyIds[random.nextInt(propertyIds.length)];
+        LocalDate startDate = firstNight.plusDays(random.nextInt(RESERVATION_WINDOW_DAYS));
+        try {
+            return portfolio.makeReservation(propertyId, roomNos[random.nextInt(roomNos.length)], startDate,
+                                             1 + random.nextInt(7), noAmenities, BenchmarkHotels.USER).join();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public List<RoomOffer> findCityAvailability() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate startDate = firstNight.plusDays(random.nextInt(BenchmarkHotels.HORIZON_DAYS));
+        return portfolio.findAvailability(CITY, startDate, 1 + random.nextInt(7), 1 + random.nextInt(3), true,
+                                          Collections.<String>emptyList(), 10).join();
+    }
+}
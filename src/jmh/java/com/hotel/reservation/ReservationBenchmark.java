@@ -0,0 +1,111 @@
+package com.hotel.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserves random rooms for random dates. The hotel is rebuilt for every iteration as
+ * it fills up, and reservations that lose on already booked nights are part of the cost.
+ *
+ * The group benchmarks book a block of GROUP_SIZE rooms for the same stay, either as one
+ * makeReservations call or as that many makeReservation calls, and count one operation per block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationBenchmark {
+
+    // Wide enough that an iteration does not sell out the hotel
+    private static final int RESERVATION_WINDOW_DAYS = 20 * 365;
+    private static final int GROUP_SIZE = 50;
+
+    @Param({"100", "10000"})
+    int numberOfRooms;
+
+    @Param({"0.0", "0.5"})
+    double bookingDensity;
+
+    Hotel hotel;
+    Room[] rooms;
+    LocalDate firstNight;
+    List<BookingAmenity> noAmenities;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        hotel = BenchmarkHotels.build(numberOfRooms);
+        BenchmarkHotels.book(hotel, bookingDensity, 42);
+        rooms = new ArrayList<Room>(hotel.getRooms().values()).toArray(new Room[0]);
+        firstNight = BenchmarkHotels.firstNight();
+        noAmenities = Collections.emptyList();
+    }
+
+    @Benchmark
+    public Booking makeReservation() {
+        return reserveRandomRoom();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Booking makeReservationConcurrent() {
+        return reserveRandomRoom();
+    }
+
+    @Benchmark
+    public List<Booking> makeGroupReservation() {
+        try {
+            return hotel.makeReservations(randomGroupStays(), BenchmarkHotels.USER);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public List<Booking> makeGroupReservationOneByOne() {
+        List<Booking> bookings = new ArrayList<Booking>(GROUP_SIZE);
+        for(StayRequest stay : randomGroupStays()) {
+            try {
+                bookings.add(hotel.makeReservation(stay.getRoom(), stay.getStartDate(), stay.getNumberOfDays(), noAmenities, BenchmarkHotels.USER));
+            } catch (IllegalArgumentException e) {
+                // Single calls cannot give the other rooms back, so the group is simply left short
+            }
+        }
+        return bookings;
+    }
+
+    private List<StayRequest> randomGroupStays() {
+        List<StayRequest> stays = new ArrayList<StayRequest>(GROUP_SIZE);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(Math.max(1, rooms.length - GROUP_SIZE));
+        LocalDate startDate = firstNight.plusDays(random.nextInt(RESERVATION_WINDOW_DAYS));
+        int numberOfDays = 1 + random.nextInt(7);
+        for(int i = first; i < Math.min(rooms.length, first + GROUP_SIZE); i++) {
+            stays.add(StayRequest.builder()
+                    .room(rooms[i])
+                    .startDate(startDate)
+                    .numberOfDays(numberOfDays)
+                    .bookingAmenities(noAmenities)
+                    .build());
+        }
+        return stays;
+    }
+
+    private Booking reserveRandomRoom() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Room room = rooms[random.nextInt(rooms.length)];
+        LocalDate startDate = firstNight.plusDays(random.nextInt(RESERVATION_WINDOW_DAYS));
+        try {
+            return hotel.makeReservation(room, startDate, 1 + random.nextInt(7), noAmenities, BenchmarkHotels.USER);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
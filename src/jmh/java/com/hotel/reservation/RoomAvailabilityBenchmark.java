@@ -0,0 +1,50 @@
+package com.hotel.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomAvailabilityBenchmark {
+
+    @Param({"0.0", "0.5", "0.9"})
+    double bookingDensity;
+
+    @Param({"1", "7", "30"})
+    int numberOfDays;
+
+    Room room;
+    LocalDate firstNight;
+    long nextStartOffset;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Hotel hotel = BenchmarkHotels.build(1);
+        BenchmarkHotels.book(hotel, bookingDensity, 42);
+        room = new ArrayList<Room>(hotel.getRooms().values()).get(0);
+        firstNight = BenchmarkHotels.firstNight();
+        // Reservations are appended after the booked horizon so that every one of them succeeds
+        nextStartOffset = BenchmarkHotels.HORIZON_DAYS + 7;
+    }
+
+    @Benchmark
+    public boolean isAvailableForDays() {
+        LocalDate startDate = firstNight.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkHotels.HORIZON_DAYS));
+        return room.isAvailableForDays(startDate, numberOfDays);
+    }
+
+    @Benchmark
+    public Room updateAvailability() {
+        room.updateAvailability(firstNight.plusDays(nextStartOffset), numberOfDays);
+        nextStartOffset += numberOfDays;
+        return room;
+    }
+}
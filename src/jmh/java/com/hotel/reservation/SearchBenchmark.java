@@ -0,0 +1,72 @@
+package com.hotel.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random availability searches over a year. With the search cache on, the random start dates
+ * keep the hit rate realistic for guests browsing the same few hundred queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int numberOfRooms;
+
+    @Param({"0.0", "0.5", "0.9"})
+    double bookingDensity;
+
+    @Param({"0", "10000"})
+    int searchCacheCapacity;
+
+    // Lets the room index split large scans across the common pool when it estimates they are slow enough
+    @Param({"false", "true"})
+    boolean parallelSearch;
+
+    Hotel hotel;
+    LocalDate firstNight;
+    List<Amenity> noAmenities;
+    List<Amenity> petAmenity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hotel = BenchmarkHotels.build(numberOfRooms);
+        BenchmarkHotels.book(hotel, bookingDensity, 42);
+        hotel.setSearchCache(new SearchCache(searchCacheCapacity));
+        hotel.getRoomIndex().setSearchPool(parallelSearch ? ForkJoinPool.commonPool() : null);
+        firstNight = BenchmarkHotels.firstNight();
+        noAmenities = Collections.emptyList();
+        petAmenity = new ArrayList<Amenity>() {{ add(BenchmarkHotels.PET); }};
+    }
+
+    @Benchmark
+    public List<Room> findAvailability() {
+        LocalDate startDate = firstNight.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkHotels.HORIZON_DAYS - 7));
+        return hotel.findAvailability(startDate, 3, 2, true, noAmenities);
+    }
+
+    @Benchmark
+    public List<Room> findAvailabilityWithAmenities() {
+        LocalDate startDate = firstNight.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkHotels.HORIZON_DAYS - 7));
+        return hotel.findAvailability(startDate, 3, 2, true, petAmenity);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Room> findAvailabilityConcurrent() {
+        LocalDate startDate = firstNight.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkHotels.HORIZON_DAYS - 7));
+        return hotel.findAvailability(startDate, 3, 2, true, noAmenities);
+    }
+}
@@ -0,0 +1,34 @@
+package com.hotel.reservation;
+
+import java.util.Comparator;
+
+/**
+ * Order in which waitlisted stays are offered a room that frees up. Overbooked stays were
+ * confirmed to their guests and always come before the others, whatever the strategy.
+ * Ties go to whoever joined the waitlist first.
+ */
+public enum AllocationStrategy implements Comparator<WaitlistEntry> {
+
+    // Highest priority first, e.g. loyalty tier
+    PRIORITY {
+        @Override
+        public int compare(WaitlistEntry a, WaitlistEntry b) {
+            int byPriority = Integer.compare(b.getPriority(), a.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(a.getSequence(), b.getSequence());
+        }
+    },
+    FIRST_COME {
+        @Override
+        public int compare(WaitlistEntry a, WaitlistEntry b) {
+            return Long.compare(a.getSequence(), b.getSequence());
+        }
+    },
+    // Most nights first, which fills the most room nights with what freed up
+    LONGEST_STAY {
+        @Override
+        public int compare(WaitlistEntry a, WaitlistEntry b) {
+            int byNights = Integer.compare(b.getNumberOfDays(), a.getNumberOfDays());
+            return byNights != 0 ? byNights : Long.compare(a.getSequence(), b.getSequence());
+        }
+    }
+}
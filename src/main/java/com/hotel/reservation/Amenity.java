@@ -1,14 +1,59 @@
 package com.hotel.reservation;
 
+import com.hotel.reservation.Utilities.Money;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Setter;
 
 import java.math.BigDecimal;
 
-@Builder
 @Data
 public class Amenity {
-    String name;
+    // Final, as the hotel's AmenityRegistry and the floor masks built from it go by the name
+    final String name;
     int limit;
     BigDecimal cost;
+
+    // Cost converted once, so pricing a booking never has to touch the BigDecimal
+    @Setter(AccessLevel.NONE)
+    long costCents;
+
+    // Units the hotel owns and has booked, limit only caps the count of a single booking
+    @Setter(AccessLevel.NONE)
+    AmenityInventory inventory;
+
+    /**
+     * capacity is the number of units the hotel owns, null if it is not limited.
+     */
+    @Builder
+    public Amenity(String name, int limit, BigDecimal cost, Integer capacity) {
+        this.name = name;
+        this.limit = limit;
+        setCost(cost);
+        this.inventory = new AmenityInventory(capacity != null ? capacity : AmenityInventory.UNLIMITED);
+    }
+
+    public void setCost(BigDecimal cost) {
+        this.cost = cost;
+        this.costCents = Money.toCents(cost);
+    }
+
+    public int getCapacity() {
+        return inventory.getCapacity();
+    }
+
+    public void setCapacity(int capacity) {
+        inventory.setCapacity(capacity);
+    }
+
+    /**
+     * Takes over the inventory of the amenity this one replaces, with this one's capacity,
+     * so units booked through either of them are counted together.
+     */
+    void replace(Amenity previous) {
+        int capacity = inventory.getCapacity();
+        inventory = previous.inventory;
+        inventory.setCapacity(capacity);
+    }
 }
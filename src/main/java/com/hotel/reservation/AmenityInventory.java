@@ -0,0 +1,164 @@
+package com.hotel.reservation;
+
+/**
+ * Hotel wide stock of one amenity, e.g. the 10 cribs or 40 parking spots the hotel owns,
+ * and how many of them are booked for every night.
+ *
+ * Units booked per night are kept in a segment tree over a range of epoch days, grown as stays
+ * further out are booked, holding the most units booked on any night of each range, with range
+ * updates left pending in the node that covers them. The units of a single night are the updates
+ * pending on the path from the root to its leaf. Checking whether every night of a stay has units
+ * left, booking them and reading one night are all O(log n) in the number of days covered, however
+ * long the stay.
+ *
+ * Units are counted whether or not the amenity has a capacity, so one can be set later.
+ */
+public class AmenityInventory {
+
+    public static final int UNLIMITED = -1;
+
+    private volatile int capacity;
+
+    // Epoch day of the first leaf of the tree
+    private long origin;
+    // Nights covered by the tree, a power of two
+    private int nights;
+    // Heap ordered tree, node 1 is the root and leaves start at nights.
+    // max[node] is the most units booked on any night below the node, including pending[node],
+    // which has been added to every night below the node but not to its children.
+    private int[] max = new int[0];
+    private int[] pending = new int[0];
+
+    public AmenityInventory(int capacity) {
+        setCapacity(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if(capacity < UNLIMITED) throw new IllegalArgumentException("Invalid amenity capacity");
+        this.capacity = capacity;
+    }
+
+    public boolean isLimited() {
+        return capacity != UNLIMITED;
+    }
+
+    /**
+     * Whether count more units are left on every night of [startDay, startDay + numberOfDays).
+     */
+    public synchronized boolean hasCapacity(long startDay, int numberOfDays, int count) {
+        int limit = capacity;
+        return limit == UNLIMITED || maxBookedLocked(startDay, numberOfDays) + count <= limit;
+    }
+
+    /**
+     * Atomically books count units for every night of the range if they are all left.
+     * Returns false and leaves the inventory untouched otherwise.
+     */
+    public synchronized boolean reserve(long startDay, int numberOfDays, int count) {
+        if(!hasCapacity(startDay, numberOfDays, count)) return false;
+        addLocked(startDay, numberOfDays, count);
+        return true;
+    }
+
+    /**
+     * Books units that were accepted earlier, whatever the capacity is now.
+     */
+    public synchronized void restore(long startDay, int numberOfDays, int count) {
+        addLocked(startDay, numberOfDays, count);
+    }
+
+    public synchronized void release(long startDay, int numberOfDays, int count) {
+        addLocked(startDay, numberOfDays, -count);
+    }
+
+    public synchronized int booked(long day) {
+        long offset = day - origin;
+        if(offset < 0 || offset >= nights) return 0;
+        int units = 0;
+        for(int node = nights + (int) offset; node >= 1; node >>>= 1) units += pending[node];
+        return units;
+    }
+
+    /**
+     * Most units booked on any night of the range.
+     */
+    public synchronized int maxBooked(long startDay, int numberOfDays) {
+        return maxBookedLocked(startDay, numberOfDays);
+    }
+
+    /**
+     * Units left on every night of the range, or Integer.MAX_VALUE when the amenity is not limited.
+     */
+    public synchronized int remaining(long startDay, int numberOfDays) {
+        int limit = capacity;
+        return limit == UNLIMITED ? Integer.MAX_VALUE : Math.max(0, limit - maxBookedLocked(startDay, numberOfDays));
+    }
+
+    private int maxBookedLocked(long startDay, int numberOfDays) {
+        long from = Math.max(startDay, origin) - origin;
+        long to = Math.min(startDay + numberOfDays, origin + nights) - origin;
+        if(numberOfDays <= 0 || from >= to) return 0;
+        return maxOf(1, 0, nights, (int) from, (int) to);
+    }
+
+    private void addLocked(long startDay, int numberOfDays, int delta) {
+        if(numberOfDays <= 0 || delta == 0) return;
+        ensureCapacity(startDay, startDay + numberOfDays);
+        int from = (int) (startDay - origin);
+        add(1, 0, nights, from, from + numberOfDays, delta);
+    }
+
+    private int maxOf(int node, int nodeFrom, int nodeTo, int from, int to) {
+        if(from <= nodeFrom && nodeTo <= to) return max[node];
+        int middle = (nodeFrom + nodeTo) >>> 1;
+        int result;
+        if(to <= middle) result = maxOf(2 * node, nodeFrom, middle, from, to);
+        else if(from >= middle) result = maxOf(2 * node + 1, middle, nodeTo, from, to);
+        else result = Math.max(maxOf(2 * node, nodeFrom, middle, from, to), maxOf(2 * node + 1, middle, nodeTo, from, to));
+        return pending[node] + result;
+    }
+
+    private void add(int node, int nodeFrom, int nodeTo, int from, int to, int delta) {
+        if(to <= nodeFrom || nodeTo <= from) return;
+        if(from <= nodeFrom && nodeTo <= to) {
+            max[node] += delta;
+            pending[node] += delta;
+            return;
+        }
+        int middle = (nodeFrom + nodeTo) >>> 1;
+        add(2 * node, nodeFrom, middle, from, to, delta);
+        add(2 * node + 1, middle, nodeTo, from, to, delta);
+        max[node] = pending[node] + Math.max(max[2 * node], max[2 * node + 1]);
+    }
+
+    private void ensureCapacity(long startDay, long endDay) {
+        if(nights != 0 && startDay >= origin && endDay <= origin + nights) return;
+
+        long newOrigin = nights == 0 ? startDay : Math.min(origin, startDay);
+        long newEnd = nights == 0 ? endDay : Math.max(origin + nights, endDay);
+        // A power of two so the tree is perfect, and at least double so growing amortizes the rebuilds
+        int size = Math.max(Integer.highestOneBit((int) (newEnd - newOrigin - 1)) << 1, Math.max(64, 2 * nights));
+        int shift = (int) (origin - newOrigin);
+
+        // Pushes every pending update down to the leaves, which then hold the units of their night
+        for(int node = 1; node < nights; node++) {
+            pending[2 * node] += pending[node];
+            pending[2 * node + 1] += pending[node];
+        }
+        int[] grownMax = new int[2 * size];
+        int[] grownPending = new int[2 * size];
+        for(int i = 0; i < nights; i++) {
+            grownMax[size + shift + i] = pending[nights + i];
+            grownPending[size + shift + i] = pending[nights + i];
+        }
+        for(int node = size - 1; node >= 1; node--) grownMax[node] = Math.max(grownMax[2 * node], grownMax[2 * node + 1]);
+        max = grownMax;
+        pending = grownPending;
+        nights = size;
+        origin = newOrigin;
+    }
+}
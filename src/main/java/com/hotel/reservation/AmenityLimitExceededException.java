@@ -0,0 +1,12 @@
+package com.hotel.reservation;
+
+/**
+ * A hotel has more amenity names than an amenity mask has bits for, see AmenityRegistry.
+ * Ids are kept for the life of the hotel, so the name can not be added until the hotel is rebuilt.
+ */
+public class AmenityLimitExceededException extends IllegalStateException {
+
+    public AmenityLimitExceededException(int limit) {
+        super("A hotel can not have more than " + limit + " amenity names");
+    }
+}
@@ -0,0 +1,68 @@
+package com.hotel.reservation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every amenity name of a hotel a small integer id, so a set of amenities fits in a long with one
+ * bit per amenity. Restrictions are then checked with a single AND instead of comparing names.
+ *
+ * Each hotel owns a registry and a name keeps its id for as long as the hotel exists, so the masks of
+ * its floors and of its cached searches never go stale. A name gets its id the first time it is looked
+ * up. At most MAX_AMENITIES names can have an id, beyond that AmenityLimitExceededException is thrown.
+ */
+public final class AmenityRegistry {
+
+    public static final int MAX_AMENITIES = Long.SIZE;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * The id of the amenity name, registering the name if it is new. Names are null only for amenities
+     * that were never named, these have no id, -1.
+     */
+    public int idOf(String name) {
+        if(name == null) return -1;
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public static long bit(int id) {
+        return id < 0 ? 0 : 1L << id;
+    }
+
+    /**
+     * The amenity's bit in an amenity mask.
+     */
+    public long bit(Amenity amenity) {
+        return bit(idOf(amenity.getName()));
+    }
+
+    public long mask(List<Amenity> amenities) {
+        if(amenities == null) return 0;
+        long mask = 0;
+        for(int i = 0; i < amenities.size(); i++) mask |= bit(amenities.get(i));
+        return mask;
+    }
+
+    public long bookingMask(List<BookingAmenity> bookingAmenities) {
+        if(bookingAmenities == null) return 0;
+        long mask = 0;
+        for(int i = 0; i < bookingAmenities.size(); i++) mask |= bit(bookingAmenities.get(i).getAmenity());
+        return mask;
+    }
+
+    private synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if(id != null) return id;
+        if(ids.size() == MAX_AMENITIES) throw new AmenityLimitExceededException(MAX_AMENITIES);
+        int newId = ids.size();
+        ids.put(name, newId);
+        return newId;
+    }
+}
@@ -0,0 +1,286 @@
+package com.hotel.reservation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Reservation calendar of a single room, stored as a bitset keyed by epoch day.
+ * A set bit means the night starting on that day is reserved, so a stay of n days
+ * starting on day d occupies the half open range [d, d + n).
+ *
+ * Using epoch days instead of (year, dayOfYear) pairs means leap years and stays
+ * that cross a year boundary need no special handling. Range checks and updates work
+ * a 64 bit word at a time and do not allocate unless the calendar has to grow.
+ *
+ * Each calendar has its own lock, so reservations on different rooms never contend.
+ * Availability checks are optimistic reads and only fall back to the read lock
+ * when a reservation for the same room raced with them.
+ *
+ * Reservations spanning several calendars lock all of them in the order the calendars were
+ * created, so two such reservations always lock shared calendars in the same order and cannot deadlock.
+ *
+ * Releasing nights clears their bits, so a cancelled or moved stay costs the same few word
+ * operations as booking it and the rest of the calendar is left alone.
+ *
+ * A room's whole booking history can be loaded with reserveEach, which sizes the calendar once.
+ */
+public class AvailabilityCalendar {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long WORD_MASK = -1L;
+
+    private static final AtomicLong NEXT_LOCK_ORDER = new AtomicLong();
+
+    private final StampedLock lock = new StampedLock();
+    private final long lockOrder = NEXT_LOCK_ORDER.getAndIncrement();
+
+    // Epoch day represented by bit 0 of words[0], always a multiple of 64
+    private long origin;
+    private long[] words = new long[0];
+
+    public boolean isFree(long startDay, int numberOfDays) {
+        if(numberOfDays <= 0) return true;
+
+        long stamp = lock.tryOptimisticRead();
+        boolean free = isFree(words, origin, startDay, numberOfDays);
+        if(lock.validate(stamp)) return free;
+
+        stamp = lock.readLock();
+        try {
+            return isFree(words, origin, startDay, numberOfDays);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean isReserved(long day) {
+        long stamp = lock.readLock();
+        try {
+            long bit = day - origin;
+            if(bit < 0 || bit >= ((long) words.length << ADDRESS_BITS_PER_WORD)) return false;
+            return (words[(int) (bit >>> ADDRESS_BITS_PER_WORD)] & (1L << bit)) != 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Atomically reserves every night of the range if all of them are free.
+     * Returns false and leaves the calendar untouched otherwise.
+     */
+    public boolean reserve(long startDay, int numberOfDays) {
+        if(numberOfDays <= 0) return true;
+
+        long stamp = lock.writeLock();
+        try {
+            return reserveLocked(startDay, numberOfDays);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Atomically reserves range i on calendars[i] for every i if all of the ranges are free,
+     * including of each other when several ranges are on the same calendar.
+     * Returns false and leaves every calendar untouched otherwise.
+     */
+    public static boolean reserveAll(AvailabilityCalendar[] calendars, long[] startDays, int[] numberOfDays) {
+        int count = calendars.length;
+        Integer[] lockOrder = new Integer[count];
+        for(int i = 0; i < count; i++) lockOrder[i] = i;
+        Arrays.sort(lockOrder, Comparator.comparingLong(i -> calendars[i].lockOrder));
+
+        long[] stamps = new long[count];
+        for(int i = 0; i < count; i++) {
+            AvailabilityCalendar calendar = calendars[lockOrder[i]];
+            if(i == 0 || calendar != calendars[lockOrder[i - 1]]) stamps[i] = calendar.lock.writeLock();
+        }
+        try {
+            int reserved = 0;
+            while(reserved < count && calendars[reserved].reserveLocked(startDays[reserved], numberOfDays[reserved])) reserved++;
+            if(reserved == count) return true;
+
+            // Undo in reverse, nobody could see these nights while the locks were held
+            for(int i = reserved - 1; i >= 0; i--) calendars[i].releaseLocked(startDays[i], numberOfDays[i]);
+            return false;
+        } finally {
+            for(int i = count - 1; i >= 0; i--) {
+                if(stamps[i] != 0) calendars[lockOrder[i]].lock.unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Reserves the first count ranges one after the other, skipping any range that is not free,
+     * including ranges taken by an earlier one of them. reserved[i] tells whether range i was
+     * reserved. The calendar is grown once to cover all of the ranges and locked once, so loading
+     * a room's booking history costs one pass over its words. Returns the number of ranges reserved.
+     */
+    public int reserveEach(long[] startDays, int[] numberOfDays, int count, boolean[] reserved) {
+        long fromDay = Long.MAX_VALUE;
+        long toDay = Long.MIN_VALUE;
+        for(int i = 0; i < count; i++) {
+            if(numberOfDays[i] <= 0) continue;
+            fromDay = Math.min(fromDay, startDays[i]);
+            toDay = Math.max(toDay, startDays[i] + numberOfDays[i]);
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if(fromDay < toDay) ensureCapacity(fromDay, toDay);
+            int reservedCount = 0;
+            for(int i = 0; i < count; i++) {
+                reserved[i] = reserveLocked(startDays[i], numberOfDays[i]);
+                if(reserved[i]) reservedCount++;
+            }
+            return reservedCount;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Frees every night of the range, whether or not it was reserved.
+     */
+    public void release(long startDay, int numberOfDays) {
+        if(numberOfDays <= 0) return;
+
+        long stamp = lock.writeLock();
+        try {
+            releaseLocked(startDay, numberOfDays);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Atomically moves a stay from the range [fromStartDay, fromStartDay + fromNumberOfDays) on the
+     * from calendar to the range [toStartDay, toStartDay + toNumberOfDays) on the to calendar, which
+     * may be the same calendar. The new range may overlap the old one. Returns false and leaves both
+     * calendars untouched if any night of the new range is taken by another stay.
+     */
+    public static boolean move(AvailabilityCalendar from, long fromStartDay, int fromNumberOfDays,
+                               AvailabilityCalendar to, long toStartDay, int toNumberOfDays) {
+        AvailabilityCalendar first = from.lockOrder <= to.lockOrder ? from : to;
+        AvailabilityCalendar second = first == from ? to : from;
+        long firstStamp = first.lock.writeLock();
+        long secondStamp = second != first ? second.lock.writeLock() : 0;
+        try {
+            from.releaseLocked(fromStartDay, fromNumberOfDays);
+            if(to.reserveLocked(toStartDay, toNumberOfDays)) return true;
+
+            // The old nights were the stay's own, so nobody else can have taken them meanwhile
+            from.reserveLocked(fromStartDay, fromNumberOfDays);
+            return false;
+        } finally {
+            if(secondStamp != 0) second.lock.unlockWrite(secondStamp);
+            first.lock.unlockWrite(firstStamp);
+        }
+    }
+
+    public int reservedDays() {
+        long stamp = lock.readLock();
+        try {
+            int count = 0;
+            for(long word : words) count += Long.bitCount(word);
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean reserveLocked(long startDay, int numberOfDays) {
+        if(numberOfDays <= 0) return true;
+        if(!isFree(words, origin, startDay, numberOfDays)) return false;
+        long endDay = startDay + numberOfDays;
+        ensureCapacity(startDay, endDay);
+        setRange(startDay - origin, endDay - origin);
+        return true;
+    }
+
+    private void releaseLocked(long startDay, int numberOfDays) {
+        if(numberOfDays <= 0) return;
+        // Nights outside of the array were never reserved
+        long fromDay = Math.max(startDay, origin);
+        long toDay = Math.min(startDay + numberOfDays, origin + ((long) words.length << ADDRESS_BITS_PER_WORD));
+        if(fromDay < toDay) clearRange(fromDay - origin, toDay - origin);
+    }
+
+    // Works on a snapshot of the fields so that a torn optimistic read can give a wrong answer,
+    // which the caller discards, but never index outside of the array it was given
+    private static boolean isFree(long[] words, long origin, long startDay, int numberOfDays) {
+        long endDay = startDay + numberOfDays;
+        long limit = origin + ((long) words.length << ADDRESS_BITS_PER_WORD);
+        if(endDay <= origin || startDay >= limit) return true;
+        return !anySet(words, Math.max(startDay, origin) - origin, Math.min(endDay, limit) - origin);
+    }
+
+    private static boolean anySet(long[] words, long fromBit, long toBit) {
+        int fromWord = (int) (fromBit >>> ADDRESS_BITS_PER_WORD);
+        int toWord = (int) ((toBit - 1) >>> ADDRESS_BITS_PER_WORD);
+        long firstMask = WORD_MASK << fromBit;
+        long lastMask = WORD_MASK >>> -toBit;
+        if(fromWord == toWord) return (words[fromWord] & firstMask & lastMask) != 0;
+
+        if((words[fromWord] & firstMask) != 0) return true;
+        for(int i = fromWord + 1; i < toWord; i++) {
+            if(words[i] != 0) return true;
+        }
+        return (words[toWord] & lastMask) != 0;
+    }
+
+    private void setRange(long fromBit, long toBit) {
+        int fromWord = (int) (fromBit >>> ADDRESS_BITS_PER_WORD);
+        int toWord = (int) ((toBit - 1) >>> ADDRESS_BITS_PER_WORD);
+        long firstMask = WORD_MASK << fromBit;
+        long lastMask = WORD_MASK >>> -toBit;
+        if(fromWord == toWord) {
+            words[fromWord] |= firstMask & lastMask;
+            return;
+        }
+        words[fromWord] |= firstMask;
+        for(int i = fromWord + 1; i < toWord; i++) words[i] = WORD_MASK;
+        words[toWord] |= lastMask;
+    }
+
+    private void clearRange(long fromBit, long toBit) {
+        int fromWord = (int) (fromBit >>> ADDRESS_BITS_PER_WORD);
+        int toWord = (int) ((toBit - 1) >>> ADDRESS_BITS_PER_WORD);
+        long firstMask = WORD_MASK << fromBit;
+        long lastMask = WORD_MASK >>> -toBit;
+        if(fromWord == toWord) {
+            words[fromWord] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[fromWord] &= ~firstMask;
+        for(int i = fromWord + 1; i < toWord; i++) words[i] = 0;
+        words[toWord] &= ~lastMask;
+    }
+
+    private void ensureCapacity(long startDay, long endDay) {
+        if(words.length == 0) {
+            origin = startDay & -BITS_PER_WORD;
+            words = new long[wordsFor(endDay - origin)];
+            return;
+        }
+
+        long newOrigin = Math.min(origin, startDay & -BITS_PER_WORD);
+        long limit = origin + ((long) words.length << ADDRESS_BITS_PER_WORD);
+        if(newOrigin == origin && endDay <= limit) return;
+
+        int shift = (int) ((origin - newOrigin) >>> ADDRESS_BITS_PER_WORD);
+        int required = wordsFor(Math.max(endDay, limit) - newOrigin);
+        // Grow by at least half again so that booking further ahead amortizes the copies
+        long[] grown = new long[Math.max(required, words.length + (words.length >> 1))];
+        System.arraycopy(words, 0, grown, shift, words.length);
+        words = grown;
+        origin = newOrigin;
+    }
+
+    private static int wordsFor(long bits) {
+        return (int) ((bits + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD);
+    }
+}
@@ -0,0 +1,88 @@
+package com.hotel.reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hotel.reservation.Utilities.Validatator.*;
+
+/**
+ * An availability search whose arguments have been validated, built once per request.
+ * Everything downstream of the query, the search cache, the room index and pricing, takes
+ * it as is and does not check the arguments again.
+ */
+public final class AvailabilityQuery {
+
+    private final LocalDate startDate;
+    private final long startDay;
+    private final int numberOfDays;
+    private final int numberOfBeds;
+    private final boolean handicapAccessible;
+    private final List<Amenity> amenities;
+    private final long amenityMask;
+
+    private AvailabilityQuery(LocalDate startDate, int numberOfDays, int numberOfBeds, boolean handicapAccessible, List<Amenity> amenities, long amenityMask) {
+        this.startDate = startDate;
+        this.startDay = startDate.toEpochDay();
+        this.numberOfDays = numberOfDays;
+        this.numberOfBeds = numberOfBeds;
+        this.handicapAccessible = handicapAccessible;
+        this.amenities = amenities;
+        this.amenityMask = amenityMask;
+    }
+
+    /**
+     * Validates the search against today's date and returns it as a query, with the amenities' bits
+     * taken from the registry of the hotel it searches.
+     */
+    public static AvailabilityQuery of(LocalDate startDate,
+                                       int numberOfDays,
+                                       int numberOfBeds,
+                                       boolean handicapAccessible,
+                                       List<Amenity> amenities,
+                                       LocalDate today,
+                                       AmenityRegistry amenityRegistry) {
+        validateStartDate(startDate, today);
+        validateNumberOfDays(numberOfDays);
+        validateNumberOfBeds(numberOfBeds);
+        validateAmenitiesList(amenities);
+
+        List<Amenity> requestedAmenities = amenities.isEmpty()
+                ? Collections.<Amenity>emptyList()
+                : Collections.unmodifiableList(new ArrayList<Amenity>(amenities));
+        return new AvailabilityQuery(startDate, numberOfDays, numberOfBeds, handicapAccessible, requestedAmenities,
+                amenityRegistry.mask(requestedAmenities));
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public long getStartDay() {
+        return startDay;
+    }
+
+    public int getNumberOfDays() {
+        return numberOfDays;
+    }
+
+    public int getNumberOfBeds() {
+        return numberOfBeds;
+    }
+
+    public boolean isHandicapAccessible() {
+        return handicapAccessible;
+    }
+
+    public List<Amenity> getAmenities() {
+        return amenities;
+    }
+
+    /**
+     * Bits of the requested amenities in the hotel's AmenityRegistry.
+     */
+    public long getAmenityMask() {
+        return amenityMask;
+    }
+}
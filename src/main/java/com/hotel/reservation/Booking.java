@@ -1,26 +1,50 @@
 package com.hotel.reservation;
 
 import com.hotel.reservation.Utilities.CostCalculator;
+import com.hotel.reservation.Utilities.Money;
+import com.hotel.reservation.Utilities.RatePlan;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * A booking is identified by its id. Everything but the price is fixed when it is made, a modified
+ * booking is a new Booking with the same id. The price is held in cents and only turned into a
+ * BigDecimal when asked for, at the API boundary.
+ */
 @Data
+@EqualsAndHashCode(of = "bookingId")
+@ToString(of = {"bookingId", "startDate", "numberOfDays"})
 public class Booking {
-    private UUID bookingId;
-    private LocalDate startDate;
-    private int numberOfDays;
-    private User user;
-    private BigDecimal totalCost;
-    private Room room;
-    private List<BookingAmenity> bookingAmenities;
+    private final UUID bookingId;
+    private final LocalDate startDate;
+    private final int numberOfDays;
+    private final User user;
+    private final Room room;
+    private final List<BookingAmenity> bookingAmenities;
+    @Setter(AccessLevel.NONE)
+    private long totalCents;
 
+    /**
+     * ratePlan is the plan of the hotel the booking is made in, the standard plan if it is null.
+     */
     @Builder
-    public Booking(UUID bookingId, LocalDate startDate, int numberOfDays, User user, Room room, List<BookingAmenity> bookingAmenities) {
+    public Booking(UUID bookingId,
+                   LocalDate startDate,
+                   int numberOfDays,
+                   User user,
+                   Room room,
+                   List<BookingAmenity> bookingAmenities,
+                   int occupancyPercent,
+                   RatePlan ratePlan) {
         this.bookingId = bookingId;
         this.startDate = startDate;
         this.numberOfDays = numberOfDays;
@@ -28,24 +52,26 @@ public class Booking {
         this.room = room;
         this.bookingAmenities = bookingAmenities;
         checkAmenityCompatibility();
-        calculateTotalCost();
-        updateRoomAvailablity();
+        calculateTotalCost(ratePlan != null ? ratePlan : RatePlan.STANDARD, occupancyPercent);
     }
 
     private void checkAmenityCompatibility() {
-        for(Amenity restrictedAmenity: room.getRestrictedAmenities()) {
-            for(BookingAmenity bookingAmenity: bookingAmenities) {
-                if(bookingAmenity.getAmenity().getName() == restrictedAmenity.getName())
-                    throw new IllegalArgumentException("The amenity requested is not available for this room");
-            }
-        }
+        if((room.getAmenityRegistry().bookingMask(bookingAmenities) & room.getRestrictedAmenityMask()) != 0)
+            throw new ReservationRejectedException(RejectionReason.AMENITY_RESTRICTED, "The amenity requested is not available for this room");
     }
 
-    private void calculateTotalCost(){
-        totalCost = CostCalculator.calculateTotalCosts(room, bookingAmenities, numberOfDays);
+    public BigDecimal getTotalCost() {
+        return Money.toBigDecimal(totalCents);
     }
 
-    private void updateRoomAvailablity() {
-        room.updateAvailability(startDate, numberOfDays);
+    /**
+     * Keeps the price the booking was made at when it is restored, rather than today's price.
+     */
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCents = Money.toCents(totalCost);
+    }
+
+    private void calculateTotalCost(RatePlan ratePlan, int occupancyPercent){
+        totalCents = CostCalculator.calculateTotalCents(ratePlan, room, bookingAmenities, startDate.toEpochDay(), numberOfDays, occupancyPercent);
     }
 }
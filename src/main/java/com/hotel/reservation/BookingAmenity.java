@@ -11,7 +11,8 @@ public class BookingAmenity {
 
     public BookingAmenity(Amenity amenity, int count) {
         this.amenity = amenity;
-        if(count > amenity.limit) throw new IllegalArgumentException("Amenity count exceeds limit");
+        if(count > amenity.limit)
+            throw new ReservationRejectedException(RejectionReason.AMENITY_LIMIT_EXCEEDED, "Amenity count exceeds limit");
         this.count = count;
     }
 }
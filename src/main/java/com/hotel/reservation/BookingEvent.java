@@ -0,0 +1,100 @@
+package com.hotel.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A change to the hotel's bookings or rooms, as handed to the BookingEventPublisher.
+ *
+ * Events are flat copies of what changed rather than references to the bookings and rooms,
+ * so they can be written to a file and read back without the hotel. A modification carries
+ * the stay it replaced in the previous fields, so consumers can give those nights back.
+ * The sequence is set by the publisher, in the order events were published.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEvent {
+
+    public enum Type {
+        BOOKING_CREATED,
+        BOOKING_CANCELLED,
+        BOOKING_MODIFIED,
+        // A room was added or replaced
+        INVENTORY_CHANGED,
+        // The EventBus dropped droppedEvents events since the last one of these, because the ring was full
+        EVENTS_DROPPED
+    }
+
+    private long sequence;
+    private Type type;
+    private long timestampMillis;
+
+    private UUID bookingId;
+    private UUID userId;
+    private int roomNo;
+    private LocalDate startDate;
+    private int numberOfDays;
+    private long totalCents;
+
+    private Integer previousRoomNo;
+    private LocalDate previousStartDate;
+    private Integer previousNumberOfDays;
+
+    private Integer floorNumber;
+    private Integer numberOfBeds;
+
+    private Long droppedEvents;
+
+    public static BookingEvent created(Booking booking) {
+        return of(Type.BOOKING_CREATED, booking).build();
+    }
+
+    public static BookingEvent cancelled(Booking booking) {
+        return of(Type.BOOKING_CANCELLED, booking).build();
+    }
+
+    public static BookingEvent modified(Booking previous, Booking modified) {
+        return of(Type.BOOKING_MODIFIED, modified)
+                .previousRoomNo(previous.getRoom().getRoomNo())
+                .previousStartDate(previous.getStartDate())
+                .previousNumberOfDays(previous.getNumberOfDays())
+                .build();
+    }
+
+    public static BookingEvent inventoryChanged(Room room) {
+        return BookingEvent.builder()
+                .type(Type.INVENTORY_CHANGED)
+                .timestampMillis(System.currentTimeMillis())
+                .roomNo(room.getRoomNo())
+                .floorNumber(room.getFloor().getFloorNumber())
+                .numberOfBeds(room.getNumberOfBeds())
+                .build();
+    }
+
+    public static BookingEvent eventsDropped(long count) {
+        return BookingEvent.builder()
+                .type(Type.EVENTS_DROPPED)
+                .timestampMillis(System.currentTimeMillis())
+                .droppedEvents(count)
+                .build();
+    }
+
+    private static BookingEventBuilder of(Type type, Booking booking) {
+        return BookingEvent.builder()
+                .type(type)
+                .timestampMillis(System.currentTimeMillis())
+                .bookingId(booking.getBookingId())
+                .userId(booking.getUser() != null ? booking.getUser().getUserId() : null)
+                .roomNo(booking.getRoom().getRoomNo())
+                .startDate(booking.getStartDate())
+                .numberOfDays(booking.getNumberOfDays())
+                .totalCents(booking.getTotalCents());
+    }
+}
@@ -0,0 +1,18 @@
+package com.hotel.reservation;
+
+/**
+ * Receives every change the Hotel makes to its bookings and rooms, see BookingEvent.
+ * The Hotel publishes from the thread that made the change, once the change is done,
+ * so implementations must be thread safe and must not block. NONE drops every event.
+ *
+ * Bookings put back with restoreReservation or restoreReservations are not published,
+ * they were published when they were made. Nothing is published while HotelJournal.recover
+ * rebuilds the hotel, although replaying the journal adds rooms and cancels and modifies bookings.
+ */
+public interface BookingEventPublisher {
+
+    BookingEventPublisher NONE = event -> {
+    };
+
+    void publish(BookingEvent event);
+}
@@ -0,0 +1,95 @@
+package com.hotel.reservation;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the bookings of a hotel, for the questions the front desk and guests ask:
+ * the bookings of a user, who is in a room on a given night, and who arrives or leaves on a day.
+ *
+ * Every index is a concurrent map, so bookings are added from many threads without a lock and
+ * lookups never block. The bookings of a user and of a day are kept in booking id order, which
+ * for time ordered ids is the order they were made in.
+ *
+ * Stays in one room never overlap, so the stays of a room are kept by their first night and the
+ * stay covering a night is the last one starting on or before it, found in logarithmic time.
+ */
+public class BookingIndex {
+
+    private final Map<UUID, ConcurrentNavigableMap<UUID, Booking>> bookingsByUser = new ConcurrentHashMap<UUID, ConcurrentNavigableMap<UUID, Booking>>();
+    private final Map<Integer, ConcurrentNavigableMap<Long, Booking>> staysByRoom = new ConcurrentHashMap<Integer, ConcurrentNavigableMap<Long, Booking>>();
+    private final Map<Long, ConcurrentNavigableMap<UUID, Booking>> arrivalsByDay = new ConcurrentHashMap<Long, ConcurrentNavigableMap<UUID, Booking>>();
+    private final Map<Long, ConcurrentNavigableMap<UUID, Booking>> departuresByDay = new ConcurrentHashMap<Long, ConcurrentNavigableMap<UUID, Booking>>();
+
+    public void add(Booking booking) {
+        long startDay = booking.getStartDate().toEpochDay();
+        if(booking.getUser() != null && booking.getUser().getUserId() != null)
+            bookingsByUser.computeIfAbsent(booking.getUser().getUserId(), k -> new ConcurrentSkipListMap<UUID, Booking>()).put(booking.getBookingId(), booking);
+        // A stay of no nights has the room for no night, and may start on the same day as another stay
+        if(booking.getNumberOfDays() > 0)
+            staysByRoom.computeIfAbsent(booking.getRoom().getRoomNo(), k -> new ConcurrentSkipListMap<Long, Booking>()).put(startDay, booking);
+        arrivalsByDay.computeIfAbsent(startDay, k -> new ConcurrentSkipListMap<UUID, Booking>()).put(booking.getBookingId(), booking);
+        departuresByDay.computeIfAbsent(startDay + booking.getNumberOfDays(), k -> new ConcurrentSkipListMap<UUID, Booking>()).put(booking.getBookingId(), booking);
+    }
+
+    public void remove(Booking booking) {
+        long startDay = booking.getStartDate().toEpochDay();
+        if(booking.getUser() != null && booking.getUser().getUserId() != null)
+            removeFrom(bookingsByUser.get(booking.getUser().getUserId()), booking.getBookingId(), booking);
+        removeFrom(staysByRoom.get(booking.getRoom().getRoomNo()), startDay, booking);
+        removeFrom(arrivalsByDay.get(startDay), booking.getBookingId(), booking);
+        removeFrom(departuresByDay.get(startDay + booking.getNumberOfDays()), booking.getBookingId(), booking);
+    }
+
+    public List<Booking> findByUser(UUID userId) {
+        return values(bookingsByUser.get(userId));
+    }
+
+    /**
+     * The booking whose stay in the room includes the night starting on the given date, or null if there is none.
+     */
+    public Booking findByRoomAndNight(int roomNo, LocalDate night) {
+        NavigableMap<Long, Booking> stays = staysByRoom.get(roomNo);
+        if(stays == null) return null;
+        long day = night.toEpochDay();
+        Map.Entry<Long, Booking> stay = stays.floorEntry(day);
+        if(stay == null || day >= stay.getKey() + stay.getValue().getNumberOfDays()) return null;
+        return stay.getValue();
+    }
+
+    /**
+     * Stays in the room overlapping the nights [from, to), in the order of their first night.
+     */
+    public List<Booking> findByRoom(int roomNo, LocalDate from, LocalDate to) {
+        NavigableMap<Long, Booking> stays = staysByRoom.get(roomNo);
+        if(stays == null) return new ArrayList<Booking>();
+        long fromDay = from.toEpochDay();
+        // A stay that started earlier can still cover the first night
+        Long first = stays.floorKey(fromDay);
+        List<Booking> overlapping = new ArrayList<Booking>();
+        for(Booking booking : stays.subMap(first != null ? first : fromDay, true, to.toEpochDay(), false).values()) {
+            if(booking.getStartDate().toEpochDay() + booking.getNumberOfDays() > fromDay) overlapping.add(booking);
+        }
+        return overlapping;
+    }
+
+    public List<Booking> findArrivals(LocalDate date) {
+        return values(arrivalsByDay.get(date.toEpochDay()));
+    }
+
+    public List<Booking> findDepartures(LocalDate date) {
+        return values(departuresByDay.get(date.toEpochDay()));
+    }
+
+    private static List<Booking> values(Map<?, Booking> bookings) {
+        return bookings == null ? new ArrayList<Booking>() : new ArrayList<Booking>(bookings.values());
+    }
+
+    // Only removes the entry if it is still this booking, the map itself is left in place even when empty
+    private static <K> void removeFrom(Map<K, Booking> bookings, K key, Booking booking) {
+        if(bookings != null) bookings.remove(key, booking);
+    }
+}
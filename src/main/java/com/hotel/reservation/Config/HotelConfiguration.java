@@ -0,0 +1,137 @@
+package com.hotel.reservation.Config;
+
+import com.hotel.reservation.Events.EventBus;
+import com.hotel.reservation.Events.EventFileSink;
+import com.hotel.reservation.AllocationStrategy;
+import com.hotel.reservation.Hotel;
+import com.hotel.reservation.OverbookingAllowance;
+import com.hotel.reservation.ReservationMetrics;
+import com.hotel.reservation.SearchCache;
+import com.hotel.reservation.Persistence.HotelImporter;
+import com.hotel.reservation.Persistence.HotelJournal;
+import com.hotel.reservation.Persistence.WriteBehindStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Wires the Hotel into Spring and sets up the executor the REST handlers run on.
+ * Handlers return futures, so the servlet container's request threads are handed back
+ * as soon as a request is dispatched instead of being held for the whole booking.
+ * Searches of large hotels are split across the search pool.
+ * Also opens the journal changes are recorded in, schedules its snapshots and
+ * reports the hotel's reservation metrics to Micrometer, sets how the waitlist is
+ * allocated and overbooked, and publishes the hotel's booking events on an EventBus.
+ */
+@Configuration
+@EnableScheduling
+public class HotelConfiguration implements WebMvcConfigurer {
+
+    @Value("${hotel.async.pool-size:0}")
+    private int poolSize;
+
+    @Value("${hotel.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${hotel.async.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Bean
+    public Hotel hotel(@Value("${hotel.name:California}") String name,
+                       @Value("${hotel.search-cache.capacity:10000}") int searchCacheCapacity,
+                       @Value("${hotel.search.parallel-threshold-micros:200}") long parallelThresholdMicros,
+                       @Value("${hotel.waitlist.strategy:PRIORITY}") AllocationStrategy allocationStrategy,
+                       @Value("${hotel.overbooking.allowance:}") String overbookingAllowance,
+                       ReservationMetrics reservationMetrics,
+                       ForkJoinPool searchPool,
+                       EventBus eventBus) {
+        Hotel hotel = Hotel.builder()
+                .name(name)
+                .build();
+        hotel.setSearchCache(new SearchCache(searchCacheCapacity));
+        hotel.setReservationMetrics(reservationMetrics);
+        hotel.setEventPublisher(eventBus);
+        hotel.getRoomIndex().setSearchPool(searchPool);
+        hotel.getRoomIndex().setParallelThresholdNanos(parallelThresholdMicros * 1000);
+        hotel.getWaitlist().setStrategy(allocationStrategy);
+        setOverbookingAllowance(hotel.getWaitlist().getOverbookingAllowance(), overbookingAllowance);
+        return hotel;
+    }
+
+    /**
+     * The journal is kept until the WriteBehindStore has saved its changes to the database.
+     */
+    @Bean(destroyMethod = "close")
+    public HotelJournal hotelJournal(@Value("${hotel.journal.directory:journal}") String directory,
+                                     @Value("${hotel.journal.segment-size:67108864}") int segmentSize,
+                                     WriteBehindStore writeBehindStore) {
+        HotelJournal hotelJournal = new HotelJournal(Paths.get(directory), segmentSize);
+        hotelJournal.setFollower(writeBehindStore);
+        return hotelJournal;
+    }
+
+    /**
+     * Bus the hotel publishes its booking events on. With hotel.events.file set every event is
+     * also appended to that file, which EventFileSink.replay reads back.
+     */
+    @Bean(destroyMethod = "close")
+    public EventBus eventBus(@Value("${hotel.events.capacity:65536}") int capacity,
+                             @Value("${hotel.events.batch-size:1024}") int batchSize,
+                             @Value("${hotel.events.file:}") String file) {
+        EventBus eventBus = new EventBus(capacity, batchSize);
+        if(!file.isEmpty()) eventBus.subscribe("file", new EventFileSink(Paths.get(file)));
+        return eventBus;
+    }
+
+    /**
+     * Pool that large availability searches are split across, separate from the common pool
+     * so searches do not compete with parallel streams elsewhere in the application.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool searchPool(@Value("${hotel.search.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imports restore their booking batches on the search pool, split into one part per thread.
+     */
+    @Bean
+    public HotelImporter hotelImporter(ForkJoinPool searchPool,
+                                       @Value("${hotel.import.batch-size:10000}") int batchSize) {
+        return new HotelImporter(searchPool, searchPool.getParallelism(), batchSize);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor bookingExecutor() {
+        int threads = poolSize > 0 ? poolSize : 2 * Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("booking-");
+        return executor;
+    }
+
+    // Allowances are given as numberOfBeds=allowance pairs, separated by commas
+    private static void setOverbookingAllowance(OverbookingAllowance overbookingAllowance, String allowances) {
+        for(String allowance : allowances.split(",")) {
+            if(allowance.trim().isEmpty()) continue;
+            String[] parts = allowance.split("=");
+            if(parts.length != 2) throw new IllegalArgumentException("Invalid overbooking allowance " + allowance);
+            overbookingAllowance.setAllowance(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(bookingExecutor());
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
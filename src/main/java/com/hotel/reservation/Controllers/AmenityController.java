@@ -0,0 +1,31 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Dto.AmenityDto;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/amenities")
+public class AmenityController {
+
+    private final HotelService hotelService;
+
+    public AmenityController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<AmenityDto> addAmenity(@RequestBody AmenityDto amenity) {
+        return hotelService.addAmenity(amenity);
+    }
+
+    @GetMapping
+    public CompletableFuture<List<AmenityDto>> getAmenities() {
+        return hotelService.getAmenities();
+    }
+}
@@ -0,0 +1,33 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.AmenityLimitExceededException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Collections.singletonMap("error", e.getMessage());
+    }
+
+    @ExceptionHandler(AmenityLimitExceededException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> amenityLimitExceeded(AmenityLimitExceededException e) {
+        return Collections.singletonMap("error", e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public Map<String, String> notFound(NoSuchElementException e) {
+        return Collections.singletonMap("error", e.getMessage());
+    }
+}
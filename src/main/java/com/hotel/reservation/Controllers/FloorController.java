@@ -0,0 +1,31 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Dto.FloorDto;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/floors")
+public class FloorController {
+
+    private final HotelService hotelService;
+
+    public FloorController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<FloorDto> addFloor(@RequestBody FloorDto floor) {
+        return hotelService.addFloor(floor);
+    }
+
+    @GetMapping
+    public CompletableFuture<List<FloorDto>> getFloors() {
+        return hotelService.getFloors();
+    }
+}
@@ -0,0 +1,36 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Persistence.HotelImporter;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bulk imports of inventory and booking history. The request body is streamed into the hotel
+ * as it arrives rather than read into memory first.
+ */
+@RestController
+@RequestMapping("/imports")
+public class ImportController {
+
+    private final HotelService hotelService;
+
+    public ImportController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @PostMapping(consumes = "text/csv")
+    public CompletableFuture<HotelImporter.Result> importCsv(InputStream body) {
+        return hotelService.importFile(body, false);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<HotelImporter.Result> importJson(InputStream body) {
+        return hotelService.importFile(body, true);
+    }
+}
@@ -0,0 +1,29 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Dto.OccupancyDto;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/occupancy")
+public class OccupancyController {
+
+    private final HotelService hotelService;
+
+    public OccupancyController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @GetMapping
+    public CompletableFuture<OccupancyDto> getOccupancy(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                        @RequestParam int numberOfDays) {
+        return hotelService.getOccupancy(startDate, numberOfDays);
+    }
+}
@@ -0,0 +1,73 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Dto.BookingDto;
+import com.hotel.reservation.Dto.GroupReservationRequest;
+import com.hotel.reservation.Dto.ReservationRequest;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/reservations")
+public class ReservationController {
+
+    private final HotelService hotelService;
+
+    public ReservationController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<BookingDto> makeReservation(@RequestBody ReservationRequest request) {
+        return hotelService.makeReservation(request);
+    }
+
+    @PostMapping("/group")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<List<BookingDto>> makeReservations(@RequestBody GroupReservationRequest request) {
+        return hotelService.makeReservations(request);
+    }
+
+    @GetMapping
+    public CompletableFuture<List<BookingDto>> findBookings(@RequestParam UUID userId) {
+        return hotelService.findBookings(userId);
+    }
+
+    @GetMapping("/rooms/{roomNo}")
+    public CompletableFuture<BookingDto> findGuest(@PathVariable int roomNo,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate night) {
+        return hotelService.findGuest(roomNo, night);
+    }
+
+    @GetMapping("/arrivals")
+    public CompletableFuture<List<BookingDto>> findArrivals(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return hotelService.findArrivals(date);
+    }
+
+    @GetMapping("/departures")
+    public CompletableFuture<List<BookingDto>> findDepartures(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return hotelService.findDepartures(date);
+    }
+
+    @GetMapping("/{bookingId}")
+    public CompletableFuture<BookingDto> getBooking(@PathVariable UUID bookingId) {
+        return hotelService.getBooking(bookingId);
+    }
+
+    @PutMapping("/{bookingId}")
+    public CompletableFuture<BookingDto> modifyReservation(@PathVariable UUID bookingId, @RequestBody ReservationRequest request) {
+        return hotelService.modifyReservation(bookingId, request);
+    }
+
+    @DeleteMapping("/{bookingId}")
+    public CompletableFuture<BookingDto> cancelReservation(@PathVariable UUID bookingId) {
+        return hotelService.cancelReservation(bookingId);
+    }
+}
@@ -0,0 +1,54 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Dto.AddRoomRequest;
+import com.hotel.reservation.SearchCache;
+import com.hotel.reservation.Dto.RoomDto;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/rooms")
+public class RoomController {
+
+    private final HotelService hotelService;
+
+    public RoomController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<RoomDto> addRoom(@RequestBody AddRoomRequest request) {
+        return hotelService.addRoom(request);
+    }
+
+    @GetMapping
+    public CompletableFuture<List<RoomDto>> getRooms() {
+        return hotelService.getRooms();
+    }
+
+    @GetMapping("/{roomNo}")
+    public CompletableFuture<RoomDto> getRoom(@PathVariable int roomNo) {
+        return hotelService.getRoom(roomNo);
+    }
+
+    @GetMapping("/availability")
+    public CompletableFuture<List<RoomDto>> findAvailability(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                             @RequestParam int numberOfDays,
+                                                             @RequestParam int numberOfBeds,
+                                                             @RequestParam(defaultValue = "false") boolean handicapAccessible,
+                                                             @RequestParam(required = false) List<String> amenities) {
+        return hotelService.findAvailability(startDate, numberOfDays, numberOfBeds, handicapAccessible, amenities);
+    }
+
+    @GetMapping("/availability/cache")
+    public CompletableFuture<SearchCache.Stats> getSearchCacheStats() {
+        return hotelService.getSearchCacheStats();
+    }
+}
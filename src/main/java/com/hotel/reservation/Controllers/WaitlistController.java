@@ -0,0 +1,46 @@
+package com.hotel.reservation.Controllers;
+
+import com.hotel.reservation.Dto.OverbookingDto;
+import com.hotel.reservation.Dto.WaitlistEntryDto;
+import com.hotel.reservation.Dto.WaitlistRequest;
+import com.hotel.reservation.Services.HotelService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/waitlist")
+public class WaitlistController {
+
+    private final HotelService hotelService;
+
+    public WaitlistController(HotelService hotelService) {
+        this.hotelService = hotelService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<WaitlistEntryDto> requestReservation(@RequestBody WaitlistRequest request) {
+        return hotelService.requestReservation(request);
+    }
+
+    @GetMapping("/{entryId}")
+    public CompletableFuture<WaitlistEntryDto> getWaitlistEntry(@PathVariable UUID entryId) {
+        return hotelService.getWaitlistEntry(entryId);
+    }
+
+    @DeleteMapping("/{entryId}")
+    public CompletableFuture<WaitlistEntryDto> leaveWaitlist(@PathVariable UUID entryId) {
+        return hotelService.leaveWaitlist(entryId);
+    }
+
+    /**
+     * Overbooked stays are held on the waitlist, so their allowance is set here too.
+     */
+    @PutMapping("/overbooking")
+    public CompletableFuture<OverbookingDto> setOverbookingAllowance(@RequestBody OverbookingDto request) {
+        return hotelService.setOverbookingAllowance(request);
+    }
+}
@@ -0,0 +1,10 @@
+package com.hotel.reservation.Dto;
+
+import lombok.Data;
+
+@Data
+public class AddRoomRequest {
+    private int roomNo;
+    private int floorNumber;
+    private int numberOfBeds;
+}
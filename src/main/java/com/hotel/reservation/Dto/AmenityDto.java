@@ -0,0 +1,30 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.Amenity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmenityDto {
+    private String name;
+    private int limit;
+    private BigDecimal cost;
+    // Units the hotel owns, null when it does not limit them
+    private Integer capacity;
+
+    public static AmenityDto from(Amenity amenity) {
+        return AmenityDto.builder()
+                .name(amenity.getName())
+                .limit(amenity.getLimit())
+                .cost(amenity.getCost())
+                .capacity(amenity.getInventory().isLimited() ? amenity.getCapacity() : null)
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.BookingAmenity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingAmenityDto {
+    private String name;
+    private int count;
+
+    public static BookingAmenityDto from(BookingAmenity bookingAmenity) {
+        return BookingAmenityDto.builder()
+                .name(bookingAmenity.getAmenity().getName())
+                .count(bookingAmenity.getCount())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.Booking;
+import com.hotel.reservation.BookingAmenity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDto {
+    private UUID bookingId;
+    private int roomNo;
+    private LocalDate startDate;
+    private int numberOfDays;
+    private UUID userId;
+    private BigDecimal totalCost;
+    private List<BookingAmenityDto> amenities;
+
+    public static BookingDto from(Booking booking) {
+        List<BookingAmenityDto> amenities = new ArrayList<BookingAmenityDto>();
+        for(BookingAmenity bookingAmenity : booking.getBookingAmenities()) amenities.add(BookingAmenityDto.from(bookingAmenity));
+        return BookingDto.builder()
+                .bookingId(booking.getBookingId())
+                .roomNo(booking.getRoom().getRoomNo())
+                .startDate(booking.getStartDate())
+                .numberOfDays(booking.getNumberOfDays())
+                .userId(booking.getUser().getUserId())
+                .totalCost(booking.getTotalCost())
+                .amenities(amenities)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.Amenity;
+import com.hotel.reservation.Floor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorDto {
+    private int floorNumber;
+    private boolean handicapAccessible;
+    private List<String> restrictedAmenities;
+
+    public static FloorDto from(Floor floor) {
+        List<String> restrictedAmenities = new ArrayList<String>();
+        if(floor.getRestrictedAmenities() != null) {
+            for(Amenity amenity : floor.getRestrictedAmenities()) restrictedAmenities.add(amenity.getName());
+        }
+        return FloorDto.builder()
+                .floorNumber(floor.getFloorNumber())
+                .handicapAccessible(floor.isHandicapAccessible())
+                .restrictedAmenities(restrictedAmenities)
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.hotel.reservation.Dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class GroupReservationRequest {
+    private List<StayDto> stays = new ArrayList<StayDto>();
+    private UUID userId;
+    private String firstName;
+    private String lastName;
+}
@@ -0,0 +1,40 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.OccupancyAggregate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Occupancy of the nights from startDate up to endDate, from 0 to 1, with the rooms booked
+ * each night by floor and by number of beds.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyDto {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double occupancy;
+    private Map<Integer, Double> occupancyByFloor;
+    private Map<Integer, Double> occupancyByBeds;
+    private Map<Integer, int[]> roomsBookedByFloor;
+    private Map<Integer, int[]> roomsBookedByBeds;
+
+    public static OccupancyDto from(OccupancyAggregate occupancy, LocalDate startDate, LocalDate endDate) {
+        return OccupancyDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .occupancy(occupancy.occupancy(startDate, endDate))
+                .occupancyByFloor(occupancy.occupancyByFloor(startDate, endDate))
+                .occupancyByBeds(occupancy.occupancyByBeds(startDate, endDate))
+                .roomsBookedByFloor(occupancy.heatmapByFloor(startDate, endDate))
+                .roomsBookedByBeds(occupancy.heatmapByBeds(startDate, endDate))
+                .build();
+    }
+}
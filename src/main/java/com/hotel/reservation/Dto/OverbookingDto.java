@@ -0,0 +1,21 @@
+package com.hotel.reservation.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Overbooking allowance for a number of beds, for every night or, with night set, for that night only.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverbookingDto {
+    private int numberOfBeds;
+    private LocalDate night;
+    private int allowance;
+}
@@ -0,0 +1,19 @@
+package com.hotel.reservation.Dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class ReservationRequest {
+    private int roomNo;
+    private LocalDate startDate;
+    private int numberOfDays;
+    private List<BookingAmenityDto> amenities = new ArrayList<BookingAmenityDto>();
+    private UUID userId;
+    private String firstName;
+    private String lastName;
+}
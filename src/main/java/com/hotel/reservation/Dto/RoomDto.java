@@ -0,0 +1,45 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.Room;
+import com.hotel.reservation.Utilities.RatePlan;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * What clients see of a room. Deliberately leaves out the room's availability calendar and floor graph.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomDto {
+    private int roomNo;
+    private int floorNumber;
+    private int numberOfBeds;
+    private boolean handicapAccessible;
+    private BigDecimal nightlyRate;
+    // Price of the searched stay, only set on search results
+    private BigDecimal stayCost;
+
+    /**
+     * ratePlan is the plan of the room's hotel, the nightly rate is taken from it.
+     */
+    public static RoomDto from(Room room, RatePlan ratePlan) {
+        return from(room, ratePlan, null);
+    }
+
+    public static RoomDto from(Room room, RatePlan ratePlan, BigDecimal stayCost) {
+        return RoomDto.builder()
+                .roomNo(room.getRoomNo())
+                .floorNumber(room.getFloor().getFloorNumber())
+                .numberOfBeds(room.getNumberOfBeds())
+                .handicapAccessible(room.isHandicapAccessible())
+                .nightlyRate(room.calculateCost(ratePlan))
+                .stayCost(stayCost)
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.hotel.reservation.Dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StayDto {
+    private int roomNo;
+    private LocalDate startDate;
+    private int numberOfDays;
+    private List<BookingAmenityDto> amenities = new ArrayList<BookingAmenityDto>();
+}
@@ -0,0 +1,58 @@
+package com.hotel.reservation.Dto;
+
+import com.hotel.reservation.Booking;
+import com.hotel.reservation.WaitlistEntry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A stay asked for by kind of room. The booking is only set once the stay is ALLOCATED.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDto {
+    private UUID entryId;
+    private WaitlistEntry.Status status;
+    private LocalDate startDate;
+    private int numberOfDays;
+    private int numberOfBeds;
+    private boolean handicapAccessible;
+    private int priority;
+    private BookingDto booking;
+
+    public static WaitlistEntryDto from(WaitlistEntry entry) {
+        Booking booking = entry.getBooking();
+        return WaitlistEntryDto.builder()
+                .entryId(entry.getEntryId())
+                .status(entry.getStatus())
+                .startDate(entry.getStartDate())
+                .numberOfDays(entry.getNumberOfDays())
+                .numberOfBeds(entry.getQuery().getNumberOfBeds())
+                .handicapAccessible(entry.getQuery().isHandicapAccessible())
+                .priority(entry.getPriority())
+                .booking(booking != null ? BookingDto.from(booking) : null)
+                .build();
+    }
+
+    /**
+     * An entry that has left the waitlist with the booking made for it, which has the entry's id.
+     */
+    public static WaitlistEntryDto allocated(Booking booking) {
+        return WaitlistEntryDto.builder()
+                .entryId(booking.getBookingId())
+                .status(WaitlistEntry.Status.ALLOCATED)
+                .startDate(booking.getStartDate())
+                .numberOfDays(booking.getNumberOfDays())
+                .numberOfBeds(booking.getRoom().getNumberOfBeds())
+                .handicapAccessible(booking.getRoom().isHandicapAccessible())
+                .booking(BookingDto.from(booking))
+                .build();
+    }
+}
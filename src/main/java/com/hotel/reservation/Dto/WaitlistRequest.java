@@ -0,0 +1,21 @@
+package com.hotel.reservation.Dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class WaitlistRequest {
+    private LocalDate startDate;
+    private int numberOfDays;
+    private int numberOfBeds;
+    private boolean handicapAccessible;
+    private List<BookingAmenityDto> amenities = new ArrayList<BookingAmenityDto>();
+    private int priority;
+    private UUID userId;
+    private String firstName;
+    private String lastName;
+}
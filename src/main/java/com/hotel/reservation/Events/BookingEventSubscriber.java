@@ -0,0 +1,17 @@
+package com.hotel.reservation.Events;
+
+import com.hotel.reservation.BookingEvent;
+
+import java.util.List;
+
+/**
+ * Consumer of the events on an EventBus. Each subscriber is called from a thread of its own.
+ */
+public interface BookingEventSubscriber {
+
+    /**
+     * The next events in the order they were published, never empty and at most the bus's
+     * batch size. The list is only valid until the call returns.
+     */
+    void onEvents(List<BookingEvent> events);
+}
@@ -0,0 +1,251 @@
+package com.hotel.reservation.Events;
+
+import com.hotel.reservation.BookingEvent;
+import com.hotel.reservation.BookingEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In process publish/subscribe bus for booking events, on a bounded ring buffer in the style of
+ * the LMAX Disruptor.
+ *
+ * A publisher claims the next sequence with a compare and set on the cursor, stores the event in
+ * its slot and marks the slot as published, so publishing takes no lock and never waits. A slot
+ * is only reused once every subscriber has moved past it. When the slowest subscriber is a whole
+ * ring behind, the event is dropped and counted instead of holding up the booking thread, so the
+ * capacity should cover the longest burst the slowest subscriber can fall behind by. Dropped events
+ * never get a sequence, so the next event that fits is preceded by an EVENTS_DROPPED event carrying
+ * how many were dropped since the last one. Subscribers that keep state derived from the events,
+ * e.g. counts of bookings, have to rebuild it from the hotel when they see one.
+ *
+ * Every subscriber has its own thread and its own sequence, and is handed all events published
+ * since its last batch, up to the batch size, in publish order. A subscriber that falls behind gets
+ * bigger batches and holds up the ring, which is the back pressure: it never slows down the other
+ * subscribers until the ring is full. Idle subscribers back off from spinning
+ * to parking.
+ *
+ * Closing the bus stops publishing, lets every subscriber take the events still in the ring and
+ * then closes the subscribers that are Closeable.
+ */
+public class EventBus implements BookingEventPublisher, Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(EventBus.class);
+
+    private static final int SPINS = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final BookingEvent[] slots;
+    private final int mask;
+    // published[i] is the sequence last published in slot i
+    private final AtomicLongArray published;
+    private final int batchSize;
+    // Last sequence claimed by a publisher
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+    // Lowest subscriber sequence when last looked at. Subscribers only move forward, so it can be stale but never too high
+    private volatile long cachedGatingSequence = -1;
+    private final LongAdder dropped = new LongAdder();
+    // Dropped since the last EVENTS_DROPPED event
+    private final AtomicLong unreported = new AtomicLong();
+    private volatile boolean closed;
+
+    public EventBus(int capacity, int batchSize) {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+        if(batchSize <= 0) throw new IllegalArgumentException("Invalid batch size");
+        this.slots = new BookingEvent[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++) published.set(i, -1);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Delivers every event published from now on to the subscriber, on a thread named after it.
+     */
+    public synchronized Closeable subscribe(String name, BookingEventSubscriber subscriber) {
+        if(closed) throw new IllegalStateException("Event bus is closed");
+        // Publishers are never a ring ahead of any subscriber, so starting at the cursor
+        // cannot make one wait on events this subscriber was never meant to see
+        Subscription subscription = new Subscription(name, subscriber, cursor.get());
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    @Override
+    public void publish(BookingEvent event) {
+        tryPublish(event);
+    }
+
+    /**
+     * Publishes the event, or returns false and drops it when the ring is full or the bus is closed.
+     * Events dropped because the ring was full are reported to subscribers ahead of the next event that fits.
+     */
+    public boolean tryPublish(BookingEvent event) {
+        if(closed) {
+            dropped.increment();
+            return false;
+        }
+        long lost = unreported.get();
+        if(lost > 0 && unreported.compareAndSet(lost, 0) && !claim(BookingEvent.eventsDropped(lost))) {
+            // Still full, report them with the next one
+            unreported.addAndGet(lost);
+        }
+        if(!claim(event)) {
+            dropped.increment();
+            unreported.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // Stores the event in the next slot, or returns false when the slowest subscriber is a whole ring behind
+    private boolean claim(BookingEvent event) {
+        long current;
+        long next;
+        do {
+            current = cursor.get();
+            next = current + 1;
+            long wrapPoint = next - slots.length;
+            if(wrapPoint > cachedGatingSequence) {
+                long gatingSequence = gatingSequence(current);
+                cachedGatingSequence = gatingSequence;
+                if(wrapPoint > gatingSequence) return false;
+            }
+        } while(!cursor.compareAndSet(current, next));
+
+        event.setSequence(next);
+        int index = (int) next & mask;
+        slots[index] = event;
+        // Ordered store, a subscriber that sees the sequence also sees the event
+        published.lazySet(index, next);
+        return true;
+    }
+
+    /**
+     * Events dropped because the ring was full or the bus closed.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Events published and not yet handed to the slowest subscriber.
+     */
+    public long getBacklog() {
+        long current = cursor.get();
+        return current - gatingSequence(current);
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    @Override
+    public void close() {
+        synchronized(this) {
+            if(closed) return;
+            closed = true;
+        }
+        for(Subscription subscription : subscriptions) subscription.close();
+    }
+
+    private long gatingSequence(long current) {
+        long minimum = current;
+        for(Subscription subscription : subscriptions) minimum = Math.min(minimum, subscription.sequence.get());
+        return minimum;
+    }
+
+    private class Subscription implements Runnable, Closeable {
+        private final String name;
+        private final BookingEventSubscriber subscriber;
+        // Last sequence handed to the subscriber
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Subscription(String name, BookingEventSubscriber subscriber, long sequence) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.sequence = new AtomicLong(sequence);
+            this.thread = new Thread(this, "events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<BookingEvent> batch = new ArrayList<BookingEvent>(Math.min(batchSize, slots.length));
+            int idle = 0;
+            while(true) {
+                // Read before the published flags, so when it is false every event published before close is taken
+                boolean stopping = !running;
+                long last = sequence.get();
+                while(batch.size() < batchSize) {
+                    long next = last + 1;
+                    int index = (int) next & mask;
+                    if(published.get(index) != next) break;
+                    batch.add(slots[index]);
+                    last = next;
+                }
+
+                if(batch.isEmpty()) {
+                    if(stopping) break;
+                    idle = backOff(idle);
+                    continue;
+                }
+                idle = 0;
+                try {
+                    subscriber.onEvents(batch);
+                } catch (RuntimeException e) {
+                    log.error("Subscriber {} failed on events {} to {}, skipping them", name, batch.get(0).getSequence(), last, e);
+                }
+                batch.clear();
+                sequence.set(last);
+            }
+
+            if(subscriber instanceof Closeable) {
+                try {
+                    ((Closeable) subscriber).close();
+                } catch (IOException e) {
+                    log.error("Could not close subscriber {}", name, e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            if(thread == Thread.currentThread()) return;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscriptions.remove(this);
+        }
+
+        private int backOff(int idle) {
+            if(idle < SPINS) {
+                Thread.yield();
+            } else {
+                // 16 microseconds doubling up to a millisecond
+                LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 16_000L << Math.min(idle - SPINS, 6)));
+            }
+            return idle + 1;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotel.reservation.Events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hotel.reservation.BookingEvent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subscriber that appends every event to a file, one JSON object per line, and flushes after
+ * each batch. replay reads such a file back and hands the events to another subscriber in the
+ * same order and in batches, e.g. to rebuild a read model or to feed a subscriber in a test.
+ */
+public class EventFileSink implements BookingEventSubscriber, Closeable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Writer writer;
+
+    /**
+     * Appends to the file, creating it and its directory if they do not exist.
+     */
+    public EventFileSink(Path file) {
+        try {
+            if(file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open event file " + file, e);
+        }
+    }
+
+    @Override
+    public void onEvents(List<BookingEvent> events) {
+        try {
+            for(BookingEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.write('\n');
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write events", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Hands the events in the file to the subscriber, batchSize at a time, and returns how many there were.
+     */
+    public static long replay(Path file, BookingEventSubscriber subscriber, int batchSize) {
+        if(batchSize <= 0) throw new IllegalArgumentException("Invalid batch size");
+        long count = 0;
+        List<BookingEvent> batch = new ArrayList<BookingEvent>(batchSize);
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(line.isEmpty()) continue;
+                batch.add(objectMapper.readValue(line, BookingEvent.class));
+                if(batch.size() == batchSize) {
+                    subscriber.onEvents(batch);
+                    count += batch.size();
+                    batch = new ArrayList<BookingEvent>(batchSize);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read event file " + file, e);
+        }
+        if(!batch.isEmpty()) {
+            subscriber.onEvents(batch);
+            count += batch.size();
+        }
+        return count;
+    }
+}
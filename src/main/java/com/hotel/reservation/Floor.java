@@ -1,14 +1,52 @@
 package com.hotel.reservation;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Data
-@Builder
 public class Floor {
     Integer floorNumber;
-    boolean isHandicapAccessible = true;
+    boolean isHandicapAccessible;
+    // Unmodifiable, so the list can only be changed through setRestrictedAmenities
     List<Amenity> restrictedAmenities;
+
+    // Bits of the restricted amenities, kept in step by setRestrictedAmenities
+    @Setter(AccessLevel.NONE)
+    long restrictedAmenityMask;
+
+    // Registry of the hotel the floor belongs to, the mask's bits are ids in it
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    AmenityRegistry amenityRegistry;
+
+    /**
+     * amenityRegistry is the registry of the hotel the floor is added to. A floor built without one
+     * gets a registry of its own, which is enough to check bookings of its rooms against it.
+     */
+    @Builder
+    public Floor(Integer floorNumber, boolean isHandicapAccessible, List<Amenity> restrictedAmenities, AmenityRegistry amenityRegistry) {
+        this.floorNumber = floorNumber;
+        this.isHandicapAccessible = isHandicapAccessible;
+        this.amenityRegistry = amenityRegistry != null ? amenityRegistry : new AmenityRegistry();
+        setRestrictedAmenities(restrictedAmenities);
+    }
+
+    /**
+     * Keeps a copy of the list, changing the list passed in afterwards does not change the floor.
+     */
+    public void setRestrictedAmenities(List<Amenity> restrictedAmenities) {
+        this.restrictedAmenities = restrictedAmenities != null
+                ? Collections.unmodifiableList(new ArrayList<Amenity>(restrictedAmenities))
+                : null;
+        this.restrictedAmenityMask = amenityRegistry.mask(this.restrictedAmenities);
+    }
 }
@@ -10,18 +10,64 @@
  * Restrictions can be set at the floor level and are enforced during the booking process
  *
  * Availability of rooms for a certain criteria like number of bedrooms, handicap accessibility
- * and amenities like pets can be searched for using the findAvailability method
+ * and amenities like pets can be searched for using the findAvailability method. Results are
+ * kept in a SearchCache, which reservations and new rooms invalidate for the searches they affect
  *
  * After selecting the desired room and the amenity count for each amenity a reservation
  * can be made using the makeReservation method, which returns the booking object which
  * contains all the relevant information about the booking including total cost
  *
+ * Prices come from the CostCalculator's rate plan. The plan can add an occupancy surge, based on
+ * how full the first night of a stay is according to the occupancy aggregate
+ *
  * The application is modular and built such that it
  * scales with the business, be it adding another floor, room or amenity or restrictions to amenities
  *
  * Restrictions on amenities can be added and can be flexibly adjusted
  *
- * For time considerations ability to edit a reservation is ommited
+ * Reservations can be cancelled with cancelReservation and moved to other dates, another room
+ * or other amenities with modifyReservation. Both give the nights and amenity units back to the
+ * calendars and inventories they came from, and update the search cache, the booking index
+ * and the occupancy aggregate. A modification either moves the whole stay
+ * or leaves it where it was
+ *
+ * Reservations are safe to make from many threads at once. Each room's availability calendar
+ * reserves a date range atomically under its own lock, so there is no hotel wide lock and two
+ * guests can never be given the same room for the same night
+ *
+ * Group reservations for several rooms are made with makeReservations, which books either
+ * every room or none of them
+ *
+ * Amenities can have a hotel wide capacity, e.g. the number of cribs the hotel owns. Units
+ * booked are counted per night and a reservation is turned down once an amenity is sold out
+ *
+ * Dates are checked against the hotel's HotelClock, which tests can fix to a given day.
+ * Searches are validated once into an AvailabilityQuery and not checked again per room.
+ * The RoomIndex can split searches of large hotels across a ForkJoinPool
+ *
+ * The BookingIndex finds the bookings of a user, the guest in a room on a given night and the
+ * arrivals and departures of a day without going through all bookings
+ *
+ * The OccupancyAggregate counts the rooms booked every night by floor and by number of beds as
+ * bookings come and go, so occupancy reports and heatmaps never scan the rooms' calendars
+ *
+ * Whole properties and booking histories are loaded in bulk with addRooms and restoreReservations,
+ * which reserve each room's nights in one go and clear the search cache once
+ *
+ * Bookings get their ids from the hotel's BookingIdGenerator. The default ids sort by the time
+ * they were made, so the bookings are kept in id order and bookingsMadeBetween is a range scan
+ *
+ * Guests can also ask for a kind of room with requestReservation. If no such room is free the stay
+ * is overbooked, up to the OverbookingAllowance for its number of beds, or else waitlisted. The
+ * Waitlist is matched against the nights that cancellations, modifications and new rooms free up,
+ * and its stays are booked as soon as a room fits them
+ *
+ * Every booking made, cancelled or modified and every room added is published as a BookingEvent
+ * to the hotel's BookingEventPublisher, e.g. an EventBus, once the change is done. By default
+ * events are dropped
+ *
+ * makeReservation reports how long each of its stages took, and both methods report why a
+ * reservation was turned down, to the hotel's ReservationMetrics. By default they are not recorded
  *
  * Unit Tests are included for each relevant class, for time considerations
  * tests do not consider all the edge cases, if any
@@ -37,11 +83,20 @@
 
 package com.hotel.reservation;
 
+import com.hotel.reservation.Utilities.BookingIdGenerator;
+import com.hotel.reservation.Utilities.CostCalculator;
+import com.hotel.reservation.Utilities.HotelClock;
+import com.hotel.reservation.Utilities.RatePlan;
+import com.hotel.reservation.Utilities.TimeOrderedIdGenerator;
 import lombok.Builder;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import static com.hotel.reservation.Utilities.Validatator.*;
 
@@ -49,28 +104,79 @@ import static com.hotel.reservation.Utilities.Validatator.*;
 public class Hotel {
     private String name;
     private Map<Integer, Room> rooms;
-    private Map<String, List<Amenity>> amenities;
-    private Map<UUID, Booking> bookings;
-    private HashMap<Integer, Floor> floors;
+    private Map<String, Amenity> amenities;
+    private NavigableMap<UUID, Booking> bookings;
+    private Map<Integer, Floor> floors;
+    private RoomIndex roomIndex;
+    private BookingIndex bookingIndex;
+    private SearchCache searchCache;
+    private OccupancyAggregate occupancy;
+    private Waitlist waitlist;
+    private ReservationMetrics reservationMetrics;
+    private BookingEventPublisher eventPublisher;
+    private HotelClock clock;
+    private BookingIdGenerator bookingIdGenerator;
+    private RatePlan ratePlan;
+    private final AmenityRegistry amenityRegistry;
 
     @Builder
     public Hotel(String name) {
         this.name = name;
-        rooms = new HashMap<Integer, Room>();
-        amenities = new HashMap<String, List<Amenity>>();
-        bookings = new HashMap<UUID, Booking>();
-        floors = new HashMap<Integer, Floor>();
+        rooms = new ConcurrentHashMap<Integer, Room>();
+        amenities = new ConcurrentHashMap<String, Amenity>();
+        bookings = new ConcurrentSkipListMap<UUID, Booking>();
+        floors = new ConcurrentHashMap<Integer, Floor>();
+        roomIndex = new RoomIndex();
+        bookingIndex = new BookingIndex();
+        searchCache = new SearchCache(SearchCache.DEFAULT_CAPACITY);
+        occupancy = new OccupancyAggregate();
+        waitlist = new Waitlist();
+        reservationMetrics = ReservationMetrics.NONE;
+        eventPublisher = BookingEventPublisher.NONE;
+        clock = HotelClock.SYSTEM;
+        bookingIdGenerator = BookingIdGenerator.TIME_ORDERED;
+        ratePlan = RatePlan.STANDARD;
+        amenityRegistry = new AmenityRegistry();
+    }
+
+    public Map<String, Amenity> addAmenity(String name, int limit, BigDecimal cost) {
+        return addAmenity(name, limit, cost, AmenityInventory.UNLIMITED);
+    }
+
+    /**
+     * Adds an amenity the hotel owns capacity units of, or AmenityInventory.UNLIMITED.
+     * Replacing an amenity keeps the units booked so far.
+     */
+    public Map<String, Amenity> addAmenity(String name, int limit, BigDecimal cost, int capacity) {
+        validateAmenityName(name);
+        validateAmenityLimit(limit);
+        validateCost(cost);
+        validateAmenityCapacity(capacity);
+        // Gives the name its id up front, so a hotel with too many names refuses the amenity
+        amenityRegistry.idOf(name);
+
+        Amenity amenity = Amenity.builder()
+                .name(name)
+                .limit(limit)
+                .cost(cost)
+                .capacity(capacity)
+                .build();
+        amenities.compute(amenity.getName(), (key, previous) -> {
+            if(previous != null) amenity.replace(previous);
+            return amenity;
+        });
+        return amenities;
     }
 
-    public HashMap<Integer, Floor> addFloor(int floorNo, boolean handicapAccessible, List<Amenity> restrictedAmenities) {
+    public Map<Integer, Floor> addFloor(int floorNo, boolean handicapAccessible, List<Amenity> restrictedAmenities) {
         validateFloorNo(floorNo);
-        validateIshandicapAccessible(handicapAccessible);
         validateAmenitiesList(restrictedAmenities);
 
         Floor floor =  Floor.builder()
                 .floorNumber(floorNo)
                 .isHandicapAccessible(handicapAccessible)
                 .restrictedAmenities(restrictedAmenities)
+                .amenityRegistry(amenityRegistry)
                 .build();
         floors.put(floor.floorNumber, floor);
         return floors;
@@ -87,7 +193,48 @@ public class Hotel {
                         .floor(floor)
                         .build();
 
-        rooms.put(roomNo, room);
+        synchronized(roomIndex) {
+            Room replacedRoom = rooms.put(roomNo, room);
+            if(replacedRoom != null) roomIndex.remove(replacedRoom);
+            roomIndex.add(room);
+            searchCache.roomAdded(room, replacedRoom);
+            occupancy.roomAdded(room, replacedRoom);
+        }
+        eventPublisher.publish(BookingEvent.inventoryChanged(room));
+        offerRoom(room);
+        return rooms;
+    }
+
+    /**
+     * Adds many rooms at once, e.g. when importing a property. Same as calling addRoom for each
+     * of them, except that the room index copies each of its groups once and the search cache is
+     * cleared once instead of per room. A room number that appears more than once ends up as the
+     * last of its rooms, as it would with addRoom, and the others are never added.
+     */
+    public Map<Integer, Room> addRooms(List<Room> batch) {
+        Map<Integer, Room> roomsByNo = new LinkedHashMap<Integer, Room>();
+        for(Room room : batch) {
+            validateRoom(room);
+            validateRoomNo(room.getRoomNo());
+            validateFloor(room.getFloor());
+            validateNumberOfBeds(room.getNumberOfBeds());
+            roomsByNo.remove(room.getRoomNo());
+            roomsByNo.put(room.getRoomNo(), room);
+        }
+        // The index only ever holds one room per number, so rooms replaced within the batch must not reach it
+        List<Room> newRooms = roomsByNo.size() == batch.size() ? batch : new ArrayList<Room>(roomsByNo.values());
+
+        synchronized(roomIndex) {
+            for(Room room : newRooms) {
+                Room replacedRoom = rooms.put(room.getRoomNo(), room);
+                if(replacedRoom != null) roomIndex.remove(replacedRoom);
+                occupancy.roomAdded(room, replacedRoom);
+            }
+            roomIndex.addAll(newRooms);
+            searchCache.clear();
+        }
+        for(Room room : newRooms) eventPublisher.publish(BookingEvent.inventoryChanged(room));
+        if(!waitlist.isEmpty()) for(Room room : newRooms) offerRoom(room);
         return rooms;
     }
 
@@ -96,42 +243,541 @@ public class Hotel {
                                        int numberOfBeds,
                                        boolean handicapAccessible,
                                        List<Amenity> amenities) {
+        return findAvailability(availabilityQuery(startDate, numberOfDays, numberOfBeds, handicapAccessible, amenities));
+    }
 
-        validateStartDate(startDate);
-        validateNumberOfDays(numberOfDays);
-        validateNumberOfBeds(numberOfBeds);
-        validateIshandicapAccessible(handicapAccessible);
-        validateAmenitiesList(amenities);
+    /**
+     * Validates an availability search against the hotel's clock.
+     */
+    public AvailabilityQuery availabilityQuery(LocalDate startDate,
+                                               int numberOfDays,
+                                               int numberOfBeds,
+                                               boolean handicapAccessible,
+                                               List<Amenity> amenities) {
+        return AvailabilityQuery.of(startDate, numberOfDays, numberOfBeds, handicapAccessible, amenities, clock.today(), amenityRegistry);
+    }
 
-        List<Room> availableRooms = new ArrayList<Room>();
-        for(Room room: rooms.values()) {
-            if(room.isAvailable(startDate, numberOfDays, numberOfBeds, handicapAccessible, amenities)) availableRooms.add(room);
-        }
+    public List<Room> findAvailability(AvailabilityQuery query) {
+        // Amenity stock is hotel wide and changes with every booking, so it is checked outside the cache
+        if(!hasAmenityCapacity(query)) return new ArrayList<Room>();
+
+        SearchCache.SearchKey key = SearchCache.key(query);
+        List<Room> cachedRooms = searchCache.get(key);
+        if(cachedRooms != null) return new ArrayList<Room>(cachedRooms);
+
+        long stamp = searchCache.stamp();
+        List<Room> availableRooms = roomIndex.findAvailable(query);
+        searchCache.put(key, availableRooms, stamp);
         return availableRooms;
     }
 
+    /**
+     * Prices every booking made from now on with the given plan. Existing bookings keep their price.
+     */
+    public void setRatePlan(RatePlan ratePlan) {
+        if(ratePlan == null) throw new IllegalArgumentException("Rate plan is required");
+        this.ratePlan = ratePlan;
+    }
+
+    /**
+     * Price the stay would be booked at right now, e.g. to show next to a search result.
+     */
+    public BigDecimal quote(Room room, LocalDate startDate, int numberOfDays, List<BookingAmenity> bookingAmenities) {
+        validateRoom(room);
+        validateDate(startDate);
+        validateNumberOfDays(numberOfDays);
+        validateBookingAmenitiesList(bookingAmenities);
+
+        return CostCalculator.calculateTotalCosts(ratePlan, room, bookingAmenities, startDate, numberOfDays, occupancyPercent(startDate.toEpochDay()));
+    }
+
+    /**
+     * Price of a room returned by the query, without amenities.
+     */
+    public BigDecimal quote(Room room, AvailabilityQuery query) {
+        return CostCalculator.getRoomCosts(ratePlan, room, query.getStartDate(), query.getNumberOfDays(), occupancyPercent(query.getStartDay()));
+    }
+
+    /**
+     * Share of the hotel's rooms booked for the night starting on the given epoch day, from 0 to 100.
+     */
+    public int occupancyPercent(long day) {
+        int numberOfRooms = rooms.size();
+        if(numberOfRooms == 0) return 0;
+        return (int) Math.min(100, occupancy.roomsBooked(day) * 100L / numberOfRooms);
+    }
+
     public Booking makeReservation(Room room,
                                    LocalDate startDate,
                                    int numberOfDays,
                                    List<BookingAmenity> bookingAmenities,
                                    User user) {
+        ReservationMetrics metrics = reservationMetrics;
+        try {
+            long time = metrics.start();
+            validateRoom(room);
+            validateStartDate(startDate, clock.today());
+            validateNumberOfDays(numberOfDays);
+            validateBookingAmenitiesList(bookingAmenities);
+            validateUser(user);
+            time = metrics.stage(ReservationMetrics.Stage.VALIDATION, time);
+
+            if(!room.getAvailability().isFree(startDate.toEpochDay(), numberOfDays))
+                throw new ReservationRejectedException(RejectionReason.ROOM_NOT_AVAILABLE, "Room not available for these dates");
+            time = metrics.stage(ReservationMetrics.Stage.AVAILABILITY_CHECK, time);
+
+            Booking booking = newBooking(bookingIdGenerator.next(), room, startDate, numberOfDays, bookingAmenities, user);
+            time = metrics.stage(ReservationMetrics.Stage.BOOKING_CONSTRUCTION, time);
+
+            reserve(booking);
+            time = metrics.stage(ReservationMetrics.Stage.RESERVATION, time);
+
+            register(booking);
+            metrics.stage(ReservationMetrics.Stage.REGISTRATION, time);
+            eventPublisher.publish(BookingEvent.created(booking));
+            return booking;
+        } catch (IllegalArgumentException e) {
+            metrics.rejected(ReservationRejectedException.reasonFor(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Books every requested stay for the user, or none of them if any room is not available.
+     * All stays are validated and priced before any calendar is touched, then the rooms' calendars
+     * are locked together in a fixed order and checked and reserved in one pass. Amenity units
+     * are taken before the calendars and given back if anything fails.
+     */
+    public List<Booking> makeReservations(List<StayRequest> stays, User user) {
+        try {
+            return reserveAll(stays, user);
+        } catch (IllegalArgumentException e) {
+            reservationMetrics.rejected(ReservationRejectedException.reasonFor(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels the booking and frees its nights and amenity units for other guests, offering the
+     * nights to the waitlist first.
+     */
+    public Booking cancelReservation(UUID bookingId) {
+        validateBookingId(bookingId);
+        Booking cancelled;
+        while(true) {
+            Booking booking = findBooking(bookingId);
+            // Cancellations and modifications of one booking take turns on it
+            synchronized(booking) {
+                // Modified while this thread waited, go again with the booking that replaced it. Bookings are
+                // equal by id, so only an identity check tells them apart
+                if(bookings.get(bookingId) != booking) continue;
+                bookings.remove(bookingId);
+                booking.getRoom().getAvailability().release(booking.getStartDate().toEpochDay(), booking.getNumberOfDays());
+                releaseAmenities(booking, booking.getBookingAmenities().size());
+                unregister(booking);
+                eventPublisher.publish(BookingEvent.cancelled(booking));
+                cancelled = booking;
+                break;
+            }
+        }
+        offerFreedNights(cancelled);
+        return cancelled;
+    }
+
+    /**
+     * Moves the booking to the given room, dates and amenities, repricing it. The booking keeps its id
+     * and user. Its old nights count as free for the new stay, so a stay can be shortened or extended
+     * in place. If the new stay can not be booked the old one is kept as it was.
+     */
+    public Booking modifyReservation(UUID bookingId,
+                                     Room room,
+                                     LocalDate startDate,
+                                     int numberOfDays,
+                                     List<BookingAmenity> bookingAmenities) {
+        try {
+            validateBookingId(bookingId);
+            validateRoom(room);
+            validateStartDate(startDate, clock.today());
+            validateNumberOfDays(numberOfDays);
+            validateBookingAmenitiesList(bookingAmenities);
+
+            while(true) {
+                Booking booking = findBooking(bookingId);
+                Booking modified;
+                synchronized(booking) {
+                    if(bookings.get(bookingId) != booking) continue;
+                    modified = newBooking(bookingId, room, startDate, numberOfDays, bookingAmenities, booking.getUser());
+                    move(booking, modified);
+                    unregister(booking);
+                    register(modified);
+                    eventPublisher.publish(BookingEvent.modified(booking, modified));
+                }
+                offerFreedNights(booking);
+                return modified;
+            }
+        } catch (IllegalArgumentException e) {
+            reservationMetrics.rejected(ReservationRejectedException.reasonFor(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Books a room of the requested kind for the stay if one is free, like makeReservation with the
+     * first room findAvailability returns. Otherwise the stay is overbooked if the overbooking
+     * allowance for its number of beds is not used up on any of its nights, or else waitlisted.
+     * An overbooked or waitlisted stay is booked as soon as a room of its kind is free for it, and
+     * the booking has the entry's id. Higher priorities are offered rooms first with
+     * AllocationStrategy.PRIORITY.
+     *
+     * Bookings made from the waitlist, by this call or by the cancellation, modification or new room
+     * that freed up the nights, are handed to the thread that made them by Waitlist.takeAllocations.
+     */
+    public WaitlistEntry requestReservation(LocalDate startDate,
+                                            int numberOfDays,
+                                            int numberOfBeds,
+                                            boolean handicapAccessible,
+                                            List<BookingAmenity> bookingAmenities,
+                                            User user,
+                                            int priority) {
+        validateBookingAmenitiesList(bookingAmenities);
+        validateUser(user);
+        validateWaitlistPriority(priority);
+        List<Amenity> requestedAmenities = new ArrayList<Amenity>(bookingAmenities.size());
+        for(BookingAmenity bookingAmenity : bookingAmenities) requestedAmenities.add(bookingAmenity.getAmenity());
+        AvailabilityQuery query = availabilityQuery(startDate, numberOfDays, numberOfBeds, handicapAccessible, requestedAmenities);
+
+        WaitlistEntry entry = new WaitlistEntry(bookingIdGenerator.next(), query, bookingAmenities, user, priority);
+        for(Room room : findAvailability(query)) {
+            if(allocate(entry, room)) return entry;
+        }
+        waitlist.add(entry);
+        // A room freed up after the search above was not offered to the entry, look once more
+        for(Room room : findAvailability(query)) {
+            if(entry.getStatus() == WaitlistEntry.Status.ALLOCATED || offer(entry, room)) break;
+        }
+        return entry;
+    }
+
+    /**
+     * Takes an overbooked or waitlisted stay off the waitlist.
+     */
+    public WaitlistEntry leaveWaitlist(UUID entryId) {
+        validateBookingId(entryId);
+        WaitlistEntry entry = waitlist.remove(entryId);
+        if(entry == null) throw new NoSuchElementException("Waitlist entry " + entryId + " not found");
+        return entry;
+    }
+
+    /**
+     * Puts back a stay that was overbooked or waitlisted earlier, e.g. when recovering the hotel, with
+     * its id, priority and status. Unlike requestReservation the stay is not offered a room, rooms that
+     * freed up since were offered to it before. Stays that have started by now are not put back, they
+     * would have expired, and null is returned.
+     */
+    public WaitlistEntry restoreWaitlistEntry(UUID entryId,
+                                              LocalDate startDate,
+                                              int numberOfDays,
+                                              int numberOfBeds,
+                                              boolean handicapAccessible,
+                                              List<BookingAmenity> bookingAmenities,
+                                              User user,
+                                              int priority,
+                                              WaitlistEntry.Status status) {
+        validateBookingId(entryId);
+        validateDate(startDate);
+        validateBookingAmenitiesList(bookingAmenities);
+        validateUser(user);
+        validateWaitlistPriority(priority);
+        if(startDate.isBefore(clock.today())) return null;
+        List<Amenity> requestedAmenities = new ArrayList<Amenity>(bookingAmenities.size());
+        for(BookingAmenity bookingAmenity : bookingAmenities) requestedAmenities.add(bookingAmenity.getAmenity());
+        AvailabilityQuery query = availabilityQuery(startDate, numberOfDays, numberOfBeds, handicapAccessible, requestedAmenities);
+
+        return waitlist.restore(new WaitlistEntry(entryId, query, bookingAmenities, user, priority), status);
+    }
+
+    /**
+     * Bookings made from the instant from, inclusive, to the instant to, exclusive, in the order they were made.
+     * Bookings whose ids are not time ordered, e.g. made with BookingIdGenerator.RANDOM, are never returned.
+     */
+    public List<Booking> bookingsMadeBetween(Instant from, Instant to) {
+        if(from == null || to == null || to.isBefore(from)) throw new IllegalArgumentException("Invalid time range");
+        List<Booking> made = new ArrayList<Booking>();
+        for(Booking booking : bookings.subMap(TimeOrderedIdGenerator.lowestIdAt(from.toEpochMilli()), true,
+                                              TimeOrderedIdGenerator.lowestIdAt(to.toEpochMilli()), false).values()) {
+            if(TimeOrderedIdGenerator.isTimeOrdered(booking.getBookingId())) made.add(booking);
+        }
+        return made;
+    }
+
+    /**
+     * Puts back a booking that was made earlier, e.g. when reloading the hotel from storage.
+     * Unlike makeReservation the booking keeps its id and its dates may lie in the past.
+     */
+    public Booking restoreReservation(UUID bookingId,
+                                      Room room,
+                                      LocalDate startDate,
+                                      int numberOfDays,
+                                      List<BookingAmenity> bookingAmenities,
+                                      User user) {
+        validateBookingId(bookingId);
         validateRoom(room);
-        validateStartDate(startDate);
+        validateDate(startDate);
         validateNumberOfDays(numberOfDays);
         validateBookingAmenitiesList(bookingAmenities);
         validateUser(user);
 
-        if(!room.isAvailableForDays(startDate, numberOfDays)) throw new IllegalArgumentException("Room not available for these dates");
+        Booking booking = newBooking(bookingId, room, startDate, numberOfDays, bookingAmenities, user);
+        if(!room.getAvailability().reserve(startDate.toEpochDay(), numberOfDays))
+            throw new ReservationRejectedException(RejectionReason.ROOM_NOT_AVAILABLE, "Room not available for these dates");
+        restoreAmenities(booking);
+        register(booking);
+        return booking;
+    }
 
-        Booking booking =  Booking.builder()
-                        .bookingId(UUID.randomUUID())
-                        .startDate(startDate)
-                        .numberOfDays(numberOfDays)
-                        .room(room)
-                        .user(user)
-                        .bookingAmenities(bookingAmenities)
-                        .build();
+    /**
+     * Puts back many bookings made earlier at once, e.g. when importing a booking history. Works
+     * like restoreReservation for each booking, except that the nights of each room are reserved
+     * on its calendar in one go and the search cache is cleared once at the end instead of per
+     * booking. Bookings whose id is taken or whose nights clash with another booking are left out
+     * instead of failing the rest, and are returned.
+     *
+     * Safe to call from several threads at once, e.g. with the bookings split by room.
+     */
+    public List<Booking> restoreReservations(List<Booking> restoredBookings) {
+        // Rooms are equal by number, but each instance has its own calendar, e.g. a room that was replaced
+        Map<Room, List<Booking>> bookingsByRoom = new IdentityHashMap<Room, List<Booking>>();
+        for(Booking booking : restoredBookings) {
+            validateBookingId(booking.getBookingId());
+            validateRoom(booking.getRoom());
+            validateDate(booking.getStartDate());
+            validateNumberOfDays(booking.getNumberOfDays());
+            validateBookingAmenitiesList(booking.getBookingAmenities());
+            validateUser(booking.getUser());
+            bookingsByRoom.computeIfAbsent(booking.getRoom(), k -> new ArrayList<Booking>()).add(booking);
+        }
+
+        List<Booking> rejected = new ArrayList<Booking>();
+        List<Booking> reservedBookings = new ArrayList<Booking>(restoredBookings.size());
+        for(Map.Entry<Room, List<Booking>> entry : bookingsByRoom.entrySet()) {
+            List<Booking> roomBookings = entry.getValue();
+            int count = roomBookings.size();
+            long[] startDays = new long[count];
+            int[] numberOfDays = new int[count];
+            boolean[] reserved = new boolean[count];
+            for(int i = 0; i < count; i++) {
+                startDays[i] = roomBookings.get(i).getStartDate().toEpochDay();
+                numberOfDays[i] = roomBookings.get(i).getNumberOfDays();
+            }
+            entry.getKey().getAvailability().reserveEach(startDays, numberOfDays, count, reserved);
+
+            for(int i = 0; i < count; i++) (reserved[i] ? reservedBookings : rejected).add(roomBookings.get(i));
+        }
+
+        // In id order, so consecutive inserts into the maps ordered by id walk the same nodes
+        reservedBookings.sort(Comparator.comparing(Booking::getBookingId));
+        for(Booking booking : reservedBookings) {
+            if(bookings.putIfAbsent(booking.getBookingId(), booking) != null) {
+                booking.getRoom().getAvailability().release(booking.getStartDate().toEpochDay(), booking.getNumberOfDays());
+                rejected.add(booking);
+                continue;
+            }
+            restoreAmenities(booking);
+            index(booking);
+        }
+        searchCache.clear();
+        return rejected;
+    }
+
+    private List<Booking> reserveAll(List<StayRequest> stays, User user) {
+        validateStays(stays);
+        validateUser(user);
+
+        LocalDate today = clock.today();
+        int count = stays.size();
+        List<Booking> newBookings = new ArrayList<Booking>(count);
+        AvailabilityCalendar[] calendars = new AvailabilityCalendar[count];
+        long[] startDays = new long[count];
+        int[] numberOfDays = new int[count];
+        for(int i = 0; i < count; i++) {
+            StayRequest stay = stays.get(i);
+            validateRoom(stay.getRoom());
+            validateStartDate(stay.getStartDate(), today);
+            validateNumberOfDays(stay.getNumberOfDays());
+            validateBookingAmenitiesList(stay.getBookingAmenities());
+
+            if(!stay.getRoom().getAvailability().isFree(stay.getStartDate().toEpochDay(), stay.getNumberOfDays()))
+                throw new ReservationRejectedException(RejectionReason.ROOM_NOT_AVAILABLE,
+                                                       "Room " + stay.getRoom().getRoomNo() + " not available for these dates");
+
+            newBookings.add(newBooking(bookingIdGenerator.next(), stay.getRoom(), stay.getStartDate(), stay.getNumberOfDays(), stay.getBookingAmenities(), user));
+            calendars[i] = stay.getRoom().getAvailability();
+            startDays[i] = stay.getStartDate().toEpochDay();
+            numberOfDays[i] = stay.getNumberOfDays();
+        }
+
+        int reserved = 0;
+        try {
+            for(; reserved < count; reserved++) reserveAmenities(newBookings.get(reserved));
+            if(!AvailabilityCalendar.reserveAll(calendars, startDays, numberOfDays))
+                throw new ReservationRejectedException(RejectionReason.ROOM_NOT_AVAILABLE, "Rooms not available for these dates");
+        } catch (ReservationRejectedException e) {
+            // A booking that could not get all of its amenities has already given its own units back
+            for(int i = reserved - 1; i >= 0; i--) releaseAmenities(newBookings.get(i), newBookings.get(i).getBookingAmenities().size());
+            throw e;
+        }
+        for(Booking booking : newBookings) register(booking);
+        for(Booking booking : newBookings) eventPublisher.publish(BookingEvent.created(booking));
+        return newBookings;
+    }
+
+    // Callers only check availability to fail fast, the room's calendar reserves the dates
+    // atomically so two concurrent reservations for the same nights cannot both succeed.
+    // Amenity units are taken first and given back if the room is gone.
+    private void reserve(Booking booking) {
+        reserveAmenities(booking);
+        if(!booking.getRoom().getAvailability().reserve(booking.getStartDate().toEpochDay(), booking.getNumberOfDays())) {
+            releaseAmenities(booking, booking.getBookingAmenities().size());
+            throw new ReservationRejectedException(RejectionReason.ROOM_NOT_AVAILABLE, "Room not available for these dates");
+        }
+    }
+
+    // Amenity units are swapped before the nights, and the old units are put back if either step fails
+    private void move(Booking booking, Booking modified) {
+        releaseAmenities(booking, booking.getBookingAmenities().size());
+        try {
+            reserveAmenities(modified);
+        } catch (ReservationRejectedException e) {
+            restoreAmenities(booking);
+            throw e;
+        }
+        if(!AvailabilityCalendar.move(booking.getRoom().getAvailability(), booking.getStartDate().toEpochDay(), booking.getNumberOfDays(),
+                                      modified.getRoom().getAvailability(), modified.getStartDate().toEpochDay(), modified.getNumberOfDays())) {
+            releaseAmenities(modified, modified.getBookingAmenities().size());
+            restoreAmenities(booking);
+            throw new ReservationRejectedException(RejectionReason.ROOM_NOT_AVAILABLE, "Room not available for these dates");
+        }
+    }
+
+    // Books the entry into the room, or returns false if the room or its amenities were taken in the meantime
+    private boolean allocate(WaitlistEntry entry, Room room) {
+        Booking booking;
+        try {
+            booking = newBooking(entry.getEntryId(), room, entry.getStartDate(), entry.getNumberOfDays(), entry.getBookingAmenities(), entry.getUser());
+            reserve(booking);
+        } catch (ReservationRejectedException e) {
+            return false;
+        }
+        register(booking);
+        entry.allocated(booking);
+        waitlist.allocated(booking);
+        eventPublisher.publish(BookingEvent.created(booking));
+        return true;
+    }
+
+    // Books a waitlisted entry into the room. The entry is off the waitlist while it is booked,
+    // so no other thread can book it too, and put back if the room was taken
+    private boolean offer(WaitlistEntry entry, Room room) {
+        if(!waitlist.claim(entry)) return false;
+        if(allocate(entry, room)) return true;
+        waitlist.putBack(entry);
+        return false;
+    }
+
+    // Offers the nights the booking held, which are free now unless its modification kept them, to the waitlist
+    private void offerFreedNights(Booking booking) {
+        if(waitlist.isEmpty()) return;
+        Room room = booking.getRoom();
+        long startDay = booking.getStartDate().toEpochDay();
+        for(WaitlistEntry entry : waitlist.candidates(room, startDay, startDay + booking.getNumberOfDays(), clock.today().toEpochDay())) {
+            if(room.getAvailability().isFree(entry.getStartDay(), entry.getNumberOfDays())) offer(entry, room);
+        }
+    }
+
+    private void offerRoom(Room room) {
+        if(waitlist.isEmpty()) return;
+        for(WaitlistEntry entry : waitlist.candidates(room, clock.today().toEpochDay())) {
+            if(room.getAvailability().isFree(entry.getStartDay(), entry.getNumberOfDays())) offer(entry, room);
+        }
+    }
+
+    private void reserveAmenities(Booking booking) {
+        long startDay = booking.getStartDate().toEpochDay();
+        List<BookingAmenity> bookingAmenities = booking.getBookingAmenities();
+        for(int i = 0; i < bookingAmenities.size(); i++) {
+            BookingAmenity bookingAmenity = bookingAmenities.get(i);
+            if(!bookingAmenity.getAmenity().getInventory().reserve(startDay, booking.getNumberOfDays(), bookingAmenity.getCount())) {
+                releaseAmenities(booking, i);
+                throw new ReservationRejectedException(RejectionReason.AMENITY_SOLD_OUT,
+                                                       bookingAmenity.getAmenity().getName() + " not available for these dates");
+            }
+        }
+    }
+
+    // Gives back the units of the booking's first count amenities
+    private void releaseAmenities(Booking booking, int count) {
+        long startDay = booking.getStartDate().toEpochDay();
+        for(int i = count - 1; i >= 0; i--) {
+            BookingAmenity bookingAmenity = booking.getBookingAmenities().get(i);
+            bookingAmenity.getAmenity().getInventory().release(startDay, booking.getNumberOfDays(), bookingAmenity.getCount());
+        }
+    }
+
+    private void restoreAmenities(Booking booking) {
+        for(BookingAmenity bookingAmenity : booking.getBookingAmenities())
+            bookingAmenity.getAmenity().getInventory().restore(booking.getStartDate().toEpochDay(), booking.getNumberOfDays(), bookingAmenity.getCount());
+    }
+
+    private boolean hasAmenityCapacity(AvailabilityQuery query) {
+        List<Amenity> amenities = query.getAmenities();
+        for(int i = 0; i < amenities.size(); i++) {
+            if(!amenities.get(i).getInventory().hasCapacity(query.getStartDay(), query.getNumberOfDays(), 1)) return false;
+        }
+        return true;
+    }
+
+    private void register(Booking booking) {
+        searchCache.roomBooked(booking.getRoom(), booking.getStartDate().toEpochDay(), booking.getNumberOfDays());
         bookings.put(booking.getBookingId(), booking);
+        index(booking);
+    }
+
+    // Counts and indexes a booking already in the bookings map, without invalidating the search cache
+    private void index(Booking booking) {
+        occupancy.booked(booking);
+        bookingIndex.add(booking);
+    }
+
+    // Takes out a booking whose nights have already been freed. The booking map is up to the caller,
+    // a modified booking replaces it under the same id
+    private void unregister(Booking booking) {
+        long startDay = booking.getStartDate().toEpochDay();
+        searchCache.roomReleased(booking.getRoom(), startDay, booking.getNumberOfDays());
+        occupancy.released(booking);
+        bookingIndex.remove(booking);
+    }
+
+    private Booking findBooking(UUID bookingId) {
+        Booking booking = bookings.get(bookingId);
+        if(booking == null) throw new NoSuchElementException("Booking " + bookingId + " not found");
         return booking;
     }
+
+    private Booking newBooking(UUID bookingId,
+                               Room room,
+                               LocalDate startDate,
+                               int numberOfDays,
+                               List<BookingAmenity> bookingAmenities,
+                               User user) {
+        return Booking.builder()
+                .bookingId(bookingId)
+                .startDate(startDate)
+                .numberOfDays(numberOfDays)
+                .room(room)
+                .user(user)
+                .bookingAmenities(bookingAmenities)
+                .occupancyPercent(occupancyPercent(startDate.toEpochDay()))
+                .ratePlan(ratePlan)
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.hotel.reservation.Metrics;
+
+import com.hotel.reservation.Events.EventBus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes how far the slowest subscriber of the EventBus is behind, and how many events were
+ * dropped because it was a whole ring behind, to Micrometer.
+ */
+@Component
+public class EventBusMetrics {
+
+    public EventBusMetrics(EventBus eventBus, MeterRegistry registry) {
+        Gauge.builder("hotel.events.backlog", eventBus, EventBus::getBacklog)
+                .description("Events published and not yet handed to the slowest subscriber")
+                .register(registry);
+        FunctionCounter.builder("hotel.events.dropped", eventBus, EventBus::getDropped)
+                .description("Events dropped because the ring was full")
+                .register(registry);
+    }
+}
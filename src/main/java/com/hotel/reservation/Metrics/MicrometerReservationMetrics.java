@@ -0,0 +1,66 @@
+package com.hotel.reservation.Metrics;
+
+import com.hotel.reservation.RejectionReason;
+import com.hotel.reservation.ReservationMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the reservation metrics to Micrometer, and through it to the actuator's metrics endpoint.
+ *
+ * Every stage has a hotel.reservation.stage timer tagged with the stage. The timers keep
+ * HDR histograms for client side percentiles and publish histogram buckets so percentiles can
+ * also be aggregated across instances. Rejections are counted by hotel.reservation.rejections,
+ * tagged with the reason. All meters are registered up front and looked up by ordinal, so
+ * recording never touches the registry.
+ */
+@Component
+public class MicrometerReservationMetrics implements ReservationMetrics {
+
+    private final Timer[] stageTimers;
+    private final Counter[] rejectionCounters;
+
+    public MicrometerReservationMetrics(MeterRegistry registry) {
+        Stage[] stages = Stage.values();
+        stageTimers = new Timer[stages.length];
+        for(Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder("hotel.reservation.stage")
+                    .description("Time spent in each stage of making a reservation")
+                    .tag("stage", tagValue(stage))
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofSeconds(1))
+                    .register(registry);
+        }
+
+        RejectionReason[] reasons = RejectionReason.values();
+        rejectionCounters = new Counter[reasons.length];
+        for(RejectionReason reason : reasons) {
+            rejectionCounters[reason.ordinal()] = Counter.builder("hotel.reservation.rejections")
+                    .description("Reservations turned down, by reason")
+                    .tag("reason", tagValue(reason))
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void record(Stage stage, long nanos) {
+        stageTimers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void rejected(RejectionReason reason) {
+        rejectionCounters[reason.ordinal()].increment();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
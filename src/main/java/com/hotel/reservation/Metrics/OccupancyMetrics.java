@@ -0,0 +1,65 @@
+package com.hotel.reservation.Metrics;
+
+import com.hotel.reservation.Hotel;
+import com.hotel.reservation.OccupancyAggregate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Publishes tonight's occupancy from the hotel's OccupancyAggregate to Micrometer, from 0 to 1.
+ *
+ * hotel.occupancy is the whole hotel, hotel.occupancy.floor and hotel.occupancy.beds are tagged
+ * with the floor and the number of beds. The gauges read the aggregate when they are scraped,
+ * so publishing them never touches the booking path. Floors and bed counts seen for the first
+ * time are picked up on the next refresh.
+ */
+@Component
+public class OccupancyMetrics {
+
+    private final Hotel hotel;
+    private final MeterRegistry registry;
+    private final Set<Integer> floorNumbers = new HashSet<Integer>();
+    private final Set<Integer> bedCounts = new HashSet<Integer>();
+
+    public OccupancyMetrics(Hotel hotel, MeterRegistry registry) {
+        this.hotel = hotel;
+        this.registry = registry;
+        Gauge.builder("hotel.occupancy", hotel, h -> h.getOccupancy().occupancy(tonight(h), tomorrow(h)))
+                .description("Share of the rooms booked tonight")
+                .register(registry);
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${hotel.occupancy.metrics-refresh-ms:60000}", fixedDelayString = "${hotel.occupancy.metrics-refresh-ms:60000}")
+    public synchronized void refresh() {
+        OccupancyAggregate occupancy = hotel.getOccupancy();
+        for(Integer floorNo : occupancy.floorNumbers()) {
+            if(!floorNumbers.add(floorNo)) continue;
+            Gauge.builder("hotel.occupancy.floor", hotel, h -> h.getOccupancy().floorOccupancy(floorNo, tonight(h), tomorrow(h)))
+                    .description("Share of the rooms on the floor booked tonight")
+                    .tag("floor", String.valueOf(floorNo))
+                    .register(registry);
+        }
+        for(Integer numberOfBeds : occupancy.bedCounts()) {
+            if(!bedCounts.add(numberOfBeds)) continue;
+            Gauge.builder("hotel.occupancy.beds", hotel, h -> h.getOccupancy().bedsOccupancy(numberOfBeds, tonight(h), tomorrow(h)))
+                    .description("Share of the rooms with the number of beds booked tonight")
+                    .tag("beds", String.valueOf(numberOfBeds))
+                    .register(registry);
+        }
+    }
+
+    private static LocalDate tonight(Hotel hotel) {
+        return hotel.getClock().today();
+    }
+
+    private static LocalDate tomorrow(Hotel hotel) {
+        return tonight(hotel).plusDays(1);
+    }
+}
@@ -0,0 +1,27 @@
+package com.hotel.reservation.Metrics;
+
+import com.hotel.reservation.Persistence.WriteBehindStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes how far the database is behind the journal, and how many changes failed to be saved
+ * to it, to Micrometer.
+ */
+@Component
+public class WriteBehindMetrics {
+
+    public WriteBehindMetrics(WriteBehindStore writeBehindStore, MeterRegistry registry) {
+        Gauge.builder("hotel.write-behind.queued", writeBehindStore, WriteBehindStore::getQueued)
+                .description("Changes journaled and not yet picked up by the database writer")
+                .register(registry);
+        Gauge.builder("hotel.write-behind.unsaved", writeBehindStore, WriteBehindStore::getUnsaved)
+                .description("Changes that failed to be saved and are being retried")
+                .register(registry);
+        FunctionCounter.builder("hotel.write-behind.failures", writeBehindStore, WriteBehindStore::getFailures)
+                .description("Changes that failed to be saved after every attempt")
+                .register(registry);
+    }
+}
@@ -0,0 +1,253 @@
+package com.hotel.reservation;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Rooms booked per night by floor and by number of beds, kept up to date as bookings are made,
+ * cancelled and moved, so occupancy reports never scan the rooms' calendars.
+ *
+ * Every floor and every bed count has its own series of nightly counts keyed by epoch day, with
+ * a Fenwick tree over them, and so does the whole hotel. Booking a stay adds one to each of its nights, and the number of
+ * room nights booked in any date window is the difference of two prefix sums, both O(log n) in
+ * the number of days covered.
+ *
+ * Counts are atomic, so bookings on the same floor update a series together under its shared
+ * lock. The exclusive lock is only taken when a series has to grow to cover new dates.
+ */
+public class OccupancyAggregate {
+
+    private final Map<Integer, Series> byFloor = new ConcurrentHashMap<Integer, Series>();
+    private final Map<Integer, Series> byBeds = new ConcurrentHashMap<Integer, Series>();
+    private final Series all = new Series();
+
+    /**
+     * A room was added, or replaced the given room when replacedRoom is not null.
+     */
+    public void roomAdded(Room room, Room replacedRoom) {
+        if(replacedRoom != null) {
+            series(byFloor, replacedRoom.getFloor().getFloorNumber()).rooms.decrementAndGet();
+            series(byBeds, replacedRoom.getNumberOfBeds()).rooms.decrementAndGet();
+            all.rooms.decrementAndGet();
+        }
+        series(byFloor, room.getFloor().getFloorNumber()).rooms.incrementAndGet();
+        series(byBeds, room.getNumberOfBeds()).rooms.incrementAndGet();
+        all.rooms.incrementAndGet();
+    }
+
+    public void booked(Booking booking) {
+        add(booking, 1);
+    }
+
+    public void released(Booking booking) {
+        add(booking, -1);
+    }
+
+    /**
+     * Share of the rooms on the floor booked over the nights [from, to), from 0 to 1.
+     */
+    public double floorOccupancy(int floorNo, LocalDate from, LocalDate to) {
+        return occupancy(byFloor.get(floorNo), from, to);
+    }
+
+    /**
+     * Share of the rooms with the number of beds booked over the nights [from, to), from 0 to 1.
+     */
+    public double bedsOccupancy(int numberOfBeds, LocalDate from, LocalDate to) {
+        return occupancy(byBeds.get(numberOfBeds), from, to);
+    }
+
+    /**
+     * Share of all rooms booked over the nights [from, to), from 0 to 1.
+     */
+    public double occupancy(LocalDate from, LocalDate to) {
+        return occupancy(all, from, to);
+    }
+
+    /**
+     * Rooms booked for the night starting on the given epoch day.
+     */
+    public int roomsBooked(long day) {
+        return all.night(day);
+    }
+
+    public Set<Integer> floorNumbers() {
+        return new TreeSet<Integer>(byFloor.keySet());
+    }
+
+    public Set<Integer> bedCounts() {
+        return new TreeSet<Integer>(byBeds.keySet());
+    }
+
+    public Map<Integer, Double> occupancyByFloor(LocalDate from, LocalDate to) {
+        return occupancies(byFloor, from, to);
+    }
+
+    public Map<Integer, Double> occupancyByBeds(LocalDate from, LocalDate to) {
+        return occupancies(byBeds, from, to);
+    }
+
+    /**
+     * Rooms booked on every floor for each night of [from, to), by floor number.
+     */
+    public Map<Integer, int[]> heatmapByFloor(LocalDate from, LocalDate to) {
+        return heatmap(byFloor, from, to);
+    }
+
+    /**
+     * Rooms booked with each number of beds for each night of [from, to), by number of beds.
+     */
+    public Map<Integer, int[]> heatmapByBeds(LocalDate from, LocalDate to) {
+        return heatmap(byBeds, from, to);
+    }
+
+    private void add(Booking booking, int delta) {
+        long startDay = booking.getStartDate().toEpochDay();
+        Room room = booking.getRoom();
+        series(byFloor, room.getFloor().getFloorNumber()).add(startDay, booking.getNumberOfDays(), delta);
+        series(byBeds, room.getNumberOfBeds()).add(startDay, booking.getNumberOfDays(), delta);
+        all.add(startDay, booking.getNumberOfDays(), delta);
+    }
+
+    private static Series series(Map<Integer, Series> series, int key) {
+        return series.computeIfAbsent(key, k -> new Series());
+    }
+
+    private static double occupancy(Series series, LocalDate from, LocalDate to) {
+        if(series == null) return 0;
+        return share(series.roomNights(from.toEpochDay(), to.toEpochDay()), series.rooms.get(), from, to);
+    }
+
+    private static Map<Integer, Double> occupancies(Map<Integer, Series> series, LocalDate from, LocalDate to) {
+        Map<Integer, Double> occupancies = new TreeMap<Integer, Double>();
+        for(Map.Entry<Integer, Series> entry : series.entrySet()) occupancies.put(entry.getKey(), occupancy(entry.getValue(), from, to));
+        return occupancies;
+    }
+
+    private static Map<Integer, int[]> heatmap(Map<Integer, Series> series, LocalDate from, LocalDate to) {
+        validateWindow(from, to);
+        Map<Integer, int[]> heatmap = new TreeMap<Integer, int[]>();
+        for(Map.Entry<Integer, Series> entry : series.entrySet())
+            heatmap.put(entry.getKey(), entry.getValue().nights(from.toEpochDay(), (int) (to.toEpochDay() - from.toEpochDay())));
+        return heatmap;
+    }
+
+    private static double share(long roomNights, long rooms, LocalDate from, LocalDate to) {
+        validateWindow(from, to);
+        long available = rooms * (to.toEpochDay() - from.toEpochDay());
+        return available <= 0 ? 0 : (double) roomNights / available;
+    }
+
+    private static void validateWindow(LocalDate from, LocalDate to) {
+        if(from == null || to == null || to.isBefore(from)) throw new IllegalArgumentException("Invalid date window");
+    }
+
+    private static final class Series {
+        private final AtomicInteger rooms = new AtomicInteger();
+        private final StampedLock lock = new StampedLock();
+
+        // Epoch day of nights[0], changed along with the arrays while holding the write lock
+        private long origin;
+        private AtomicIntegerArray nights = new AtomicIntegerArray(0);
+        // 1 based Fenwick tree over nights
+        private AtomicLongArray tree = new AtomicLongArray(1);
+
+        private void add(long startDay, int numberOfDays, int delta) {
+            if(numberOfDays <= 0) return;
+            long endDay = startDay + numberOfDays;
+
+            long stamp = lock.readLock();
+            try {
+                if(!covers(startDay, endDay)) {
+                    lock.unlockRead(stamp);
+                    stamp = lock.writeLock();
+                    grow(startDay, endDay);
+                }
+                for(long day = startDay; day < endDay; day++) {
+                    int index = (int) (day - origin);
+                    nights.addAndGet(index, delta);
+                    for(int node = index + 1; node < tree.length(); node += node & -node) tree.addAndGet(node, delta);
+                }
+            } finally {
+                lock.unlock(stamp);
+            }
+        }
+
+        private long roomNights(long fromDay, long toDay) {
+            long stamp = lock.readLock();
+            try {
+                return prefix(toDay) - prefix(fromDay);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int night(long day) {
+            long stamp = lock.readLock();
+            try {
+                long index = day - origin;
+                return index >= 0 && index < nights.length() ? nights.get((int) index) : 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int[] nights(long fromDay, int numberOfDays) {
+            int[] counts = new int[numberOfDays];
+            long stamp = lock.readLock();
+            try {
+                for(int i = 0; i < numberOfDays; i++) {
+                    long index = fromDay + i - origin;
+                    if(index >= 0 && index < nights.length()) counts[i] = nights.get((int) index);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            return counts;
+        }
+
+        // Room nights booked before the given day
+        private long prefix(long day) {
+            long offset = Math.min(day - origin, nights.length());
+            long sum = 0;
+            for(int node = (int) Math.max(offset, 0); node > 0; node -= node & -node) sum += tree.get(node);
+            return sum;
+        }
+
+        private boolean covers(long startDay, long endDay) {
+            return startDay >= origin && endDay <= origin + nights.length();
+        }
+
+        private void grow(long startDay, long endDay) {
+            if(covers(startDay, endDay)) return;
+            int length = nights.length();
+            long newOrigin = length == 0 ? startDay : Math.min(origin, startDay);
+            long newEnd = length == 0 ? endDay : Math.max(origin + length, endDay);
+            // Grow by at least half again so that booking further ahead amortizes the rebuilds
+            int newLength = (int) Math.max(newEnd - newOrigin, length + (length >> 1));
+
+            AtomicIntegerArray grown = new AtomicIntegerArray(newLength);
+            int shift = (int) (origin - newOrigin);
+            for(int i = 0; i < length; i++) grown.set(i + shift, nights.get(i));
+
+            // Builds the tree in one pass, each node handing its sum on to its parent
+            AtomicLongArray newTree = new AtomicLongArray(newLength + 1);
+            for(int node = 1; node <= newLength; node++) {
+                newTree.addAndGet(node, grown.get(node - 1));
+                int parent = node + (node & -node);
+                if(parent <= newLength) newTree.addAndGet(parent, newTree.get(node));
+            }
+            origin = newOrigin;
+            nights = grown;
+            tree = newTree;
+        }
+    }
+}
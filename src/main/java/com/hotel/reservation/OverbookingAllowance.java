@@ -0,0 +1,63 @@
+package com.hotel.reservation;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.hotel.reservation.Utilities.Validatator.*;
+
+/**
+ * How many stays the hotel accepts per night beyond the rooms it has, by number of beds, e.g. set
+ * from the share of guests that do not show up. Every number of beds has an allowance for all
+ * nights, which single nights can override, e.g. for a holiday weekend. Nothing is overbooked by default.
+ */
+public class OverbookingAllowance {
+
+    private final Map<Integer, Integer> byBeds = new ConcurrentHashMap<Integer, Integer>();
+    private final Map<Integer, Map<Long, Integer>> byBedsAndNight = new ConcurrentHashMap<Integer, Map<Long, Integer>>();
+
+    public void setAllowance(int numberOfBeds, int allowance) {
+        validateNumberOfBeds(numberOfBeds);
+        validateOverbookingAllowance(allowance);
+        byBeds.put(numberOfBeds, allowance);
+    }
+
+    /**
+     * Overrides the allowance for the number of beds for the night starting on the given date.
+     */
+    public void setAllowance(int numberOfBeds, LocalDate night, int allowance) {
+        validateNumberOfBeds(numberOfBeds);
+        validateDate(night);
+        validateOverbookingAllowance(allowance);
+        byBedsAndNight.computeIfAbsent(numberOfBeds, k -> new ConcurrentHashMap<Long, Integer>()).put(night.toEpochDay(), allowance);
+    }
+
+    /**
+     * Stays with the number of beds that may be overbooked on the night starting on the given epoch day.
+     */
+    public int allowance(int numberOfBeds, long day) {
+        Map<Long, Integer> byNight = byBedsAndNight.get(numberOfBeds);
+        Integer allowance = byNight != null ? byNight.get(day) : null;
+        if(allowance == null) allowance = byBeds.get(numberOfBeds);
+        return allowance != null ? allowance : 0;
+    }
+
+    /**
+     * Copy of the allowances for all nights, by number of beds.
+     */
+    public Map<Integer, Integer> getAllowances() {
+        return new HashMap<Integer, Integer>(byBeds);
+    }
+
+    /**
+     * Copy of the allowances of single nights, by number of beds and then by epoch day.
+     */
+    public Map<Integer, Map<Long, Integer>> getNightAllowances() {
+        Map<Integer, Map<Long, Integer>> nightAllowances = new HashMap<Integer, Map<Long, Integer>>();
+        for(Map.Entry<Integer, Map<Long, Integer>> byNight : byBedsAndNight.entrySet()) {
+            nightAllowances.put(byNight.getKey(), new HashMap<Long, Integer>(byNight.getValue()));
+        }
+        return nightAllowances;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Amenity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "amenities")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmenityEntity {
+    @Id
+    private String name;
+
+    @Column(name = "amenity_limit")
+    private int limit;
+
+    private BigDecimal cost;
+
+    // Null when the hotel does not limit the amenity
+    private Integer capacity;
+
+    public static AmenityEntity from(Amenity amenity) {
+        return new AmenityEntity(amenity.getName(),
+                                 amenity.getLimit(),
+                                 amenity.getCost(),
+                                 amenity.getInventory().isLimited() ? amenity.getCapacity() : null);
+    }
+}
@@ -0,0 +1,6 @@
+package com.hotel.reservation.Persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AmenityRepository extends JpaRepository<AmenityEntity, String> {
+}
@@ -0,0 +1,25 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.BookingAmenity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingAmenityEmbeddable {
+    @Column(name = "amenity_name")
+    private String name;
+
+    @Column(name = "amenity_count")
+    private int count;
+
+    public static BookingAmenityEmbeddable from(BookingAmenity bookingAmenity) {
+        return new BookingAmenityEmbeddable(bookingAmenity.getAmenity().getName(), bookingAmenity.getCount());
+    }
+}
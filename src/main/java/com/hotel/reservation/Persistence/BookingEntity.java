@@ -0,0 +1,63 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Booking;
+import com.hotel.reservation.BookingAmenity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "bookings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEntity {
+    @Id
+    @Column(name = "booking_id", length = 36)
+    private String bookingId;
+
+    @Column(name = "room_no")
+    private int roomNo;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "number_of_days")
+    private int numberOfDays;
+
+    @Column(name = "user_id", length = 36)
+    private String userId;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    @Column(name = "total_cost")
+    private BigDecimal totalCost;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "booking_amenities", joinColumns = @JoinColumn(name = "booking_id"))
+    private List<BookingAmenityEmbeddable> amenities = new ArrayList<BookingAmenityEmbeddable>();
+
+    public static BookingEntity from(Booking booking) {
+        List<BookingAmenityEmbeddable> amenities = new ArrayList<BookingAmenityEmbeddable>();
+        for(BookingAmenity bookingAmenity : booking.getBookingAmenities()) amenities.add(BookingAmenityEmbeddable.from(bookingAmenity));
+        return new BookingEntity(booking.getBookingId().toString(),
+                                booking.getRoom().getRoomNo(),
+                                booking.getStartDate(),
+                                booking.getNumberOfDays(),
+                                booking.getUser().getUserId() != null ? booking.getUser().getUserId().toString() : null,
+                                booking.getUser().getFirstName(),
+                                booking.getUser().getLastName(),
+                                booking.getTotalCost(),
+                                amenities);
+    }
+}
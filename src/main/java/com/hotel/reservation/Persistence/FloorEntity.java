@@ -0,0 +1,38 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Amenity;
+import com.hotel.reservation.Floor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "floors")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorEntity {
+    @Id
+    @Column(name = "floor_number")
+    private int floorNumber;
+
+    @Column(name = "handicap_accessible")
+    private boolean handicapAccessible;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "floor_restricted_amenities", joinColumns = @JoinColumn(name = "floor_number"))
+    @Column(name = "amenity_name")
+    private List<String> restrictedAmenities = new ArrayList<String>();
+
+    public static FloorEntity from(Floor floor) {
+        List<String> restrictedAmenities = new ArrayList<String>();
+        if(floor.getRestrictedAmenities() != null) {
+            for(Amenity amenity : floor.getRestrictedAmenities()) restrictedAmenities.add(amenity.getName());
+        }
+        return new FloorEntity(floor.getFloorNumber(), floor.isHandicapAccessible(), restrictedAmenities);
+    }
+}
@@ -0,0 +1,500 @@
+package com.hotel.reservation.Persistence;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.reservation.*;
+import com.hotel.reservation.Utilities.Validatator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Streams a property's inventory and booking history from CSV or JSON into a Hotel, e.g. to
+ * onboard a property with years of bookings.
+ *
+ * The file is read one record at a time and at most batchSize rooms and batchSize bookings are
+ * held at once, so memory does not grow with the file. Rooms are added a batch at a time with
+ * Hotel.addRooms. Bookings are split by room across the executor and restored with
+ * Hotel.restoreReservations, which reserves each room's nights in one go, while the next batch
+ * is read. Amenities and floors are added as they are read.
+ *
+ * A CSV file has one record per line, the first field naming its kind. Fields are separated by
+ * commas and are not quoted, lists within a field by semicolons. Blank lines and lines starting
+ * with # are skipped.
+ *
+ *   amenity,name,limit,cost[,capacity]
+ *   floor,floorNumber,handicapAccessible[,restrictedAmenity;...]
+ *   room,roomNo,floorNumber,numberOfBeds
+ *   booking,bookingId,roomNo,startDate,numberOfDays,userId,firstName,lastName[,totalCost[,amenity:count;...]]
+ *
+ * A JSON file is an array of objects, or objects one after the other, with a type field and
+ * the same fields by name. Restricted amenities are an array of names and booking amenities an
+ * array of objects with a name and a count.
+ *
+ * Records are applied in the order they are read, so a room has to come after its floor and a
+ * booking after its room. A malformed record fails the import with its line or record number,
+ * leaving everything before it imported. Bookings that cannot be restored, because their room
+ * or an amenity is unknown or their nights are already taken, are counted and skipped.
+ * Bookings keep the total cost in the file, or are priced with today's rate plan without it.
+ *
+ * A Listener is told about every change the import makes, e.g. to journal it and save it to the
+ * database, and runs the change so it can hold a lock while the change is applied and recorded.
+ */
+public class HotelImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    // Rejected booking ids listed in the result, the count covers all of them
+    private static final int MAX_REJECTED_IDS = 100;
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int batchSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public HotelImporter(Executor executor, int parallelism, int batchSize) {
+        if(parallelism <= 0) throw new IllegalArgumentException("Invalid parallelism");
+        if(batchSize <= 0) throw new IllegalArgumentException("Invalid batch size");
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+    }
+
+    public Result importCsv(Hotel hotel, Reader reader) {
+        return importCsv(hotel, reader, Listener.NONE);
+    }
+
+    public Result importCsv(Hotel hotel, Reader reader, Listener listener) {
+        Import loading = new Import(hotel, listener);
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        long lineNumber = 0;
+        try {
+            for(String line = lines.readLine(); line != null; line = lines.readLine()) {
+                lineNumber++;
+                if(line.trim().isEmpty() || line.startsWith("#")) continue;
+                try {
+                    loading.add(parseCsv(line.split(",", -1)));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            loading.finish();
+        }
+        return loading.result();
+    }
+
+    public Result importJson(Hotel hotel, Reader reader) {
+        return importJson(hotel, reader, Listener.NONE);
+    }
+
+    public Result importJson(Hotel hotel, Reader reader, Listener listener) {
+        Import loading = new Import(hotel, listener);
+        long recordNumber = 0;
+        try(JsonParser parser = objectMapper.getFactory().createParser(reader)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if(array) token = parser.nextToken();
+            while(token != null && token != JsonToken.END_ARRAY) {
+                if(token != JsonToken.START_OBJECT) throw new IllegalArgumentException("Expected an object at " + parser.getCurrentLocation());
+                recordNumber++;
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    loading.add(parseJson(node));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Record " + recordNumber + ": " + e.getMessage(), e);
+                }
+                token = parser.nextToken();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            loading.finish();
+        }
+        return loading.result();
+    }
+
+    private static Record parseCsv(String[] fields) {
+        Record record = new Record(fields[0].trim());
+        switch(record.type) {
+            case "amenity":
+                requireFields(fields, 4);
+                record.name = fields[1].trim();
+                record.limit = Integer.parseInt(fields[2].trim());
+                record.cost = new BigDecimal(fields[3].trim());
+                record.capacity = optional(fields, 4) != null ? Integer.parseInt(fields[4].trim()) : AmenityInventory.UNLIMITED;
+                break;
+            case "floor":
+                requireFields(fields, 3);
+                record.floorNumber = Integer.parseInt(fields[1].trim());
+                record.handicapAccessible = Boolean.parseBoolean(fields[2].trim());
+                String restricted = optional(fields, 3);
+                if(restricted != null) {
+                    for(String name : restricted.split(";")) if(!name.trim().isEmpty()) record.amenityNames.add(name.trim());
+                }
+                break;
+            case "room":
+                requireFields(fields, 4);
+                record.roomNo = Integer.parseInt(fields[1].trim());
+                record.floorNumber = Integer.parseInt(fields[2].trim());
+                record.numberOfBeds = Integer.parseInt(fields[3].trim());
+                break;
+            case "booking":
+                requireFields(fields, 8);
+                record.bookingId = UUID.fromString(fields[1].trim());
+                record.roomNo = Integer.parseInt(fields[2].trim());
+                record.startDate = LocalDate.parse(fields[3].trim());
+                record.numberOfDays = Integer.parseInt(fields[4].trim());
+                Validatator.validateNumberOfDays(record.numberOfDays);
+                record.userId = fields[5].trim().isEmpty() ? null : UUID.fromString(fields[5].trim());
+                record.firstName = fields[6].trim();
+                record.lastName = fields[7].trim();
+                String totalCost = optional(fields, 8);
+                if(totalCost != null) record.totalCost = new BigDecimal(totalCost);
+                String amenities = optional(fields, 9);
+                if(amenities != null) {
+                    for(String amenity : amenities.split(";")) {
+                        if(amenity.trim().isEmpty()) continue;
+                        int separator = amenity.lastIndexOf(':');
+                        if(separator < 0) throw new IllegalArgumentException("Invalid booking amenity " + amenity);
+                        record.amenityNames.add(amenity.substring(0, separator).trim());
+                        record.amenityCounts.add(Integer.parseInt(amenity.substring(separator + 1).trim()));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + record.type);
+        }
+        return record;
+    }
+
+    private static Record parseJson(JsonNode node) {
+        Record record = new Record(requireField(node, "type").asText());
+        switch(record.type) {
+            case "amenity":
+                record.name = requireField(node, "name").asText();
+                record.limit = requireField(node, "limit").asInt();
+                record.cost = new BigDecimal(requireField(node, "cost").asText());
+                record.capacity = node.hasNonNull("capacity") ? node.get("capacity").asInt() : AmenityInventory.UNLIMITED;
+                break;
+            case "floor":
+                record.floorNumber = requireField(node, "floorNumber").asInt();
+                record.handicapAccessible = node.path("handicapAccessible").asBoolean();
+                for(JsonNode name : node.path("restrictedAmenities")) record.amenityNames.add(name.asText());
+                break;
+            case "room":
+                record.roomNo = requireField(node, "roomNo").asInt();
+                record.floorNumber = requireField(node, "floorNumber").asInt();
+                record.numberOfBeds = requireField(node, "numberOfBeds").asInt();
+                break;
+            case "booking":
+                record.bookingId = UUID.fromString(requireField(node, "bookingId").asText());
+                record.roomNo = requireField(node, "roomNo").asInt();
+                record.startDate = LocalDate.parse(requireField(node, "startDate").asText());
+                record.numberOfDays = requireField(node, "numberOfDays").asInt();
+                Validatator.validateNumberOfDays(record.numberOfDays);
+                record.userId = node.hasNonNull("userId") ? UUID.fromString(node.get("userId").asText()) : null;
+                record.firstName = node.path("firstName").asText(null);
+                record.lastName = node.path("lastName").asText(null);
+                if(node.hasNonNull("totalCost")) record.totalCost = new BigDecimal(node.get("totalCost").asText());
+                for(JsonNode amenity : node.path("amenities")) {
+                    record.amenityNames.add(requireField(amenity, "name").asText());
+                    record.amenityCounts.add(requireField(amenity, "count").asInt());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + record.type);
+        }
+        return record;
+    }
+
+    private static void requireFields(String[] fields, int count) {
+        if(fields.length < count) throw new IllegalArgumentException("Expected at least " + count + " fields for " + fields[0].trim());
+    }
+
+    private static String optional(String[] fields, int index) {
+        return index < fields.length && !fields[index].trim().isEmpty() ? fields[index].trim() : null;
+    }
+
+    private static JsonNode requireField(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if(value == null || value.isNull()) throw new IllegalArgumentException("Missing field " + field);
+        return value;
+    }
+
+    /**
+     * State of one import. Rooms are flushed before any booking batch is handed off, so the
+     * bookings of a batch always find the rooms listed before them.
+     */
+    private class Import {
+        private final Hotel hotel;
+        private final Listener listener;
+        private List<Room> rooms = new ArrayList<Room>();
+        private List<Record> bookings = new ArrayList<Record>();
+        // Booking batch being restored while the next one is read
+        private CompletableFuture<Void> restoring = CompletableFuture.completedFuture(null);
+
+        private int amenityCount;
+        private int floorCount;
+        private int roomCount;
+        private long bookingCount;
+        private long rejectedCount;
+        private final List<UUID> rejectedIds = new ArrayList<UUID>();
+
+        private Import(Hotel hotel, Listener listener) {
+            this.hotel = hotel;
+            this.listener = listener;
+        }
+
+        private void add(Record record) {
+            switch(record.type) {
+                case "amenity":
+                    listener.apply(null, () -> listener.amenityAdded(hotel.addAmenity(record.name, record.limit, record.cost, record.capacity)
+                                                                          .get(record.name)));
+                    amenityCount++;
+                    break;
+                case "floor":
+                    List<Amenity> restrictedAmenities = new ArrayList<Amenity>(record.amenityNames.size());
+                    for(String name : record.amenityNames) {
+                        Amenity amenity = hotel.getAmenities().get(name);
+                        if(amenity == null) throw new IllegalArgumentException("Unknown amenity " + name);
+                        restrictedAmenities.add(amenity);
+                    }
+                    listener.apply(null, () -> listener.floorAdded(hotel.addFloor(record.floorNumber, record.handicapAccessible, restrictedAmenities)
+                                                                        .get(record.floorNumber)));
+                    floorCount++;
+                    break;
+                case "room":
+                    Floor floor = hotel.getFloors().get(record.floorNumber);
+                    if(floor == null) throw new IllegalArgumentException("Floor " + record.floorNumber + " not found");
+                    rooms.add(Room.builder()
+                            .roomNo(record.roomNo)
+                            .floor(floor)
+                            .numberOfBeds(record.numberOfBeds)
+                            .build());
+                    if(rooms.size() >= batchSize) flushRooms();
+                    break;
+                default:
+                    bookings.add(record);
+                    if(bookings.size() >= batchSize) flushBookings();
+            }
+        }
+
+        private void finish() {
+            try {
+                flushRooms();
+                flushBookings();
+            } finally {
+                restoring.join();
+            }
+        }
+
+        private void flushRooms() {
+            if(rooms.isEmpty()) return;
+            List<Room> added = rooms;
+            listener.apply(null, () -> {
+                hotel.addRooms(added);
+                listener.roomsAdded(added);
+            });
+            roomCount += rooms.size();
+            rooms = new ArrayList<Room>();
+        }
+
+        private void flushBookings() {
+            flushRooms();
+            restoring.join();
+            if(bookings.isEmpty()) return;
+
+            List<List<Record>> parts = new ArrayList<List<Record>>(parallelism);
+            for(int i = 0; i < parallelism; i++) parts.add(new ArrayList<Record>());
+            for(Record record : bookings) parts.get(Math.floorMod(record.roomNo, parallelism)).add(record);
+            bookings = new ArrayList<Record>();
+
+            List<CompletableFuture<Void>> restored = new ArrayList<CompletableFuture<Void>>(parallelism);
+            for(List<Record> part : parts) {
+                if(!part.isEmpty()) restored.add(CompletableFuture.runAsync(() -> restore(part), executor));
+            }
+            restoring = CompletableFuture.allOf(restored.toArray(new CompletableFuture[0]));
+        }
+
+        private void restore(List<Record> records) {
+            List<Booking> restoredBookings = new ArrayList<Booking>(records.size());
+            List<UUID> rejected = new ArrayList<UUID>();
+            for(Record record : records) {
+                Booking booking = toBooking(record);
+                if(booking != null) restoredBookings.add(booking);
+                else rejected.add(record.bookingId);
+            }
+            int[] roomNos = new int[restoredBookings.size()];
+            for(int i = 0; i < roomNos.length; i++) roomNos[i] = restoredBookings.get(i).getRoom().getRoomNo();
+            listener.apply(roomNos, () -> {
+                List<Booking> clashing = hotel.restoreReservations(restoredBookings);
+                for(Booking booking : clashing) rejected.add(booking.getBookingId());
+                if(clashing.isEmpty()) {
+                    listener.bookingsRestored(restoredBookings);
+                } else {
+                    Set<Booking> left = Collections.newSetFromMap(new IdentityHashMap<Booking, Boolean>());
+                    left.addAll(clashing);
+                    List<Booking> restored = new ArrayList<Booking>(restoredBookings.size());
+                    for(Booking booking : restoredBookings) if(!left.contains(booking)) restored.add(booking);
+                    listener.bookingsRestored(restored);
+                }
+            });
+            recordRestored(records.size() - rejected.size(), rejected);
+        }
+
+        private synchronized void recordRestored(long restored, List<UUID> rejected) {
+            bookingCount += restored;
+            rejectedCount += rejected.size();
+            for(int i = 0; i < rejected.size() && rejectedIds.size() < MAX_REJECTED_IDS; i++) rejectedIds.add(rejected.get(i));
+        }
+
+        // Null when the booking refers to a room or amenity the hotel does not have, or a restricted amenity
+        private Booking toBooking(Record record) {
+            Room room = hotel.getRooms().get(record.roomNo);
+            if(room == null) return null;
+            List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>(record.amenityNames.size());
+            for(int i = 0; i < record.amenityNames.size(); i++) {
+                Amenity amenity = hotel.getAmenities().get(record.amenityNames.get(i));
+                if(amenity == null) return null;
+                bookingAmenities.add(BookingAmenity.builder()
+                        .amenity(amenity)
+                        .count(record.amenityCounts.get(i))
+                        .build());
+            }
+            try {
+                Booking booking = Booking.builder()
+                        .bookingId(record.bookingId)
+                        .room(room)
+                        .startDate(record.startDate)
+                        .numberOfDays(record.numberOfDays)
+                        .bookingAmenities(bookingAmenities)
+                        .user(User.builder()
+                                .userId(record.userId)
+                                .firstName(record.firstName)
+                                .lastName(record.lastName)
+                                .build())
+                        .ratePlan(hotel.getRatePlan())
+                        .build();
+                if(record.totalCost != null) booking.setTotalCost(record.totalCost);
+                return booking;
+            } catch (ReservationRejectedException e) {
+                return null;
+            }
+        }
+
+        private synchronized Result result() {
+            return new Result(amenityCount, floorCount, roomCount, bookingCount, rejectedCount, new ArrayList<UUID>(rejectedIds));
+        }
+    }
+
+    /**
+     * Told about the changes an import makes to the hotel, from the thread that made them.
+     * Every change is made by a Runnable handed to apply, which reports what it changed before it returns.
+     */
+    public interface Listener {
+
+        Listener NONE = new Listener() { };
+
+        /**
+         * Runs one change of the import, to bookings in the given rooms, or to the whole hotel when roomNos is null.
+         */
+        default void apply(int[] roomNos, Runnable change) {
+            change.run();
+        }
+
+        default void amenityAdded(Amenity amenity) {
+        }
+
+        default void floorAdded(Floor floor) {
+        }
+
+        default void roomsAdded(List<Room> rooms) {
+        }
+
+        default void bookingsRestored(List<Booking> bookings) {
+        }
+    }
+
+    // One parsed line or object, only the fields of its type are set
+    private static class Record {
+        private final String type;
+        private String name;
+        private int limit;
+        private BigDecimal cost;
+        private int capacity;
+        private int floorNumber;
+        private boolean handicapAccessible;
+        private int roomNo;
+        private int numberOfBeds;
+        private UUID bookingId;
+        private LocalDate startDate;
+        private int numberOfDays;
+        private UUID userId;
+        private String firstName;
+        private String lastName;
+        private BigDecimal totalCost;
+        private final List<String> amenityNames = new ArrayList<String>();
+        private final List<Integer> amenityCounts = new ArrayList<Integer>();
+
+        private Record(String type) {
+            this.type = type;
+        }
+    }
+
+    public static final class Result {
+        private final int amenities;
+        private final int floors;
+        private final int rooms;
+        private final long bookings;
+        private final long rejectedBookings;
+        private final List<UUID> rejectedBookingIds;
+
+        private Result(int amenities, int floors, int rooms, long bookings, long rejectedBookings, List<UUID> rejectedBookingIds) {
+            this.amenities = amenities;
+            this.floors = floors;
+            this.rooms = rooms;
+            this.bookings = bookings;
+            this.rejectedBookings = rejectedBookings;
+            this.rejectedBookingIds = Collections.unmodifiableList(rejectedBookingIds);
+        }
+
+        public int getAmenities() {
+            return amenities;
+        }
+
+        public int getFloors() {
+            return floors;
+        }
+
+        public int getRooms() {
+            return rooms;
+        }
+
+        public long getBookings() {
+            return bookings;
+        }
+
+        public long getRejectedBookings() {
+            return rejectedBookings;
+        }
+
+        /**
+         * The first of the rejected bookings, getRejectedBookings counts all of them.
+         */
+        public List<UUID> getRejectedBookingIds() {
+            return rejectedBookingIds;
+        }
+    }
+}
@@ -0,0 +1,735 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.*;
+import com.hotel.reservation.Utilities.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Journal of every change made to a Hotel, with periodic snapshots of the whole hotel.
+ *
+ * Changes must be appended after the Hotel has accepted them, while holding the locks of the rooms
+ * they touch from lockRooms, or lockAll for changes to the whole hotel, so changes that depend on
+ * each other are journaled in the order they were applied. A snapshot copies the hotel under lockAll
+ * together with the last journal sequence, so it holds exactly the changes up to that sequence.
+ * Replaying a record the hotel already has, e.g. when recover runs twice, leaves the hotel as it is.
+ * A record that can not be replayed fails recovery rather than losing an acknowledged change.
+ *
+ * Recovery loads the newest snapshot and replays the journal after it, so startup reads one
+ * sequential file plus the tail instead of scanning the database. Bookings keep the price they
+ * were made at, whatever rate plan is in force when they are restored.
+ *
+ * Overbooked and waitlisted stays are journaled when they join the waitlist and when they are
+ * withdrawn, and leave it when the booking made from them, which has their id, is replayed.
+ * They are put back on the waitlist once the whole journal is replayed, so replaying a
+ * cancellation does not book them into a room they were not given. Overbooking allowances are
+ * journaled as they are set and kept in snapshots.
+ */
+public class HotelJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelJournal.class);
+
+    static final byte AMENITY = 1;
+    static final byte FLOOR = 2;
+    static final byte ROOM = 3;
+    static final byte BOOKING = 4;
+    static final byte BOOKINGS = 5;
+    static final byte CANCELLATION = 6;
+    static final byte MODIFICATION = 7;
+    static final byte WAITLIST_ENTRY = 8;
+    static final byte WAITLIST_REMOVAL = 9;
+    static final byte OVERBOOKING = 10;
+
+    private static final int SNAPSHOT_MAGIC = 0x484F544C;
+    private static final int SNAPSHOT_VERSION = 5;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final MappedJournal journal;
+    private final JournalLocks locks;
+    private volatile JournalFollower follower;
+
+    public HotelJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.journal = new MappedJournal(directory, segmentSize);
+        this.locks = new JournalLocks(JournalLocks.DEFAULT_STRIPES);
+    }
+
+    /**
+     * Keeps the journal from being truncated past changes the follower has not saved yet.
+     */
+    public void setFollower(JournalFollower follower) {
+        this.follower = follower;
+    }
+
+    /**
+     * Held while a change to the rooms is applied to the Hotel and appended, see JournalLocks.
+     */
+    public JournalLocks.Held lockRooms(int... roomNos) {
+        return locks.lockRooms(roomNos);
+    }
+
+    /**
+     * Held while a change to the whole hotel is applied and appended, e.g. to its amenities,
+     * floors or waitlist.
+     */
+    public JournalLocks.Held lockAll() {
+        return locks.lockAll();
+    }
+
+    public CompletableFuture<Long> appendAmenity(Amenity amenity) {
+        return journal.append(AMENITY, buffer -> {
+            putString(buffer, amenity.getName());
+            buffer.putInt(amenity.getLimit());
+            putString(buffer, amenity.getCost() != null ? amenity.getCost().toPlainString() : null);
+            buffer.putInt(amenity.getCapacity());
+        });
+    }
+
+    public CompletableFuture<Long> appendFloor(Floor floor) {
+        return journal.append(FLOOR, buffer -> {
+            buffer.putInt(floor.getFloorNumber());
+            buffer.put((byte) (floor.isHandicapAccessible() ? 1 : 0));
+            List<Amenity> restrictedAmenities = restrictedAmenities(floor);
+            buffer.putInt(restrictedAmenities.size());
+            for(Amenity amenity : restrictedAmenities) putString(buffer, amenity.getName());
+        });
+    }
+
+    public CompletableFuture<Long> appendRoom(Room room) {
+        return journal.append(ROOM, buffer -> {
+            buffer.putInt(room.getRoomNo());
+            buffer.putInt(room.getFloor().getFloorNumber());
+            buffer.putInt(room.getNumberOfBeds());
+        });
+    }
+
+    public CompletableFuture<Long> appendBooking(Booking booking) {
+        return journal.append(BOOKING, buffer -> putBooking(buffer, booking));
+    }
+
+    /**
+     * Journals the bookings of a group reservation as a single record, so recovery
+     * restores either all of them or none.
+     */
+    public CompletableFuture<Long> appendBookings(List<Booking> bookings) {
+        return journal.append(BOOKINGS, buffer -> {
+            buffer.putInt(bookings.size());
+            for(Booking booking : bookings) putBooking(buffer, booking);
+        });
+    }
+
+    public CompletableFuture<Long> appendCancellation(UUID bookingId) {
+        return journal.append(CANCELLATION, buffer -> putUuid(buffer, bookingId));
+    }
+
+    /**
+     * Journals the booking as it is after a modification, under its unchanged id.
+     */
+    public CompletableFuture<Long> appendModification(Booking booking) {
+        return journal.append(MODIFICATION, buffer -> putBooking(buffer, booking));
+    }
+
+    /**
+     * Journals a stay that was overbooked or waitlisted, with the status it was given.
+     */
+    public CompletableFuture<Long> appendWaitlistEntry(WaitlistEntry entry) {
+        WaitlistEntry.Status status = entry.getStatus();
+        if(status != WaitlistEntry.Status.OVERBOOKED && status != WaitlistEntry.Status.WAITLISTED)
+            throw new IllegalArgumentException("Only overbooked or waitlisted entries are journaled");
+        return journal.append(WAITLIST_ENTRY, buffer -> {
+            putUuid(buffer, entry.getEntryId());
+            buffer.putLong(entry.getStartDay());
+            buffer.putInt(entry.getNumberOfDays());
+            buffer.putInt(entry.getQuery().getNumberOfBeds());
+            buffer.put((byte) (entry.getQuery().isHandicapAccessible() ? 1 : 0));
+            putUuid(buffer, entry.getUser().getUserId());
+            putString(buffer, entry.getUser().getFirstName());
+            putString(buffer, entry.getUser().getLastName());
+            buffer.putInt(entry.getPriority());
+            buffer.put((byte) (status == WaitlistEntry.Status.OVERBOOKED ? 1 : 0));
+            buffer.putInt(entry.getBookingAmenities().size());
+            for(BookingAmenity bookingAmenity : entry.getBookingAmenities()) {
+                putString(buffer, bookingAmenity.getAmenity().getName());
+                buffer.putInt(bookingAmenity.getCount());
+            }
+        });
+    }
+
+    /**
+     * Journals that a stay was taken off the waitlist without a room, e.g. withdrawn by the guest.
+     */
+    public CompletableFuture<Long> appendWaitlistRemoval(UUID entryId) {
+        return journal.append(WAITLIST_REMOVAL, buffer -> putUuid(buffer, entryId));
+    }
+
+    /**
+     * Journals an overbooking allowance for all nights, or for the night starting on the given date if it is not null.
+     */
+    public CompletableFuture<Long> appendOverbookingAllowance(int numberOfBeds, LocalDate night, int allowance) {
+        return journal.append(OVERBOOKING, buffer -> {
+            buffer.putInt(numberOfBeds);
+            buffer.put((byte) (night != null ? 1 : 0));
+            if(night != null) buffer.putLong(night.toEpochDay());
+            buffer.putInt(allowance);
+        });
+    }
+
+    /**
+     * Rebuilds the hotel from the newest snapshot and the journal after it. When there is no
+     * snapshot yet the fallback is run first, e.g. to load a database written before the journal existed.
+     * The hotel's events are not published again, its publisher is set aside until recovery is done.
+     */
+    public void recover(Hotel hotel, Runnable fallback) {
+        long startedAt = System.nanoTime();
+        BookingEventPublisher eventPublisher = hotel.getEventPublisher();
+        hotel.setEventPublisher(BookingEventPublisher.NONE);
+        int replayed;
+        // Stays still waiting once the journal is replayed, in the order they joined the waitlist
+        Map<UUID, WaitlistRecord> waiting = new LinkedHashMap<UUID, WaitlistRecord>();
+        try {
+            Path snapshot = latestSnapshot();
+            long afterSequence = 0;
+            if(snapshot != null) {
+                afterSequence = loadSnapshot(snapshot, hotel, waiting);
+            } else {
+                fallback.run();
+            }
+            replayed = replay(hotel, afterSequence, waiting);
+            for(WaitlistRecord entry : waiting.values()) restoreWaitlistEntry(hotel, entry);
+        } finally {
+            hotel.setEventPublisher(eventPublisher);
+        }
+        log.info("Recovered {} rooms, {} bookings and {} waitlisted stays ({} journal records replayed) in {} ms",
+                hotel.getRooms().size(), hotel.getBookings().size(), hotel.getWaitlist().size(), replayed, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Writes a snapshot of the hotel and drops the journal segments it makes redundant, keeping
+     * those with changes the follower has not saved. Returns the last journal sequence the snapshot covers.
+     */
+    public long snapshot(Hotel hotel) {
+        long sequence;
+        List<Amenity> amenities;
+        List<Floor> floors;
+        List<Room> rooms;
+        List<Booking> bookings;
+        List<WaitlistEntry> waitlistEntries;
+        Map<Integer, Integer> allowances;
+        Map<Integer, Map<Long, Integer>> nightAllowances;
+        JournalFollower follower = this.follower;
+        // Only copying is done under the locks, the file is written once changes can go on
+        try(JournalLocks.Held held = locks.lockAll()) {
+            sequence = journal.lastSequence();
+            amenities = new ArrayList<Amenity>(hotel.getAmenities().values());
+            floors = new ArrayList<Floor>(hotel.getFloors().values());
+            rooms = new ArrayList<Room>(hotel.getRooms().values());
+            bookings = new ArrayList<Booking>(hotel.getBookings().values());
+            waitlistEntries = hotel.getWaitlist().entries();
+            allowances = hotel.getWaitlist().getOverbookingAllowance().getAllowances();
+            nightAllowances = hotel.getWaitlist().getOverbookingAllowance().getNightAllowances();
+            if(follower != null) follower.mark(sequence);
+        }
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            try(FileOutputStream file = new FileOutputStream(temporary.toFile());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                writeSnapshot(out, sequence, amenities, floors, rooms, bookings, waitlistEntries, allowances, nightAllowances);
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for(Path older : snapshots()) {
+                if(!older.equals(target)) Files.deleteIfExists(older);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        journal.truncate(follower != null ? Math.min(sequence, follower.savedThrough()) : sequence);
+        return sequence;
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+
+    private int replay(Hotel hotel, long afterSequence, Map<UUID, WaitlistRecord> waiting) {
+        int[] replayed = new int[1];
+        journal.replay(afterSequence, (sequence, type, payload) -> {
+            try {
+                apply(hotel, type, payload, waiting);
+                replayed[0]++;
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Journal record " + sequence + " of type " + type + " can not be replayed", e);
+            }
+        });
+        return replayed[0];
+    }
+
+    private void apply(Hotel hotel, byte type, ByteBuffer payload, Map<UUID, WaitlistRecord> waiting) {
+        switch(type) {
+            case AMENITY:
+                String name = getString(payload);
+                int limit = payload.getInt();
+                String cost = getString(payload);
+                int capacity = payload.getInt();
+                hotel.addAmenity(name, limit, cost != null ? new BigDecimal(cost) : BigDecimal.ZERO, capacity);
+                break;
+            case FLOOR:
+                int floorNumber = payload.getInt();
+                boolean handicapAccessible = payload.get() != 0;
+                List<String> restrictedAmenities = new ArrayList<String>();
+                for(int i = payload.getInt(); i > 0; i--) restrictedAmenities.add(getString(payload));
+                restoreFloor(hotel, floorNumber, handicapAccessible, restrictedAmenities);
+                break;
+            case ROOM:
+                restoreRoom(hotel, payload.getInt(), payload.getInt(), payload.getInt());
+                break;
+            case BOOKING:
+                restoreBooking(hotel, readBooking(payload), waiting);
+                break;
+            case BOOKINGS:
+                for(int i = payload.getInt(); i > 0; i--) restoreBooking(hotel, readBooking(payload), waiting);
+                break;
+            case CANCELLATION:
+                UUID bookingId = getUuid(payload);
+                // Already gone if the snapshot was taken after the cancellation
+                if(hotel.getBookings().containsKey(bookingId)) hotel.cancelReservation(bookingId);
+                break;
+            case MODIFICATION:
+                BookingRecord modified = readBooking(payload);
+                // The snapshot may hold the booking before or after the modification, either way it is put back as modified
+                if(hotel.getBookings().containsKey(modified.bookingId)) hotel.cancelReservation(modified.bookingId);
+                restoreBooking(hotel, modified, waiting);
+                break;
+            case WAITLIST_ENTRY:
+                WaitlistRecord entry = readWaitlistEntry(payload);
+                waiting.put(entry.entryId, entry);
+                break;
+            case WAITLIST_REMOVAL:
+                waiting.remove(getUuid(payload));
+                break;
+            case OVERBOOKING:
+                int numberOfBeds = payload.getInt();
+                LocalDate night = payload.get() != 0 ? LocalDate.ofEpochDay(payload.getLong()) : null;
+                restoreOverbookingAllowance(hotel, numberOfBeds, night, payload.getInt());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type");
+        }
+    }
+
+    private void writeSnapshot(DataOutputStream out,
+                               long sequence,
+                               List<Amenity> amenities,
+                               List<Floor> floors,
+                               List<Room> rooms,
+                               List<Booking> bookings,
+                               List<WaitlistEntry> waitlistEntries,
+                               Map<Integer, Integer> allowances,
+                               Map<Integer, Map<Long, Integer>> nightAllowances) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(sequence);
+
+        // Every section is terminated by a marker instead of being prefixed by a count, as snapshots
+        // taken while the hotel was changing were written
+        for(Amenity amenity : amenities) {
+            out.writeBoolean(true);
+            writeString(out, amenity.getName());
+            out.writeInt(amenity.getLimit());
+            writeString(out, amenity.getCost() != null ? amenity.getCost().toPlainString() : null);
+            out.writeInt(amenity.getCapacity());
+        }
+        out.writeBoolean(false);
+
+        for(Floor floor : floors) {
+            out.writeBoolean(true);
+            out.writeInt(floor.getFloorNumber());
+            out.writeBoolean(floor.isHandicapAccessible());
+            List<Amenity> restrictedAmenities = restrictedAmenities(floor);
+            out.writeInt(restrictedAmenities.size());
+            for(Amenity amenity : restrictedAmenities) writeString(out, amenity.getName());
+        }
+        out.writeBoolean(false);
+
+        for(Room room : rooms) {
+            out.writeBoolean(true);
+            out.writeInt(room.getRoomNo());
+            out.writeInt(room.getFloor().getFloorNumber());
+            out.writeInt(room.getNumberOfBeds());
+        }
+        out.writeBoolean(false);
+
+        for(Booking booking : bookings) {
+            out.writeBoolean(true);
+            writeUuid(out, booking.getBookingId());
+            out.writeInt(booking.getRoom().getRoomNo());
+            out.writeLong(booking.getStartDate().toEpochDay());
+            out.writeInt(booking.getNumberOfDays());
+            writeUuid(out, booking.getUser().getUserId());
+            writeString(out, booking.getUser().getFirstName());
+            writeString(out, booking.getUser().getLastName());
+            out.writeLong(booking.getTotalCents());
+            out.writeInt(booking.getBookingAmenities().size());
+            for(BookingAmenity bookingAmenity : booking.getBookingAmenities()) {
+                writeString(out, bookingAmenity.getAmenity().getName());
+                out.writeInt(bookingAmenity.getCount());
+            }
+        }
+        out.writeBoolean(false);
+
+        for(WaitlistEntry entry : waitlistEntries) {
+            out.writeBoolean(true);
+            writeUuid(out, entry.getEntryId());
+            out.writeLong(entry.getStartDay());
+            out.writeInt(entry.getNumberOfDays());
+            out.writeInt(entry.getQuery().getNumberOfBeds());
+            out.writeBoolean(entry.getQuery().isHandicapAccessible());
+            writeUuid(out, entry.getUser().getUserId());
+            writeString(out, entry.getUser().getFirstName());
+            writeString(out, entry.getUser().getLastName());
+            out.writeInt(entry.getPriority());
+            out.writeBoolean(entry.getStatus() == WaitlistEntry.Status.OVERBOOKED);
+            out.writeInt(entry.getBookingAmenities().size());
+            for(BookingAmenity bookingAmenity : entry.getBookingAmenities()) {
+                writeString(out, bookingAmenity.getAmenity().getName());
+                out.writeInt(bookingAmenity.getCount());
+            }
+        }
+        out.writeBoolean(false);
+
+        // Allowances are written like their journal records, with or without a night
+        for(Map.Entry<Integer, Integer> allowance : allowances.entrySet()) {
+            out.writeBoolean(true);
+            out.writeInt(allowance.getKey());
+            out.writeBoolean(false);
+            out.writeInt(allowance.getValue());
+        }
+        for(Map.Entry<Integer, Map<Long, Integer>> byNight : nightAllowances.entrySet()) {
+            for(Map.Entry<Long, Integer> allowance : byNight.getValue().entrySet()) {
+                out.writeBoolean(true);
+                out.writeInt(byNight.getKey());
+                out.writeBoolean(true);
+                out.writeLong(allowance.getKey());
+                out.writeInt(allowance.getValue());
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+    private long loadSnapshot(Path snapshot, Hotel hotel, Map<UUID, WaitlistRecord> waiting) {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            if(in.readInt() != SNAPSHOT_MAGIC) throw new IllegalStateException("Unrecognised snapshot " + snapshot);
+            int version = in.readInt();
+            if(version != SNAPSHOT_VERSION) throw new IllegalStateException("Unrecognised snapshot " + snapshot);
+            long sequence = in.readLong();
+
+            while(in.readBoolean()) {
+                String name = readString(in);
+                int limit = in.readInt();
+                String cost = readString(in);
+                int capacity = in.readInt();
+                hotel.addAmenity(name, limit, cost != null ? new BigDecimal(cost) : BigDecimal.ZERO, capacity);
+            }
+            while(in.readBoolean()) {
+                int floorNumber = in.readInt();
+                boolean handicapAccessible = in.readBoolean();
+                List<String> restrictedAmenities = new ArrayList<String>();
+                for(int i = in.readInt(); i > 0; i--) restrictedAmenities.add(readString(in));
+                restoreFloor(hotel, floorNumber, handicapAccessible, restrictedAmenities);
+            }
+            while(in.readBoolean()) {
+                restoreRoom(hotel, in.readInt(), in.readInt(), in.readInt());
+            }
+            while(in.readBoolean()) {
+                BookingRecord booking = new BookingRecord();
+                booking.bookingId = readUuid(in);
+                booking.roomNo = in.readInt();
+                booking.startDay = in.readLong();
+                booking.numberOfDays = in.readInt();
+                booking.userId = readUuid(in);
+                booking.firstName = readString(in);
+                booking.lastName = readString(in);
+                booking.totalCents = in.readLong();
+                for(int i = in.readInt(); i > 0; i--) {
+                    booking.amenityNames.add(readString(in));
+                    booking.amenityCounts.add(in.readInt());
+                }
+                restoreBooking(hotel, booking, waiting);
+            }
+            while(in.readBoolean()) {
+                WaitlistRecord entry = new WaitlistRecord();
+                entry.entryId = readUuid(in);
+                entry.startDay = in.readLong();
+                entry.numberOfDays = in.readInt();
+                entry.numberOfBeds = in.readInt();
+                entry.handicapAccessible = in.readBoolean();
+                entry.userId = readUuid(in);
+                entry.firstName = readString(in);
+                entry.lastName = readString(in);
+                entry.priority = in.readInt();
+                entry.overbooked = in.readBoolean();
+                for(int i = in.readInt(); i > 0; i--) {
+                    entry.amenityNames.add(readString(in));
+                    entry.amenityCounts.add(in.readInt());
+                }
+                waiting.put(entry.entryId, entry);
+            }
+            while(in.readBoolean()) {
+                int numberOfBeds = in.readInt();
+                LocalDate night = in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+                restoreOverbookingAllowance(hotel, numberOfBeds, night, in.readInt());
+            }
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void restoreOverbookingAllowance(Hotel hotel, int numberOfBeds, LocalDate night, int allowance) {
+        OverbookingAllowance overbookingAllowance = hotel.getWaitlist().getOverbookingAllowance();
+        if(night == null) overbookingAllowance.setAllowance(numberOfBeds, allowance);
+        else overbookingAllowance.setAllowance(numberOfBeds, night, allowance);
+    }
+
+    private static void restoreFloor(Hotel hotel, int floorNumber, boolean handicapAccessible, List<String> restrictedAmenityNames) {
+        List<Amenity> restrictedAmenities = new ArrayList<Amenity>();
+        for(String name : restrictedAmenityNames) restrictedAmenities.add(findAmenity(hotel, name));
+
+        Floor existing = hotel.getFloors().get(floorNumber);
+        // Replacing an identical floor would detach the rooms that already point at it
+        if(existing != null && existing.isHandicapAccessible() == handicapAccessible
+                && names(restrictedAmenities(existing)).equals(restrictedAmenityNames)) return;
+        hotel.addFloor(floorNumber, handicapAccessible, restrictedAmenities);
+    }
+
+    private static void restoreRoom(Hotel hotel, int roomNo, int floorNumber, int numberOfBeds) {
+        Room existing = hotel.getRooms().get(roomNo);
+        // Replacing an identical room would throw away its reservations
+        if(existing != null && existing.getFloor().getFloorNumber() == floorNumber && existing.getNumberOfBeds() == numberOfBeds) return;
+        Floor floor = hotel.getFloors().get(floorNumber);
+        if(floor == null) throw new IllegalArgumentException("Floor " + floorNumber + " not found");
+        hotel.addRoom(roomNo, floor, numberOfBeds);
+    }
+
+    // A booking with the id of a waiting stay was made from the waitlist, the stay is no longer waiting
+    private static void restoreBooking(Hotel hotel, BookingRecord record, Map<UUID, WaitlistRecord> waiting) {
+        waiting.remove(record.bookingId);
+        if(hotel.getBookings().containsKey(record.bookingId)) return;
+        Room room = hotel.getRooms().get(record.roomNo);
+        if(room == null) throw new IllegalArgumentException("Room " + record.roomNo + " not found");
+
+        List<BookingAmenity> bookingAmenities = bookingAmenities(hotel, record.amenityNames, record.amenityCounts);
+        User user = user(record.userId, record.firstName, record.lastName);
+        Booking booking = hotel.restoreReservation(record.bookingId, room, LocalDate.ofEpochDay(record.startDay), record.numberOfDays, bookingAmenities, user);
+        booking.setTotalCost(Money.toBigDecimal(record.totalCents));
+    }
+
+    private static void restoreWaitlistEntry(Hotel hotel, WaitlistRecord record) {
+        // Booked in the meantime, e.g. by the fallback
+        if(hotel.getBookings().containsKey(record.entryId)) return;
+        hotel.restoreWaitlistEntry(record.entryId,
+                                   LocalDate.ofEpochDay(record.startDay),
+                                   record.numberOfDays,
+                                   record.numberOfBeds,
+                                   record.handicapAccessible,
+                                   bookingAmenities(hotel, record.amenityNames, record.amenityCounts),
+                                   user(record.userId, record.firstName, record.lastName),
+                                   record.priority,
+                                   record.overbooked ? WaitlistEntry.Status.OVERBOOKED : WaitlistEntry.Status.WAITLISTED);
+    }
+
+    private static List<BookingAmenity> bookingAmenities(Hotel hotel, List<String> amenityNames, List<Integer> amenityCounts) {
+        List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>();
+        for(int i = 0; i < amenityNames.size(); i++) {
+            bookingAmenities.add(BookingAmenity.builder()
+                    .amenity(findAmenity(hotel, amenityNames.get(i)))
+                    .count(amenityCounts.get(i))
+                    .build());
+        }
+        return bookingAmenities;
+    }
+
+    private static User user(UUID userId, String firstName, String lastName) {
+        return User.builder()
+                .userId(userId)
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+    }
+
+    private static void putBooking(ByteBuffer buffer, Booking booking) {
+        putUuid(buffer, booking.getBookingId());
+        buffer.putInt(booking.getRoom().getRoomNo());
+        buffer.putLong(booking.getStartDate().toEpochDay());
+        buffer.putInt(booking.getNumberOfDays());
+        putUuid(buffer, booking.getUser().getUserId());
+        putString(buffer, booking.getUser().getFirstName());
+        putString(buffer, booking.getUser().getLastName());
+        buffer.putLong(booking.getTotalCents());
+        buffer.putInt(booking.getBookingAmenities().size());
+        for(BookingAmenity bookingAmenity : booking.getBookingAmenities()) {
+            putString(buffer, bookingAmenity.getAmenity().getName());
+            buffer.putInt(bookingAmenity.getCount());
+        }
+    }
+
+    private static BookingRecord readBooking(ByteBuffer payload) {
+        BookingRecord booking = new BookingRecord();
+        booking.bookingId = getUuid(payload);
+        booking.roomNo = payload.getInt();
+        booking.startDay = payload.getLong();
+        booking.numberOfDays = payload.getInt();
+        booking.userId = getUuid(payload);
+        booking.firstName = getString(payload);
+        booking.lastName = getString(payload);
+        booking.totalCents = payload.getLong();
+        for(int i = payload.getInt(); i > 0; i--) {
+            booking.amenityNames.add(getString(payload));
+            booking.amenityCounts.add(payload.getInt());
+        }
+        return booking;
+    }
+
+    private static WaitlistRecord readWaitlistEntry(ByteBuffer payload) {
+        WaitlistRecord entry = new WaitlistRecord();
+        entry.entryId = getUuid(payload);
+        entry.startDay = payload.getLong();
+        entry.numberOfDays = payload.getInt();
+        entry.numberOfBeds = payload.getInt();
+        entry.handicapAccessible = payload.get() != 0;
+        entry.userId = getUuid(payload);
+        entry.firstName = getString(payload);
+        entry.lastName = getString(payload);
+        entry.priority = payload.getInt();
+        entry.overbooked = payload.get() != 0;
+        for(int i = payload.getInt(); i > 0; i--) {
+            entry.amenityNames.add(getString(payload));
+            entry.amenityCounts.add(payload.getInt());
+        }
+        return entry;
+    }
+
+    private static Amenity findAmenity(Hotel hotel, String name) {
+        Amenity amenity = hotel.getAmenities().get(name);
+        if(amenity == null) throw new IllegalArgumentException("Unknown amenity " + name);
+        return amenity;
+    }
+
+    private static List<Amenity> restrictedAmenities(Floor floor) {
+        return floor.getRestrictedAmenities() != null ? floor.getRestrictedAmenities() : Collections.<Amenity>emptyList();
+    }
+
+    private static List<String> names(List<Amenity> amenities) {
+        List<String> names = new ArrayList<String>(amenities.size());
+        for(Amenity amenity : amenities) names.add(amenity.getName());
+        return names;
+    }
+
+    private Path latestSnapshot() {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private List<Path> snapshots() {
+        List<Path> snapshots = new ArrayList<Path>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for(Path path : stream) snapshots.add(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if(value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID value) {
+        buffer.put((byte) (value != null ? 1 : 0));
+        if(value == null) return;
+        buffer.putLong(value.getMostSignificantBits());
+        buffer.putLong(value.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        if(buffer.get() == 0) return null;
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value == null) return;
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static class BookingRecord {
+        private UUID bookingId;
+        private int roomNo;
+        private long startDay;
+        private int numberOfDays;
+        private UUID userId;
+        private String firstName;
+        private String lastName;
+        private long totalCents;
+        private final List<String> amenityNames = new ArrayList<String>();
+        private final List<Integer> amenityCounts = new ArrayList<Integer>();
+    }
+
+    private static class WaitlistRecord {
+        private UUID entryId;
+        private long startDay;
+        private int numberOfDays;
+        private int numberOfBeds;
+        private boolean handicapAccessible;
+        private UUID userId;
+        private String firstName;
+        private String lastName;
+        private int priority;
+        private boolean overbooked;
+        private final List<String> amenityNames = new ArrayList<String>();
+        private final List<Integer> amenityCounts = new ArrayList<Integer>();
+    }
+}
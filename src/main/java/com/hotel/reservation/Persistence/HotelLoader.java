@@ -0,0 +1,53 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Hotel;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the in memory hotel when the application starts, from the latest snapshot and the
+ * journal after it, or from the database when no snapshot has been taken yet. A fresh snapshot
+ * is taken straight away so the next start does not replay the same journal again.
+ *
+ * Runs as the first phase of the context's lifecycle, which Spring starts before the web server
+ * accepts connections and before scheduled tasks are registered. No request can see a half rebuilt
+ * hotel or book a room while the journal is replayed, and a failed recovery stops the application
+ * before it serves anything.
+ */
+@Component
+public class HotelLoader implements SmartLifecycle {
+
+    private final Hotel hotel;
+    private final HotelStore hotelStore;
+    private final HotelJournal hotelJournal;
+    private volatile boolean running;
+
+    public HotelLoader(Hotel hotel, HotelStore hotelStore, HotelJournal hotelJournal) {
+        this.hotel = hotel;
+        this.hotelStore = hotelStore;
+        this.hotelJournal = hotelJournal;
+    }
+
+    @Override
+    public void start() {
+        if(running) return;
+        hotelJournal.recover(hotel, () -> hotelStore.loadInto(hotel));
+        hotelJournal.snapshot(hotel);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+}
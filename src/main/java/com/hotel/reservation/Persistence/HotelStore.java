@@ -0,0 +1,157 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Stores the hotel's inventory and bookings in the database and loads them back on startup.
+ *
+ * Bookings are written with plain persists of entities with assigned ids, which Hibernate
+ * groups into JDBC batches of spring.jpa.properties.hibernate.jdbc.batch_size statements.
+ */
+@Service
+@Transactional
+public class HotelStore {
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AmenityRepository amenityRepository;
+    private final FloorRepository floorRepository;
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+
+    public HotelStore(AmenityRepository amenityRepository,
+                      FloorRepository floorRepository,
+                      RoomRepository roomRepository,
+                      BookingRepository bookingRepository) {
+        this.amenityRepository = amenityRepository;
+        this.floorRepository = floorRepository;
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    public void saveAmenity(Amenity amenity) {
+        entityManager.merge(AmenityEntity.from(amenity));
+    }
+
+    public void saveFloor(Floor floor) {
+        entityManager.merge(FloorEntity.from(floor));
+    }
+
+    public void saveRoom(Room room) {
+        entityManager.merge(RoomEntity.from(room));
+    }
+
+    public void saveBooking(Booking booking) {
+        saveBookings(Collections.singletonList(booking));
+    }
+
+    public void saveBookings(Collection<Booking> bookings) {
+        int pending = 0;
+        for(Booking booking : bookings) {
+            String bookingId = booking.getBookingId().toString();
+            entityManager.persist(BookingEntity.from(booking));
+            long startDay = booking.getStartDate().toEpochDay();
+            for(int day = 0; day < booking.getNumberOfDays(); day++) {
+                entityManager.persist(new RoomNightEntity(booking.getRoom().getRoomNo(), startDay + day, bookingId));
+            }
+            pending += booking.getNumberOfDays() + 1;
+            // Keeps the persistence context from growing with the size of the import
+            if(pending >= FLUSH_INTERVAL) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+    }
+
+    public void deleteBooking(UUID bookingId) {
+        String id = bookingId.toString();
+        entityManager.createQuery("delete from RoomNightEntity n where n.bookingId = :bookingId")
+                .setParameter("bookingId", id)
+                .executeUpdate();
+        BookingEntity booking = entityManager.find(BookingEntity.class, id);
+        if(booking != null) entityManager.remove(booking);
+        // The nights and the id may be persisted again straight away by replaceBooking
+        entityManager.flush();
+    }
+
+    /**
+     * Saves a modified booking over the one with the same id.
+     */
+    public void replaceBooking(Booking booking) {
+        deleteBooking(booking.getBookingId());
+        saveBooking(booking);
+    }
+
+    /**
+     * Same search as Hotel.findAvailability answered by a single indexed query,
+     * returning the numbers of the rooms that are free for every night of the stay.
+     */
+    @Transactional(readOnly = true)
+    public List<Integer> findAvailableRoomNumbers(LocalDate startDate,
+                                                  int numberOfDays,
+                                                  int numberOfBeds,
+                                                  boolean handicapAccessible,
+                                                  List<Amenity> amenities) {
+        long startDay = startDate.toEpochDay();
+        long endDay = startDay + numberOfDays;
+        if(amenities.isEmpty()) return roomRepository.findAvailableRoomNumbers(startDay, endDay, numberOfBeds, handicapAccessible);
+
+        Set<String> amenityNames = new HashSet<String>();
+        for(Amenity amenity : amenities) amenityNames.add(amenity.getName());
+        return roomRepository.findAvailableRoomNumbers(startDay, endDay, numberOfBeds, handicapAccessible, amenityNames);
+    }
+
+    @Transactional(readOnly = true)
+    public void loadInto(Hotel hotel) {
+        for(AmenityEntity amenity : amenityRepository.findAll()) {
+            hotel.addAmenity(amenity.getName(),
+                             amenity.getLimit(),
+                             amenity.getCost(),
+                             amenity.getCapacity() != null ? amenity.getCapacity() : AmenityInventory.UNLIMITED);
+        }
+
+        for(FloorEntity floor : floorRepository.findAll()) {
+            List<Amenity> restrictedAmenities = new ArrayList<Amenity>();
+            for(String name : floor.getRestrictedAmenities()) restrictedAmenities.add(hotel.getAmenities().get(name));
+            hotel.addFloor(floor.getFloorNumber(), floor.isHandicapAccessible(), restrictedAmenities);
+        }
+
+        for(RoomEntity room : roomRepository.findAll()) {
+            hotel.addRoom(room.getRoomNo(), hotel.getFloors().get(room.getFloorNumber()), room.getNumberOfBeds());
+        }
+
+        for(BookingEntity booking : bookingRepository.findAll()) {
+            List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>();
+            for(BookingAmenityEmbeddable amenity : booking.getAmenities()) {
+                bookingAmenities.add(BookingAmenity.builder()
+                        .amenity(hotel.getAmenities().get(amenity.getName()))
+                        .count(amenity.getCount())
+                        .build());
+            }
+            User user = User.builder()
+                    .userId(booking.getUserId() != null ? UUID.fromString(booking.getUserId()) : null)
+                    .firstName(booking.getFirstName())
+                    .lastName(booking.getLastName())
+                    .build();
+            Booking restored = hotel.restoreReservation(UUID.fromString(booking.getBookingId()),
+                                                        hotel.getRooms().get(booking.getRoomNo()),
+                                                        booking.getStartDate(),
+                                                        booking.getNumberOfDays(),
+                                                        bookingAmenities,
+                                                        user);
+            // Keep the price the booking was made at rather than repricing it with today's rate plan
+            if(booking.getTotalCost() != null) restored.setTotalCost(booking.getTotalCost());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.hotel.reservation.Persistence;
+
+/**
+ * Keeps a copy of the journaled changes of its own, e.g. the database the WriteBehindStore saves to.
+ * A snapshot only truncates the journal up to the changes the follower has saved, so whatever
+ * the follower failed to save can still be recovered from the journal.
+ */
+public interface JournalFollower {
+
+    /**
+     * Called by a snapshot while no change is applied, once every change up to the sequence
+     * has been handed to the follower.
+     */
+    void mark(long sequence);
+
+    /**
+     * Highest marked sequence the follower has saved all changes up to.
+     */
+    long savedThrough();
+}
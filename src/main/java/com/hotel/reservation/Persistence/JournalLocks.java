@@ -0,0 +1,78 @@
+package com.hotel.reservation.Persistence;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps changes in the journal in the order the Hotel applied them.
+ *
+ * A change holds the locks for what it touches from before it is applied until it is appended,
+ * so two changes that depend on each other are journaled in the order they happened. Changes can
+ * only depend on each other through the nights of a room they share, which the stripe of the room
+ * covers, or through hotel wide state: amenity units with a capacity, the waitlist, the inventory
+ * itself and snapshots. Those take every stripe.
+ *
+ * Only applying and appending is done under the locks, waiting for the record to be on disk is not.
+ */
+public class JournalLocks {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    public JournalLocks(int numberOfStripes) {
+        if(numberOfStripes <= 0) throw new IllegalArgumentException("Invalid number of stripes");
+        stripes = new ReentrantLock[numberOfStripes];
+        for(int i = 0; i < numberOfStripes; i++) stripes[i] = new ReentrantLock();
+    }
+
+    /**
+     * Locks the stripes of the rooms, always in the same order so two changes cannot deadlock.
+     */
+    public Held lockRooms(int... roomNos) {
+        int[] indexes = new int[roomNos.length];
+        for(int i = 0; i < roomNos.length; i++) indexes[i] = Math.floorMod(roomNos[i], stripes.length);
+        Arrays.sort(indexes);
+        int count = 0;
+        for(int i = 0; i < indexes.length; i++) {
+            if(i == 0 || indexes[i] != indexes[i - 1]) indexes[count++] = indexes[i];
+        }
+        return lock(Arrays.copyOf(indexes, count), false);
+    }
+
+    public Held lockAll() {
+        int[] indexes = new int[stripes.length];
+        for(int i = 0; i < indexes.length; i++) indexes[i] = i;
+        return lock(indexes, true);
+    }
+
+    private Held lock(int[] indexes, boolean all) {
+        for(int index : indexes) stripes[index].lock();
+        return new Held(indexes, all);
+    }
+
+    public final class Held implements AutoCloseable {
+        private final int[] indexes;
+        private final boolean all;
+        private boolean released;
+
+        private Held(int[] indexes, boolean all) {
+            this.indexes = indexes;
+            this.all = all;
+        }
+
+        /**
+         * Whether every stripe is held, i.e. the change may touch hotel wide state.
+         */
+        public boolean isAll() {
+            return all;
+        }
+
+        @Override
+        public void close() {
+            if(released) return;
+            released = true;
+            for(int i = indexes.length - 1; i >= 0; i--) stripes[indexes[i]].unlock();
+        }
+    }
+}
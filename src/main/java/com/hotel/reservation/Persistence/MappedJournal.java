@@ -0,0 +1,339 @@
+package com.hotel.reservation.Persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of records stored in memory mapped segment files.
+ *
+ * Appending copies the record into the mapped segment under a short lock and returns a future
+ * that completes once the record is on disk. A single flusher thread forces the segment to disk
+ * and completes every future appended up to that point, so all appends that arrive while one
+ * fsync is running share the next one (group commit).
+ *
+ * Each record is [int length][int crc32][long sequence][byte type][payload], where length and
+ * crc32 cover everything after them. A zero length or a crc mismatch marks the end of the log,
+ * which also discards a record that was torn by a crash.
+ *
+ * If forcing a segment fails, the journal fails: every future still waiting completes exceptionally
+ * and every later append throws, since nothing written after that could be made durable.
+ */
+public class MappedJournal implements Closeable {
+
+    public interface RecordHandler {
+        void handle(long sequence, byte type, ByteBuffer payload);
+    }
+
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_PREFIX_SIZE = 9;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition recordsAppended = appendLock.newCondition();
+    private final ArrayDeque<PendingFlush> pendingFlushes = new ArrayDeque<PendingFlush>();
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    public MappedJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            if(segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                Path lastSegment = segments.get(segments.size() - 1);
+                lastSequence = firstSequence(lastSegment) - 1;
+                mapSegment(lastSegment);
+                lastSequence = scan(segment, Long.MIN_VALUE, null, lastSequence);
+                // Wipe what is left of a record torn by a crash so it cannot be mistaken for one later
+                if(segment.remaining() >= HEADER_SIZE && segment.getInt(segment.position()) != 0) {
+                    clear(segment.position(), segment.limit());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        durableSequence = lastSequence;
+
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Appends a record and returns a future that completes once it is durable.
+     * The writer must put the payload into the buffer it is given, which is positioned
+     * inside the mapped segment, and must not keep a reference to it.
+     */
+    public CompletableFuture<Long> append(byte type, Consumer<ByteBuffer> writer) {
+        CompletableFuture<Long> durable = new CompletableFuture<Long>();
+        appendLock.lock();
+        try {
+            if(closed) throw new IllegalStateException("Journal is closed");
+            if(failure != null) throw new IllegalStateException("Journal failed to flush", failure);
+            long sequence = lastSequence + 1;
+            if(!tryWrite(sequence, type, writer)) {
+                rollSegment(sequence);
+                if(!tryWrite(sequence, type, writer)) throw new IllegalArgumentException("Journal record larger than a segment");
+            }
+            lastSequence = sequence;
+            pendingFlushes.addLast(new PendingFlush(sequence, durable));
+            recordsAppended.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        return durable;
+    }
+
+    public long lastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Calls the handler for every record with a sequence greater than afterSequence, in order.
+     */
+    public void replay(long afterSequence, RecordHandler handler) {
+        appendLock.lock();
+        try {
+            for(Path path : segments()) {
+                try(FileChannel segmentChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+                    scan(buffer, afterSequence, handler, firstSequence(path) - 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records up to and including the given sequence,
+     * e.g. once a snapshot covers them. The segment being appended to is always kept.
+     */
+    public void truncate(long upToSequence) {
+        appendLock.lock();
+        try {
+            List<Path> segments = segments();
+            for(int i = 0; i + 1 < segments.size(); i++) {
+                if(firstSequence(segments.get(i + 1)) - 1 > upToSequence) break;
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if(closed) return;
+            closed = true;
+            recordsAppended.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            flusher.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean tryWrite(long sequence, byte type, Consumer<ByteBuffer> writer) {
+        int start = segment.position();
+        if(segment.remaining() < HEADER_SIZE + RECORD_PREFIX_SIZE) return false;
+        try {
+            segment.position(start + HEADER_SIZE);
+            segment.putLong(sequence);
+            segment.put(type);
+            writer.accept(segment);
+        } catch (BufferOverflowException e) {
+            clear(start, segment.position());
+            return false;
+        } catch (RuntimeException e) {
+            clear(start, segment.position());
+            throw e;
+        }
+
+        int end = segment.position();
+        ByteBuffer body = segment.duplicate();
+        body.position(start + HEADER_SIZE);
+        body.limit(end);
+        crc.reset();
+        crc.update(body);
+        segment.putInt(start + 4, (int) crc.getValue());
+        // The length goes in last so a reader never sees a record whose body is still being written
+        segment.putInt(start, end - start - HEADER_SIZE);
+        return true;
+    }
+
+    private void clear(int from, int to) {
+        for(int i = from; i < to; i++) segment.put(i, (byte) 0);
+        segment.position(from);
+    }
+
+    private void rollSegment(long nextSequence) {
+        try {
+            segment.force();
+            channel.close();
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        mapSegment(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)));
+    }
+
+    private void mapSegment(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    // Walks the records of a segment, leaves the buffer positioned after the last valid one
+    // and returns the sequence of that record
+    private long scan(ByteBuffer buffer, long afterSequence, RecordHandler handler, long lastSequence) {
+        CRC32 checksum = new CRC32();
+        while(buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if(length < RECORD_PREFIX_SIZE || length > buffer.remaining() - HEADER_SIZE) break;
+
+            ByteBuffer body = buffer.duplicate();
+            body.position(start + HEADER_SIZE);
+            body.limit(start + HEADER_SIZE + length);
+            checksum.reset();
+            checksum.update(body.duplicate());
+            if((int) checksum.getValue() != buffer.getInt(start + 4)) break;
+
+            long sequence = body.getLong();
+            byte type = body.get();
+            if(handler != null && sequence > afterSequence) handler.handle(sequence, type, body.slice());
+            lastSequence = sequence;
+            buffer.position(start + HEADER_SIZE + length);
+        }
+        return lastSequence;
+    }
+
+    private void flushLoop() {
+        while(true) {
+            MappedByteBuffer toFlush;
+            long flushUpTo;
+            appendLock.lock();
+            try {
+                while(!closed && lastSequence == durableSequence) {
+                    recordsAppended.await(100, TimeUnit.MILLISECONDS);
+                }
+                if(closed && lastSequence == durableSequence) return;
+                toFlush = segment;
+                flushUpTo = lastSequence;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                appendLock.unlock();
+            }
+
+            // Every record appended while this runs waits for, and shares, the next force
+            try {
+                toFlush.force();
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            } catch (Error e) {
+                fail(e);
+                throw e;
+            }
+            durableSequence = flushUpTo;
+            completeFlushed(flushUpTo);
+        }
+    }
+
+    private void completeFlushed(long flushUpTo) {
+        List<PendingFlush> flushed = new ArrayList<PendingFlush>();
+        appendLock.lock();
+        try {
+            while(!pendingFlushes.isEmpty() && pendingFlushes.peekFirst().sequence <= flushUpTo) {
+                flushed.add(pendingFlushes.pollFirst());
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        for(PendingFlush pendingFlush : flushed) pendingFlush.durable.complete(pendingFlush.sequence);
+    }
+
+    private void fail(Throwable cause) {
+        List<PendingFlush> failed;
+        appendLock.lock();
+        try {
+            failure = cause;
+            failed = new ArrayList<PendingFlush>(pendingFlushes);
+            pendingFlushes.clear();
+        } finally {
+            appendLock.unlock();
+        }
+        for(PendingFlush pendingFlush : failed) pendingFlush.durable.completeExceptionally(cause);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<Path>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for(Path path : stream) segments.add(path);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static class PendingFlush {
+        private final long sequence;
+        private final CompletableFuture<Long> durable;
+
+        private PendingFlush(long sequence, CompletableFuture<Long> durable) {
+            this.sequence = sequence;
+            this.durable = durable;
+        }
+    }
+}
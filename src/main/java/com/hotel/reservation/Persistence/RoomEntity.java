@@ -0,0 +1,36 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Room;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Handicap accessibility is copied from the floor so that availability searches
+ * can be answered from the rooms table and its index alone.
+ */
+@Entity
+@Table(name = "rooms", indexes = @Index(name = "rooms_search_idx", columnList = "number_of_beds, handicap_accessible"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomEntity {
+    @Id
+    @Column(name = "room_no")
+    private int roomNo;
+
+    @Column(name = "floor_number")
+    private int floorNumber;
+
+    @Column(name = "number_of_beds")
+    private int numberOfBeds;
+
+    @Column(name = "handicap_accessible")
+    private boolean handicapAccessible;
+
+    public static RoomEntity from(Room room) {
+        return new RoomEntity(room.getRoomNo(), room.getFloor().getFloorNumber(), room.getNumberOfBeds(), room.isHandicapAccessible());
+    }
+}
@@ -0,0 +1,30 @@
+package com.hotel.reservation.Persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * One row per reserved night of a room. The primary key (room_no, epoch_day) doubles as the
+ * index availability searches use to look for any booked night inside a date range.
+ */
+@Entity
+@Table(name = "room_nights")
+@IdClass(RoomNightId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomNightEntity {
+    @Id
+    @Column(name = "room_no")
+    private int roomNo;
+
+    @Id
+    @Column(name = "epoch_day")
+    private long epochDay;
+
+    @Column(name = "booking_id", length = 36)
+    private String bookingId;
+}
@@ -0,0 +1,15 @@
+package com.hotel.reservation.Persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomNightId implements Serializable {
+    private int roomNo;
+    private long epochDay;
+}
@@ -0,0 +1,32 @@
+package com.hotel.reservation.Persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomRepository extends JpaRepository<RoomEntity, Integer> {
+
+    @Query("select r.roomNo from RoomEntity r"
+            + " where r.numberOfBeds = :numberOfBeds and r.handicapAccessible = :handicapAccessible"
+            + " and not exists (select n.epochDay from RoomNightEntity n"
+            + "                 where n.roomNo = r.roomNo and n.epochDay >= :startDay and n.epochDay < :endDay)")
+    List<Integer> findAvailableRoomNumbers(@Param("startDay") long startDay,
+                                           @Param("endDay") long endDay,
+                                           @Param("numberOfBeds") int numberOfBeds,
+                                           @Param("handicapAccessible") boolean handicapAccessible);
+
+    @Query("select r.roomNo from RoomEntity r"
+            + " where r.numberOfBeds = :numberOfBeds and r.handicapAccessible = :handicapAccessible"
+            + " and not exists (select n.epochDay from RoomNightEntity n"
+            + "                 where n.roomNo = r.roomNo and n.epochDay >= :startDay and n.epochDay < :endDay)"
+            + " and not exists (select f.floorNumber from FloorEntity f join f.restrictedAmenities a"
+            + "                 where f.floorNumber = r.floorNumber and a in :amenities)")
+    List<Integer> findAvailableRoomNumbers(@Param("startDay") long startDay,
+                                           @Param("endDay") long endDay,
+                                           @Param("numberOfBeds") int numberOfBeds,
+                                           @Param("handicapAccessible") boolean handicapAccessible,
+                                           @Param("amenities") Collection<String> amenities);
+}
@@ -0,0 +1,26 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Hotel;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes a snapshot of the hotel at a fixed interval, which bounds how much of the journal
+ * has to be replayed on the next start.
+ */
+@Component
+public class SnapshotScheduler {
+
+    private final Hotel hotel;
+    private final HotelJournal hotelJournal;
+
+    public SnapshotScheduler(Hotel hotel, HotelJournal hotelJournal) {
+        this.hotel = hotel;
+        this.hotelJournal = hotelJournal;
+    }
+
+    @Scheduled(initialDelayString = "${hotel.snapshot.interval-ms:300000}", fixedDelayString = "${hotel.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        hotelJournal.snapshot(hotel);
+    }
+}
@@ -0,0 +1,302 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.Amenity;
+import com.hotel.reservation.Booking;
+import com.hotel.reservation.Floor;
+import com.hotel.reservation.Room;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saves changes to the database in the background, after they have been journaled.
+ *
+ * A single writer thread drains the queue and hands consecutive bookings to the HotelStore
+ * as one batch, so a burst of reservations costs one transaction instead of one each.
+ * Changes are queued under the journal locks and saved in the order they were queued, so they
+ * reach the database in the order they were applied and a room is always saved before its bookings.
+ * The queue is bounded and callers block when the database falls that far behind.
+ *
+ * A batch that fails is saved again one booking at a time, so one bad row does not lose the rest.
+ * A change that still fails after a few attempts is counted and kept in a backlog that is retried
+ * every few seconds, along with any later change to the same booking. As the journal's follower the
+ * store only reports the changes up to a snapshot as saved while the backlog is empty, so the
+ * journal keeps everything the database is missing.
+ */
+@Component
+public class WriteBehindStore implements JournalFollower {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindStore.class);
+
+    private static final Object STOP = new Object();
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_INTERVAL_MS = 5000;
+
+    private final HotelStore hotelStore;
+    private final BlockingQueue<Object> queue;
+    private final int batchSize;
+    private final Thread writer;
+    private final LongAdder failures = new LongAdder();
+    // Only touched by the writer thread
+    private final List<Object> backlog = new ArrayList<Object>();
+    private final Set<UUID> backloggedBookings = new HashSet<UUID>();
+    private long retryAt;
+    private volatile int unsaved;
+    private volatile long savedThrough;
+
+    public WriteBehindStore(HotelStore hotelStore,
+                            @Value("${hotel.write-behind.queue-capacity:100000}") int queueCapacity,
+                            @Value("${hotel.write-behind.batch-size:1000}") int batchSize) {
+        this.hotelStore = hotelStore;
+        this.queue = new LinkedBlockingQueue<Object>(queueCapacity);
+        this.batchSize = batchSize;
+        this.writer = new Thread(this::writeLoop, "write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void saveAmenity(Amenity amenity) {
+        enqueue(amenity);
+    }
+
+    public void saveFloor(Floor floor) {
+        enqueue(floor);
+    }
+
+    public void saveRoom(Room room) {
+        enqueue(room);
+    }
+
+    public void saveBooking(Booking booking) {
+        enqueue(booking);
+    }
+
+    public void saveBookings(List<Booking> bookings) {
+        for(Booking booking : bookings) enqueue(booking);
+    }
+
+    public void deleteBooking(UUID bookingId) {
+        enqueue(new Deletion(bookingId));
+    }
+
+    public void replaceBooking(Booking booking) {
+        enqueue(new Replacement(booking));
+    }
+
+    @Override
+    public void mark(long sequence) {
+        enqueue(new Mark(sequence));
+    }
+
+    @Override
+    public long savedThrough() {
+        return savedThrough;
+    }
+
+    /**
+     * Changes that could not be saved after MAX_ATTEMPTS attempts, counted once each.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Changes waiting in the backlog to be saved again.
+     */
+    public int getUnsaved() {
+        return unsaved;
+    }
+
+    /**
+     * Changes queued and not yet picked up by the writer.
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * Saves everything queued so far and stops the writer.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        queue.put(STOP);
+        writer.join();
+    }
+
+    private void enqueue(Object change) {
+        try {
+            queue.put(change);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a database write", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> changes = new ArrayList<Object>(batchSize);
+        List<Booking> bookings = new ArrayList<Booking>(batchSize);
+        while(true) {
+            try {
+                // Wakes up now and then while there is a backlog to retry
+                Object change = backlog.isEmpty() ? queue.take() : queue.poll(RETRY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if(change != null) changes.add(change);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(changes, batchSize - 1);
+            retryBacklog(false);
+
+            boolean stop = false;
+            for(Object change : changes) {
+                if(change == STOP) {
+                    stop = true;
+                } else if(change instanceof Mark) {
+                    writeBookings(bookings);
+                    if(backlog.isEmpty()) savedThrough = ((Mark) change).sequence;
+                } else if(change instanceof Booking && !backloggedBookings.contains(((Booking) change).getBookingId())) {
+                    bookings.add((Booking) change);
+                } else {
+                    writeBookings(bookings);
+                    save(change);
+                }
+            }
+            writeBookings(bookings);
+            changes.clear();
+            if(stop) {
+                retryBacklog(true);
+                if(!backlog.isEmpty()) log.error("Stopped with {} changes not saved to the database, the journal still has them", backlog.size());
+                return;
+            }
+        }
+    }
+
+    private void writeBookings(List<Booking> bookings) {
+        if(bookings.isEmpty()) return;
+        try {
+            hotelStore.saveBookings(bookings);
+        } catch (RuntimeException e) {
+            // The batch was rolled back as a whole, save the bookings one by one so only the bad ones are held back
+            log.warn("Failed to save a batch of {} bookings, saving them one by one", bookings.size(), e);
+            for(Booking booking : bookings) save(booking);
+        }
+        bookings.clear();
+    }
+
+    private void save(Object change) {
+        UUID bookingId = bookingId(change);
+        // A later change to a booking waits for the earlier ones, so they are saved in order
+        if(bookingId != null && backloggedBookings.contains(bookingId)) {
+            addToBacklog(change);
+            return;
+        }
+        for(int attempt = 1; ; attempt++) {
+            try {
+                write(change);
+                return;
+            } catch (RuntimeException e) {
+                if(attempt == MAX_ATTEMPTS) {
+                    failures.increment();
+                    log.error("Failed to save {}, retrying it in the background", change, e);
+                    addToBacklog(change);
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(100L * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Saves the backlog again in the order it was queued, once the retry interval is up or when forced
+    private void retryBacklog(boolean force) {
+        if(backlog.isEmpty() || (!force && System.currentTimeMillis() < retryAt)) return;
+        List<Object> retrying = new ArrayList<Object>(backlog);
+        backlog.clear();
+        backloggedBookings.clear();
+        for(Object change : retrying) {
+            UUID bookingId = bookingId(change);
+            if(bookingId != null && backloggedBookings.contains(bookingId)) {
+                addToBacklog(change);
+                continue;
+            }
+            try {
+                write(change);
+            } catch (RuntimeException e) {
+                addToBacklog(change);
+            }
+        }
+        if(!backlog.isEmpty()) log.warn("{} changes are still not saved to the database", backlog.size());
+        retryAt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+        unsaved = backlog.size();
+    }
+
+    private void addToBacklog(Object change) {
+        if(backlog.isEmpty()) retryAt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+        backlog.add(change);
+        UUID bookingId = bookingId(change);
+        if(bookingId != null) backloggedBookings.add(bookingId);
+        unsaved = backlog.size();
+    }
+
+    private void write(Object change) {
+        if(change instanceof Amenity) hotelStore.saveAmenity((Amenity) change);
+        else if(change instanceof Floor) hotelStore.saveFloor((Floor) change);
+        else if(change instanceof Room) hotelStore.saveRoom((Room) change);
+        else if(change instanceof Booking) hotelStore.saveBooking((Booking) change);
+        else if(change instanceof Deletion) hotelStore.deleteBooking(((Deletion) change).bookingId);
+        else if(change instanceof Replacement) hotelStore.replaceBooking(((Replacement) change).booking);
+    }
+
+    private static UUID bookingId(Object change) {
+        if(change instanceof Booking) return ((Booking) change).getBookingId();
+        if(change instanceof Deletion) return ((Deletion) change).bookingId;
+        if(change instanceof Replacement) return ((Replacement) change).booking.getBookingId();
+        return null;
+    }
+
+    // Changes to existing bookings, written in queue order between the batches of new bookings
+    private static final class Deletion {
+        private final UUID bookingId;
+
+        private Deletion(UUID bookingId) {
+            this.bookingId = bookingId;
+        }
+
+        @Override
+        public String toString() {
+            return "deletion of booking " + bookingId;
+        }
+    }
+
+    // Every change up to the journal sequence has been queued before it
+    private static final class Mark {
+        private final long sequence;
+
+        private Mark(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Replacement {
+        private final Booking booking;
+
+        private Replacement(Booking booking) {
+            this.booking = booking;
+        }
+
+        @Override
+        public String toString() {
+            return "replacement of booking " + booking.getBookingId();
+        }
+    }
+}
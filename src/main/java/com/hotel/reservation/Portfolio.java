@@ -0,0 +1,170 @@
+package com.hotel.reservation;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The properties of a hotel chain, each one a standalone Hotel, sharded by property id.
+ *
+ * Every shard has one worker thread, and every change to a property runs on its shard's thread.
+ * Properties never share state, so shards need no locking between them and booking throughput
+ * grows with the number of shards as long as bookings are spread over the properties.
+ *
+ * City wide searches fan out one task per shard. Each shard searches its properties in the city
+ * and keeps its cheapest offers, and the shards' offers are merged into the overall cheapest.
+ */
+public class Portfolio implements Closeable {
+
+    private final ExecutorService[] shards;
+    private final Map<String, Property> properties = new ConcurrentHashMap<String, Property>();
+    private final Map<String, List<Property>> propertiesByCity = new ConcurrentHashMap<String, List<Property>>();
+
+    public Portfolio(int numberOfShards) {
+        if(numberOfShards <= 0) throw new IllegalArgumentException("Invalid number of shards");
+        shards = new ExecutorService[numberOfShards];
+        for(int i = 0; i < numberOfShards; i++) {
+            String threadName = "portfolio-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    public void addHotel(String propertyId, String city, Hotel hotel) {
+        if(propertyId == null || propertyId.trim().isEmpty()) throw new IllegalArgumentException("Invalid property id");
+        if(city == null || city.trim().isEmpty()) throw new IllegalArgumentException("Invalid city");
+        if(hotel == null) throw new IllegalArgumentException("Hotel is required");
+
+        Property property = new Property(propertyId, hotel, shardOf(propertyId));
+        if(properties.putIfAbsent(propertyId, property) != null) throw new IllegalArgumentException("Property " + propertyId + " already exists");
+        propertiesByCity.computeIfAbsent(city, k -> new CopyOnWriteArrayList<Property>()).add(property);
+    }
+
+    public Hotel getHotel(String propertyId) {
+        return findProperty(propertyId).hotel;
+    }
+
+    public int shardOf(String propertyId) {
+        return Math.floorMod(propertyId.hashCode(), shards.length);
+    }
+
+    /**
+     * Books the room on the thread of the property's shard.
+     */
+    public CompletableFuture<Booking> makeReservation(String propertyId,
+                                                      int roomNo,
+                                                      LocalDate startDate,
+                                                      int numberOfDays,
+                                                      List<BookingAmenity> bookingAmenities,
+                                                      User user) {
+        Property property = findProperty(propertyId);
+        return CompletableFuture.supplyAsync(() -> {
+            Room room = property.hotel.getRooms().get(roomNo);
+            if(room == null) throw new NoSuchElementException("Room " + roomNo + " not found at " + propertyId);
+            return property.hotel.makeReservation(room, startDate, numberOfDays, bookingAmenities, user);
+        }, shards[property.shard]);
+    }
+
+    /**
+     * The limit cheapest rooms matching the search across the city's properties, cheapest first.
+     * Properties that do not offer one of the amenities are left out.
+     */
+    public CompletableFuture<List<RoomOffer>> findAvailability(String city,
+                                                               LocalDate startDate,
+                                                               int numberOfDays,
+                                                               int numberOfBeds,
+                                                               boolean handicapAccessible,
+                                                               List<String> amenityNames,
+                                                               int limit) {
+        if(limit <= 0) throw new IllegalArgumentException("Invalid limit");
+        if(amenityNames == null) throw new IllegalArgumentException("Amenities are required");
+        List<Property> cityProperties = propertiesByCity.getOrDefault(city, Collections.<Property>emptyList());
+
+        List<List<Property>> propertiesByShard = new ArrayList<List<Property>>(shards.length);
+        for(int i = 0; i < shards.length; i++) propertiesByShard.add(new ArrayList<Property>());
+        for(Property property : cityProperties) propertiesByShard.get(property.shard).add(property);
+
+        List<CompletableFuture<List<RoomOffer>>> shardOffers = new ArrayList<CompletableFuture<List<RoomOffer>>>();
+        for(int i = 0; i < shards.length; i++) {
+            List<Property> shardProperties = propertiesByShard.get(i);
+            if(shardProperties.isEmpty()) continue;
+            shardOffers.add(CompletableFuture.supplyAsync(() -> cheapestOffers(shardProperties, startDate, numberOfDays, numberOfBeds,
+                                                                               handicapAccessible, amenityNames, limit), shards[i]));
+        }
+
+        return CompletableFuture.allOf(shardOffers.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<RoomOffer> offers = new ArrayList<RoomOffer>();
+            for(CompletableFuture<List<RoomOffer>> shard : shardOffers) offers.addAll(shard.join());
+            offers.sort(RoomOffer.BY_PRICE);
+            return offers.size() > limit ? new ArrayList<RoomOffer>(offers.subList(0, limit)) : offers;
+        });
+    }
+
+    /**
+     * Stops the shards once the work already handed to them is done.
+     */
+    @Override
+    public void close() {
+        for(ExecutorService shard : shards) shard.shutdown();
+    }
+
+    private static List<RoomOffer> cheapestOffers(List<Property> properties,
+                                                  LocalDate startDate,
+                                                  int numberOfDays,
+                                                  int numberOfBeds,
+                                                  boolean handicapAccessible,
+                                                  List<String> amenityNames,
+                                                  int limit) {
+        // Most expensive on top, so it is the one to drop when a cheaper offer turns up
+        PriorityQueue<RoomOffer> cheapest = new PriorityQueue<RoomOffer>(limit + 1, RoomOffer.BY_PRICE.reversed());
+        for(Property property : properties) {
+            List<Amenity> amenities = property.findAmenities(amenityNames);
+            if(amenities == null) continue;
+
+            Hotel hotel = property.hotel;
+            AvailabilityQuery query = hotel.availabilityQuery(startDate, numberOfDays, numberOfBeds, handicapAccessible, amenities);
+            for(Room room : hotel.findAvailability(query)) {
+                cheapest.add(new RoomOffer(property.id, hotel, room, hotel.quote(room, query)));
+                if(cheapest.size() > limit) cheapest.poll();
+            }
+        }
+        return new ArrayList<RoomOffer>(cheapest);
+    }
+
+    private Property findProperty(String propertyId) {
+        Property property = propertyId != null ? properties.get(propertyId) : null;
+        if(property == null) throw new NoSuchElementException("Property " + propertyId + " not found");
+        return property;
+    }
+
+    private static class Property {
+        private final String id;
+        private final Hotel hotel;
+        private final int shard;
+
+        private Property(String id, Hotel hotel, int shard) {
+            this.id = id;
+            this.hotel = hotel;
+            this.shard = shard;
+        }
+
+        // The hotel's own amenities with these names, or null if it does not offer one of them
+        private List<Amenity> findAmenities(List<String> names) {
+            List<Amenity> amenities = new ArrayList<Amenity>(names.size());
+            for(String name : names) {
+                Amenity amenity = hotel.getAmenities().get(name);
+                if(amenity == null) return null;
+                amenities.add(amenity);
+            }
+            return amenities;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.hotel.reservation;
+
+/**
+ * Why a reservation was turned down, reported to the ReservationMetrics.
+ */
+public enum RejectionReason {
+    INVALID_REQUEST,
+    ROOM_NOT_AVAILABLE,
+    AMENITY_RESTRICTED,
+    AMENITY_LIMIT_EXCEEDED,
+    AMENITY_SOLD_OUT
+}
@@ -0,0 +1,62 @@
+package com.hotel.reservation;
+
+/**
+ * Receives how long each stage of makeReservation took and why reservations were turned down.
+ * The Hotel calls it on every reservation, so implementations must be thread safe and cheap;
+ * a stage costs two reads of System.nanoTime and one call to record. NONE does not read the clock at all.
+ */
+public interface ReservationMetrics {
+
+    enum Stage {
+        // Checking the arguments with the Validatator
+        VALIDATION,
+        // The fail fast check of the room's calendar
+        AVAILABILITY_CHECK,
+        // Building the Booking: amenity compatibility and cost
+        BOOKING_CONSTRUCTION,
+        // Reserving the nights in the room's calendar
+        RESERVATION,
+        // Counting the nights, invalidating cached searches and adding the booking to the hotel
+        REGISTRATION
+    }
+
+    ReservationMetrics NONE = new ReservationMetrics() {
+        @Override
+        public long start() {
+            return 0;
+        }
+
+        @Override
+        public long stage(Stage stage, long startNanos) {
+            return 0;
+        }
+
+        @Override
+        public void record(Stage stage, long nanos) {
+        }
+
+        @Override
+        public void rejected(RejectionReason reason) {
+        }
+    };
+
+    /**
+     * Timestamp the first stage is measured from.
+     */
+    default long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the stage as having run from startNanos until now, and returns now for the next stage to start from.
+     */
+    default long stage(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        record(stage, now - startNanos);
+        return now;
+    }
+
+    void record(Stage stage, long nanos);
+
+    void rejected(RejectionReason reason);
+}
@@ -0,0 +1,27 @@
+package com.hotel.reservation;
+
+/**
+ * A well formed reservation the hotel cannot accept. It is still an IllegalArgumentException,
+ * so callers that only care that the request was refused need not tell the reasons apart.
+ */
+public class ReservationRejectedException extends IllegalArgumentException {
+
+    private final RejectionReason reason;
+
+    public ReservationRejectedException(RejectionReason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public RejectionReason getReason() {
+        return reason;
+    }
+
+    /**
+     * The reason a reservation failed with the given exception, anything that is not a
+     * ReservationRejectedException was a request that did not pass validation.
+     */
+    public static RejectionReason reasonFor(IllegalArgumentException e) {
+        return e instanceof ReservationRejectedException ? ((ReservationRejectedException) e).reason : RejectionReason.INVALID_REQUEST;
+    }
+}
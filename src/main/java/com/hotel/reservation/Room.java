@@ -1,31 +1,34 @@
 package com.hotel.reservation;
 
+import com.hotel.reservation.Utilities.CostCalculator;
+import com.hotel.reservation.Utilities.HotelClock;
+import com.hotel.reservation.Utilities.Money;
+import com.hotel.reservation.Utilities.RatePlan;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static com.hotel.reservation.Utilities.Validatator.*;
 
+/**
+ * A room is identified by its number. Its number, floor and beds never change, while its bookings
+ * live in its availability calendar, so rooms are cheap to hash and keep their hash code as they
+ * get booked.
+ */
 @Data
+@EqualsAndHashCode(of = "roomNo")
+@ToString(of = {"roomNo", "numberOfBeds"})
 public class Room {
 
-    private final Map<Integer, BigDecimal> roomPrices = new HashMap<Integer, BigDecimal>() {{
-        put(1, new BigDecimal(50));
-        put(2, new BigDecimal(75));
-        put(3, new BigDecimal(90));
-    }};
-
-    private int roomNo;
-    private Floor floor;
-    private int numberOfBeds;
-    private Map<Integer, List<Integer>> availability;
+    private final int roomNo;
+    private final Floor floor;
+    private final int numberOfBeds;
+    private final AvailabilityCalendar availability;
 
     @Builder
     public Room(int roomNo, Floor floor, int numberOfBeds) {
@@ -33,7 +36,7 @@ public class Room {
         this.roomNo = roomNo;
         this.floor = floor;
         this.numberOfBeds = numberOfBeds;
-        this.availability = new HashMap<Integer, List<Integer>>();
+        this.availability = new AvailabilityCalendar();
     }
 
     public boolean isHandicapAccessible() {
@@ -44,62 +47,60 @@ public class Room {
         return floor.restrictedAmenities;
     }
 
+    public long getRestrictedAmenityMask() {
+        return floor.restrictedAmenityMask;
+    }
+
+    public AmenityRegistry getAmenityRegistry() {
+        return floor.amenityRegistry;
+    }
+
     public boolean isAvailable(LocalDate startDate, int numberOfDays, int noOfBeds, boolean handicapAccessible, List<Amenity> amenities) {
-        validateStartDate(startDate);
-        validateNumberOfDays(numberOfDays);
-        validateIshandicapAccessible(handicapAccessible);
-        validateAmenitiesList(amenities);
+        return isAvailable(AvailabilityQuery.of(startDate, numberOfDays, noOfBeds, handicapAccessible, amenities, HotelClock.SYSTEM.today(), getAmenityRegistry()));
+    }
 
-        if(!amenities.isEmpty() && getRestrictedAmenities().containsAll(amenities))
+    /**
+     * Same as isAvailable for a query that has already been validated.
+     */
+    public boolean isAvailable(AvailabilityQuery query) {
+        long amenityMask = query.getAmenityMask();
+        if(amenityMask != 0 && (amenityMask & ~getRestrictedAmenityMask()) == 0)
             throw new IllegalArgumentException("Amenities requested are not available for this room");
-        return  handicapAccessible == isHandicapAccessible()
-                                        && noOfBeds == numberOfBeds
-                                        && isAvailableForDays(startDate, numberOfDays);
+        return  query.isHandicapAccessible() == isHandicapAccessible()
+                                        && query.getNumberOfBeds() == numberOfBeds
+                                        && availability.isFree(query.getStartDay(), query.getNumberOfDays());
     }
 
-
-    // This would be greatly simplified if a database is used as they are more efficient at doing this
     public boolean isAvailableForDays(LocalDate startDate, int numberOfDays) {
         validateStartDate(startDate);
         validateNumberOfDays(numberOfDays);
 
-        int year = startDate.getYear();
-        List<Integer> availabilityForYear = availability.get(year);
-        if(availabilityForYear == null) {
-            availability.put(year, IntStream.rangeClosed(1, 365)
-                    .boxed().collect(Collectors.toList()));
-            return true;
-        }
-
-        int dayOfYear = startDate.getDayOfYear();
-        List<Integer> reservationDateRange = IntStream.rangeClosed(dayOfYear, dayOfYear + numberOfDays)
-                                                        .boxed().collect(Collectors.toList());
-        return availability.get(year).contains(reservationDateRange);
+        return availability.isFree(startDate.toEpochDay(), numberOfDays);
     }
 
-    // This would be greatly simplified if a database is used as they are more efficient at doing this
     public void updateAvailability(LocalDate startDate, int numberOfDays) {
         validateStartDate(startDate);
         validateNumberOfDays(numberOfDays);
 
-        int year = startDate.getYear();
-        List<Integer> availabilityForYear = availability.get(year);
-        if(availabilityForYear == null) {
-            availability.put(year, IntStream.rangeClosed(1, 365)
-                    .boxed().collect(Collectors.toList()));
-            availabilityForYear = availability.get(year);
-        }
-
-        int dayOfYear = startDate.getDayOfYear();
-        List<Integer> reservationDateRange = IntStream.rangeClosed(dayOfYear, dayOfYear + numberOfDays)
-                                                        .boxed().collect(Collectors.toList());
-        availabilityForYear.removeAll(reservationDateRange);
-        availability.put(year, availabilityForYear);
+        if(!availability.reserve(startDate.toEpochDay(), numberOfDays))
+            throw new IllegalArgumentException("Room not available for these dates");
+    }
+
+    /**
+     * Frees the nights again, e.g. when a booking is cancelled.
+     */
+    public void releaseAvailability(LocalDate startDate, int numberOfDays) {
+        validateDate(startDate);
+        validateNumberOfDays(numberOfDays);
+
+        availability.release(startDate.toEpochDay(), numberOfDays);
     }
 
-    public BigDecimal calculateCost() {
-        if(numberOfBeds < 1 || numberOfBeds > roomPrices.size() + 1) throw new IllegalArgumentException("Invalid number of beds");
-        return roomPrices.get(numberOfBeds);
+    /**
+     * The room's nightly rate in the rate plan of its hotel.
+     */
+    public BigDecimal calculateCost(RatePlan ratePlan) {
+        return Money.toBigDecimal(CostCalculator.getNightlyRateCents(ratePlan, this));
     }
 
 
@@ -0,0 +1,246 @@
+package com.hotel.reservation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Secondary index over the rooms of a hotel, keyed by number of beds and handicap accessibility.
+ * Within a key rooms are grouped by the floor they are on, so the floor's amenity restrictions
+ * are checked once per floor instead of once per room, with one AND of the amenity masks.
+ *
+ * Searches never lock. Rooms are only added or replaced while setting up the hotel, so the
+ * groups are copy on write and a search works on the arrays of rooms it found when it started.
+ *
+ * With a search pool set, scans of many rooms are split across the pool and the parts joined in
+ * order, so the result is the same as scanning on the caller's thread. Whether a scan is worth
+ * splitting is decided from how long checking a room has taken recently: scans estimated to take
+ * less than the parallel threshold, and every scan of a small hotel, stay on the caller's thread.
+ * Availability calendars are safe to read from many threads, so the parts need no coordination.
+ */
+public class RoomIndex {
+
+    public static final long DEFAULT_PARALLEL_THRESHOLD_NANOS = 200_000;
+
+    // Scans of fewer rooms always stay on the caller's thread and are not timed
+    private static final int MIN_PARALLEL_ROOMS = 2048;
+    // Fewest rooms a fork join task scans itself instead of splitting further
+    private static final int MIN_ROOMS_PER_TASK = 512;
+    private static final long INITIAL_PICOS_PER_ROOM = 50_000;
+
+    private final Map<Integer, List<FloorGroup>> groupsByKey = new ConcurrentHashMap<Integer, List<FloorGroup>>();
+
+    private volatile ForkJoinPool searchPool;
+    private volatile long parallelThresholdNanos = DEFAULT_PARALLEL_THRESHOLD_NANOS;
+    // Smoothed time a large scan has taken per room. Updated without a lock, a lost update only delays the average
+    private volatile long picosPerRoom = INITIAL_PICOS_PER_ROOM;
+
+    public synchronized void add(Room room) {
+        List<FloorGroup> groups = groupsByKey.computeIfAbsent(key(room.getNumberOfBeds(), room.isHandicapAccessible()),
+                                                                k -> new CopyOnWriteArrayList<FloorGroup>());
+        FloorGroup group = findGroup(groups, room.getFloor());
+        if(group == null) {
+            group = new FloorGroup(room.getFloor());
+            groups.add(group);
+        }
+        Room[] rooms = Arrays.copyOf(group.rooms, group.rooms.length + 1);
+        rooms[rooms.length - 1] = room;
+        group.rooms = rooms;
+    }
+
+    /**
+     * Adds many rooms at once, copying each floor group's rooms once instead of once per room.
+     */
+    public synchronized void addAll(Collection<Room> rooms) {
+        Map<FloorGroup, List<Room>> addedByGroup = new LinkedHashMap<FloorGroup, List<Room>>();
+        for(Room room : rooms) {
+            List<FloorGroup> groups = groupsByKey.computeIfAbsent(key(room.getNumberOfBeds(), room.isHandicapAccessible()),
+                                                                    k -> new CopyOnWriteArrayList<FloorGroup>());
+            FloorGroup group = findGroup(groups, room.getFloor());
+            if(group == null) {
+                group = new FloorGroup(room.getFloor());
+                groups.add(group);
+            }
+            addedByGroup.computeIfAbsent(group, k -> new ArrayList<Room>()).add(room);
+        }
+        for(Map.Entry<FloorGroup, List<Room>> entry : addedByGroup.entrySet()) {
+            FloorGroup group = entry.getKey();
+            List<Room> added = entry.getValue();
+            Room[] grown = Arrays.copyOf(group.rooms, group.rooms.length + added.size());
+            for(int i = 0; i < added.size(); i++) grown[group.rooms.length + i] = added.get(i);
+            group.rooms = grown;
+        }
+    }
+
+    public synchronized void remove(Room room) {
+        List<FloorGroup> groups = groupsByKey.get(key(room.getNumberOfBeds(), room.isHandicapAccessible()));
+        if(groups == null) return;
+        FloorGroup group = findGroup(groups, room.getFloor());
+        if(group == null) return;
+        Room[] rooms = new Room[group.rooms.length];
+        int count = 0;
+        for(Room other : group.rooms) {
+            if(other != room) rooms[count++] = other;
+        }
+        group.rooms = Arrays.copyOf(rooms, count);
+        if(count == 0) groups.remove(group);
+    }
+
+    /**
+     * Splits large scans across the pool, or keeps every scan on the caller's thread when pool is null.
+     */
+    public void setSearchPool(ForkJoinPool pool) {
+        this.searchPool = pool;
+    }
+
+    /**
+     * Estimated scan time from which a scan is split across the search pool.
+     */
+    public void setParallelThresholdNanos(long parallelThresholdNanos) {
+        if(parallelThresholdNanos < 0) throw new IllegalArgumentException("Invalid threshold");
+        this.parallelThresholdNanos = parallelThresholdNanos;
+    }
+
+    public List<Room> findAvailable(AvailabilityQuery query) {
+        List<FloorGroup> groups = groupsByKey.get(key(query.getNumberOfBeds(), query.isHandicapAccessible()));
+        if(groups == null) return new ArrayList<Room>();
+
+        // Rooms on the floors that do not restrict any requested amenity
+        FloorGroup[] candidateGroups = groups.toArray(new FloorGroup[0]);
+        Room[][] segments = new Room[candidateGroups.length][];
+        int numberOfSegments = 0;
+        int numberOfRooms = 0;
+        long amenityMask = query.getAmenityMask();
+        for(FloorGroup group : candidateGroups) {
+            if((group.floor.getRestrictedAmenityMask() & amenityMask) != 0) continue;
+            Room[] rooms = group.rooms;
+            segments[numberOfSegments++] = rooms;
+            numberOfRooms += rooms.length;
+        }
+
+        long startDay = query.getStartDay();
+        int numberOfDays = query.getNumberOfDays();
+        if(numberOfRooms < MIN_PARALLEL_ROOMS) {
+            List<Room> availableRooms = new ArrayList<Room>();
+            scan(segments, numberOfSegments, startDay, numberOfDays, availableRooms);
+            return availableRooms;
+        }
+
+        ForkJoinPool pool = searchPool;
+        long start = System.nanoTime();
+        List<Room> availableRooms;
+        if(pool == null || numberOfRooms * picosPerRoom / 1000 < parallelThresholdNanos) {
+            availableRooms = new ArrayList<Room>();
+            scan(segments, numberOfSegments, startDay, numberOfDays, availableRooms);
+            recordScan(System.nanoTime() - start, numberOfRooms);
+        } else {
+            int[] segmentStarts = new int[numberOfSegments];
+            for(int i = 1; i < numberOfSegments; i++) segmentStarts[i] = segmentStarts[i - 1] + segments[i - 1].length;
+            int roomsPerTask = Math.max(MIN_ROOMS_PER_TASK, numberOfRooms / (4 * pool.getParallelism()));
+            availableRooms = pool.invoke(new ScanTask(segments, segmentStarts, numberOfSegments, 0, numberOfRooms,
+                                                      roomsPerTask, startDay, numberOfDays));
+            // Wall time times the threads that shared it overestimates the work, which keeps a busy pool
+            // from flipping large scans back to the caller's thread
+            recordScan((System.nanoTime() - start) * pool.getParallelism(), numberOfRooms);
+        }
+        return availableRooms;
+    }
+
+    private void recordScan(long nanos, int numberOfRooms) {
+        long sample = nanos * 1000 / numberOfRooms;
+        long average = picosPerRoom;
+        picosPerRoom = average + (sample - average) / 8;
+    }
+
+    private static void scan(Room[][] segments, int numberOfSegments, long startDay, int numberOfDays, List<Room> availableRooms) {
+        for(int i = 0; i < numberOfSegments; i++) {
+            for(Room room : segments[i]) {
+                if(room.getAvailability().isFree(startDay, numberOfDays)) availableRooms.add(room);
+            }
+        }
+    }
+
+    private static FloorGroup findGroup(List<FloorGroup> groups, Floor floor) {
+        for(FloorGroup group : groups) {
+            if(group.floor == floor) return group;
+        }
+        return null;
+    }
+
+    private static int key(int numberOfBeds, boolean handicapAccessible) {
+        return numberOfBeds << 1 | (handicapAccessible ? 1 : 0);
+    }
+
+    private static class FloorGroup {
+        private final Floor floor;
+        // Replaced, never changed, while holding the index's lock
+        private volatile Room[] rooms = new Room[0];
+
+        private FloorGroup(Floor floor) {
+            this.floor = floor;
+        }
+    }
+
+    /**
+     * Scans the rooms from index from to index to, counting across the segments in order.
+     */
+    private static class ScanTask extends RecursiveTask<List<Room>> {
+        private final Room[][] segments;
+        private final int[] segmentStarts;
+        private final int numberOfSegments;
+        private final int from;
+        private final int to;
+        private final int roomsPerTask;
+        private final long startDay;
+        private final int numberOfDays;
+
+        private ScanTask(Room[][] segments, int[] segmentStarts, int numberOfSegments, int from, int to,
+                         int roomsPerTask, long startDay, int numberOfDays) {
+            this.segments = segments;
+            this.segmentStarts = segmentStarts;
+            this.numberOfSegments = numberOfSegments;
+            this.from = from;
+            this.to = to;
+            this.roomsPerTask = roomsPerTask;
+            this.startDay = startDay;
+            this.numberOfDays = numberOfDays;
+        }
+
+        @Override
+        protected List<Room> compute() {
+            if(to - from <= roomsPerTask) return scanRange();
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(segments, segmentStarts, numberOfSegments, from, middle, roomsPerTask, startDay, numberOfDays);
+            ScanTask right = new ScanTask(segments, segmentStarts, numberOfSegments, middle, to, roomsPerTask, startDay, numberOfDays);
+            left.fork();
+            List<Room> rightRooms = right.compute();
+            List<Room> availableRooms = left.join();
+            availableRooms.addAll(rightRooms);
+            return availableRooms;
+        }
+
+        private List<Room> scanRange() {
+            List<Room> availableRooms = new ArrayList<Room>();
+            int segment = Arrays.binarySearch(segmentStarts, 0, numberOfSegments, from);
+            // Empty segments share their start with the next one, move on to the last of them
+            if(segment < 0) segment = -segment - 2;
+            while(segment + 1 < numberOfSegments && segmentStarts[segment + 1] == from) segment++;
+
+            int index = from;
+            while(index < to) {
+                Room[] rooms = segments[segment];
+                int offset = index - segmentStarts[segment];
+                int end = Math.min(rooms.length, offset + to - index);
+                for(int i = offset; i < end; i++) {
+                    if(rooms[i].getAvailability().isFree(startDay, numberOfDays)) availableRooms.add(rooms[i]);
+                }
+                index += end - offset;
+                segment++;
+            }
+            return availableRooms;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hotel.reservation;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+/**
+ * A room found by a portfolio search, with the price of the stay at the property it belongs to.
+ */
+public final class RoomOffer {
+
+    /**
+     * Cheapest first. Ties go to the lower property id and room number so results are stable.
+     */
+    public static final Comparator<RoomOffer> BY_PRICE = Comparator.comparing(RoomOffer::getPrice)
+            .thenComparing(RoomOffer::getPropertyId)
+            .thenComparingInt(offer -> offer.getRoom().getRoomNo());
+
+    private final String propertyId;
+    private final Hotel hotel;
+    private final Room room;
+    private final BigDecimal price;
+
+    public RoomOffer(String propertyId, Hotel hotel, Room room, BigDecimal price) {
+        this.propertyId = propertyId;
+        this.hotel = hotel;
+        this.room = room;
+        this.price = price;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public Hotel getHotel() {
+        return hotel;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+}
@@ -0,0 +1,310 @@
+package com.hotel.reservation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of findAvailability results, keyed by the normalized query, evicting the least
+ * recently used searches.
+ *
+ * Entries are invalidated precisely rather than flushed: booking a room drops only the cached
+ * searches that returned that room for overlapping dates, and adding a room drops only the
+ * searches for its number of beds and accessibility. Releasing nights (see roomReleased) drops
+ * the searches for the room's kind of room over the released dates, whether or not they returned it.
+ *
+ * There is no cache wide lock. Entries sit in a ConcurrentHashMap and are indexed by the rooms they
+ * returned and the kind of room they asked for in concurrent sets, so a booking only walks the
+ * searches of its own room and a hit only stamps the entry with its last use. Every change bumps a
+ * stamp before it invalidates anything, and a search is only cached if the stamp it took before it
+ * ran is unchanged once the entry is indexed. So a search that raced with an invalidation is not
+ * cached, and an entry can never be older than the last change that should have removed it.
+ * Evicting takes a lock of its own, only when the cache is over capacity, and then makes room for
+ * a sixteenth of the capacity at once.
+ */
+public class SearchCache {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final int capacity;
+    private final ConcurrentHashMap<SearchKey, Entry> entries = new ConcurrentHashMap<SearchKey, Entry>();
+    // Which cached searches returned a room, by room number, and which cached searches asked for a kind of room.
+    // Sets are never taken out of the maps, so a search is never indexed in a set a change can no longer find
+    private final ConcurrentHashMap<Integer, Set<Entry>> entriesByRoom = new ConcurrentHashMap<Integer, Set<Entry>>();
+    private final ConcurrentHashMap<Integer, Set<Entry>> entriesByKind = new ConcurrentHashMap<Integer, Set<Entry>>();
+    private final AtomicLong changes = new AtomicLong();
+    // Logical clock for the last use of entries
+    private final AtomicLong uses = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder racedPuts = new LongAdder();
+    private final LongAdder hitAgeNanos = new LongAdder();
+
+    public SearchCache(int capacity) {
+        if(capacity < 0) throw new IllegalArgumentException("Invalid capacity");
+        this.capacity = capacity;
+    }
+
+    public static SearchKey key(AvailabilityQuery query) {
+        return new SearchKey(query.getStartDay(), query.getNumberOfDays(), query.getNumberOfBeds(), query.isHandicapAccessible(), query.getAmenityMask());
+    }
+
+    /**
+     * Returns the cached rooms for the search, or null on a miss.
+     */
+    public List<Room> get(SearchKey key) {
+        Entry entry = entries.get(key);
+        if(entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.lastUse = uses.incrementAndGet();
+        hits.increment();
+        hitAgeNanos.add(System.nanoTime() - entry.createdNanos);
+        return entry.rooms;
+    }
+
+    /**
+     * Stamp to take before running a search whose result will be put in the cache.
+     */
+    public long stamp() {
+        return changes.get();
+    }
+
+    public void put(SearchKey key, List<Room> rooms, long stamp) {
+        if(capacity == 0) return;
+        if(stamp != changes.get()) {
+            racedPuts.increment();
+            return;
+        }
+        Entry entry = new Entry(key, Collections.unmodifiableList(new ArrayList<Room>(rooms)), System.nanoTime(), uses.incrementAndGet());
+        for(Room room : entry.rooms) entriesByRoom.computeIfAbsent(room.getRoomNo(), k -> ConcurrentHashMap.<Entry>newKeySet()).add(entry);
+        entriesByKind.computeIfAbsent(key.kind(), k -> ConcurrentHashMap.<Entry>newKeySet()).add(entry);
+        Entry replaced = entries.put(key, entry);
+        if(replaced != null) unindex(replaced);
+
+        // A change made since the check above may have walked the indexes before the entry was in them
+        if(stamp != changes.get()) {
+            entries.remove(key, entry);
+            unindex(entry);
+            racedPuts.increment();
+            return;
+        }
+        if(entries.size() > capacity) evict();
+    }
+
+    /**
+     * The room was booked for the nights [startDay, startDay + numberOfDays).
+     */
+    public void roomBooked(Room room, long startDay, int numberOfDays) {
+        changes.incrementAndGet();
+        invalidateOverlapping(entriesByRoom.get(room.getRoomNo()), startDay, numberOfDays);
+    }
+
+    /**
+     * The room's nights [startDay, startDay + numberOfDays) became free again.
+     */
+    public void roomReleased(Room room, long startDay, int numberOfDays) {
+        changes.incrementAndGet();
+        invalidateOverlapping(entriesByKind.get(kind(room.getNumberOfBeds(), room.isHandicapAccessible())), startDay, numberOfDays);
+    }
+
+    /**
+     * A room was added, or replaced the given room when replacedRoom is not null.
+     */
+    public void roomAdded(Room room, Room replacedRoom) {
+        changes.incrementAndGet();
+        if(replacedRoom != null) invalidateAll(entriesByRoom.get(replacedRoom.getRoomNo()));
+        invalidateAll(entriesByKind.get(kind(room.getNumberOfBeds(), room.isHandicapAccessible())));
+    }
+
+    public void clear() {
+        changes.incrementAndGet();
+        for(Entry entry : entries.values()) invalidate(entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats stats() {
+        long hitCount = hits.sum();
+        return new Stats(hitCount,
+                         misses.sum(),
+                         evictions.sum(),
+                         invalidations.sum(),
+                         racedPuts.sum(),
+                         hitCount == 0 ? 0 : hitAgeNanos.sum() / hitCount / 1_000_000,
+                         size());
+    }
+
+    private void invalidateOverlapping(Set<Entry> indexed, long startDay, int numberOfDays) {
+        if(indexed == null) return;
+        for(Entry entry : indexed) {
+            if(entry.key.overlaps(startDay, numberOfDays)) invalidate(entry);
+        }
+    }
+
+    private void invalidateAll(Set<Entry> indexed) {
+        if(indexed == null) return;
+        for(Entry entry : indexed) invalidate(entry);
+    }
+
+    private void invalidate(Entry entry) {
+        if(remove(entry)) invalidations.increment();
+    }
+
+    // Removes the entry unless it has been replaced or removed already
+    private boolean remove(Entry entry) {
+        unindex(entry);
+        return entries.remove(entry.key, entry);
+    }
+
+    private void unindex(Entry entry) {
+        for(Room room : entry.rooms) {
+            Set<Entry> indexed = entriesByRoom.get(room.getRoomNo());
+            if(indexed != null) indexed.remove(entry);
+        }
+        Set<Entry> indexed = entriesByKind.get(entry.key.kind());
+        if(indexed != null) indexed.remove(entry);
+    }
+
+    // Evicts the least recently used entries down to a sixteenth under the capacity, unless another thread is at it
+    private void evict() {
+        if(!evicting.tryLock()) return;
+        try {
+            int excess = entries.size() - capacity;
+            if(excess <= 0) return;
+            List<Entry> candidates = new ArrayList<Entry>(entries.values());
+            candidates.sort(Comparator.comparingLong(entry -> entry.lastUse));
+            int count = Math.min(candidates.size(), excess + capacity / 16);
+            for(int i = 0; i < count; i++) {
+                if(remove(candidates.get(i))) evictions.increment();
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private static int kind(int numberOfBeds, boolean handicapAccessible) {
+        return numberOfBeds << 1 | (handicapAccessible ? 1 : 0);
+    }
+
+    // Equal only to itself, so removing an entry never removes the one that replaced it under the same key
+    private static class Entry {
+        private final SearchKey key;
+        private final List<Room> rooms;
+        private final long createdNanos;
+        private volatile long lastUse;
+
+        private Entry(SearchKey key, List<Room> rooms, long createdNanos, long lastUse) {
+            this.key = key;
+            this.rooms = rooms;
+            this.createdNanos = createdNanos;
+            this.lastUse = lastUse;
+        }
+    }
+
+    public static final class SearchKey {
+        private final long startDay;
+        private final int numberOfDays;
+        private final int numberOfBeds;
+        private final boolean handicapAccessible;
+        private final long amenityMask;
+
+        private SearchKey(long startDay, int numberOfDays, int numberOfBeds, boolean handicapAccessible, long amenityMask) {
+            this.startDay = startDay;
+            this.numberOfDays = numberOfDays;
+            this.numberOfBeds = numberOfBeds;
+            this.handicapAccessible = handicapAccessible;
+            this.amenityMask = amenityMask;
+        }
+
+        private int kind() {
+            return SearchCache.kind(numberOfBeds, handicapAccessible);
+        }
+
+        private boolean overlaps(long fromDay, int days) {
+            return fromDay < startDay + numberOfDays && startDay < fromDay + days;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof SearchKey)) return false;
+            SearchKey other = (SearchKey) o;
+            return startDay == other.startDay
+                    && numberOfDays == other.numberOfDays
+                    && numberOfBeds == other.numberOfBeds
+                    && handicapAccessible == other.handicapAccessible
+                    && amenityMask == other.amenityMask;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(startDay);
+            result = 31 * result + numberOfDays;
+            result = 31 * result + kind();
+            return 31 * result + Long.hashCode(amenityMask);
+        }
+    }
+
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final long racedPuts;
+        private final long averageHitAgeMillis;
+        private final int size;
+
+        private Stats(long hits, long misses, long evictions, long invalidations, long racedPuts, long averageHitAgeMillis, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.racedPuts = racedPuts;
+            this.averageHitAgeMillis = averageHitAgeMillis;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public long getRacedPuts() {
+            return racedPuts;
+        }
+
+        public long getAverageHitAgeMillis() {
+            return averageHitAgeMillis;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
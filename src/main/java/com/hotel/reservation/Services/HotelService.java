@@ -0,0 +1,454 @@
+package com.hotel.reservation.Services;
+
+import com.hotel.reservation.*;
+import com.hotel.reservation.Dto.*;
+import com.hotel.reservation.Persistence.HotelImporter;
+import com.hotel.reservation.Persistence.HotelJournal;
+import com.hotel.reservation.Persistence.JournalLocks;
+import com.hotel.reservation.Persistence.WriteBehindStore;
+import com.hotel.reservation.Utilities.RatePlan;
+import com.hotel.reservation.Utilities.Validatator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Translates between the REST DTOs and the Hotel and runs every operation on the booking executor,
+ * so controllers can hand back a future and release the request thread straight away.
+ * Changes are journaled once the Hotel has accepted them, holding the journal locks of what they touch
+ * from before they are applied until they are appended, so the journal has them in the order they
+ * were applied. The returned future completes when the journal record is on disk. The database is
+ * updated behind that by the WriteBehindStore.
+ */
+@Service
+public class HotelService {
+
+    private final Hotel hotel;
+    private final HotelJournal hotelJournal;
+    private final WriteBehindStore writeBehindStore;
+    private final HotelImporter hotelImporter;
+    private final Executor bookingExecutor;
+
+    public HotelService(Hotel hotel,
+                        HotelJournal hotelJournal,
+                        WriteBehindStore writeBehindStore,
+                        HotelImporter hotelImporter,
+                        @Qualifier("bookingExecutor") Executor bookingExecutor) {
+        this.hotel = hotel;
+        this.hotelJournal = hotelJournal;
+        this.writeBehindStore = writeBehindStore;
+        this.hotelImporter = hotelImporter;
+        this.bookingExecutor = bookingExecutor;
+    }
+
+    public CompletableFuture<AmenityDto> addAmenity(AmenityDto request) {
+        return durably(hotelJournal::lockAll, () -> {
+            int capacity = request.getCapacity() != null ? request.getCapacity() : AmenityInventory.UNLIMITED;
+            Amenity amenity = hotel.addAmenity(request.getName(), request.getLimit(), request.getCost(), capacity).get(request.getName());
+            CompletableFuture<Long> durable = hotelJournal.appendAmenity(amenity);
+            writeBehindStore.saveAmenity(amenity);
+            return durable.thenApply(sequence -> AmenityDto.from(amenity));
+        });
+    }
+
+    public CompletableFuture<List<AmenityDto>> getAmenities() {
+        return async(() -> {
+            List<AmenityDto> amenities = new ArrayList<AmenityDto>();
+            for(Amenity amenity : hotel.getAmenities().values()) amenities.add(AmenityDto.from(amenity));
+            return amenities;
+        });
+    }
+
+    public CompletableFuture<FloorDto> addFloor(FloorDto request) {
+        return durably(hotelJournal::lockAll, () -> {
+            List<Amenity> restrictedAmenities = findAmenities(request.getRestrictedAmenities());
+            Floor floor = hotel.addFloor(request.getFloorNumber(), request.isHandicapAccessible(), restrictedAmenities)
+                                .get(request.getFloorNumber());
+            CompletableFuture<Long> durable = hotelJournal.appendFloor(floor);
+            writeBehindStore.saveFloor(floor);
+            return durable.thenApply(sequence -> FloorDto.from(floor));
+        });
+    }
+
+    public CompletableFuture<List<FloorDto>> getFloors() {
+        return async(() -> {
+            List<FloorDto> floors = new ArrayList<FloorDto>();
+            for(Floor floor : hotel.getFloors().values()) floors.add(FloorDto.from(floor));
+            return floors;
+        });
+    }
+
+    public CompletableFuture<RoomDto> addRoom(AddRoomRequest request) {
+        return durably(() -> hotelJournal.lockRooms(request.getRoomNo()), () -> {
+            Floor floor = hotel.getFloors().get(request.getFloorNumber());
+            if(floor == null) throw new NoSuchElementException("Floor " + request.getFloorNumber() + " not found");
+            Room room = hotel.addRoom(request.getRoomNo(), floor, request.getNumberOfBeds()).get(request.getRoomNo());
+            CompletableFuture<Long> durable = hotelJournal.appendRoom(room);
+            writeBehindStore.saveRoom(room);
+            durable = withAllocations(durable);
+            return durable.thenApply(sequence -> RoomDto.from(room, hotel.getRatePlan()));
+        });
+    }
+
+    public CompletableFuture<RoomDto> getRoom(int roomNo) {
+        return async(() -> RoomDto.from(findRoom(roomNo), hotel.getRatePlan()));
+    }
+
+    public CompletableFuture<List<RoomDto>> getRooms() {
+        return async(() -> toRoomDtos(hotel.getRooms().values(), hotel.getRatePlan()));
+    }
+
+    public CompletableFuture<List<RoomDto>> findAvailability(LocalDate startDate,
+                                                             int numberOfDays,
+                                                             int numberOfBeds,
+                                                             boolean handicapAccessible,
+                                                             List<String> amenityNames) {
+        return async(() -> {
+            AvailabilityQuery query = hotel.availabilityQuery(startDate,
+                                                              numberOfDays,
+                                                              numberOfBeds,
+                                                              handicapAccessible,
+                                                              findAmenities(amenityNames));
+            List<Room> rooms = hotel.findAvailability(query);
+            List<RoomDto> roomDtos = new ArrayList<RoomDto>(rooms.size());
+            for(Room room : rooms) roomDtos.add(RoomDto.from(room, hotel.getRatePlan(), hotel.quote(room, query)));
+            return roomDtos;
+        });
+    }
+
+    public CompletableFuture<SearchCache.Stats> getSearchCacheStats() {
+        return async(() -> hotel.getSearchCache().stats());
+    }
+
+    public CompletableFuture<BookingDto> makeReservation(ReservationRequest request) {
+        return durably(() -> hotelJournal.lockRooms(request.getRoomNo()), () -> {
+            User user = toUser(request.getUserId(), request.getFirstName(), request.getLastName());
+            Booking booking = hotel.makeReservation(findRoom(request.getRoomNo()),
+                                                    request.getStartDate(),
+                                                    request.getNumberOfDays(),
+                                                    toBookingAmenities(request.getAmenities()),
+                                                    user);
+            CompletableFuture<Long> durable = hotelJournal.appendBooking(booking);
+            writeBehindStore.saveBooking(booking);
+            return durable.thenApply(sequence -> BookingDto.from(booking));
+        });
+    }
+
+    public CompletableFuture<List<BookingDto>> makeReservations(GroupReservationRequest request) {
+        return durably(() -> hotelJournal.lockRooms(roomNos(request.getStays())), () -> {
+            List<StayRequest> stays = new ArrayList<StayRequest>();
+            if(request.getStays() != null) {
+                for(StayDto stay : request.getStays()) {
+                    stays.add(StayRequest.builder()
+                            .room(findRoom(stay.getRoomNo()))
+                            .startDate(stay.getStartDate())
+                            .numberOfDays(stay.getNumberOfDays())
+                            .bookingAmenities(toBookingAmenities(stay.getAmenities()))
+                            .build());
+                }
+            }
+
+            User user = toUser(request.getUserId(), request.getFirstName(), request.getLastName());
+            List<Booking> bookings = hotel.makeReservations(stays, user);
+            CompletableFuture<Long> durable = hotelJournal.appendBookings(bookings);
+            writeBehindStore.saveBookings(bookings);
+            return durable.thenApply(sequence -> toBookingDtos(bookings));
+        });
+    }
+
+    public CompletableFuture<BookingDto> cancelReservation(UUID bookingId) {
+        return durably(() -> lockBooking(bookingId), () -> {
+            Booking booking = hotel.cancelReservation(bookingId);
+            CompletableFuture<Long> durable = hotelJournal.appendCancellation(bookingId);
+            writeBehindStore.deleteBooking(bookingId);
+            durable = withAllocations(durable);
+            return durable.thenApply(sequence -> BookingDto.from(booking));
+        });
+    }
+
+    /**
+     * Moves the booking to the requested room, dates and amenities. The user of the request is ignored,
+     * a booking stays with the user who made it.
+     */
+    public CompletableFuture<BookingDto> modifyReservation(UUID bookingId, ReservationRequest request) {
+        return durably(() -> lockBooking(bookingId, request.getRoomNo()), () -> {
+            Booking booking = hotel.modifyReservation(bookingId,
+                                                      findRoom(request.getRoomNo()),
+                                                      request.getStartDate(),
+                                                      request.getNumberOfDays(),
+                                                      toBookingAmenities(request.getAmenities()));
+            CompletableFuture<Long> durable = hotelJournal.appendModification(booking);
+            writeBehindStore.replaceBooking(booking);
+            durable = withAllocations(durable);
+            return durable.thenApply(sequence -> BookingDto.from(booking));
+        });
+    }
+
+    /**
+     * Books a room of the requested kind, or overbooks or waitlists the stay, see Hotel.requestReservation.
+     * An overbooked or waitlisted stay is journaled, so it is still waiting after a restart.
+     */
+    public CompletableFuture<WaitlistEntryDto> requestReservation(WaitlistRequest request) {
+        return durably(hotelJournal::lockAll, () -> {
+            User user = toUser(request.getUserId(), request.getFirstName(), request.getLastName());
+            WaitlistEntry entry = hotel.requestReservation(request.getStartDate(),
+                                                           request.getNumberOfDays(),
+                                                           request.getNumberOfBeds(),
+                                                           request.isHandicapAccessible(),
+                                                           toBookingAmenities(request.getAmenities()),
+                                                           user,
+                                                           request.getPriority());
+            WaitlistEntry.Status status = entry.getStatus();
+            CompletableFuture<Long> durable = status == WaitlistEntry.Status.OVERBOOKED || status == WaitlistEntry.Status.WAITLISTED
+                    ? hotelJournal.appendWaitlistEntry(entry)
+                    : CompletableFuture.completedFuture(null);
+            return withAllocations(durable).thenApply(sequence -> WaitlistEntryDto.from(entry));
+        });
+    }
+
+    /**
+     * Entries that have left the waitlist with a room are found by their booking, which has the entry's id.
+     */
+    public CompletableFuture<WaitlistEntryDto> getWaitlistEntry(UUID entryId) {
+        return async(() -> {
+            WaitlistEntry entry = hotel.getWaitlist().find(entryId);
+            if(entry != null) return WaitlistEntryDto.from(entry);
+            Booking booking = hotel.getBookings().get(entryId);
+            if(booking == null) throw new NoSuchElementException("Waitlist entry " + entryId + " not found");
+            return WaitlistEntryDto.allocated(booking);
+        });
+    }
+
+    public CompletableFuture<WaitlistEntryDto> leaveWaitlist(UUID entryId) {
+        return durably(hotelJournal::lockAll, () -> {
+            WaitlistEntry entry = hotel.leaveWaitlist(entryId);
+            return hotelJournal.appendWaitlistRemoval(entryId).thenApply(sequence -> WaitlistEntryDto.from(entry));
+        });
+    }
+
+    public CompletableFuture<OverbookingDto> setOverbookingAllowance(OverbookingDto request) {
+        return durably(hotelJournal::lockAll, () -> {
+            OverbookingAllowance overbookingAllowance = hotel.getWaitlist().getOverbookingAllowance();
+            if(request.getNight() == null) overbookingAllowance.setAllowance(request.getNumberOfBeds(), request.getAllowance());
+            else overbookingAllowance.setAllowance(request.getNumberOfBeds(), request.getNight(), request.getAllowance());
+            return hotelJournal.appendOverbookingAllowance(request.getNumberOfBeds(), request.getNight(), request.getAllowance())
+                    .thenApply(sequence -> request);
+        });
+    }
+
+    public CompletableFuture<BookingDto> getBooking(UUID bookingId) {
+        return async(() -> {
+            Booking booking = hotel.getBookings().get(bookingId);
+            if(booking == null) throw new NoSuchElementException("Booking " + bookingId + " not found");
+            return BookingDto.from(booking);
+        });
+    }
+
+    public CompletableFuture<List<BookingDto>> findBookings(UUID userId) {
+        return async(() -> toBookingDtos(hotel.getBookingIndex().findByUser(userId)));
+    }
+
+    public CompletableFuture<BookingDto> findGuest(int roomNo, LocalDate night) {
+        return async(() -> {
+            Booking booking = hotel.getBookingIndex().findByRoomAndNight(roomNo, night);
+            if(booking == null) throw new NoSuchElementException("Room " + roomNo + " is not booked on " + night);
+            return BookingDto.from(booking);
+        });
+    }
+
+    public CompletableFuture<List<BookingDto>> findArrivals(LocalDate date) {
+        return async(() -> toBookingDtos(hotel.getBookingIndex().findArrivals(date)));
+    }
+
+    public CompletableFuture<List<BookingDto>> findDepartures(LocalDate date) {
+        return async(() -> toBookingDtos(hotel.getBookingIndex().findDepartures(date)));
+    }
+
+    /**
+     * Streams an inventory and booking history file into the hotel, see HotelImporter for the formats.
+     * Imported records are journaled and saved to the database a batch at a time, and a snapshot is
+     * taken once the import is done or has failed, so the journal does not keep the whole file.
+     */
+    public CompletableFuture<HotelImporter.Result> importFile(InputStream file, boolean json) {
+        return async(() -> {
+            ImportRecorder recorder = new ImportRecorder();
+            HotelImporter.Result result;
+            try {
+                Reader reader = new InputStreamReader(file, StandardCharsets.UTF_8);
+                result = json ? hotelImporter.importJson(hotel, reader, recorder) : hotelImporter.importCsv(hotel, reader, recorder);
+            } finally {
+                hotelJournal.snapshot(hotel);
+            }
+            return recorder.durable().thenApply(sequence -> result);
+        }).thenCompose(durable -> durable);
+    }
+
+    public CompletableFuture<OccupancyDto> getOccupancy(LocalDate startDate, int numberOfDays) {
+        return async(() -> {
+            Validatator.validateNumberOfDays(numberOfDays);
+            return OccupancyDto.from(hotel.getOccupancy(), startDate, startDate.plusDays(numberOfDays));
+        });
+    }
+
+    private static List<BookingDto> toBookingDtos(List<Booking> bookings) {
+        List<BookingDto> bookingDtos = new ArrayList<BookingDto>(bookings.size());
+        for(Booking booking : bookings) bookingDtos.add(BookingDto.from(booking));
+        return bookingDtos;
+    }
+
+    // Journals the bookings the waitlist was given by the change this thread just made, after the change
+    // itself, and completes once both are on disk
+    private CompletableFuture<Long> withAllocations(CompletableFuture<Long> durable) {
+        List<Booking> allocated = hotel.getWaitlist().takeAllocations();
+        if(allocated.isEmpty()) return durable;
+        CompletableFuture<Long> allocations = hotelJournal.appendBookings(allocated);
+        writeBehindStore.saveBookings(allocated);
+        return durable.thenCombine(allocations, (sequence, allocationsSequence) -> allocationsSequence);
+    }
+
+    // Journals and saves what an import changes under the journal locks, like the changes made through the service
+    private class ImportRecorder implements HotelImporter.Listener {
+        private final List<CompletableFuture<Long>> durable = Collections.synchronizedList(new ArrayList<CompletableFuture<Long>>());
+
+        @Override
+        public void apply(int[] roomNos, Runnable change) {
+            try(JournalLocks.Held held = roomNos != null ? hotelJournal.lockRooms(roomNos) : hotelJournal.lockAll()) {
+                change.run();
+            }
+        }
+
+        @Override
+        public void amenityAdded(Amenity amenity) {
+            durable.add(hotelJournal.appendAmenity(amenity));
+            writeBehindStore.saveAmenity(amenity);
+        }
+
+        @Override
+        public void floorAdded(Floor floor) {
+            durable.add(hotelJournal.appendFloor(floor));
+            writeBehindStore.saveFloor(floor);
+        }
+
+        @Override
+        public void roomsAdded(List<Room> rooms) {
+            for(Room room : rooms) {
+                durable.add(hotelJournal.appendRoom(room));
+                writeBehindStore.saveRoom(room);
+            }
+            // The new rooms were offered to the waitlist
+            durable.add(withAllocations(CompletableFuture.completedFuture(null)));
+        }
+
+        @Override
+        public void bookingsRestored(List<Booking> bookings) {
+            if(bookings.isEmpty()) return;
+            durable.add(hotelJournal.appendBookings(bookings));
+            writeBehindStore.saveBookings(bookings);
+        }
+
+        private CompletableFuture<Void> durable() {
+            synchronized(durable) {
+                return CompletableFuture.allOf(durable.toArray(new CompletableFuture[0]));
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, bookingExecutor);
+    }
+
+    // Runs a change on the booking executor under the journal locks and completes once the change is
+    // journaled, without holding the locks or the executor thread while the journal is forced to disk
+    private <T> CompletableFuture<T> durably(Supplier<JournalLocks.Held> locks, Supplier<CompletableFuture<T>> change) {
+        return async(() -> {
+            try(JournalLocks.Held held = locks.get()) {
+                return change.get();
+            }
+        }).thenCompose(durable -> durable);
+    }
+
+    // Locks the room the booking is in and the other rooms. A booking that was moved to another room
+    // before its lock was taken is locked again. Locks everything when there is no such booking, one
+    // made from the waitlist may show up in any room
+    private JournalLocks.Held lockBooking(UUID bookingId, int... otherRoomNos) {
+        while(true) {
+            Booking booking = hotel.getBookings().get(bookingId);
+            if(booking == null) return hotelJournal.lockAll();
+            int[] roomNos = Arrays.copyOf(otherRoomNos, otherRoomNos.length + 1);
+            roomNos[otherRoomNos.length] = booking.getRoom().getRoomNo();
+            JournalLocks.Held held = hotelJournal.lockRooms(roomNos);
+            if(hotel.getBookings().get(bookingId) == booking) return held;
+            held.close();
+        }
+    }
+
+    private static int[] roomNos(List<StayDto> stays) {
+        if(stays == null) return new int[0];
+        int[] roomNos = new int[stays.size()];
+        for(int i = 0; i < roomNos.length; i++) roomNos[i] = stays.get(i).getRoomNo();
+        return roomNos;
+    }
+
+    private Room findRoom(int roomNo) {
+        Room room = hotel.getRooms().get(roomNo);
+        if(room == null) throw new NoSuchElementException("Room " + roomNo + " not found");
+        return room;
+    }
+
+    private Amenity findAmenity(String name) {
+        Amenity amenity = hotel.getAmenities().get(name);
+        if(amenity == null) throw new IllegalArgumentException("Unknown amenity " + name);
+        return amenity;
+    }
+
+    private List<BookingAmenity> toBookingAmenities(List<BookingAmenityDto> requested) {
+        List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>();
+        if(requested != null) {
+            for(BookingAmenityDto bookingAmenity : requested) {
+                Amenity amenity = findAmenity(bookingAmenity.getName());
+                try {
+                    bookingAmenities.add(BookingAmenity.builder()
+                            .amenity(amenity)
+                            .count(bookingAmenity.getCount())
+                            .build());
+                } catch (ReservationRejectedException e) {
+                    // Turned down before it reaches the Hotel, so count it here
+                    hotel.getReservationMetrics().rejected(e.getReason());
+                    throw e;
+                }
+            }
+        }
+        return bookingAmenities;
+    }
+
+    private static User toUser(UUID userId, String firstName, String lastName) {
+        return User.builder()
+                .userId(userId != null ? userId : UUID.randomUUID())
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+    }
+
+    private List<Amenity> findAmenities(List<String> names) {
+        List<Amenity> amenities = new ArrayList<Amenity>();
+        if(names != null) {
+            for(String name : names) amenities.add(findAmenity(name));
+        }
+        return amenities;
+    }
+
+    private static List<RoomDto> toRoomDtos(Collection<Room> rooms, RatePlan ratePlan) {
+        List<RoomDto> roomDtos = new ArrayList<RoomDto>(rooms.size());
+        for(Room room : rooms) roomDtos.add(RoomDto.from(room, ratePlan));
+        return roomDtos;
+    }
+}
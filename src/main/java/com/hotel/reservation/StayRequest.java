@@ -0,0 +1,19 @@
+package com.hotel.reservation;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One room of a group reservation made with Hotel.makeReservations.
+ */
+@Data
+@Builder
+public class StayRequest {
+    private Room room;
+    private LocalDate startDate;
+    private int numberOfDays;
+    private List<BookingAmenity> bookingAmenities;
+}
@@ -0,0 +1,22 @@
+package com.hotel.reservation.Utilities;
+
+import java.time.Clock;
+import java.util.UUID;
+
+/**
+ * Source of the ids of new bookings.
+ */
+public interface BookingIdGenerator {
+
+    /**
+     * Ids that sort by the time they were made, see TimeOrderedIdGenerator.
+     */
+    BookingIdGenerator TIME_ORDERED = new TimeOrderedIdGenerator(Clock.systemUTC());
+
+    /**
+     * Random version 4 UUIDs. Every id goes through the shared SecureRandom.
+     */
+    BookingIdGenerator RANDOM = UUID::randomUUID;
+
+    UUID next();
+}
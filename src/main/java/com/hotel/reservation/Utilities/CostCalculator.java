@@ -2,29 +2,70 @@ package com.hotel.reservation.Utilities;
 
 import com.hotel.reservation.BookingAmenity;
 import com.hotel.reservation.Room;
-import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
-@Data
+/**
+ * Prices bookings in long cents against the rate plan of the hotel they are made in. The cents methods
+ * do not allocate, the BigDecimal methods convert their result once for callers at the API boundary.
+ *
+ * A booking costs the rate plan's price for the room and the stay plus, for every booked
+ * amenity, its cost times the count booked, for every night of the stay.
+ */
 public class CostCalculator {
 
-    public static BigDecimal calculateTotalCosts(Room room, List<BookingAmenity> bookingAmenities, int numberOfDays) {
-        if(numberOfDays < 0) new IllegalAccessException("Invalid Number of days");
-        return getRoomCosts(room, numberOfDays).add(getAmenityCosts(bookingAmenities, numberOfDays));
+    public static BigDecimal calculateTotalCosts(RatePlan ratePlan,
+                                                 Room room,
+                                                 List<BookingAmenity> bookingAmenities,
+                                                 LocalDate startDate,
+                                                 int numberOfDays,
+                                                 int occupancyPercent) {
+        return Money.toBigDecimal(calculateTotalCents(ratePlan, room, bookingAmenities, startDate.toEpochDay(), numberOfDays, occupancyPercent));
     }
 
-    public static BigDecimal getRoomCosts(Room room, int numberOfDays) {
-        if(numberOfDays < 0) new IllegalAccessException("Invalid Number of days");
-        return room.calculateCost().multiply(new BigDecimal(numberOfDays));
+    public static BigDecimal getRoomCosts(RatePlan ratePlan, Room room, LocalDate startDate, int numberOfDays, int occupancyPercent) {
+        return Money.toBigDecimal(getRoomCents(ratePlan, room, startDate.toEpochDay(), numberOfDays, occupancyPercent));
     }
 
     public static BigDecimal getAmenityCosts(List<BookingAmenity> bookingAmenities, int numberOfDays) {
-        if(bookingAmenities.size() <= 0) return BigDecimal.valueOf(0);
-        if(numberOfDays < 0) new IllegalAccessException("Invalid Number of days");
-        BigDecimal amenityCosts = new BigDecimal(0);
-        for(BookingAmenity bookingAmenity : bookingAmenities) amenityCosts.add(bookingAmenity.getAmenity().getCost());
-        return amenityCosts.multiply(new BigDecimal(numberOfDays));
+        return Money.toBigDecimal(getAmenityCents(bookingAmenities, numberOfDays));
+    }
+
+    public static long calculateTotalCents(RatePlan ratePlan,
+                                           Room room,
+                                           List<BookingAmenity> bookingAmenities,
+                                           long startDay,
+                                           int numberOfDays,
+                                           int occupancyPercent) {
+        return Math.addExact(getRoomCents(ratePlan, room, startDay, numberOfDays, occupancyPercent), getAmenityCents(bookingAmenities, numberOfDays));
+    }
+
+    public static long getRoomCents(RatePlan ratePlan, Room room, long startDay, int numberOfDays, int occupancyPercent) {
+        validateNumberOfDays(numberOfDays);
+        return ratePlan.stayCents(room.getNumberOfBeds(), startDay, numberOfDays, occupancyPercent);
+    }
+
+    public static long getAmenityCents(List<BookingAmenity> bookingAmenities, int numberOfDays) {
+        validateNumberOfDays(numberOfDays);
+        long nightlyCents = 0;
+        // Indexed so the hot path does not create an iterator
+        for(int i = 0; i < bookingAmenities.size(); i++) {
+            BookingAmenity bookingAmenity = bookingAmenities.get(i);
+            nightlyCents = Math.addExact(nightlyCents, Math.multiplyExact(bookingAmenity.getAmenity().getCostCents(), bookingAmenity.getCount()));
+        }
+        return Math.multiplyExact(nightlyCents, numberOfDays);
+    }
+
+    /**
+     * The room's base rate, before any date dependent adjustment of the rate plan.
+     */
+    public static long getNightlyRateCents(RatePlan ratePlan, Room room) {
+        return ratePlan.getRateTable().nightlyRateCents(room.getNumberOfBeds());
+    }
+
+    private static void validateNumberOfDays(int numberOfDays) {
+        if(numberOfDays < 0) throw new IllegalArgumentException("Invalid Number of days");
     }
 }
@@ -0,0 +1,70 @@
+package com.hotel.reservation.Utilities;
+
+import java.time.*;
+
+/**
+ * Source of the current date for everything that checks dates against today.
+ *
+ * LocalDate.now() reads the clock and converts it to the time zone on every call. Validation
+ * asks for today on every request, so today is cached together with the instants it starts
+ * and ends at, and recomputed only once the clock has moved out of it, normally at midnight.
+ * Asking for today is then one read of the clock and two comparisons.
+ *
+ * Tests pass a fixed or adjustable java.time.Clock to pin the date.
+ */
+public final class HotelClock {
+
+    public static final HotelClock SYSTEM = new HotelClock(Clock.systemDefaultZone());
+
+    private final Clock clock;
+    private volatile Today today;
+
+    public HotelClock(Clock clock) {
+        if(clock == null) throw new IllegalArgumentException("Clock is required");
+        this.clock = clock;
+        this.today = computeToday(clock.millis());
+    }
+
+    /**
+     * A clock that is always at the start of the given date.
+     */
+    public static HotelClock fixed(LocalDate date) {
+        if(date == null) throw new IllegalArgumentException("Invalid date");
+        return new HotelClock(Clock.fixed(date.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+    }
+
+    public LocalDate today() {
+        long now = clock.millis();
+        Today current = today;
+        // Also recomputed when the clock went backwards
+        if(now >= current.endMillis || now < current.startMillis) {
+            current = computeToday(now);
+            today = current;
+        }
+        return current.date;
+    }
+
+    public long todayEpochDay() {
+        return today().toEpochDay();
+    }
+
+    private Today computeToday(long millis) {
+        ZoneId zone = clock.getZone();
+        LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+        return new Today(date,
+                         date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                         date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
+    private static final class Today {
+        private final LocalDate date;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Today(LocalDate date, long startMillis, long endMillis) {
+            this.date = date;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
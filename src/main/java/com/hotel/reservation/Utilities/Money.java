@@ -0,0 +1,25 @@
+package com.hotel.reservation.Utilities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between BigDecimal amounts, used at the API boundary, and long cents, used for
+ * all pricing arithmetic so totals can be computed without allocating.
+ */
+public class Money {
+
+    private static final int CENTS_SCALE = 2;
+    private static final long CENTS_PER_UNIT = 100;
+
+    public static long toCents(BigDecimal amount) {
+        if(amount == null) return 0;
+        return amount.setScale(CENTS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        // Whole amounts keep scale 0, so 75 stays 75 rather than becoming 75.00
+        if(cents % CENTS_PER_UNIT == 0) return BigDecimal.valueOf(cents / CENTS_PER_UNIT);
+        return BigDecimal.valueOf(cents, CENTS_SCALE);
+    }
+}
@@ -0,0 +1,250 @@
+package com.hotel.reservation.Utilities;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Date dependent room rates on top of a RateTable: a weekend markup for Friday and Saturday nights,
+ * seasonal markups or discounts, length of stay discounts and a surge that depends on occupancy.
+ * All adjustments are whole percentages.
+ *
+ * Nightly rates do not change once the plan is built, so for every bed count they are compiled
+ * into a prefix sum array over a window of horizonDays days, from compiledFrom or else from the
+ * day the plan is built. The price of a stay inside that window is then the difference of two
+ * array entries, however long the stay. Nights outside the window are priced one by one.
+ *
+ * Once the plan's HotelClock has rolled past the first day of the window, the next price asked
+ * for compiles a new window from today, so the window keeps covering the nights being booked
+ * however long the plan is in use. Threads asking meanwhile use the previous window.
+ */
+public final class RatePlan {
+
+    public static final RatePlan STANDARD = builder(RateTable.STANDARD).build();
+
+    private static final int DEFAULT_HORIZON_DAYS = 2 * 366;
+
+    private final RateTable rateTable;
+    private final int weekendPercent;
+    private final List<Season> seasons;
+    private final NavigableMap<Integer, Integer> lengthOfStayPercentOff;
+    private final NavigableMap<Integer, Integer> surgePercent;
+
+    private final HotelClock clock;
+    private final int horizonDays;
+    private final AtomicBoolean compiling = new AtomicBoolean();
+    private volatile Window window;
+
+    private RatePlan(Builder builder) {
+        this.rateTable = builder.rateTable;
+        this.weekendPercent = builder.weekendPercent;
+        this.seasons = Collections.unmodifiableList(new ArrayList<Season>(builder.seasons));
+        this.lengthOfStayPercentOff = Collections.unmodifiableNavigableMap(new TreeMap<Integer, Integer>(builder.lengthOfStayPercentOff));
+        this.surgePercent = Collections.unmodifiableNavigableMap(new TreeMap<Integer, Integer>(builder.surgePercent));
+        this.clock = builder.clock;
+        this.horizonDays = builder.horizonDays;
+        this.window = compile(builder.compiledFrom != null ? builder.compiledFrom.toEpochDay() : clock.todayEpochDay());
+    }
+
+    public static Builder builder(RateTable rateTable) {
+        return new Builder(rateTable);
+    }
+
+    public RateTable getRateTable() {
+        return rateTable;
+    }
+
+    /**
+     * First day of the window the plan is compiled for at the moment.
+     */
+    public LocalDate getCompiledFrom() {
+        return LocalDate.ofEpochDay(window.firstDay);
+    }
+
+    public long nightlyCents(int numberOfBeds, long day) {
+        rateTable.nightlyRateCents(numberOfBeds);
+        Window window = window();
+        long offset = day - window.firstDay;
+        if(offset >= 0 && offset < horizonDays) {
+            long[] prefix = window.prefixCents[numberOfBeds - 1];
+            return prefix[(int) offset + 1] - prefix[(int) offset];
+        }
+        return computeNightlyCents(numberOfBeds, day);
+    }
+
+    /**
+     * Price of a stay in cents before amenities, including the length of stay discount and
+     * the surge for the given occupancy of the hotel, from 0 to 100.
+     */
+    public long stayCents(int numberOfBeds, long startDay, int numberOfDays, int occupancyPercent) {
+        rateTable.nightlyRateCents(numberOfBeds);
+        if(numberOfDays < 0) throw new IllegalArgumentException("Invalid number of days");
+
+        Window window = window();
+        long firstDay = window.firstDay;
+        long endDay = startDay + numberOfDays;
+        long windowEnd = firstDay + horizonDays;
+        long[] prefix = window.prefixCents[numberOfBeds - 1];
+
+        long cents = 0;
+        long from = Math.max(startDay, firstDay);
+        long to = Math.min(endDay, windowEnd);
+        if(from < to) cents += prefix[(int) (to - firstDay)] - prefix[(int) (from - firstDay)];
+        for(long day = startDay; day < Math.min(endDay, firstDay); day++) cents += computeNightlyCents(numberOfBeds, day);
+        for(long day = Math.max(startDay, windowEnd); day < endDay; day++) cents += computeNightlyCents(numberOfBeds, day);
+
+        cents = adjust(cents, -percentFor(lengthOfStayPercentOff, numberOfDays));
+        return adjust(cents, percentFor(surgePercent, occupancyPercent));
+    }
+
+    // The current window, compiled again from today once the clock has rolled past its first day
+    private Window window() {
+        Window current = window;
+        long today = clock.todayEpochDay();
+        if(today <= current.firstDay || !compiling.compareAndSet(false, true)) return current;
+        try {
+            current = window;
+            if(today > current.firstDay) {
+                current = compile(today);
+                window = current;
+            }
+            return current;
+        } finally {
+            compiling.set(false);
+        }
+    }
+
+    private Window compile(long firstDay) {
+        long[][] prefixCents = new long[rateTable.maxNumberOfBeds()][horizonDays + 1];
+        for(int beds = 1; beds <= prefixCents.length; beds++) {
+            long[] prefix = prefixCents[beds - 1];
+            for(int i = 0; i < horizonDays; i++) prefix[i + 1] = prefix[i] + computeNightlyCents(beds, firstDay + i);
+        }
+        return new Window(firstDay, prefixCents);
+    }
+
+    private long computeNightlyCents(int numberOfBeds, long day) {
+        int percent = weekendPercent != 0 && isWeekendNight(day) ? weekendPercent : 0;
+        for(int i = 0; i < seasons.size(); i++) {
+            Season season = seasons.get(i);
+            if(day >= season.firstDay && day <= season.lastDay) percent += season.percent;
+        }
+        return adjust(rateTable.nightlyRateCents(numberOfBeds), percent);
+    }
+
+    private static boolean isWeekendNight(long day) {
+        // Epoch day 0 was a Thursday
+        DayOfWeek dayOfWeek = DayOfWeek.of((int) Math.floorMod(day + 3, 7L) + 1);
+        return dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SATURDAY;
+    }
+
+    private static int percentFor(NavigableMap<Integer, Integer> tiers, int value) {
+        Map.Entry<Integer, Integer> tier = tiers.floorEntry(value);
+        return tier != null ? tier.getValue() : 0;
+    }
+
+    private static long adjust(long cents, int percent) {
+        if(percent == 0) return cents;
+        return Math.max(0, Math.multiplyExact(cents, 100 + percent) / 100);
+    }
+
+    private static final class Window {
+        private final long firstDay;
+        // prefixCents[numberOfBeds - 1][i] is the price of the nights firstDay to firstDay + i - 1
+        private final long[][] prefixCents;
+
+        private Window(long firstDay, long[][] prefixCents) {
+            this.firstDay = firstDay;
+            this.prefixCents = prefixCents;
+        }
+    }
+
+    private static class Season {
+        private final long firstDay;
+        private final long lastDay;
+        private final int percent;
+
+        private Season(long firstDay, long lastDay, int percent) {
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.percent = percent;
+        }
+    }
+
+    public static class Builder {
+        private final RateTable rateTable;
+        private int weekendPercent;
+        private final List<Season> seasons = new ArrayList<Season>();
+        private final Map<Integer, Integer> lengthOfStayPercentOff = new HashMap<Integer, Integer>();
+        private final Map<Integer, Integer> surgePercent = new HashMap<Integer, Integer>();
+        private HotelClock clock = HotelClock.SYSTEM;
+        private LocalDate compiledFrom;
+        private int horizonDays = DEFAULT_HORIZON_DAYS;
+
+        private Builder(RateTable rateTable) {
+            if(rateTable == null) throw new IllegalArgumentException("Rate table is required");
+            this.rateTable = rateTable;
+        }
+
+        public Builder weekendPercent(int percent) {
+            this.weekendPercent = percent;
+            return this;
+        }
+
+        /**
+         * Adjusts every night from firstNight to lastNight inclusive, on top of any other season covering it.
+         */
+        public Builder season(LocalDate firstNight, LocalDate lastNight, int percent) {
+            if(firstNight == null || lastNight == null || lastNight.isBefore(firstNight)) throw new IllegalArgumentException("Invalid season");
+            seasons.add(new Season(firstNight.toEpochDay(), lastNight.toEpochDay(), percent));
+            return this;
+        }
+
+        /**
+         * Takes percentOff off stays of at least minimumNights, the longest matching tier wins.
+         */
+        public Builder lengthOfStayDiscount(int minimumNights, int percentOff) {
+            if(percentOff < 0 || percentOff > 100) throw new IllegalArgumentException("Invalid discount");
+            lengthOfStayPercentOff.put(minimumNights, percentOff);
+            return this;
+        }
+
+        /**
+         * Adds percent to stays booked while the hotel is at least occupancyPercent full, the highest matching tier wins.
+         */
+        public Builder surge(int occupancyPercent, int percent) {
+            if(occupancyPercent < 0 || occupancyPercent > 100) throw new IllegalArgumentException("Invalid occupancy");
+            surgePercent.put(occupancyPercent, percent);
+            return this;
+        }
+
+        /**
+         * The clock the window follows, e.g. the hotel's. Defaults to HotelClock.SYSTEM.
+         */
+        public Builder clock(HotelClock clock) {
+            if(clock == null) throw new IllegalArgumentException("Clock is required");
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * First day of the first window, today by the plan's clock if not given.
+         */
+        public Builder compiledFrom(LocalDate compiledFrom) {
+            if(compiledFrom == null) throw new IllegalArgumentException("Invalid date");
+            this.compiledFrom = compiledFrom;
+            return this;
+        }
+
+        public Builder horizonDays(int horizonDays) {
+            if(horizonDays < 0) throw new IllegalArgumentException("Invalid horizon");
+            this.horizonDays = horizonDays;
+            return this;
+        }
+
+        public RatePlan build() {
+            return new RatePlan(this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hotel.reservation.Utilities;
+
+import java.util.Arrays;
+
+/**
+ * Immutable nightly room rates in cents keyed by number of beds. Rooms share a single table
+ * instead of each carrying its own copy of the prices.
+ */
+public final class RateTable {
+
+    public static final RateTable STANDARD = new RateTable(5000, 7500, 9000);
+
+    // nightlyRatesCents[numberOfBeds - 1]
+    private final long[] nightlyRatesCents;
+
+    public RateTable(long... nightlyRatesCents) {
+        for(long rate : nightlyRatesCents) {
+            if(rate < 0) throw new IllegalArgumentException("Rate cannot be negative");
+        }
+        this.nightlyRatesCents = Arrays.copyOf(nightlyRatesCents, nightlyRatesCents.length);
+    }
+
+    public long nightlyRateCents(int numberOfBeds) {
+        if(numberOfBeds < 1 || numberOfBeds > nightlyRatesCents.length) throw new IllegalArgumentException("Invalid number of beds");
+        return nightlyRatesCents[numberOfBeds - 1];
+    }
+
+    public int maxNumberOfBeds() {
+        return nightlyRatesCents.length;
+    }
+}
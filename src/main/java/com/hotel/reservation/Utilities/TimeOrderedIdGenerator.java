@@ -0,0 +1,81 @@
+package com.hotel.reservation.Utilities;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Version 7 UUIDs: the milliseconds since the epoch in the top 48 bits, so ids compare in the
+ * order they were made, to the millisecond across threads and exactly within one thread.
+ *
+ * Nothing is shared between threads when making an id. Every thread gets its own slot and
+ * sequence, and the low 62 bits are the slot followed by the sequence, so two threads can not
+ * make the same id. The sequence starts at a random value, which keeps slots that are reused
+ * after millions of threads apart, and 12 random bits per generator keep apart the ids of
+ * generators in other processes. A thread never goes back in time when the clock does.
+ */
+public final class TimeOrderedIdGenerator implements BookingIdGenerator {
+
+    private static final long VERSION = 7L << 12;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final int SEQUENCE_BITS = 40;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int SLOT_MASK = (1 << 22) - 1;
+
+    private final Clock clock;
+    private final long instanceBits;
+    private final AtomicInteger slots = new AtomicInteger();
+    private final ThreadLocal<ThreadIds> threadIds = ThreadLocal.withInitial(this::newThreadIds);
+
+    public TimeOrderedIdGenerator(Clock clock) {
+        if(clock == null) throw new IllegalArgumentException("Clock is required");
+        this.clock = clock;
+        this.instanceBits = ThreadLocalRandom.current().nextInt(1 << 12);
+    }
+
+    @Override
+    public UUID next() {
+        ThreadIds ids = threadIds.get();
+        long millis = Math.max(clock.millis(), ids.lastMillis);
+        ids.lastMillis = millis;
+        long sequence = ids.sequence++ & SEQUENCE_MASK;
+        return new UUID(millis << 16 | VERSION | instanceBits, VARIANT | ids.slot << SEQUENCE_BITS | sequence);
+    }
+
+    public static boolean isTimeOrdered(UUID id) {
+        return id.version() == 7;
+    }
+
+    /**
+     * Milliseconds since the epoch at which a time ordered id was made.
+     */
+    public static long createdAt(UUID id) {
+        if(!isTimeOrdered(id)) throw new IllegalArgumentException("Id is not time ordered");
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Compares lower than every time ordered id made at or after millis, and higher than those made before.
+     */
+    public static UUID lowestIdAt(long millis) {
+        if(millis < 0 || millis >= 1L << 47) throw new IllegalArgumentException("Invalid time");
+        return new UUID(millis << 16, Long.MIN_VALUE);
+    }
+
+    private ThreadIds newThreadIds() {
+        // Started in the lower half so the sequence does not wrap around within a millisecond
+        return new ThreadIds(slots.getAndIncrement() & SLOT_MASK, ThreadLocalRandom.current().nextLong() & SEQUENCE_MASK >>> 1);
+    }
+
+    private static final class ThreadIds {
+        private final long slot;
+        private long sequence;
+        private long lastMillis;
+
+        private ThreadIds(long slot, long sequence) {
+            this.slot = slot;
+            this.sequence = sequence;
+        }
+    }
+}
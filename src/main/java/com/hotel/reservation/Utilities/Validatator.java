@@ -2,25 +2,36 @@ package com.hotel.reservation.Utilities;
 
 import com.hotel.reservation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 
-import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
-
+/**
+ * Argument checks shared by the Hotel and its rooms. Every check throws an IllegalArgumentException.
+ * Primitives cannot be null, so they are only checked for their range.
+ */
 public class Validatator {
 
     public static void validateStartDate(LocalDate startDate) {
+        validateStartDate(startDate, HotelClock.SYSTEM.today());
+    }
+
+    public static void validateStartDate(LocalDate startDate, LocalDate today) {
         assertNotNull(startDate);
-        if(startDate.isBefore(LocalDate.now())) throw new IllegalArgumentException("Date cannot be in the past");
+        if(startDate.isBefore(today)) throw new IllegalArgumentException("Date cannot be in the past");
     }
 
-    public static void validateNumberOfDays(int numberOfDays) {
-        assertNotNull(numberOfDays);
-        if(numberOfDays < 0) throw new IllegalArgumentException("Invalid number of days");
+    public static void validateDate(LocalDate date) {
+        assertNotNull(date);
+    }
+
+    public static void validateBookingId(UUID bookingId) {
+        assertNotNull(bookingId);
     }
 
-    public static void validateIshandicapAccessible(boolean isHandicapAccessible) {
-        assertNotNull(isHandicapAccessible);
+    public static void validateNumberOfDays(int numberOfDays) {
+        if(numberOfDays < 0) throw new IllegalArgumentException("Invalid number of days");
     }
 
     public static void validateAmenitiesList(List<Amenity> amenities) {
@@ -31,25 +42,53 @@ public class Validatator {
         assertNotNull(bookingAmenities);
     }
 
+    public static void validateStays(List<StayRequest> stays) {
+        assertNotNull(stays);
+        if(stays.isEmpty()) throw new IllegalArgumentException("No rooms requested");
+    }
+
     public static void validateUser(User user) {
         assertNotNull(user);
     }
 
+    public static void validateAmenityName(String name) {
+        assertNotNull(name);
+        if(name.trim().isEmpty()) throw new IllegalArgumentException("Invalid amenity name");
+    }
+
+    public static void validateAmenityLimit(int limit) {
+        if(limit < 0) throw new IllegalArgumentException("Invalid amenity limit");
+    }
+
+    public static void validateAmenityCapacity(int capacity) {
+        if(capacity < AmenityInventory.UNLIMITED) throw new IllegalArgumentException("Invalid amenity capacity");
+    }
+
+    public static void validateCost(BigDecimal cost) {
+        assertNotNull(cost);
+        if(cost.signum() < 0) throw new IllegalArgumentException("Cost cannot be negative");
+    }
+
     public static void validateFloorNo(int floorNo) {
-        assertNotNull(floorNo);
         if(floorNo < 0) throw new IllegalArgumentException("Invalid number for a floor");
     }
 
     public static void validateRoomNo(int roomNo) {
-        assertNotNull(roomNo);
         if(roomNo < 0) throw new IllegalArgumentException("Invalid number of rooms");
     }
 
     public static void validateNumberOfBeds(int numberOfBeds) {
-        assertNotNull(numberOfBeds);
         if(numberOfBeds < 0) throw new IllegalArgumentException("Invalid number for beds");
     }
 
+    public static void validateOverbookingAllowance(int allowance) {
+        if(allowance < 0) throw new IllegalArgumentException("Invalid overbooking allowance");
+    }
+
+    public static void validateWaitlistPriority(int priority) {
+        if(priority < 0) throw new IllegalArgumentException("Invalid waitlist priority");
+    }
+
     public static void validateFloor(Floor floor) {
         assertNotNull(floor);
         if(floor.getFloorNumber() < 0) throw new IllegalArgumentException("Invalid floor");
@@ -60,4 +99,7 @@ public class Validatator {
         if(room.getRoomNo() < 0) throw new IllegalArgumentException("Invalid room");
     }
 
+    private static void assertNotNull(Object value) {
+        if(value == null) throw new IllegalArgumentException("must not be null");
+    }
 }
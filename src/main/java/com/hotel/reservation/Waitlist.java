@@ -0,0 +1,263 @@
+package com.hotel.reservation;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Stays the hotel could not give a room yet, overbooked or waitlisted, see Hotel.requestReservation.
+ *
+ * Entries are indexed by kind of room, number of beds and handicap accessibility, and within a
+ * kind by the day their stay starts. When nights of a room become free, the only entries that can
+ * newly fit in it are those of its kind whose stay overlaps the freed nights, and those start in a
+ * window of at most the longest stay waited for before the freed nights end. So matching looks at
+ * one range of the index and checks the room's calendar for each entry in it, instead of searching
+ * the hotel for every entry.
+ *
+ * Candidates are offered the room overbooked first, then in the order of the allocation strategy.
+ * An entry is taken off the waitlist while it is being booked and put back if that fails, so
+ * two threads can never book it twice.
+ *
+ * A stay is only overbooked while fewer overbooked stays with its number of beds are held on each
+ * of its nights than the OverbookingAllowance allows. Entries whose stay has started expire.
+ * The waitlist itself is kept in memory, HotelJournal journals its entries and puts them back with restore.
+ */
+public class Waitlist {
+
+    private final OverbookingAllowance overbookingAllowance;
+    private final Map<Integer, NavigableMap<Long, List<WaitlistEntry>>> entriesByKind = new HashMap<Integer, NavigableMap<Long, List<WaitlistEntry>>>();
+    private final Map<UUID, WaitlistEntry> entries = new HashMap<UUID, WaitlistEntry>();
+    // Overbooked stays held by number of beds and night
+    private final Map<Integer, Map<Long, Integer>> overbookedNights = new HashMap<Integer, Map<Long, Integer>>();
+    // Bookings made from the waitlist by each thread since it last took them
+    private final ThreadLocal<List<Booking>> allocations = ThreadLocal.withInitial(ArrayList::new);
+    private volatile AllocationStrategy strategy = AllocationStrategy.PRIORITY;
+    private volatile int size;
+    private long sequence;
+    private int longestStay;
+
+    public Waitlist() {
+        this(new OverbookingAllowance());
+    }
+
+    public Waitlist(OverbookingAllowance overbookingAllowance) {
+        this.overbookingAllowance = overbookingAllowance;
+    }
+
+    public OverbookingAllowance getOverbookingAllowance() {
+        return overbookingAllowance;
+    }
+
+    public AllocationStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(AllocationStrategy strategy) {
+        if(strategy == null) throw new IllegalArgumentException("must not be null");
+        this.strategy = strategy;
+    }
+
+    /**
+     * Overbooks the entry if the allowance is not used up on any of its nights, otherwise waitlists it.
+     */
+    public synchronized void add(WaitlistEntry entry) {
+        entry.setSequence(sequence++);
+        entry.setStatus(canOverbook(entry) ? WaitlistEntry.Status.OVERBOOKED : WaitlistEntry.Status.WAITLISTED);
+        insert(entry);
+    }
+
+    /**
+     * Puts back an entry that was overbooked or waitlisted earlier, e.g. when recovering the hotel,
+     * with the status it had then. Returns the entry on the waitlist, which is left as it is if it
+     * was already there.
+     */
+    public synchronized WaitlistEntry restore(WaitlistEntry entry, WaitlistEntry.Status status) {
+        if(status != WaitlistEntry.Status.OVERBOOKED && status != WaitlistEntry.Status.WAITLISTED)
+            throw new IllegalArgumentException("Only overbooked or waitlisted entries can be restored");
+        WaitlistEntry existing = entries.get(entry.getEntryId());
+        if(existing != null) return existing;
+        entry.setSequence(sequence++);
+        entry.setStatus(status);
+        insert(entry);
+        return entry;
+    }
+
+    /**
+     * The entries on the waitlist in the order they joined it.
+     */
+    public synchronized List<WaitlistEntry> entries() {
+        List<WaitlistEntry> waiting = new ArrayList<WaitlistEntry>(entries.values());
+        waiting.sort(Comparator.comparingLong(WaitlistEntry::getSequence));
+        return waiting;
+    }
+
+    /**
+     * Takes the entry off the waitlist as WITHDRAWN, or returns null if it is not on it.
+     */
+    public synchronized WaitlistEntry remove(UUID entryId) {
+        WaitlistEntry entry = entries.get(entryId);
+        if(entry == null) return null;
+        delete(entry);
+        entry.setStatus(WaitlistEntry.Status.WITHDRAWN);
+        return entry;
+    }
+
+    public synchronized WaitlistEntry find(UUID entryId) {
+        return entries.get(entryId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Overbooked stays with the number of beds held for the night starting on the given date.
+     */
+    public synchronized int overbooked(int numberOfBeds, LocalDate night) {
+        Map<Long, Integer> byNight = overbookedNights.get(numberOfBeds);
+        Integer count = byNight != null ? byNight.get(night.toEpochDay()) : null;
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Entries that may fit in the room now that its nights [fromDay, toDay) are free, in the order
+     * they are to be offered it. Expires the entries whose stay started before today.
+     */
+    synchronized List<WaitlistEntry> candidates(Room room, long fromDay, long toDay, long today) {
+        expire(today);
+        NavigableMap<Long, List<WaitlistEntry>> byStartDay = entriesByKind.get(kind(room));
+        if(byStartDay == null || fromDay >= toDay) return new ArrayList<WaitlistEntry>();
+        long earliestStart = Math.max(today, fromDay - longestStay + 1);
+        List<WaitlistEntry> candidates = new ArrayList<WaitlistEntry>();
+        for(List<WaitlistEntry> starting : byStartDay.subMap(earliestStart, true, toDay, false).values()) {
+            for(WaitlistEntry entry : starting) {
+                if(entry.getEndDay() > fromDay && fits(entry, room)) candidates.add(entry);
+            }
+        }
+        return sort(candidates);
+    }
+
+    /**
+     * Entries that may fit in a room that was just added, in the order they are to be offered it.
+     */
+    synchronized List<WaitlistEntry> candidates(Room room, long today) {
+        expire(today);
+        NavigableMap<Long, List<WaitlistEntry>> byStartDay = entriesByKind.get(kind(room));
+        List<WaitlistEntry> candidates = new ArrayList<WaitlistEntry>();
+        if(byStartDay == null) return candidates;
+        for(List<WaitlistEntry> starting : byStartDay.values()) {
+            for(WaitlistEntry entry : starting) {
+                if(fits(entry, room)) candidates.add(entry);
+            }
+        }
+        return sort(candidates);
+    }
+
+    /**
+     * Takes the entry off the waitlist to book it, or returns false if another thread already did.
+     */
+    synchronized boolean claim(WaitlistEntry entry) {
+        if(entries.get(entry.getEntryId()) != entry) return false;
+        delete(entry);
+        return true;
+    }
+
+    /**
+     * Puts back a claimed entry that could not be booked, as it was. An overbooked entry stays
+     * overbooked even if the allowance was lowered in the meantime.
+     */
+    synchronized void putBack(WaitlistEntry entry) {
+        insert(entry);
+    }
+
+    void allocated(Booking booking) {
+        allocations.get().add(booking);
+    }
+
+    /**
+     * Bookings the calling thread made from the waitlist since it last called this, e.g. to journal them.
+     */
+    public List<Booking> takeAllocations() {
+        List<Booking> allocated = allocations.get();
+        if(allocated.isEmpty()) return Collections.emptyList();
+        allocations.remove();
+        return allocated;
+    }
+
+    private boolean canOverbook(WaitlistEntry entry) {
+        int numberOfBeds = entry.getQuery().getNumberOfBeds();
+        Map<Long, Integer> byNight = overbookedNights.get(numberOfBeds);
+        for(long day = entry.getStartDay(); day < entry.getEndDay(); day++) {
+            Integer count = byNight != null ? byNight.get(day) : null;
+            if((count != null ? count : 0) >= overbookingAllowance.allowance(numberOfBeds, day)) return false;
+        }
+        return entry.getNumberOfDays() > 0;
+    }
+
+    private void insert(WaitlistEntry entry) {
+        entries.put(entry.getEntryId(), entry);
+        entriesByKind.computeIfAbsent(kind(entry.getQuery()), k -> new TreeMap<Long, List<WaitlistEntry>>())
+                     .computeIfAbsent(entry.getStartDay(), k -> new ArrayList<WaitlistEntry>())
+                     .add(entry);
+        if(entry.getStatus() == WaitlistEntry.Status.OVERBOOKED) countOverbooked(entry, 1);
+        longestStay = Math.max(longestStay, entry.getNumberOfDays());
+        size = entries.size();
+    }
+
+    private void delete(WaitlistEntry entry) {
+        entries.remove(entry.getEntryId());
+        int kind = kind(entry.getQuery());
+        NavigableMap<Long, List<WaitlistEntry>> byStartDay = entriesByKind.get(kind);
+        List<WaitlistEntry> starting = byStartDay.get(entry.getStartDay());
+        starting.remove(entry);
+        if(starting.isEmpty()) byStartDay.remove(entry.getStartDay());
+        if(byStartDay.isEmpty()) entriesByKind.remove(kind);
+        if(entry.getStatus() == WaitlistEntry.Status.OVERBOOKED) countOverbooked(entry, -1);
+        size = entries.size();
+    }
+
+    private void expire(long today) {
+        List<WaitlistEntry> expired = new ArrayList<WaitlistEntry>();
+        for(NavigableMap<Long, List<WaitlistEntry>> byStartDay : entriesByKind.values()) {
+            for(List<WaitlistEntry> starting : byStartDay.headMap(today, false).values()) expired.addAll(starting);
+        }
+        for(WaitlistEntry entry : expired) {
+            delete(entry);
+            entry.setStatus(WaitlistEntry.Status.EXPIRED);
+        }
+    }
+
+    private void countOverbooked(WaitlistEntry entry, int delta) {
+        Map<Long, Integer> byNight = overbookedNights.computeIfAbsent(entry.getQuery().getNumberOfBeds(), k -> new HashMap<Long, Integer>());
+        for(long day = entry.getStartDay(); day < entry.getEndDay(); day++) {
+            int count = byNight.getOrDefault(day, 0) + delta;
+            if(count == 0) byNight.remove(day);
+            else byNight.put(day, count);
+        }
+    }
+
+    private List<WaitlistEntry> sort(List<WaitlistEntry> candidates) {
+        Comparator<WaitlistEntry> overbookedFirst = Comparator.comparing(entry -> entry.getStatus() != WaitlistEntry.Status.OVERBOOKED);
+        candidates.sort(overbookedFirst.thenComparing(strategy));
+        return candidates;
+    }
+
+    private static boolean fits(WaitlistEntry entry, Room room) {
+        return (entry.getQuery().getAmenityMask() & room.getRestrictedAmenityMask()) == 0;
+    }
+
+    private static int kind(Room room) {
+        return kind(room.getNumberOfBeds(), room.isHandicapAccessible());
+    }
+
+    private static int kind(AvailabilityQuery query) {
+        return kind(query.getNumberOfBeds(), query.isHandicapAccessible());
+    }
+
+    private static int kind(int numberOfBeds, boolean handicapAccessible) {
+        return numberOfBeds << 1 | (handicapAccessible ? 1 : 0);
+    }
+}
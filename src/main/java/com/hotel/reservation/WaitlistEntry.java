@@ -0,0 +1,109 @@
+package com.hotel.reservation;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A reservation asked for by kind of room rather than by room, see Hotel.requestReservation.
+ *
+ * The entry is ALLOCATED once it has a room, and the booking has the entry's id. Until then it is
+ * OVERBOOKED, accepted beyond the rooms the hotel has, or WAITLISTED, to be booked only if a room
+ * frees up. It is EXPIRED if its stay started before a room was found and WITHDRAWN if the guest
+ * took it off the waitlist.
+ */
+public class WaitlistEntry {
+
+    public enum Status {
+        WAITLISTED,
+        OVERBOOKED,
+        ALLOCATED,
+        EXPIRED,
+        WITHDRAWN
+    }
+
+    private final UUID entryId;
+    private final AvailabilityQuery query;
+    private final List<BookingAmenity> bookingAmenities;
+    private final User user;
+    private final int priority;
+    // Order the entry joined the waitlist in, set by the Waitlist
+    private long sequence;
+    private volatile Status status = Status.WAITLISTED;
+    private volatile Booking booking;
+
+    public WaitlistEntry(UUID entryId, AvailabilityQuery query, List<BookingAmenity> bookingAmenities, User user, int priority) {
+        this.entryId = entryId;
+        this.query = query;
+        this.bookingAmenities = bookingAmenities;
+        this.user = user;
+        this.priority = priority;
+    }
+
+    public UUID getEntryId() {
+        return entryId;
+    }
+
+    public AvailabilityQuery getQuery() {
+        return query;
+    }
+
+    public LocalDate getStartDate() {
+        return query.getStartDate();
+    }
+
+    public long getStartDay() {
+        return query.getStartDay();
+    }
+
+    public long getEndDay() {
+        return query.getStartDay() + query.getNumberOfDays();
+    }
+
+    public int getNumberOfDays() {
+        return query.getNumberOfDays();
+    }
+
+    public List<BookingAmenity> getBookingAmenities() {
+        return bookingAmenities;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Higher goes first with AllocationStrategy.PRIORITY.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * The booking made for the entry once it is ALLOCATED, otherwise null.
+     */
+    public Booking getBooking() {
+        return booking;
+    }
+
+    void allocated(Booking booking) {
+        this.booking = booking;
+        this.status = Status.ALLOCATED;
+    }
+}
@@ -0,0 +1,62 @@
+package com.hotel.reservation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AmenityInventoryTest {
+
+    private static final long DAY = 20_000;
+
+    @Test
+    public void reserveTakesUnitsOnlyIfEveryNightHasThemTest() {
+        AmenityInventory inventory = new AmenityInventory(2);
+
+        assertTrue(inventory.reserve(DAY, 3, 2));
+        assertTrue(inventory.reserve(DAY + 3, 2, 1));
+        assertFalse(inventory.reserve(DAY + 2, 2, 1));
+        assertTrue(inventory.reserve(DAY + 3, 4, 1));
+
+        assertEquals(2, inventory.booked(DAY + 2));
+        assertEquals(2, inventory.booked(DAY + 4));
+        assertEquals(1, inventory.booked(DAY + 5));
+        assertEquals(0, inventory.remaining(DAY + 2, 3));
+        assertEquals(1, inventory.remaining(DAY + 5, 10));
+    }
+
+    @Test
+    public void releaseGivesUnitsBackTest() {
+        AmenityInventory inventory = new AmenityInventory(1);
+        assertTrue(inventory.reserve(DAY, 5, 1));
+        assertFalse(inventory.hasCapacity(DAY + 4, 1, 1));
+
+        inventory.release(DAY, 5, 1);
+
+        assertTrue(inventory.hasCapacity(DAY, 5, 1));
+        assertEquals(0, inventory.maxBooked(DAY - 100, 200));
+    }
+
+    @Test
+    public void rangeMaximumSurvivesGrowingInBothDirectionsTest() {
+        AmenityInventory inventory = new AmenityInventory(AmenityInventory.UNLIMITED);
+        int[] expected = new int[400];
+        // Start in the middle, then book earlier and later nights so the window has to grow both ways
+        long[] starts = { DAY + 200, DAY + 10, DAY + 350, DAY, DAY + 150, DAY + 199 };
+        int[] lengths = { 30, 100, 50, 3, 120, 2 };
+        for(int i = 0; i < starts.length; i++) {
+            inventory.reserve(starts[i], lengths[i], i + 1);
+            for(int d = 0; d < lengths[i]; d++) expected[(int) (starts[i] - DAY) + d] += i + 1;
+        }
+
+        for(int from = 0; from < expected.length; from += 7) {
+            for(int length = 1; from + length <= expected.length; length += 13) {
+                int max = 0;
+                for(int d = from; d < from + length; d++) max = Math.max(max, expected[d]);
+                assertEquals(max, inventory.maxBooked(DAY + from, length));
+            }
+        }
+        for(int d = 0; d < expected.length; d++) assertEquals(expected[d], inventory.booked(DAY + d));
+        assertEquals(0, inventory.booked(DAY - 1));
+        assertEquals(Integer.MAX_VALUE, inventory.remaining(DAY, 400));
+    }
+}
@@ -0,0 +1,103 @@
+package com.hotel.reservation;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AmenityRegistryTest {
+
+    @Test
+    public void amenitiesWithTheSameNameShareTheirBitTest() {
+        AmenityRegistry registry = new AmenityRegistry();
+        Amenity pet = Amenity.builder().name("pet").limit(2).cost(BigDecimal.ONE).build();
+        Amenity samePet = Amenity.builder().name(new String("pet")).limit(5).cost(BigDecimal.TEN).build();
+        Amenity crib = Amenity.builder().name("crib").limit(1).cost(BigDecimal.ONE).build();
+
+        assertEquals(registry.bit(pet), registry.bit(samePet));
+        assertNotEquals(registry.bit(pet), registry.bit(crib));
+        assertEquals(1L << registry.idOf("pet"), registry.bit(pet));
+        assertEquals(registry.bit(pet) | registry.bit(crib), registry.mask(Arrays.asList(pet, samePet, crib)));
+    }
+
+    @Test
+    public void eachHotelGivesOutItsOwnIdsTest() {
+        Hotel hotel = Hotel.builder().name("First").build();
+        Hotel other = Hotel.builder().name("Second").build();
+        hotel.addAmenity("pet", 2, BigDecimal.ONE);
+        other.addAmenity("crib", 1, BigDecimal.ONE);
+        other.addAmenity("pet", 2, BigDecimal.ONE);
+
+        assertNotSame(hotel.getAmenityRegistry(), other.getAmenityRegistry());
+        assertEquals(0, hotel.getAmenityRegistry().idOf("pet"));
+        assertEquals(1, other.getAmenityRegistry().idOf("pet"));
+    }
+
+    @Test
+    public void namesKeepTheirIdsOnceEveryIdIsGivenOutTest() {
+        AmenityRegistry registry = new AmenityRegistry();
+        for(int i = 0; i < AmenityRegistry.MAX_AMENITIES; i++) assertEquals(i, registry.idOf("amenity-" + i));
+        try {
+            registry.idOf("one-too-many");
+            fail("Every id was given out");
+        } catch (AmenityLimitExceededException e) {
+            assertEquals(AmenityRegistry.MAX_AMENITIES, registry.size());
+        }
+        assertEquals(7, registry.idOf("amenity-7"));
+        assertEquals(0, new AmenityRegistry().idOf("one-too-many"));
+    }
+
+    @Test
+    public void aHotelRefusesMoreAmenitiesThanItHasIdsForTest() {
+        Hotel hotel = Hotel.builder().name("Crowded").build();
+        for(int i = 0; i < AmenityRegistry.MAX_AMENITIES; i++) hotel.addAmenity("amenity-" + i, 1, BigDecimal.ONE);
+        try {
+            hotel.addAmenity("one-too-many", 1, BigDecimal.ONE);
+            fail("Every id was given out");
+        } catch (AmenityLimitExceededException e) {
+            assertFalse(hotel.getAmenities().containsKey("one-too-many"));
+        }
+        // Replacing an amenity keeps its name's id
+        hotel.addAmenity("amenity-3", 2, BigDecimal.TEN);
+        assertEquals(2, hotel.getAmenities().get("amenity-3").getLimit());
+    }
+
+    @Test
+    public void floorMaskFollowsItsRestrictedAmenitiesTest() {
+        Amenity pet = Amenity.builder().name("pet").limit(2).cost(BigDecimal.ONE).build();
+        Floor floor = Floor.builder()
+                .floorNumber(1)
+                .restrictedAmenities(Collections.singletonList(pet))
+                .build();
+        assertEquals(floor.getAmenityRegistry().bit(pet), floor.getRestrictedAmenityMask());
+
+        floor.setRestrictedAmenities(null);
+        assertEquals(0, floor.getRestrictedAmenityMask());
+    }
+
+    @Test
+    public void floorMaskCanNotGoStaleThroughItsListTest() {
+        Amenity pet = Amenity.builder().name("pet").limit(2).cost(BigDecimal.ONE).build();
+        Amenity crib = Amenity.builder().name("crib").limit(1).cost(BigDecimal.ONE).build();
+        List<Amenity> restrictedAmenities = new ArrayList<Amenity>(Collections.singletonList(pet));
+        Floor floor = Floor.builder()
+                .floorNumber(1)
+                .restrictedAmenities(restrictedAmenities)
+                .build();
+
+        restrictedAmenities.add(crib);
+        assertEquals(Collections.singletonList(pet), floor.getRestrictedAmenities());
+        assertEquals(floor.getAmenityRegistry().bit(pet), floor.getRestrictedAmenityMask());
+        try {
+            floor.getRestrictedAmenities().add(crib);
+            fail("The floor's list must not be changed behind its mask");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(floor.getAmenityRegistry().bit(pet), floor.getRestrictedAmenityMask());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.hotel.reservation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class AvailabilityCalendarTest {
+
+    AvailabilityCalendar calendar;
+
+    @Before
+    public void init() {
+        calendar = new AvailabilityCalendar();
+    }
+
+    @Test
+    public void emptyCalendarIsFreeTest() {
+        assertTrue(calendar.isFree(LocalDate.of(2030, 1, 1).toEpochDay(), 365));
+        assertEquals(0, calendar.reservedDays());
+    }
+
+    @Test
+    public void reserveMarksOnlyTheNightsOfTheStayTest() {
+        long start = LocalDate.of(2030, 3, 10).toEpochDay();
+
+        assertTrue(calendar.reserve(start, 3));
+
+        assertFalse(calendar.isReserved(start - 1));
+        assertTrue(calendar.isReserved(start));
+        assertTrue(calendar.isReserved(start + 2));
+        assertFalse(calendar.isReserved(start + 3));
+        assertEquals(3, calendar.reservedDays());
+    }
+
+    @Test
+    public void overlappingStayIsRejectedTest() {
+        long start = LocalDate.of(2030, 3, 10).toEpochDay();
+        calendar.reserve(start, 3);
+
+        assertFalse(calendar.isFree(start + 2, 5));
+        assertFalse(calendar.reserve(start - 4, 5));
+        assertEquals(3, calendar.reservedDays());
+    }
+
+    @Test
+    public void backToBackStaysAreAllowedTest() {
+        long start = LocalDate.of(2030, 3, 10).toEpochDay();
+        calendar.reserve(start, 3);
+
+        assertTrue(calendar.reserve(start + 3, 2));
+        assertTrue(calendar.reserve(start - 2, 2));
+        assertEquals(7, calendar.reservedDays());
+    }
+
+    @Test
+    public void stayAcrossYearBoundaryTest() {
+        long newYearsEve = LocalDate.of(2030, 12, 30).toEpochDay();
+
+        assertTrue(calendar.reserve(newYearsEve, 4));
+
+        assertTrue(calendar.isReserved(LocalDate.of(2031, 1, 2).toEpochDay()));
+        assertFalse(calendar.isFree(LocalDate.of(2031, 1, 1).toEpochDay(), 1));
+        assertTrue(calendar.isFree(LocalDate.of(2031, 1, 3).toEpochDay(), 1));
+    }
+
+    @Test
+    public void leapDayIsTrackedTest() {
+        long leapDay = LocalDate.of(2032, 2, 29).toEpochDay();
+
+        assertTrue(calendar.reserve(leapDay, 1));
+
+        assertFalse(calendar.isFree(LocalDate.of(2032, 2, 28).toEpochDay(), 2));
+        assertTrue(calendar.isFree(LocalDate.of(2032, 3, 1).toEpochDay(), 1));
+    }
+
+    @Test
+    public void calendarGrowsInBothDirectionsTest() {
+        long start = LocalDate.of(2031, 6, 1).toEpochDay();
+        calendar.reserve(start, 10);
+
+        assertTrue(calendar.reserve(start + 1000, 70));
+        assertTrue(calendar.reserve(start - 500, 130));
+
+        assertEquals(210, calendar.reservedDays());
+        assertFalse(calendar.isFree(start - 400, 1));
+        assertFalse(calendar.isFree(start + 5, 1));
+        assertFalse(calendar.isFree(start + 1069, 1));
+        assertTrue(calendar.isFree(start + 10, 990));
+    }
+
+    @Test
+    public void reserveAllLeavesEveryCalendarUntouchedWhenOneRangeIsTakenTest() {
+        AvailabilityCalendar other = new AvailabilityCalendar();
+        long start = LocalDate.of(2030, 3, 10).toEpochDay();
+        other.reserve(start + 100, 1);
+
+        // The first range makes the calendar grow before the last one fails
+        assertFalse(AvailabilityCalendar.reserveAll(new AvailabilityCalendar[] { calendar, calendar, other },
+                                                    new long[] { start, start + 200, start + 99 },
+                                                    new int[] { 3, 70, 2 }));
+        assertEquals(0, calendar.reservedDays());
+        assertEquals(1, other.reservedDays());
+
+        assertTrue(AvailabilityCalendar.reserveAll(new AvailabilityCalendar[] { other, calendar },
+                                                   new long[] { start, start },
+                                                   new int[] { 3, 3 }));
+        assertEquals(4, other.reservedDays());
+        assertEquals(3, calendar.reservedDays());
+    }
+
+    @Test
+    public void moveReleasesTheOldRangeOrLeavesBothCalendarsUntouchedTest() {
+        AvailabilityCalendar other = new AvailabilityCalendar();
+        long start = LocalDate.of(2030, 3, 10).toEpochDay();
+        calendar.reserve(start, 5);
+        other.reserve(start + 10, 1);
+
+        // Extending a stay in place takes its own nights again
+        assertTrue(AvailabilityCalendar.move(calendar, start, 5, calendar, start + 2, 5));
+        assertTrue(calendar.isFree(start, 2));
+        assertEquals(5, calendar.reservedDays());
+
+        assertFalse(AvailabilityCalendar.move(calendar, start + 2, 5, other, start + 8, 3));
+        assertEquals(5, calendar.reservedDays());
+        assertEquals(1, other.reservedDays());
+
+        assertTrue(AvailabilityCalendar.move(calendar, start + 2, 5, other, start + 100, 3));
+        assertEquals(0, calendar.reservedDays());
+        assertEquals(4, other.reservedDays());
+
+        other.release(start + 100, 3);
+        other.release(start - 1000, 2);
+        assertEquals(1, other.reservedDays());
+    }
+
+    @Test
+    public void reserveEachSkipsRangesThatAreTakenTest() {
+        long start = LocalDate.of(2030, 3, 10).toEpochDay();
+        calendar.reserve(start, 2);
+        long[] startDays = {start + 500, start + 1, start - 300, start + 501, start + 510};
+        int[] numberOfDays = {3, 2, 4, 1, 0};
+        boolean[] reserved = new boolean[startDays.length];
+
+        assertEquals(3, calendar.reserveEach(startDays, numberOfDays, startDays.length, reserved));
+        assertArrayEquals(new boolean[] {true, false, true, false, true}, reserved);
+        assertEquals(9, calendar.reservedDays());
+        assertFalse(calendar.isFree(start - 297, 1));
+        assertTrue(calendar.isFree(start + 503, 1));
+    }
+}
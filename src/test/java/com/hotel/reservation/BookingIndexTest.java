@@ -0,0 +1,88 @@
+package com.hotel.reservation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BookingIndexTest {
+
+    Hotel hotel;
+    User glenn;
+    User don;
+    LocalDate startDate;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        Floor floor = hotel.addFloor(2, true, new ArrayList<Amenity>()).get(2);
+        hotel.addRoom(204, floor, 2);
+        hotel.addRoom(205, floor, 2);
+        glenn = user("Glenn", "Frey");
+        don = user("Don", "Henley");
+        startDate = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    public void bookingsAreFoundByUserTest() {
+        Booking first = reserve(204, startDate, 2, glenn);
+        reserve(205, startDate, 2, don);
+        Booking second = reserve(204, startDate.plusDays(5), 1, glenn);
+
+        assertEquals(Arrays.asList(first, second), hotel.getBookingIndex().findByUser(glenn.getUserId()));
+        assertTrue(hotel.getBookingIndex().findByUser(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    public void guestInARoomIsFoundByNightTest() {
+        Booking first = reserve(204, startDate, 3, glenn);
+        Booking second = reserve(204, startDate.plusDays(3), 2, don);
+        BookingIndex index = hotel.getBookingIndex();
+
+        assertNull(index.findByRoomAndNight(204, startDate.minusDays(1)));
+        assertEquals(first, index.findByRoomAndNight(204, startDate));
+        assertEquals(first, index.findByRoomAndNight(204, startDate.plusDays(2)));
+        assertEquals(second, index.findByRoomAndNight(204, startDate.plusDays(3)));
+        assertNull(index.findByRoomAndNight(204, startDate.plusDays(5)));
+        assertNull(index.findByRoomAndNight(205, startDate));
+
+        assertEquals(Arrays.asList(first, second), index.findByRoom(204, startDate.plusDays(2), startDate.plusDays(4)));
+        assertEquals(Collections.singletonList(second), index.findByRoom(204, startDate.plusDays(3), startDate.plusDays(10)));
+    }
+
+    @Test
+    public void arrivalsAndDeparturesAreFoundByDayTest() {
+        Booking first = reserve(204, startDate, 2, glenn);
+        Booking second = reserve(205, startDate.plusDays(2), 1, don);
+        BookingIndex index = hotel.getBookingIndex();
+
+        assertEquals(Collections.singletonList(first), index.findArrivals(startDate));
+        // Room 204 is handed over the day room 205's guest arrives
+        assertEquals(Collections.singletonList(first), index.findDepartures(startDate.plusDays(2)));
+        assertEquals(Collections.singletonList(second), index.findArrivals(startDate.plusDays(2)));
+        assertEquals(Collections.singletonList(second), index.findDepartures(startDate.plusDays(3)));
+        assertTrue(index.findArrivals(startDate.plusDays(1)).isEmpty());
+
+        index.remove(first);
+        assertTrue(index.findArrivals(startDate).isEmpty());
+        assertNull(index.findByRoomAndNight(204, startDate));
+        assertEquals(Collections.singletonList(second), index.findByUser(don.getUserId()));
+    }
+
+    private Booking reserve(int roomNo, LocalDate startDate, int numberOfDays, User user) {
+        return hotel.makeReservation(hotel.getRooms().get(roomNo), startDate, numberOfDays, new ArrayList<BookingAmenity>(), user);
+    }
+
+    private static User user(String firstName, String lastName) {
+        return User.builder()
+                .userId(UUID.randomUUID())
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+    }
+}
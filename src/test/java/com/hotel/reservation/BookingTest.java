@@ -1,6 +1,7 @@
 package com.hotel.reservation;
 
 import com.hotel.reservation.Utilities.CostCalculator;
+import com.hotel.reservation.Utilities.RatePlan;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -82,12 +83,12 @@ public class BookingTest {
 
         List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>();
         PowerMockito.mockStatic(CostCalculator.class);
-        PowerMockito.when(CostCalculator.calculateTotalCosts(oneBedroomOnFirstFloor, bookingAmenities, 2)).thenReturn(BigDecimal.valueOf(100));
+        PowerMockito.when(CostCalculator.calculateTotalCents(RatePlan.STANDARD, oneBedroomOnFirstFloor, bookingAmenities, startDate.toEpochDay(), 2, 0)).thenReturn(10000L);
 
         booking = Booking.builder()
                 .bookingId(UUID.randomUUID())
                 .numberOfDays(2)
-                .startDate(LocalDate.now())
+                .startDate(startDate)
                 .room(oneBedroomOnFirstFloor)
                 .user(user)
                 .bookingAmenities(bookingAmenities)
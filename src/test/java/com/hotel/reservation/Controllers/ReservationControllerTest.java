@@ -0,0 +1,185 @@
+package com.hotel.reservation.Controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReservationControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    String startDate;
+
+    @Before
+    public void init() throws Exception {
+        startDate = LocalDate.now().plusDays(1).toString();
+
+        perform(post("/amenities")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"pet\",\"limit\":2,\"cost\":20}"))
+                .andExpect(status().isCreated());
+        perform(post("/floors")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"floorNumber\":1,\"handicapAccessible\":true,\"restrictedAmenities\":[]}"))
+                .andExpect(status().isCreated());
+        perform(post("/floors")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"floorNumber\":2,\"handicapAccessible\":false,\"restrictedAmenities\":[\"pet\"]}"))
+                .andExpect(status().isCreated());
+        perform(post("/rooms")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":100,\"floorNumber\":1,\"numberOfBeds\":2}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.nightlyRate").value(75));
+    }
+
+    @Test
+    public void findAvailabilityReturnsRoomSummariesTest() throws Exception {
+        perform(get("/rooms/availability")
+                .param("startDate", startDate)
+                .param("numberOfDays", "2")
+                .param("numberOfBeds", "2")
+                .param("handicapAccessible", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].roomNo").value(100))
+                .andExpect(jsonPath("$[0].availability").doesNotExist());
+    }
+
+    @Test
+    public void makeReservationTest() throws Exception {
+        perform(post("/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":100,\"startDate\":\"" + startDate + "\",\"numberOfDays\":2,"
+                        + "\"amenities\":[{\"name\":\"pet\",\"count\":1}],\"firstName\":\"Joe\",\"lastName\":\"Walsh\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.bookingId").exists())
+                .andExpect(jsonPath("$.roomNo").value(100))
+                .andExpect(jsonPath("$.startDate").value(startDate))
+                .andExpect(jsonPath("$.amenities[0].name").value("pet"));
+
+        perform(get("/rooms/availability")
+                .param("startDate", startDate)
+                .param("numberOfDays", "1")
+                .param("numberOfBeds", "2")
+                .param("handicapAccessible", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void doubleReservationIsBadRequestTest() throws Exception {
+        String reservation = "{\"roomNo\":100,\"startDate\":\"" + startDate + "\",\"numberOfDays\":2,"
+                + "\"firstName\":\"Joe\",\"lastName\":\"Walsh\"}";
+
+        perform(post("/reservations").contentType(MediaType.APPLICATION_JSON).content(reservation))
+                .andExpect(status().isCreated());
+        perform(post("/reservations").contentType(MediaType.APPLICATION_JSON).content(reservation))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Room not available for these dates"));
+    }
+
+    @Test
+    public void groupReservationIsAllOrNothingTest() throws Exception {
+        perform(post("/rooms")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":101,\"floorNumber\":1,\"numberOfBeds\":2}"))
+                .andExpect(status().isCreated());
+        perform(post("/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":101,\"startDate\":\"" + startDate + "\",\"numberOfDays\":1,"
+                        + "\"firstName\":\"Joe\",\"lastName\":\"Walsh\"}"))
+                .andExpect(status().isCreated());
+
+        String group = "{\"stays\":[{\"roomNo\":100,\"startDate\":\"" + startDate + "\",\"numberOfDays\":2},"
+                + "{\"roomNo\":101,\"startDate\":\"%s\",\"numberOfDays\":2}],"
+                + "\"firstName\":\"Timothy\",\"lastName\":\"Schmit\"}";
+
+        perform(post("/reservations/group").contentType(MediaType.APPLICATION_JSON).content(String.format(group, startDate)))
+                .andExpect(status().isBadRequest());
+        perform(post("/reservations/group").contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(group, LocalDate.parse(startDate).plusDays(1))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].roomNo").value(101));
+    }
+
+    @Test
+    public void frontDeskLooksUpArrivalsAndGuestsTest() throws Exception {
+        perform(post("/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":100,\"startDate\":\"" + startDate + "\",\"numberOfDays\":2,"
+                        + "\"firstName\":\"Joe\",\"lastName\":\"Walsh\"}"))
+                .andExpect(status().isCreated());
+
+        perform(get("/reservations/arrivals").param("date", startDate))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].roomNo").value(100));
+        perform(get("/reservations/rooms/100").param("night", LocalDate.parse(startDate).plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roomNo").value(100));
+        perform(get("/reservations/rooms/100").param("night", LocalDate.parse(startDate).plusDays(2).toString()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void cancelledReservationIsGoneTest() throws Exception {
+        MvcResult created = perform(post("/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":100,\"startDate\":\"" + startDate + "\",\"numberOfDays\":2,"
+                        + "\"firstName\":\"Joe\",\"lastName\":\"Walsh\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String bookingId = JsonPath.read(created.getResponse().getContentAsString(), "$.bookingId");
+
+        perform(put("/reservations/" + bookingId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roomNo\":100,\"startDate\":\"" + startDate + "\",\"numberOfDays\":3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookingId").value(bookingId))
+                .andExpect(jsonPath("$.numberOfDays").value(3));
+        perform(delete("/reservations/" + bookingId))
+                .andExpect(status().isOk());
+        perform(get("/reservations/" + bookingId))
+                .andExpect(status().isNotFound());
+        perform(delete("/reservations/" + bookingId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void unknownRoomIsNotFoundTest() throws Exception {
+        perform(get("/rooms/999"))
+                .andExpect(status().isNotFound());
+    }
+
+    // Handlers return futures, so every request is dispatched a second time once the future completes
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
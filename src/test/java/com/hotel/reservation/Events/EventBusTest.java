@@ -0,0 +1,214 @@
+package com.hotel.reservation.Events;
+
+import com.hotel.reservation.BookingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventBusTest {
+
+    EventBus eventBus;
+
+    @Before
+    public void init() {
+        eventBus = new EventBus(8, 4);
+    }
+
+    @After
+    public void cleanup() {
+        eventBus.close();
+    }
+
+    @Test
+    public void subscribersGetEveryEventInOrderInBatchesTest() throws Exception {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        eventBus.subscribe("first", first);
+        eventBus.subscribe("second", second);
+
+        Thread[] publishers = new Thread[3];
+        for(int p = 0; p < publishers.length; p++) {
+            int roomNo = p;
+            publishers[p] = new Thread(() -> {
+                for(int i = 0; i < 1000; i++) {
+                    // Spins rather than drops while the subscribers catch up
+                    while(!eventBus.tryPublish(event(roomNo, i))) Thread.yield();
+                }
+            });
+            publishers[p].start();
+        }
+        for(Thread publisher : publishers) publisher.join();
+        eventBus.close();
+
+        for(Recorder recorder : new Recorder[] { first, second }) {
+            int[] lastDays = { -1, -1, -1 };
+            long reported = 0;
+            for(int i = 0; i < recorder.events.size(); i++) {
+                BookingEvent event = recorder.events.get(i);
+                assertEquals(i, event.getSequence());
+                // Failed attempts count as dropped even though they were retried
+                if(event.getType() == BookingEvent.Type.EVENTS_DROPPED) {
+                    reported += event.getDroppedEvents();
+                    continue;
+                }
+                // Each publisher's events in the order it published them
+                assertEquals(lastDays[event.getRoomNo()] + 1, event.getNumberOfDays());
+                lastDays[event.getRoomNo()] = event.getNumberOfDays();
+            }
+            assertArrayEquals(new int[] { 999, 999, 999 }, lastDays);
+            assertEquals(eventBus.getDropped(), reported);
+            for(int size : recorder.batchSizes) assertTrue(size > 0 && size <= 4);
+        }
+    }
+
+    @Test
+    public void eventsAreDroppedInsteadOfWaitingForASlowSubscriberTest() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onEvents(List<BookingEvent> events) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onEvents(events);
+            }
+        };
+        eventBus.subscribe("slow", recorder);
+
+        assertTrue(eventBus.tryPublish(event(1, 0)));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        // The subscriber still holds the first event's slot, so the ring has room for 7 more
+        int published = 1;
+        try {
+            for(int i = 1; i < 20; i++) if(eventBus.tryPublish(event(1, i))) published++;
+        } finally {
+            release.countDown();
+        }
+        assertEquals(8, published);
+        assertEquals(12, eventBus.getDropped());
+
+        eventBus.close();
+        assertEquals(8, recorder.events.size());
+        assertEquals(7, recorder.events.get(7).getNumberOfDays());
+    }
+
+    @Test
+    public void droppedEventsAreReportedToSubscribersTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onEvents(List<BookingEvent> events) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onEvents(events);
+            }
+        };
+        eventBus.subscribe("slow", recorder);
+
+        try {
+            for(int i = 0; i < 20; i++) eventBus.tryPublish(event(1, i));
+        } finally {
+            release.countDown();
+        }
+        long dropped = eventBus.getDropped();
+        assertTrue(dropped > 0);
+        // Once the subscriber has caught up, the next event is preceded by the count of those dropped
+        for(int i = 0; i < 500 && eventBus.getBacklog() > 0; i++) Thread.sleep(10);
+        assertTrue(eventBus.tryPublish(event(2, 0)));
+
+        eventBus.close();
+        int size = recorder.events.size();
+        assertEquals(20 - dropped + 2, size);
+        BookingEvent marker = recorder.events.get(size - 2);
+        assertEquals(BookingEvent.Type.EVENTS_DROPPED, marker.getType());
+        assertEquals(Long.valueOf(dropped), marker.getDroppedEvents());
+        assertEquals(marker.getSequence() + 1, recorder.events.get(size - 1).getSequence());
+        assertEquals(2, recorder.events.get(size - 1).getRoomNo());
+    }
+
+    @Test
+    public void failingSubscriberDoesNotStopTheOthersTest() {
+        Recorder recorder = new Recorder();
+        eventBus.subscribe("failing", events -> {
+            throw new IllegalStateException("Subscriber failed");
+        });
+        eventBus.subscribe("recorder", recorder);
+        for(int i = 0; i < 20; i++) eventBus.publish(event(1, i));
+        eventBus.close();
+
+        long delivered = 0;
+        for(BookingEvent event : recorder.events) if(event.getType() != BookingEvent.Type.EVENTS_DROPPED) delivered++;
+        assertEquals(20, delivered + eventBus.getDropped());
+        assertFalse(eventBus.tryPublish(event(1, 20)));
+    }
+
+    @Test
+    public void fileSinkEventsCanBeReplayedTest() throws IOException {
+        Path directory = Files.createTempDirectory("hotel-events");
+        Path file = directory.resolve("events.jsonl");
+        try {
+            BookingEvent modified = event(101, 3);
+            modified.setType(BookingEvent.Type.BOOKING_MODIFIED);
+            modified.setPreviousRoomNo(100);
+            modified.setPreviousStartDate(LocalDate.of(2030, 1, 1));
+            modified.setPreviousNumberOfDays(2);
+            eventBus.subscribe("file", new EventFileSink(file));
+            for(int i = 0; i < 5; i++) assertTrue(eventBus.tryPublish(event(100, i)));
+            assertTrue(eventBus.tryPublish(modified));
+            eventBus.close();
+
+            Recorder recorder = new Recorder();
+            assertEquals(6, EventFileSink.replay(file, recorder, 4));
+            assertEquals(2, recorder.batchSizes.size());
+            assertEquals(event(100, 2).getStartDate(), recorder.events.get(2).getStartDate());
+            assertEquals(modified, recorder.events.get(5));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    private static BookingEvent event(int roomNo, int numberOfDays) {
+        return BookingEvent.builder()
+                .type(BookingEvent.Type.BOOKING_CREATED)
+                .timestampMillis(System.currentTimeMillis())
+                .bookingId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .roomNo(roomNo)
+                .startDate(LocalDate.of(2030, 1, 1).plusDays(numberOfDays))
+                .numberOfDays(numberOfDays)
+                .totalCents(10_000)
+                .build();
+    }
+
+    private static class Recorder implements BookingEventSubscriber {
+        final List<BookingEvent> events = Collections.synchronizedList(new ArrayList<BookingEvent>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Override
+        public void onEvents(List<BookingEvent> batch) {
+            batchSizes.add(batch.size());
+            events.addAll(batch);
+        }
+    }
+}
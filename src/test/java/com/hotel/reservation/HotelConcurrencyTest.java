@@ -0,0 +1,189 @@
+package com.hotel.reservation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HotelConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 2000;
+    private static final int ROOMS = 4;
+    private static final int BOOKING_WINDOW_DAYS = 90;
+
+    Hotel hotel;
+    User user;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        for(int roomNo = 100; roomNo < 100 + ROOMS; roomNo++) hotel.addRoom(roomNo, hotelFloors.get(1), 2);
+
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Don")
+                .lastName("Henley")
+                .build();
+    }
+
+    @Test
+    public void concurrentReservationsNeverDoubleBookARoomTest() throws Exception {
+        LocalDate today = LocalDate.now();
+        List<Room> rooms = new ArrayList<Room>(hotel.getRooms().values());
+        AtomicInteger successfulReservations = new AtomicInteger();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for(int t = 0; t < THREADS; t++) {
+            final long seed = t;
+            workers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                startGate.await();
+                for(int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    Room room = rooms.get(random.nextInt(rooms.size()));
+                    LocalDate startDate = today.plusDays(1 + random.nextInt(BOOKING_WINDOW_DAYS));
+                    try {
+                        hotel.makeReservation(room, startDate, 1 + random.nextInt(4), new ArrayList<BookingAmenity>(), user);
+                        successfulReservations.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // Lost the race for these dates
+                    }
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for(Future<?> worker : workers) worker.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        assertEquals(successfulReservations.get(), hotel.getBookings().size());
+
+        Map<Integer, Set<Long>> bookedNights = new HashMap<Integer, Set<Long>>();
+        for(Booking booking : hotel.getBookings().values()) {
+            Set<Long> nights = bookedNights.computeIfAbsent(booking.getRoom().getRoomNo(), k -> new HashSet<Long>());
+            for(int day = 0; day < booking.getNumberOfDays(); day++) {
+                assertTrue("Room " + booking.getRoom().getRoomNo() + " double booked",
+                        nights.add(booking.getStartDate().toEpochDay() + day));
+            }
+        }
+        for(Room room : rooms) {
+            Set<Long> nights = bookedNights.getOrDefault(room.getRoomNo(), new HashSet<Long>());
+            assertEquals(nights.size(), room.getAvailability().reservedDays());
+        }
+    }
+
+    @Test
+    public void concurrentSearchesSeeConsistentAvailabilityTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(10);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Room> rooms = new ArrayList<Room>(hotel.getRooms().values());
+
+        Future<?> booker = executor.submit(() -> {
+            for(Room room : rooms) hotel.makeReservation(room, startDate, 3, new ArrayList<BookingAmenity>(), user);
+            return null;
+        });
+        List<Future<Integer>> searches = new ArrayList<Future<Integer>>();
+        for(int t = 1; t < THREADS; t++) {
+            searches.add(executor.submit(() -> {
+                int lastSeen = ROOMS;
+                for(int i = 0; i < 1000; i++) {
+                    int available = hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>()).size();
+                    // Rooms only ever get booked here, so a search can never see more rooms than the previous one
+                    assertTrue(available <= lastSeen);
+                    lastSeen = available;
+                }
+                return lastSeen;
+            }));
+        }
+        booker.get(1, TimeUnit.MINUTES);
+        for(Future<Integer> search : searches) search.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        assertEquals(0, hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>()).size());
+    }
+
+    @Test
+    public void sameNightsRequestedByManyThreadsHaveOneWinnerTest() throws Exception {
+        Room room = hotel.getRooms().get(100);
+        LocalDate startDate = LocalDate.now().plusDays(5);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<Future<Boolean>>();
+        for(int t = 0; t < THREADS; t++) {
+            attempts.add(executor.submit(() -> {
+                startGate.await();
+                try {
+                    hotel.makeReservation(room, startDate, 2, new ArrayList<BookingAmenity>(), user);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        startGate.countDown();
+        int winners = 0;
+        for(Future<Boolean> attempt : attempts) if(attempt.get(1, TimeUnit.MINUTES)) winners++;
+        executor.shutdown();
+
+        assertEquals(1, winners);
+        assertEquals(1, hotel.getBookings().size());
+    }
+
+    @Test
+    public void overlappingGroupReservationsNeitherDeadlockNorPartiallyBookTest() throws Exception {
+        List<Room> rooms = new ArrayList<Room>(hotel.getRooms().values());
+        LocalDate today = LocalDate.now();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for(int t = 0; t < THREADS; t++) {
+            final long seed = t;
+            workers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                startGate.await();
+                for(int i = 0; i < ATTEMPTS_PER_THREAD / 10; i++) {
+                    // Every group asks for all rooms in a different order, so unordered locking would deadlock
+                    List<Room> group = new ArrayList<Room>(rooms);
+                    Collections.shuffle(group, random);
+                    LocalDate startDate = today.plusDays(1 + random.nextInt(BOOKING_WINDOW_DAYS));
+                    List<StayRequest> stays = new ArrayList<StayRequest>();
+                    for(Room room : group) {
+                        stays.add(StayRequest.builder()
+                                .room(room)
+                                .startDate(startDate)
+                                .numberOfDays(2)
+                                .bookingAmenities(new ArrayList<BookingAmenity>())
+                                .build());
+                    }
+                    try {
+                        hotel.makeReservations(stays, user);
+                    } catch (IllegalArgumentException e) {
+                        // Lost the race for these dates
+                    }
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for(Future<?> worker : workers) worker.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        // Every group books the same nights in every room, so all rooms end up with the same calendar
+        int reservedDays = rooms.get(0).getAvailability().reservedDays();
+        for(Room room : rooms) assertEquals(reservedDays, room.getAvailability().reservedDays());
+        assertEquals(ROOMS * reservedDays / 2, hotel.getBookings().size());
+    }
+}
@@ -1,11 +1,19 @@
 package com.hotel.reservation;
 
+import com.hotel.reservation.Utilities.BookingIdGenerator;
+import com.hotel.reservation.Utilities.HotelClock;
+import com.hotel.reservation.Utilities.RatePlan;
+import com.hotel.reservation.Utilities.RateTable;
+import com.hotel.reservation.Utilities.TimeOrderedIdGenerator;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -32,7 +40,7 @@ public class HotelTest {
     public void addFloorToHotelTest() {
 
         List<Amenity> amenitiesForFloor = new ArrayList<Amenity>() {{ add(petAmenity); }};
-        HashMap<Integer, Floor> hotelFloors = hotel.addFloor(1,
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1,
                                                     true,
                                                             amenitiesForFloor);
 
@@ -44,7 +52,7 @@ public class HotelTest {
     public void addRoomHotelTest() {
 
         List<Amenity> restrictedAmenitiesForFloor = new ArrayList<Amenity>();
-        HashMap<Integer, Floor> hotelFloors = hotel.addFloor(1,
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1,
                                                 true,
                                                 restrictedAmenitiesForFloor);
 
@@ -63,7 +71,7 @@ public class HotelTest {
     public void addRoomHotelOnSecondFloorWithRestrictionsTest() {
 
         List<Amenity> restrictedAmenitiesForFloor = new ArrayList<Amenity>() {{ add(petAmenity); }};
-        HashMap<Integer, Floor> hotelFloors = hotel.addFloor(2,
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(2,
                 false,
                 restrictedAmenitiesForFloor);
 
@@ -78,11 +86,53 @@ public class HotelTest {
         assertEquals(hotelRooms.get(200).getRestrictedAmenities(), restrictedAmenitiesForFloor);
     }
 
+    @Test
+    public void addRoomsKeepsTheLastRoomOfARepeatedNumberTest() {
+        Floor floor = hotel.addFloor(1, true, new ArrayList<Amenity>()).get(1);
+        Room first = Room.builder().roomNo(100).floor(floor).numberOfBeds(1).build();
+        Room other = Room.builder().roomNo(101).floor(floor).numberOfBeds(1).build();
+        Room last = Room.builder().roomNo(100).floor(floor).numberOfBeds(2).build();
+
+        Map<Integer, Room> hotelRooms = hotel.addRooms(Arrays.asList(first, other, last));
+
+        assertEquals(2, hotelRooms.size());
+        assertSame(last, hotelRooms.get(100));
+        // The replaced room must not be left in the index
+        assertEquals(Collections.singletonList(other), hotel.findAvailability(LocalDate.now(), 1, 1, true, new ArrayList<Amenity>()));
+        assertEquals(Collections.singletonList(last), hotel.findAvailability(LocalDate.now(), 1, 2, true, new ArrayList<Amenity>()));
+    }
+
+    @Test
+    public void restoreReservationsReservesEachRoomOnItsOwnCalendarTest() {
+        Floor floor = hotel.addFloor(1, true, new ArrayList<Amenity>()).get(1);
+        Room replaced = hotel.addRoom(100, floor, 1).get(100);
+        Room room = hotel.addRoom(100, floor, 2).get(100);
+        User user = User.builder().userId(UUID.randomUUID()).firstName("Don").lastName("Felder").build();
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        List<Booking> restoredBookings = new ArrayList<Booking>();
+        for(Room bookedRoom : Arrays.asList(replaced, room)) {
+            restoredBookings.add(Booking.builder()
+                    .bookingId(UUID.randomUUID())
+                    .startDate(startDate)
+                    .numberOfDays(2)
+                    .room(bookedRoom)
+                    .user(user)
+                    .bookingAmenities(new ArrayList<BookingAmenity>())
+                    .build());
+        }
+
+        // Equal rooms, but the nights are free on each of their calendars
+        assertEquals(replaced, room);
+        assertTrue(hotel.restoreReservations(restoredBookings).isEmpty());
+        assertFalse(replaced.isAvailableForDays(startDate, 2));
+        assertFalse(room.isAvailableForDays(startDate, 2));
+    }
+
     @Test
     public void makeReservationTest() {
 
         List<Amenity> restrictedAmenitiesForFloor = new ArrayList<Amenity>();
-        HashMap<Integer, Floor> hotelFloors = hotel.addFloor(1,
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1,
                                                     true,
                                                                     restrictedAmenitiesForFloor);
 
@@ -117,7 +167,7 @@ public class HotelTest {
     public void makeReservationOnSecondFloorWithRestrictionsThrowsExceptionTest() {
 
         List<Amenity> restrictedAmenitiesForFloor = new ArrayList<Amenity>() {{ add(petAmenity); }};
-        HashMap<Integer, Floor> hotelFloors = hotel.addFloor(2,
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(2,
                 false,
                 restrictedAmenitiesForFloor);
 
@@ -164,7 +214,7 @@ public class HotelTest {
     public void roomNotAvailableIfReservationExistsTest() {
         List<Amenity> restrictedAmenitiesForFloor = new ArrayList<Amenity>();
         List<Amenity> amenities = new ArrayList<Amenity>() {{ add(petAmenity); }};
-        HashMap<Integer, Floor> hotelFloors = hotel.addFloor(1,
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1,
                 true,
                 restrictedAmenitiesForFloor);
 
@@ -193,4 +243,387 @@ public class HotelTest {
         assertEquals(0, avalilableRooms.size());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void findAvailabilityMatchesBedsAndAccessibilityTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addFloor(2, false, new ArrayList<Amenity>());
+
+        hotel.addRoom(100, hotelFloors.get(1), 1);
+        hotel.addRoom(101, hotelFloors.get(1), 2);
+        hotel.addRoom(102, hotelFloors.get(1), 2);
+        hotel.addRoom(200, hotelFloors.get(2), 2);
+
+        List<Room> availableRooms = hotel.findAvailability(LocalDate.now(), 2, 2, true, new ArrayList<Amenity>());
+
+        assertEquals(2, availableRooms.size());
+        for(Room room : availableRooms) {
+            assertEquals(2, room.getNumberOfBeds());
+            assertTrue(room.isHandicapAccessible());
+        }
+    }
+
+    @Test
+    public void findAvailabilitySkipsFloorsRestrictingRequestedAmenitiesTest() {
+        List<Amenity> amenities = new ArrayList<Amenity>() {{ add(petAmenity); }};
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(2, false, new ArrayList<Amenity>() {{ add(petAmenity); }});
+        hotel.addFloor(3, false, new ArrayList<Amenity>());
+
+        hotel.addRoom(200, hotelFloors.get(2), 2);
+        hotel.addRoom(300, hotelFloors.get(3), 2);
+
+        List<Room> availableRooms = hotel.findAvailability(LocalDate.now(), 2, 2, false, amenities);
+
+        assertEquals(1, availableRooms.size());
+        assertEquals(300, availableRooms.get(0).getRoomNo());
+    }
+
+    @Test
+    public void replacedRoomIsNotReturnedBySearchTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+
+        hotel.addRoom(100, hotelFloors.get(1), 1);
+        hotel.addRoom(100, hotelFloors.get(1), 3);
+
+        assertEquals(0, hotel.findAvailability(LocalDate.now(), 2, 1, true, new ArrayList<Amenity>()).size());
+        assertEquals(1, hotel.findAvailability(LocalDate.now(), 2, 3, true, new ArrayList<Amenity>()).size());
+    }
+
+    @Test
+    public void makeReservationsBooksEveryRoomTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        hotel.addRoom(101, hotelFloors.get(1), 2);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        List<Booking> bookings = hotel.makeReservations(Arrays.asList(stay(101, startDate, 3), stay(100, startDate, 2)), user());
+
+        assertEquals(2, bookings.size());
+        assertEquals(2, hotel.getBookings().size());
+        assertEquals(3, hotel.getRooms().get(101).getAvailability().reservedDays());
+        assertEquals(2, hotel.getRooms().get(100).getAvailability().reservedDays());
+    }
+
+    @Test
+    public void makeReservationsBooksNothingIfAnyRoomIsTakenTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        hotel.addRoom(101, hotelFloors.get(1), 2);
+        hotel.addRoom(102, hotelFloors.get(1), 2);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        hotel.makeReservation(hotel.getRooms().get(102), startDate.plusDays(2), 1, new ArrayList<BookingAmenity>(), user());
+
+        try {
+            hotel.makeReservations(Arrays.asList(stay(100, startDate, 3), stay(101, startDate, 3), stay(102, startDate, 3)), user());
+            fail("Expected the group reservation to be rejected");
+        } catch (IllegalArgumentException e) {
+            // Room 102 is taken on the third night
+        }
+
+        assertEquals(1, hotel.getBookings().size());
+        assertEquals(0, hotel.getRooms().get(100).getAvailability().reservedDays());
+        assertEquals(0, hotel.getRooms().get(101).getAvailability().reservedDays());
+    }
+
+    @Test
+    public void makeReservationsRejectsOverlappingStaysInTheSameRoomTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        try {
+            hotel.makeReservations(Arrays.asList(stay(100, startDate, 3), stay(100, startDate.plusDays(2), 3)), user());
+            fail("Expected the group reservation to be rejected");
+        } catch (IllegalArgumentException e) {
+            // Both stays want the third night
+        }
+
+        assertEquals(0, hotel.getBookings().size());
+        assertEquals(0, hotel.getRooms().get(100).getAvailability().reservedDays());
+        assertEquals(2, hotel.makeReservations(Arrays.asList(stay(100, startDate, 3), stay(100, startDate.plusDays(3), 3)), user()).size());
+    }
+
+    @Test
+    public void reservationsArePricedWithOccupancySurgeTest() {
+        hotel.setRatePlan(RatePlan.builder(RateTable.STANDARD).surge(50, 20).build());
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 1);
+        hotel.addRoom(101, hotelFloors.get(1), 1);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        Booking first = hotel.makeReservation(hotel.getRooms().get(100), startDate, 1, new ArrayList<BookingAmenity>(), user());
+        assertEquals(50, hotel.occupancyPercent(startDate.toEpochDay()));
+        Booking second = hotel.makeReservation(hotel.getRooms().get(101), startDate, 1, new ArrayList<BookingAmenity>(), user());
+
+        assertEquals(BigDecimal.valueOf(50), first.getTotalCost());
+        assertEquals(BigDecimal.valueOf(60), second.getTotalCost());
+        // The plan belongs to the hotel, other hotels keep theirs
+        assertSame(RatePlan.STANDARD, Hotel.builder().name("Standard").build().getRatePlan());
+    }
+
+    @Test
+    public void reservationMetricsRecordStagesAndRejectionsTest() {
+        Map<ReservationMetrics.Stage, Integer> stages = new EnumMap<ReservationMetrics.Stage, Integer>(ReservationMetrics.Stage.class);
+        Map<RejectionReason, Integer> rejections = new EnumMap<RejectionReason, Integer>(RejectionReason.class);
+        hotel.setReservationMetrics(new ReservationMetrics() {
+            @Override
+            public void record(Stage stage, long nanos) {
+                assertTrue(nanos >= 0);
+                stages.merge(stage, 1, Integer::sum);
+            }
+
+            @Override
+            public void rejected(RejectionReason reason) {
+                rejections.merge(reason, 1, Integer::sum);
+            }
+        });
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addFloor(2, false, Collections.singletonList(petAmenity));
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        hotel.addRoom(200, hotel.getFloors().get(2), 2);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        List<BookingAmenity> pet = Collections.singletonList(BookingAmenity.builder().amenity(petAmenity).count(1).build());
+
+        hotel.makeReservation(hotel.getRooms().get(100), startDate, 2, new ArrayList<BookingAmenity>(), user());
+        for(ReservationMetrics.Stage stage : ReservationMetrics.Stage.values()) assertEquals(Integer.valueOf(1), stages.get(stage));
+
+        try {
+            hotel.makeReservation(hotel.getRooms().get(100), startDate, 1, new ArrayList<BookingAmenity>(), user());
+            fail("Expected the room to be taken");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.ROOM_NOT_AVAILABLE, e.getReason());
+        }
+        try {
+            hotel.makeReservation(hotel.getRooms().get(200), startDate, 1, pet, user());
+            fail("Expected the amenity to be restricted");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.AMENITY_RESTRICTED, e.getReason());
+        }
+        try {
+            hotel.makeReservation(hotel.getRooms().get(100), startDate, -1, new ArrayList<BookingAmenity>(), user());
+            fail("Expected the request to be invalid");
+        } catch (IllegalArgumentException e) {
+            // A negative number of nights does not pass validation
+        }
+        try {
+            hotel.makeReservations(Arrays.asList(stay(100, startDate, 1)), user());
+            fail("Expected the group reservation to be rejected");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.ROOM_NOT_AVAILABLE, e.getReason());
+        }
+
+        assertEquals(Integer.valueOf(2), rejections.get(RejectionReason.ROOM_NOT_AVAILABLE));
+        assertEquals(Integer.valueOf(1), rejections.get(RejectionReason.AMENITY_RESTRICTED));
+        assertEquals(Integer.valueOf(1), rejections.get(RejectionReason.INVALID_REQUEST));
+        assertEquals(Integer.valueOf(1), stages.get(ReservationMetrics.Stage.REGISTRATION));
+    }
+
+    @Test
+    public void datesAreCheckedAgainstTheHotelsClockTest() {
+        LocalDate today = LocalDate.of(2030, 6, 1);
+        hotel.setClock(HotelClock.fixed(today));
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+
+        assertEquals(1, hotel.findAvailability(today, 2, 2, true, new ArrayList<Amenity>()).size());
+        hotel.makeReservation(hotel.getRooms().get(100), today, 2, new ArrayList<BookingAmenity>(), user());
+        assertEquals(0, hotel.findAvailability(today.plusDays(1), 1, 2, true, new ArrayList<Amenity>()).size());
+
+        try {
+            hotel.availabilityQuery(today.minusDays(1), 2, 2, true, new ArrayList<Amenity>());
+            fail("Expected a date in the past to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Date cannot be in the past", e.getMessage());
+        }
+    }
+
+    @Test
+    public void restrictionsMatchAmenitiesByNameNotIdentityTest() {
+        hotel.addFloor(2, false, Collections.singletonList(petAmenity));
+        hotel.addRoom(200, hotel.getFloors().get(2), 2);
+        // Same name as the restricted amenity but a different String, as when it arrives through the API
+        Amenity requestedPet = Amenity.builder()
+                .limit(2)
+                .cost(BigDecimal.valueOf(20))
+                .name(new String("pet"))
+                .build();
+        List<BookingAmenity> pet = Collections.singletonList(BookingAmenity.builder().amenity(requestedPet).count(1).build());
+
+        assertEquals(0, hotel.findAvailability(LocalDate.now(), 1, 2, false, Collections.singletonList(requestedPet)).size());
+        try {
+            hotel.makeReservation(hotel.getRooms().get(200), LocalDate.now(), 1, pet, user());
+            fail("Expected the amenity to be restricted");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.AMENITY_RESTRICTED, e.getReason());
+        }
+    }
+
+    @Test
+    public void amenityCapacityIsSharedByAllRoomsTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        hotel.addRoom(101, hotelFloors.get(1), 2);
+        hotel.addRoom(102, hotelFloors.get(1), 2);
+        Amenity crib = hotel.addAmenity("crib", 2, BigDecimal.valueOf(10), 2).get("crib");
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        hotel.makeReservation(hotel.getRooms().get(100), startDate, 3, cribs(crib, 2), user());
+        assertEquals(0, hotel.findAvailability(startDate.plusDays(2), 1, 2, true, Collections.singletonList(crib)).size());
+        assertEquals(3, hotel.findAvailability(startDate.plusDays(3), 1, 2, true, Collections.singletonList(crib)).size());
+        try {
+            hotel.makeReservation(hotel.getRooms().get(101), startDate.plusDays(2), 2, cribs(crib, 1), user());
+            fail("Expected the cribs to be sold out");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.AMENITY_SOLD_OUT, e.getReason());
+        }
+        assertTrue(hotel.getRooms().get(101).isAvailableForDays(startDate.plusDays(2), 2));
+
+        // The group fails on its second room, so the first gives its crib back
+        StayRequest withCrib = stay(101, startDate.plusDays(3), 1);
+        withCrib.setBookingAmenities(cribs(crib, 1));
+        try {
+            hotel.makeReservations(Arrays.asList(withCrib, stay(100, startDate, 1)), user());
+            fail("Expected the group reservation to be rejected");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.ROOM_NOT_AVAILABLE, e.getReason());
+        }
+        assertEquals(0, crib.getInventory().booked(startDate.plusDays(3).toEpochDay()));
+
+        // Replacing the amenity keeps what is booked
+        hotel.addAmenity("crib", 2, BigDecimal.valueOf(12), 3);
+        assertEquals(1, hotel.getAmenities().get("crib").getInventory().remaining(startDate.toEpochDay(), 3));
+    }
+
+    @Test
+    public void bookingsAreKeptInTheOrderTheyWereMadeTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        for(int roomNo = 100; roomNo < 104; roomNo++) hotel.addRoom(roomNo, hotelFloors.get(1), 2);
+        Instant noon = Instant.parse("2030-06-01T12:00:00Z");
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        hotel.setBookingIdGenerator(new TimeOrderedIdGenerator(Clock.fixed(noon.plusSeconds(60), ZoneOffset.UTC)));
+        Booking later = hotel.makeReservation(hotel.getRooms().get(100), startDate, 1, new ArrayList<BookingAmenity>(), user());
+        hotel.setBookingIdGenerator(new TimeOrderedIdGenerator(Clock.fixed(noon, ZoneOffset.UTC)));
+        Booking first = hotel.makeReservation(hotel.getRooms().get(101), startDate, 1, new ArrayList<BookingAmenity>(), user());
+        Booking second = hotel.makeReservation(hotel.getRooms().get(102), startDate, 1, new ArrayList<BookingAmenity>(), user());
+        hotel.setBookingIdGenerator(BookingIdGenerator.RANDOM);
+        hotel.makeReservation(hotel.getRooms().get(103), startDate, 1, new ArrayList<BookingAmenity>(), user());
+
+        assertEquals(Arrays.asList(first, second), hotel.bookingsMadeBetween(noon, noon.plusSeconds(60)));
+        assertEquals(Arrays.asList(first, second, later), hotel.bookingsMadeBetween(noon, noon.plusSeconds(61)));
+        assertEquals(4, hotel.getBookings().size());
+    }
+
+    @Test
+    public void cancelledNightsAndAmenitiesCanBeBookedAgainTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        Amenity crib = hotel.addAmenity("crib", 2, BigDecimal.valueOf(10), 1).get("crib");
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(100), startDate, 3, cribs(crib, 1), user());
+        assertEquals(0, hotel.findAvailability(startDate, 1, 2, true, new ArrayList<Amenity>()).size());
+
+        assertSame(booking, hotel.cancelReservation(booking.getBookingId()));
+
+        assertTrue(hotel.getBookings().isEmpty());
+        assertTrue(hotel.getBookingIndex().findArrivals(startDate).isEmpty());
+        assertEquals(0, hotel.occupancyPercent(startDate.toEpochDay()));
+        assertEquals(0, crib.getInventory().booked(startDate.toEpochDay()));
+        assertEquals(1, hotel.findAvailability(startDate, 1, 2, true, new ArrayList<Amenity>()).size());
+        hotel.makeReservation(hotel.getRooms().get(100), startDate, 3, cribs(crib, 1), user());
+        try {
+            hotel.cancelReservation(booking.getBookingId());
+            fail("Expected the booking to be gone");
+        } catch (NoSuchElementException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void modifiedReservationMovesOrStaysWhereItWasTest() {
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        hotel.addRoom(101, hotelFloors.get(1), 2);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(100), startDate, 2, new ArrayList<BookingAmenity>(), user());
+        hotel.makeReservation(hotel.getRooms().get(101), startDate.plusDays(3), 1, new ArrayList<BookingAmenity>(), user());
+
+        // One more night in the same room
+        Booking extended = hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(100), startDate, 3, new ArrayList<BookingAmenity>());
+        assertEquals(booking.getBookingId(), extended.getBookingId());
+        assertEquals(booking.getUser(), extended.getUser());
+        assertSame(extended, hotel.getBookings().get(booking.getBookingId()));
+        assertFalse(hotel.getRooms().get(100).isAvailableForDays(startDate.plusDays(2), 1));
+
+        try {
+            hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(101), startDate.plusDays(2), 2, new ArrayList<BookingAmenity>());
+            fail("Expected room 101 to be taken");
+        } catch (ReservationRejectedException e) {
+            assertEquals(RejectionReason.ROOM_NOT_AVAILABLE, e.getReason());
+        }
+        assertFalse(hotel.getRooms().get(100).isAvailableForDays(startDate, 3));
+        assertTrue(hotel.getRooms().get(101).isAvailableForDays(startDate.plusDays(2), 1));
+
+        Booking moved = hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(101), startDate, 3, new ArrayList<BookingAmenity>());
+        // Still the same booking, whatever moved
+        assertEquals(booking, moved);
+        assertEquals(booking.hashCode(), moved.hashCode());
+        assertTrue(hotel.getRooms().get(100).isAvailableForDays(startDate, 3));
+        assertFalse(hotel.getRooms().get(101).isAvailableForDays(startDate, 3));
+        assertEquals(moved, hotel.getBookingIndex().findByRoomAndNight(101, startDate));
+        assertNull(hotel.getBookingIndex().findByRoomAndNight(100, startDate));
+        assertEquals(2, hotel.getBookings().size());
+    }
+
+    @Test
+    public void changesArePublishedOnceTheyAreDoneTest() {
+        List<BookingEvent> events = new ArrayList<BookingEvent>();
+        hotel.setEventPublisher(events::add);
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(100), startDate, 2, new ArrayList<BookingAmenity>(), user());
+        try {
+            hotel.makeReservation(hotel.getRooms().get(100), startDate, 1, new ArrayList<BookingAmenity>(), user());
+            fail("Expected room 100 to be taken");
+        } catch (ReservationRejectedException e) {
+            // Expected
+        }
+        hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(100), startDate.plusDays(1), 3, new ArrayList<BookingAmenity>());
+        hotel.cancelReservation(booking.getBookingId());
+
+        assertEquals(4, events.size());
+        assertEquals(BookingEvent.Type.INVENTORY_CHANGED, events.get(0).getType());
+        assertEquals(Integer.valueOf(2), events.get(0).getNumberOfBeds());
+        assertEquals(BookingEvent.Type.BOOKING_CREATED, events.get(1).getType());
+        assertEquals(booking.getBookingId(), events.get(1).getBookingId());
+        assertEquals(booking.getTotalCents(), events.get(1).getTotalCents());
+        BookingEvent modified = events.get(2);
+        assertEquals(BookingEvent.Type.BOOKING_MODIFIED, modified.getType());
+        assertEquals(startDate.plusDays(1), modified.getStartDate());
+        assertEquals(3, modified.getNumberOfDays());
+        assertEquals(startDate, modified.getPreviousStartDate());
+        assertEquals(Integer.valueOf(2), modified.getPreviousNumberOfDays());
+        assertEquals(BookingEvent.Type.BOOKING_CANCELLED, events.get(3).getType());
+    }
+
+    private StayRequest stay(int roomNo, LocalDate startDate, int numberOfDays) {
+        return StayRequest.builder()
+                .room(hotel.getRooms().get(roomNo))
+                .startDate(startDate)
+                .numberOfDays(numberOfDays)
+                .bookingAmenities(new ArrayList<BookingAmenity>())
+                .build();
+    }
+
+    private static User user() {
+        return User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Glenn")
+                .lastName("Frey")
+                .build();
+    }
+
+    private static List<BookingAmenity> cribs(Amenity crib, int count) {
+        return new ArrayList<BookingAmenity>(Collections.singletonList(BookingAmenity.builder().amenity(crib).count(count).build()));
+    }
+}
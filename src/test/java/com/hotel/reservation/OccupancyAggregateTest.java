@@ -0,0 +1,124 @@
+package com.hotel.reservation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OccupancyAggregateTest {
+
+    private static final double DELTA = 1e-9;
+
+    Hotel hotel;
+    User user;
+    LocalDate startDate;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        Floor second = hotel.addFloor(2, true, new ArrayList<Amenity>()).get(2);
+        Floor third = hotel.addFloor(3, false, new ArrayList<Amenity>()).get(3);
+        hotel.addRoom(204, second, 2);
+        hotel.addRoom(205, second, 1);
+        hotel.addRoom(301, third, 2);
+        hotel.addRoom(302, third, 2);
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Glenn")
+                .lastName("Frey")
+                .build();
+        startDate = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    public void occupancyIsCountedByFloorAndBedsTest() {
+        reserve(204, startDate, 2);
+        reserve(301, startDate.plusDays(1), 2);
+        OccupancyAggregate occupancy = hotel.getOccupancy();
+
+        assertEquals(0.5, occupancy.floorOccupancy(2, startDate, startDate.plusDays(2)), DELTA);
+        assertEquals(0.25, occupancy.floorOccupancy(3, startDate, startDate.plusDays(2)), DELTA);
+        // Two of the three 2 bed rooms are booked the second night
+        assertEquals(2.0 / 3, occupancy.bedsOccupancy(2, startDate.plusDays(1), startDate.plusDays(2)), DELTA);
+        assertEquals(0, occupancy.bedsOccupancy(1, startDate, startDate.plusDays(3)), DELTA);
+        assertEquals(4.0 / 12, occupancy.occupancy(startDate, startDate.plusDays(3)), DELTA);
+        assertEquals(0, occupancy.occupancy(startDate, startDate), DELTA);
+
+        Map<Integer, int[]> heatmap = occupancy.heatmapByFloor(startDate.minusDays(1), startDate.plusDays(4));
+        assertArrayEquals(new int[] {0, 1, 1, 0, 0}, heatmap.get(2));
+        assertArrayEquals(new int[] {0, 0, 1, 1, 0}, heatmap.get(3));
+        assertArrayEquals(new int[] {0, 1, 2, 1, 0}, occupancy.heatmapByBeds(startDate.minusDays(1), startDate.plusDays(4)).get(2));
+    }
+
+    @Test
+    public void cancellingAndMovingUpdatesOccupancyTest() {
+        Booking booking = reserve(204, startDate, 2);
+        Booking other = reserve(205, startDate, 1);
+        OccupancyAggregate occupancy = hotel.getOccupancy();
+
+        hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(302), startDate.plusDays(10), 3, new ArrayList<BookingAmenity>());
+        assertEquals(0.5, occupancy.floorOccupancy(2, startDate, startDate.plusDays(1)), DELTA);
+        assertEquals(0, occupancy.floorOccupancy(2, startDate.plusDays(1), startDate.plusDays(2)), DELTA);
+        assertArrayEquals(new int[] {0, 1, 1, 1, 0}, occupancy.heatmapByFloor(startDate.plusDays(9), startDate.plusDays(14)).get(3));
+
+        hotel.cancelReservation(other.getBookingId());
+        assertEquals(0, occupancy.floorOccupancy(2, startDate, startDate.plusDays(30)), DELTA);
+        assertEquals(3, Math.round(occupancy.occupancy(startDate, startDate.plusDays(30)) * 4 * 30));
+    }
+
+    @Test
+    public void windowsMatchCountingEveryNightTest() {
+        Random random = new Random(42);
+        OccupancyAggregate occupancy = new OccupancyAggregate();
+        Room room = hotel.getRooms().get(204);
+        occupancy.roomAdded(room, null);
+        int[] nights = new int[400];
+        long firstDay = startDate.toEpochDay();
+
+        // Starts in the middle and books both earlier and later nights, so the series grows both ways
+        for(int i = 0; i < 500; i++) {
+            int start = 200 + (i % 2 == 0 ? 1 : -1) * random.nextInt(190);
+            int numberOfDays = random.nextInt(10);
+            occupancy.booked(booking(room, startDate.plusDays(start), numberOfDays));
+            for(int day = start; day < start + numberOfDays; day++) nights[day]++;
+        }
+
+        for(int i = 0; i < 200; i++) {
+            int from = random.nextInt(400);
+            int to = from + random.nextInt(400 - from + 1);
+            long roomNights = 0;
+            for(int day = from; day < to; day++) roomNights += nights[day];
+            double expected = to == from ? 0 : (double) roomNights / (to - from);
+            assertEquals(expected, occupancy.floorOccupancy(2, LocalDate.ofEpochDay(firstDay + from), LocalDate.ofEpochDay(firstDay + to)), DELTA);
+        }
+        assertArrayEquals(nights, occupancy.heatmapByFloor(startDate, startDate.plusDays(400)).get(2));
+        for(int day = -1; day <= 400; day++) {
+            assertEquals(day >= 0 && day < 400 ? nights[day] : 0, occupancy.roomsBooked(firstDay + day));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWindowIsRejectedTest() {
+        hotel.getOccupancy().occupancy(startDate, startDate.minusDays(1));
+    }
+
+    private Booking reserve(int roomNo, LocalDate startDate, int numberOfDays) {
+        return hotel.makeReservation(hotel.getRooms().get(roomNo), startDate, numberOfDays, new ArrayList<BookingAmenity>(), user);
+    }
+
+    private Booking booking(Room room, LocalDate startDate, int numberOfDays) {
+        return Booking.builder()
+                .bookingId(UUID.randomUUID())
+                .room(room)
+                .startDate(startDate)
+                .numberOfDays(numberOfDays)
+                .bookingAmenities(new ArrayList<BookingAmenity>())
+                .user(user)
+                .build();
+    }
+}
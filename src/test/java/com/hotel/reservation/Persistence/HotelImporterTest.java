@@ -0,0 +1,164 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class HotelImporterTest {
+
+    Hotel hotel;
+    ExecutorService executor;
+    HotelImporter importer;
+    LocalDate startDate;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        executor = Executors.newFixedThreadPool(2);
+        // Small batches so the test goes through several of them
+        importer = new HotelImporter(executor, 2, 3);
+        startDate = LocalDate.now().minusDays(30);
+    }
+
+    @After
+    public void cleanup() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void importsInventoryAndBookingsFromCsvTest() {
+        UUID first = UUID.randomUUID();
+        UUID clash = UUID.randomUUID();
+        String csv = "# kind,fields...\n"
+                + "amenity,pet,2,20,1\n"
+                + "floor,1,true\n"
+                + "floor,2,false,pet\n"
+                + "room,101,1,2\n"
+                + "room,102,1,1\n"
+                + "room,103,1,2\n"
+                + "room,201,2,3\n"
+                + "\n"
+                + "booking," + first + ",101," + startDate + ",3," + UUID.randomUUID() + ",Glenn,Frey,123.45,pet:1\n"
+                + "booking," + clash + ",101," + startDate.plusDays(2) + ",2,,Don,Henley\n"
+                + "booking," + UUID.randomUUID() + ",102," + startDate + ",5,,Joe,Walsh\n"
+                + "booking," + UUID.randomUUID() + ",201," + startDate + ",1,,Randy,Meisner,,pet:1\n"
+                + "booking," + UUID.randomUUID() + ",999," + startDate + ",1,,Bernie,Leadon\n"
+                + "booking," + UUID.randomUUID() + ",103," + startDate.plusDays(100) + ",7,,Timothy,Schmit\n";
+
+        HotelImporter.Result result = importer.importCsv(hotel, new StringReader(csv));
+
+        assertEquals(1, result.getAmenities());
+        assertEquals(2, result.getFloors());
+        assertEquals(4, result.getRooms());
+        assertEquals(3, result.getBookings());
+        // The clashing stay, the restricted pet and the unknown room
+        assertEquals(3, result.getRejectedBookings());
+        assertTrue(result.getRejectedBookingIds().contains(clash));
+
+        assertEquals(4, hotel.getRooms().size());
+        assertEquals(3, hotel.getBookings().size());
+        Booking booking = hotel.getBookings().get(first);
+        assertEquals(new BigDecimal("123.45"), booking.getTotalCost());
+        assertEquals("pet", booking.getBookingAmenities().get(0).getAmenity().getName());
+        assertFalse(hotel.getRooms().get(101).getAvailability().isFree(startDate.toEpochDay(), 3));
+        assertTrue(hotel.getRooms().get(101).getAvailability().isFree(startDate.plusDays(3).toEpochDay(), 10));
+        assertEquals(first, hotel.getBookingIndex().findByRoomAndNight(101, startDate.plusDays(2)).getBookingId());
+        assertEquals(Collections.singletonList(hotel.getRooms().get(101)),
+                     hotel.findAvailability(startDate.plusDays(100), 7, 2, true, new ArrayList<Amenity>()));
+    }
+
+    @Test
+    public void importsTheSameRecordsFromJsonTest() {
+        UUID bookingId = UUID.randomUUID();
+        String json = "[{\"type\": \"amenity\", \"name\": \"pet\", \"limit\": 2, \"cost\": 20},"
+                + "{\"type\": \"floor\", \"floorNumber\": 2, \"handicapAccessible\": true, \"restrictedAmenities\": []},"
+                + "{\"type\": \"room\", \"roomNo\": 204, \"floorNumber\": 2, \"numberOfBeds\": 2},"
+                + "{\"type\": \"booking\", \"bookingId\": \"" + bookingId + "\", \"roomNo\": 204, \"startDate\": \"" + startDate + "\","
+                + " \"numberOfDays\": 4, \"firstName\": \"Glenn\", \"lastName\": \"Frey\", \"amenities\": [{\"name\": \"pet\", \"count\": 2}]}]";
+
+        HotelImporter.Result result = importer.importJson(hotel, new StringReader(json));
+
+        assertEquals(1, result.getRooms());
+        assertEquals(1, result.getBookings());
+        assertEquals(0, result.getRejectedBookings());
+        Booking booking = hotel.getBookings().get(bookingId);
+        assertEquals(4, booking.getNumberOfDays());
+        assertEquals(2, booking.getBookingAmenities().get(0).getCount());
+        assertEquals(0.5, hotel.getOccupancy().occupancy(startDate, startDate.plusDays(8)), 1e-9);
+    }
+
+    @Test
+    public void malformedRecordFailsWithItsLineTest() {
+        String csv = "floor,1,true\n"
+                + "room,101,1,2\n"
+                + "room,102,x,2\n";
+        try {
+            importer.importCsv(hotel, new StringReader(csv));
+            fail("Expected the import to fail");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 3:"));
+        }
+        // Everything before the malformed line is in
+        assertTrue(hotel.getRooms().containsKey(101));
+    }
+
+    @Test
+    public void listenerIsToldAboutEveryChangeTest() {
+        UUID bookingId = UUID.randomUUID();
+        UUID clash = UUID.randomUUID();
+        String csv = "amenity,pet,2,20\n"
+                + "floor,1,true\n"
+                + "room,101,1,2\n"
+                + "room,102,1,1\n"
+                + "booking," + bookingId + ",101," + startDate + ",3,,Glenn,Frey\n"
+                + "booking," + clash + ",101," + startDate.plusDays(1) + ",2,,Don,Henley\n";
+        List<String> changes = Collections.synchronizedList(new ArrayList<String>());
+        HotelImporter.Listener listener = new HotelImporter.Listener() {
+            @Override
+            public void apply(int[] roomNos, Runnable change) {
+                // Changes are reported from within the change
+                changes.add("apply " + (roomNos != null ? Arrays.toString(roomNos) : "all"));
+                change.run();
+            }
+
+            @Override
+            public void amenityAdded(Amenity amenity) {
+                changes.add("amenity " + amenity.getName());
+            }
+
+            @Override
+            public void floorAdded(Floor floor) {
+                changes.add("floor " + floor.getFloorNumber());
+            }
+
+            @Override
+            public void roomsAdded(List<Room> rooms) {
+                for(Room room : rooms) changes.add("room " + room.getRoomNo());
+            }
+
+            @Override
+            public void bookingsRestored(List<Booking> bookings) {
+                for(Booking booking : bookings) changes.add("booking " + booking.getBookingId());
+            }
+        };
+
+        importer.importCsv(hotel, new StringReader(csv), listener);
+
+        assertEquals(Arrays.asList("apply all", "amenity pet",
+                                   "apply all", "floor 1",
+                                   "apply all", "room 101", "room 102",
+                                   "apply [101, 101]", "booking " + bookingId), changes);
+    }
+}
@@ -0,0 +1,372 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class HotelJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    Path directory;
+    Hotel hotel;
+    User user;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("hotel-journal");
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Don")
+                .lastName("Henley")
+                .build();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void recoverReplaysJournalIntoEmptyHotelTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        Booking booking;
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            booking = setUpHotel(journal, startDate);
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+        }
+
+        assertEquals(2, restored.getRooms().size());
+        assertEquals(1, restored.getFloors().get(2).getRestrictedAmenities().size());
+        Booking restoredBooking = restored.getBookings().get(booking.getBookingId());
+        assertEquals(101, restoredBooking.getRoom().getRoomNo());
+        assertEquals(startDate, restoredBooking.getStartDate());
+        assertEquals(1, restoredBooking.getBookingAmenities().get(0).getCount());
+        assertEquals(user.getUserId(), restoredBooking.getUser().getUserId());
+        assertFalse(restored.getRooms().get(101).isAvailableForDays(startDate, 2));
+        assertTrue(restored.getRooms().get(100).isAvailableForDays(startDate, 2));
+        assertEquals(5, restored.getAmenities().get("PET").getCapacity());
+        assertEquals(1, restored.getAmenities().get("PET").getInventory().booked(startDate.toEpochDay()));
+    }
+
+    @Test
+    public void recoverLoadsSnapshotAndJournalTailTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            setUpHotel(journal, startDate);
+            // Enough bookings to roll over a few segments before the snapshot
+            for(int i = 1; i <= 100; i++) {
+                journal.appendBooking(hotel.makeReservation(hotel.getRooms().get(100), startDate.plusDays(2 * i), 1,
+                                                            new ArrayList<BookingAmenity>(), user)).get();
+            }
+            journal.snapshot(hotel);
+            journal.appendBooking(hotel.makeReservation(hotel.getRooms().get(100), startDate, 1,
+                                                        new ArrayList<BookingAmenity>(), user)).get();
+        }
+        assertEquals(1, countFiles("journal-*.log"));
+        assertEquals(1, countFiles("snapshot-*.bin"));
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> fail("Fallback must not run when there is a snapshot"));
+        }
+
+        assertEquals(hotel.getBookings().keySet(), restored.getBookings().keySet());
+        assertEquals(hotel.getRooms().get(100).getAvailability().reservedDays(),
+                     restored.getRooms().get(100).getAvailability().reservedDays());
+    }
+
+    @Test
+    public void replayingChangesTheSnapshotAlreadyHasIsHarmlessTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            setUpHotel(journal, startDate);
+            journal.snapshot(hotel);
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+            journal.recover(restored, () -> { });
+        }
+
+        assertEquals(1, restored.getBookings().size());
+        assertEquals(2, restored.getRooms().get(101).getAvailability().reservedDays());
+        assertEquals(5, restored.getAmenities().get("PET").getCapacity());
+        assertEquals(1, restored.getAmenities().get("PET").getInventory().booked(startDate.toEpochDay()));
+    }
+
+    @Test
+    public void tornRecordIsDroppedOnReopenTest() throws Exception {
+        try(MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            journal.append((byte) 1, buffer -> buffer.putInt(1)).get();
+            journal.append((byte) 1, buffer -> buffer.putInt(2)).get();
+        }
+
+        // Flip a byte in the payload of the second record, as if the crash happened while writing it
+        Path segment = Files.newDirectoryStream(directory, "journal-*.log").iterator().next();
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int secondRecordPayload = 2 * (8 + 9 + 4) - 4;
+            channel.write(ByteBuffer.wrap(new byte[] { 42 }), secondRecordPayload);
+        }
+
+        List<Integer> replayed = new ArrayList<Integer>();
+        try(MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            assertEquals(1, journal.lastSequence());
+            assertEquals(Long.valueOf(2), journal.append((byte) 1, buffer -> buffer.putInt(3)).get());
+            journal.replay(0, (sequence, type, payload) -> replayed.add(payload.getInt()));
+        }
+        assertEquals(Arrays.asList(1, 3), replayed);
+    }
+
+    @Test
+    public void recoverReplaysCancellationsAndModificationsTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        Booking cancelled;
+        Booking modified;
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            cancelled = setUpHotel(journal, startDate);
+            Booking booking = hotel.makeReservation(hotel.getRooms().get(100), startDate, 1, new ArrayList<BookingAmenity>(), user);
+            journal.appendBooking(booking).get();
+            // The snapshot has the modified booking already, replaying the modification must not lose it
+            modified = hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(101), startDate.plusDays(5), 2, new ArrayList<BookingAmenity>());
+            journal.snapshot(hotel);
+            journal.appendModification(modified).get();
+            hotel.cancelReservation(cancelled.getBookingId());
+            journal.appendCancellation(cancelled.getBookingId()).get();
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+        }
+
+        assertEquals(Collections.singleton(modified.getBookingId()), restored.getBookings().keySet());
+        assertEquals(2, restored.getRooms().get(101).getAvailability().reservedDays());
+        assertFalse(restored.getRooms().get(101).isAvailableForDays(startDate.plusDays(5), 2));
+        assertEquals(0, restored.getRooms().get(100).getAvailability().reservedDays());
+        assertEquals(0, restored.getAmenities().get("PET").getInventory().booked(startDate.toEpochDay()));
+    }
+
+    @Test
+    public void recoverReplaysCancellationBeforeTheBookingOfTheFreedNightsTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        Booking cancelled;
+        Booking rebooked;
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            cancelled = setUpHotel(journal, startDate);
+            try(JournalLocks.Held held = journal.lockRooms(101)) {
+                hotel.cancelReservation(cancelled.getBookingId());
+                journal.appendCancellation(cancelled.getBookingId()).get();
+            }
+            try(JournalLocks.Held held = journal.lockRooms(101)) {
+                rebooked = hotel.makeReservation(hotel.getRooms().get(101), startDate, 2, new ArrayList<BookingAmenity>(), user);
+                journal.appendBooking(rebooked).get();
+            }
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+        }
+
+        assertEquals(Collections.singleton(rebooked.getBookingId()), restored.getBookings().keySet());
+        assertFalse(restored.getRooms().get(101).isAvailableForDays(startDate, 2));
+        assertEquals(0, restored.getAmenities().get("PET").getInventory().booked(startDate.toEpochDay()));
+    }
+
+    @Test
+    public void recoverFailsOnARecordItCanNotReplayTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            Booking booking = setUpHotel(journal, startDate);
+            // Journaled ahead of the cancellation that freed its nights
+            Booking rebooked = Booking.builder()
+                    .bookingId(UUID.randomUUID())
+                    .room(hotel.getRooms().get(101))
+                    .startDate(startDate)
+                    .numberOfDays(2)
+                    .bookingAmenities(new ArrayList<BookingAmenity>())
+                    .user(user)
+                    .build();
+            journal.appendBooking(rebooked).get();
+            journal.appendCancellation(booking.getBookingId()).get();
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+            fail("Recovery must not drop a booking it can not replay");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("Journal record 7"));
+        }
+    }
+
+    @Test
+    public void snapshotWaitsForChangesInProgressTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            setUpHotel(journal, startDate);
+            Thread snapshot = new Thread(() -> journal.snapshot(hotel));
+            try(JournalLocks.Held held = journal.lockRooms(100)) {
+                snapshot.start();
+                Thread.sleep(50);
+                // Applied but not yet journaled, the snapshot must not see it
+                journal.appendBooking(hotel.makeReservation(hotel.getRooms().get(100), startDate, 1,
+                                                            new ArrayList<BookingAmenity>(), user));
+            }
+            snapshot.join();
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> fail("Fallback must not run when there is a snapshot"));
+        }
+        assertEquals(hotel.getBookings().keySet(), restored.getBookings().keySet());
+    }
+
+    @Test
+    public void recoverDoesNotPublishEventsAgainTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            Booking booking = setUpHotel(journal, startDate);
+            journal.appendModification(hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(100), startDate, 1,
+                                                               new ArrayList<BookingAmenity>())).get();
+            Booking cancelled = hotel.makeReservation(hotel.getRooms().get(101), startDate, 1, new ArrayList<BookingAmenity>(), user);
+            journal.appendBooking(cancelled).get();
+            hotel.cancelReservation(cancelled.getBookingId());
+            journal.appendCancellation(cancelled.getBookingId()).get();
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        List<BookingEvent> events = new ArrayList<BookingEvent>();
+        BookingEventPublisher publisher = events::add;
+        restored.setEventPublisher(publisher);
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+        }
+
+        assertEquals(1, restored.getBookings().size());
+        assertTrue(events.isEmpty());
+        assertSame(publisher, restored.getEventPublisher());
+        // Changes made after recovery are published again
+        restored.addRoom(102, restored.getFloors().get(1), 1);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void recoverPutsBackTheStaysStillWaitingTest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(3);
+        hotel.getWaitlist().getOverbookingAllowance().setAllowance(1, 2);
+        WaitlistEntry allocated;
+        WaitlistEntry overbooked;
+        WaitlistEntry waitlisted;
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            Booking booking = setUpHotel(journal, startDate);
+            allocated = requestReservation(journal, startDate);
+            overbooked = requestReservation(journal, startDate);
+            journal.snapshot(hotel);
+            waitlisted = requestReservation(journal, startDate);
+            WaitlistEntry withdrawn = requestReservation(journal, startDate);
+            hotel.leaveWaitlist(withdrawn.getEntryId());
+            journal.appendWaitlistRemoval(withdrawn.getEntryId()).get();
+            // The freed room goes to the first overbooked stay
+            hotel.cancelReservation(booking.getBookingId());
+            journal.appendCancellation(booking.getBookingId()).get();
+            journal.appendBookings(hotel.getWaitlist().takeAllocations()).get();
+        }
+        assertEquals(WaitlistEntry.Status.ALLOCATED, allocated.getStatus());
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> { });
+        }
+
+        assertEquals(101, restored.getBookings().get(allocated.getEntryId()).getRoom().getRoomNo());
+        List<WaitlistEntry> waiting = restored.getWaitlist().entries();
+        assertEquals(2, waiting.size());
+        assertEquals(overbooked.getEntryId(), waiting.get(0).getEntryId());
+        assertEquals(WaitlistEntry.Status.OVERBOOKED, waiting.get(0).getStatus());
+        assertEquals(waitlisted.getEntryId(), waiting.get(1).getEntryId());
+        assertEquals(WaitlistEntry.Status.WAITLISTED, waiting.get(1).getStatus());
+        assertEquals(user.getUserId(), waiting.get(1).getUser().getUserId());
+        assertEquals(1, restored.getWaitlist().overbooked(1, startDate));
+        assertTrue(restored.getWaitlist().takeAllocations().isEmpty());
+    }
+
+    @Test
+    public void recoverRestoresOverbookingAllowancesTest() throws Exception {
+        LocalDate holiday = LocalDate.now().plusDays(10);
+        OverbookingAllowance overbookingAllowance = hotel.getWaitlist().getOverbookingAllowance();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            overbookingAllowance.setAllowance(1, 2);
+            journal.appendOverbookingAllowance(1, null, 2).get();
+            overbookingAllowance.setAllowance(1, holiday, 4);
+            journal.appendOverbookingAllowance(1, holiday, 4).get();
+            journal.snapshot(hotel);
+            overbookingAllowance.setAllowance(2, 1);
+            journal.appendOverbookingAllowance(2, null, 1).get();
+        }
+
+        Hotel restored = Hotel.builder().name("California").build();
+        try(HotelJournal journal = new HotelJournal(directory, SEGMENT_SIZE)) {
+            journal.recover(restored, () -> fail("Fallback must not run when there is a snapshot"));
+        }
+
+        OverbookingAllowance restoredAllowance = restored.getWaitlist().getOverbookingAllowance();
+        assertEquals(2, restoredAllowance.allowance(1, holiday.minusDays(1).toEpochDay()));
+        assertEquals(4, restoredAllowance.allowance(1, holiday.toEpochDay()));
+        assertEquals(1, restoredAllowance.allowance(2, holiday.toEpochDay()));
+        assertEquals(0, restoredAllowance.allowance(3, holiday.toEpochDay()));
+    }
+
+    private WaitlistEntry requestReservation(HotelJournal journal, LocalDate startDate) throws Exception {
+        WaitlistEntry entry = hotel.requestReservation(startDate, 2, 1, true, new ArrayList<BookingAmenity>(), user, 0);
+        journal.appendWaitlistEntry(entry).get();
+        return entry;
+    }
+
+    private Booking setUpHotel(HotelJournal journal, LocalDate startDate) throws Exception {
+        Amenity petAmenity = hotel.addAmenity("PET", 2, new BigDecimal("20.00"), 5).get("PET");
+        journal.appendAmenity(petAmenity).get();
+        journal.appendFloor(hotel.addFloor(1, true, new ArrayList<Amenity>()).get(1)).get();
+        journal.appendFloor(hotel.addFloor(2, false, Collections.singletonList(petAmenity)).get(2)).get();
+        journal.appendRoom(hotel.addRoom(100, hotel.getFloors().get(1), 2).get(100)).get();
+        journal.appendRoom(hotel.addRoom(101, hotel.getFloors().get(1), 1).get(101)).get();
+
+        List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>();
+        bookingAmenities.add(BookingAmenity.builder().amenity(petAmenity).count(1).build());
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(101), startDate, 2, bookingAmenities, user);
+        journal.appendBooking(booking).get();
+        return booking;
+    }
+
+    private long countFiles(String glob) throws IOException {
+        long count = 0;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for(Path path : stream) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class HotelStoreTest {
+
+    @Autowired
+    HotelStore hotelStore;
+
+    Hotel hotel;
+    Amenity petAmenity;
+    User user;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+
+        petAmenity = hotel.addAmenity("pet", 2, BigDecimal.valueOf(20)).get("pet");
+        hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addFloor(2, true, new ArrayList<Amenity>() {{ add(petAmenity); }});
+        hotel.addRoom(100, hotel.getFloors().get(1), 2);
+        hotel.addRoom(101, hotel.getFloors().get(1), 2);
+        hotel.addRoom(200, hotel.getFloors().get(2), 2);
+
+        hotelStore.saveAmenity(petAmenity);
+        for(Floor floor : hotel.getFloors().values()) hotelStore.saveFloor(floor);
+        for(Room room : hotel.getRooms().values()) hotelStore.saveRoom(room);
+
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Randy")
+                .lastName("Meisner")
+                .build();
+    }
+
+    @Test
+    public void persistedSearchMatchesInMemorySearchTest() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        hotelStore.saveBooking(hotel.makeReservation(hotel.getRooms().get(100), startDate, 3, new ArrayList<BookingAmenity>(), user));
+
+        for(int offset = 0; offset < 5; offset++) {
+            List<Integer> expected = new ArrayList<Integer>();
+            for(Room room : hotel.findAvailability(startDate.plusDays(offset), 2, 2, true, new ArrayList<Amenity>())) expected.add(room.getRoomNo());
+            List<Integer> persisted = hotelStore.findAvailableRoomNumbers(startDate.plusDays(offset), 2, 2, true, new ArrayList<Amenity>());
+
+            Collections.sort(expected);
+            Collections.sort(persisted);
+            assertEquals(expected, persisted);
+        }
+    }
+
+    @Test
+    public void persistedSearchSkipsRestrictedFloorsTest() {
+        List<Integer> persisted = hotelStore.findAvailableRoomNumbers(LocalDate.now().plusDays(1), 2, 2, true,
+                                                                        new ArrayList<Amenity>() {{ add(petAmenity); }});
+
+        Collections.sort(persisted);
+        assertEquals(Arrays.asList(100, 101), persisted);
+    }
+
+    @Test
+    public void loadIntoRestoresInventoryAndBookingsTest() {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(101),
+                                                startDate,
+                                                2,
+                                                new ArrayList<BookingAmenity>() {{ add(BookingAmenity.builder().amenity(petAmenity).count(1).build()); }},
+                                                user);
+        hotelStore.saveBooking(booking);
+
+        Hotel restored = Hotel.builder()
+                .name("California")
+                .build();
+        hotelStore.loadInto(restored);
+
+        assertEquals(3, restored.getRooms().size());
+        assertEquals(2, restored.getFloors().size());
+        assertEquals(1, restored.getFloors().get(2).getRestrictedAmenities().size());
+
+        Booking restoredBooking = restored.getBookings().get(booking.getBookingId());
+        assertNotNull(restoredBooking);
+        assertEquals(101, restoredBooking.getRoom().getRoomNo());
+        assertEquals(startDate, restoredBooking.getStartDate());
+        assertEquals("pet", restoredBooking.getBookingAmenities().get(0).getAmenity().getName());
+        assertFalse(restored.getRooms().get(101).isAvailableForDays(startDate, 2));
+    }
+}
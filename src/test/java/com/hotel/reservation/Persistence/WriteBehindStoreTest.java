@@ -0,0 +1,103 @@
+package com.hotel.reservation.Persistence;
+
+import com.hotel.reservation.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindStoreTest {
+
+    Hotel hotel;
+    User user;
+    int nights;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotel.getFloors().get(1), 2);
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Don")
+                .lastName("Henley")
+                .build();
+    }
+
+    @Test
+    public void markIsSavedThroughOnceEverythingBeforeItIsSavedTest() throws Exception {
+        RecordingHotelStore hotelStore = new RecordingHotelStore();
+        WriteBehindStore writeBehindStore = new WriteBehindStore(hotelStore, 100, 10);
+        Booking booking = booking();
+
+        writeBehindStore.saveBooking(booking);
+        writeBehindStore.mark(5);
+        writeBehindStore.close();
+
+        assertEquals(Collections.singletonList("save " + booking.getBookingId()), hotelStore.writes);
+        assertEquals(5, writeBehindStore.savedThrough());
+        assertEquals(0, writeBehindStore.getFailures());
+    }
+
+    @Test
+    public void failedBookingIsRetriedWithoutHoldingBackTheRestOfTheBatchTest() throws Exception {
+        RecordingHotelStore hotelStore = new RecordingHotelStore();
+        WriteBehindStore writeBehindStore = new WriteBehindStore(hotelStore, 100, 10);
+        Booking first = booking();
+        Booking failing = booking();
+        Booking last = booking();
+        hotelStore.failing.add(failing.getBookingId());
+
+        writeBehindStore.saveBookings(Arrays.asList(first, failing, last));
+        // Must wait for the failed save instead of overtaking it
+        writeBehindStore.deleteBooking(failing.getBookingId());
+        writeBehindStore.mark(7);
+        for(int i = 0; i < 100 && writeBehindStore.getUnsaved() < 2; i++) Thread.sleep(20);
+
+        assertEquals(1, writeBehindStore.getFailures());
+        assertEquals(2, writeBehindStore.getUnsaved());
+        assertEquals(0, writeBehindStore.savedThrough());
+        assertEquals(Arrays.asList("save " + first.getBookingId(), "save " + last.getBookingId()), hotelStore.writes);
+
+        hotelStore.failing.clear();
+        writeBehindStore.close();
+
+        assertEquals(Arrays.asList("save " + first.getBookingId(),
+                                   "save " + last.getBookingId(),
+                                   "save " + failing.getBookingId(),
+                                   "delete " + failing.getBookingId()), hotelStore.writes);
+        assertEquals(0, writeBehindStore.getUnsaved());
+    }
+
+    private Booking booking() {
+        return hotel.makeReservation(hotel.getRooms().get(100), LocalDate.now().plusDays(++nights), 1, new ArrayList<BookingAmenity>(), user);
+    }
+
+    private static class RecordingHotelStore extends HotelStore {
+        private final Set<UUID> failing = Collections.newSetFromMap(new ConcurrentHashMap<UUID, Boolean>());
+        private final List<String> writes = Collections.synchronizedList(new ArrayList<String>());
+
+        private RecordingHotelStore() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public void saveBookings(Collection<Booking> bookings) {
+            for(Booking booking : bookings) {
+                if(failing.contains(booking.getBookingId())) throw new IllegalStateException("Constraint violated");
+            }
+            for(Booking booking : bookings) writes.add("save " + booking.getBookingId());
+        }
+
+        @Override
+        public void deleteBooking(UUID bookingId) {
+            writes.add("delete " + bookingId);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.hotel.reservation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+public class PortfolioTest {
+
+    Portfolio portfolio;
+    User user;
+    LocalDate startDate;
+
+    @Before
+    public void init() {
+        portfolio = new Portfolio(4);
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Glenn")
+                .lastName("Frey")
+                .build();
+        startDate = LocalDate.now().plusDays(1);
+
+        // Eight properties in two cities, each with one single bed room and two double bed rooms
+        for(int p = 0; p < 8; p++) {
+            Hotel hotel = Hotel.builder()
+                    .name("Hotel " + p)
+                    .build();
+            if(p % 2 == 0) hotel.addAmenity("pet", 2, BigDecimal.valueOf(20));
+            Floor floor = hotel.addFloor(1, true, new ArrayList<Amenity>()).get(1);
+            for(int roomNo = 1; roomNo <= 3; roomNo++) hotel.addRoom(roomNo, floor, 1 + roomNo % 2);
+            portfolio.addHotel("property-" + p, p < 4 ? "Los Angeles" : "San Diego", hotel);
+        }
+    }
+
+    @After
+    public void cleanup() {
+        portfolio.close();
+    }
+
+    @Test
+    public void reservationIsMadeAtTheOwningPropertyTest() {
+        Booking booking = portfolio.makeReservation("property-3", 2, startDate, 2, new ArrayList<BookingAmenity>(), user).join();
+
+        assertSame(portfolio.getHotel("property-3").getRooms().get(2), booking.getRoom());
+        assertTrue(portfolio.getHotel("property-3").getBookings().containsKey(booking.getBookingId()));
+        assertTrue(portfolio.getHotel("property-2").getBookings().isEmpty());
+
+        try {
+            portfolio.makeReservation("property-3", 2, startDate, 2, new ArrayList<BookingAmenity>(), user).join();
+            fail("Room was booked twice");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        try {
+            portfolio.makeReservation("property-9", 2, startDate, 2, new ArrayList<BookingAmenity>(), user);
+            fail("Unknown property was booked");
+        } catch (NoSuchElementException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void cityAvailabilityReturnsTheCheapestRoomsAcrossPropertiesTest() {
+        portfolio.makeReservation("property-0", 2, startDate, 1, new ArrayList<BookingAmenity>(), user).join();
+
+        List<RoomOffer> offers = portfolio.findAvailability("Los Angeles", startDate, 1, 1, true,
+                                                            new ArrayList<String>(), 3).join();
+
+        // Room 2 is the only single bed room at every property and property 0's is booked
+        assertEquals(3, offers.size());
+        for(int i = 0; i < offers.size(); i++) {
+            assertEquals("property-" + (i + 1), offers.get(i).getPropertyId());
+            assertEquals(2, offers.get(i).getRoom().getRoomNo());
+            if(i > 0) assertTrue(offers.get(i - 1).getPrice().compareTo(offers.get(i).getPrice()) <= 0);
+        }
+
+        // Only the even properties take pets
+        List<RoomOffer> petOffers = portfolio.findAvailability("San Diego", startDate, 1, 2, true,
+                                                               Collections.singletonList("pet"), 10).join();
+        assertEquals(4, petOffers.size());
+        for(RoomOffer offer : petOffers) assertTrue(offer.getPropertyId().equals("property-4") || offer.getPropertyId().equals("property-6"));
+
+        assertTrue(portfolio.findAvailability("Irvine", startDate, 1, 1, true, new ArrayList<String>(), 3).join().isEmpty());
+    }
+}
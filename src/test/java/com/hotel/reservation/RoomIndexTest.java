@@ -0,0 +1,72 @@
+package com.hotel.reservation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RoomIndexTest {
+
+    Hotel hotel;
+    Amenity petAmenity;
+    ForkJoinPool pool;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        hotel.setSearchCache(new SearchCache(0));
+        petAmenity = hotel.addAmenity("pet", 2, BigDecimal.valueOf(20)).get("pet");
+        pool = new ForkJoinPool(4);
+
+        // 20 floors of 500 rooms, every third floor takes no pets
+        int roomNo = 0;
+        for(int floorNo = 1; floorNo <= 20; floorNo++) {
+            List<Amenity> restrictedAmenities = floorNo % 3 == 0 ? Collections.singletonList(petAmenity) : new ArrayList<Amenity>();
+            Floor floor = hotel.addFloor(floorNo, true, restrictedAmenities).get(floorNo);
+            for(int i = 0; i < 500; i++) hotel.addRoom(roomNo++, floor, 2);
+        }
+        Random random = new Random(42);
+        long firstDay = LocalDate.now().toEpochDay();
+        for(Room room : hotel.getRooms().values()) {
+            if(random.nextBoolean()) room.getAvailability().reserve(firstDay + random.nextInt(10), 1 + random.nextInt(3));
+        }
+    }
+
+    @After
+    public void cleanup() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void parallelSearchFindsTheSameRoomsInTheSameOrderTest() {
+        List<List<Room>> sequential = new ArrayList<List<Room>>();
+        for(int day = 0; day < 10; day++) sequential.add(search(day));
+
+        hotel.getRoomIndex().setSearchPool(pool);
+        hotel.getRoomIndex().setParallelThresholdNanos(0);
+        for(int day = 0; day < 10; day++) assertEquals(sequential.get(day), search(day));
+    }
+
+    @Test
+    public void searchesEstimatedToBeQuickStayOnTheCallersThreadTest() {
+        hotel.getRoomIndex().setSearchPool(pool);
+        hotel.getRoomIndex().setParallelThresholdNanos(Long.MAX_VALUE / 1000);
+
+        search(0);
+
+        assertEquals(0, pool.getStealCount());
+        assertEquals(0, pool.getPoolSize());
+    }
+
+    private List<Room> search(int day) {
+        return hotel.findAvailability(LocalDate.now().plusDays(day), 2, 2, true, Collections.singletonList(petAmenity));
+    }
+}
@@ -1,15 +1,12 @@
 package com.hotel.reservation;
 
+import com.hotel.reservation.Utilities.RatePlan;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -53,7 +50,7 @@ public class RoomTest {
                 .build();
 
         assertNotNull(roomOnFirstFloor);
-        assertEquals(new HashMap<Integer, List<Integer>>(), roomOnFirstFloor.getAvailability());
+        assertEquals(0, roomOnFirstFloor.getAvailability().reservedDays());
     }
 
     @Test
@@ -64,7 +61,7 @@ public class RoomTest {
                                     .numberOfBeds(1)
                                     .build();
 
-        assertEquals(BigDecimal.valueOf(50), roomOnFirstFloor.calculateCost());
+        assertEquals(BigDecimal.valueOf(50), roomOnFirstFloor.calculateCost(RatePlan.STANDARD));
     }
 
     @Test
@@ -75,7 +72,7 @@ public class RoomTest {
                                     .numberOfBeds(2)
                                     .build();
 
-        assertEquals(BigDecimal.valueOf(75), roomOnFirstFloor.calculateCost());
+        assertEquals(BigDecimal.valueOf(75), roomOnFirstFloor.calculateCost(RatePlan.STANDARD));
     }
 
     @Test
@@ -86,7 +83,7 @@ public class RoomTest {
                 .numberOfBeds(3)
                 .build();
 
-        assertEquals(BigDecimal.valueOf(90), roomOnFirstFloor.calculateCost());
+        assertEquals(BigDecimal.valueOf(90), roomOnFirstFloor.calculateCost(RatePlan.STANDARD));
     }
 
     @Test
@@ -169,11 +166,61 @@ public class RoomTest {
 
         roomOnSecondFloor.updateAvailability(today, 4);
 
-        List<Integer> availabilityForYear = roomOnSecondFloor.getAvailability().get(today.getYear());
-        List<Integer> bookingDateRange = IntStream.rangeClosed(today.getYear(), today.getYear() + 5)
-                .boxed().collect(Collectors.toList());
+        AvailabilityCalendar availability = roomOnSecondFloor.getAvailability();
+        assertEquals(4, availability.reservedDays());
+        assertTrue(availability.isReserved(today.toEpochDay()));
+        assertTrue(availability.isReserved(today.plusDays(3).toEpochDay()));
+        assertFalse(availability.isReserved(today.plusDays(4).toEpochDay()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void updateAvailabilityForReservedDaysThrowsException() {
+        LocalDate today = LocalDate.now();
+        Room roomOnSecondFloor = Room.builder()
+                .floor(secondFloor)
+                .roomNo(200)
+                .numberOfBeds(2)
+                .build();
+
+        roomOnSecondFloor.updateAvailability(today, 4);
+        roomOnSecondFloor.updateAvailability(today.plusDays(2), 4);
+    }
+
+    @Test
+    public void releasedDaysCanBeBookedAgain() {
+        LocalDate today = LocalDate.now();
+        Room roomOnSecondFloor = Room.builder()
+                .floor(secondFloor)
+                .roomNo(200)
+                .numberOfBeds(2)
+                .build();
+
+        roomOnSecondFloor.updateAvailability(today, 4);
+        roomOnSecondFloor.releaseAvailability(today.plusDays(2), 2);
+
+        assertEquals(2, roomOnSecondFloor.getAvailability().reservedDays());
+        roomOnSecondFloor.updateAvailability(today.plusDays(2), 4);
+    }
+
+    @Test
+    public void roomsAreEqualByNumberAndKeepTheirHashCodeWhenBooked() {
+        Room room = Room.builder()
+                .floor(secondFloor)
+                .roomNo(200)
+                .numberOfBeds(2)
+                .build();
+        Room sameNumber = Room.builder()
+                .floor(secondFloor)
+                .roomNo(200)
+                .numberOfBeds(3)
+                .build();
+        int hashCode = room.hashCode();
+
+        room.updateAvailability(LocalDate.now(), 4);
 
-        assertFalse(availabilityForYear.contains(bookingDateRange));
+        assertEquals(hashCode, room.hashCode());
+        assertEquals(sameNumber, room);
+        assertEquals(sameNumber.hashCode(), room.hashCode());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package com.hotel.reservation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class SearchCacheTest {
+
+    Hotel hotel;
+    User user;
+    LocalDate startDate;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+
+        Map<Integer, Floor> hotelFloors = hotel.addFloor(1, true, new ArrayList<Amenity>());
+        hotel.addRoom(100, hotelFloors.get(1), 2);
+        hotel.addRoom(101, hotelFloors.get(1), 2);
+        hotel.addRoom(102, hotelFloors.get(1), 1);
+
+        user = User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Don")
+                .lastName("Felder")
+                .build();
+        startDate = LocalDate.now().plusDays(10);
+    }
+
+    @Test
+    public void repeatedSearchIsServedFromCacheTest() {
+        hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>());
+        List<Room> rooms = hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>());
+
+        assertEquals(2, rooms.size());
+        assertEquals(1, hotel.getSearchCache().stats().getHits());
+        assertEquals(1, hotel.getSearchCache().stats().getMisses());
+    }
+
+    @Test
+    public void bookingInvalidatesOnlyOverlappingSearchesThatReturnedTheRoomTest() {
+        hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>());
+        hotel.findAvailability(startDate.plusDays(5), 3, 2, true, new ArrayList<Amenity>());
+        hotel.findAvailability(startDate, 3, 1, true, new ArrayList<Amenity>());
+
+        hotel.makeReservation(hotel.getRooms().get(100), startDate.plusDays(1), 2, new ArrayList<BookingAmenity>(), user);
+
+        assertEquals(2, hotel.getSearchCache().size());
+        assertEquals(1, hotel.getSearchCache().stats().getInvalidations());
+        assertEquals(1, hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>()).size());
+        assertEquals(2, hotel.findAvailability(startDate.plusDays(5), 3, 2, true, new ArrayList<Amenity>()).size());
+    }
+
+    @Test
+    public void addedRoomInvalidatesSearchesForItsKindOfRoomTest() {
+        hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>());
+        hotel.findAvailability(startDate, 3, 1, true, new ArrayList<Amenity>());
+
+        hotel.addRoom(103, hotel.getFloors().get(1), 2);
+
+        assertEquals(1, hotel.getSearchCache().size());
+        assertEquals(3, hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>()).size());
+    }
+
+    @Test
+    public void leastRecentlyUsedSearchIsEvictedTest() {
+        SearchCache searchCache = new SearchCache(2);
+        hotel.setSearchCache(searchCache);
+
+        hotel.findAvailability(startDate, 1, 2, true, new ArrayList<Amenity>());
+        hotel.findAvailability(startDate, 2, 2, true, new ArrayList<Amenity>());
+        hotel.findAvailability(startDate, 1, 2, true, new ArrayList<Amenity>());
+        hotel.findAvailability(startDate, 3, 2, true, new ArrayList<Amenity>());
+
+        assertEquals(2, searchCache.size());
+        assertEquals(1, searchCache.stats().getEvictions());
+        assertNotNull(searchCache.get(SearchCache.key(hotel.availabilityQuery(startDate, 1, 2, true, new ArrayList<Amenity>()))));
+        assertNull(searchCache.get(SearchCache.key(hotel.availabilityQuery(startDate, 2, 2, true, new ArrayList<Amenity>()))));
+    }
+
+    @Test
+    public void searchThatRacedWithABookingIsNotCachedTest() {
+        SearchCache searchCache = hotel.getSearchCache();
+        Room room = hotel.getRooms().get(100);
+        SearchCache.SearchKey key = SearchCache.key(hotel.availabilityQuery(startDate, 3, 2, true, new ArrayList<Amenity>()));
+
+        long stamp = searchCache.stamp();
+        List<Room> staleRooms = Arrays.asList(room, hotel.getRooms().get(101));
+        searchCache.roomBooked(room, startDate.toEpochDay(), 1);
+        searchCache.put(key, staleRooms, stamp);
+
+        assertNull(searchCache.get(key));
+        assertEquals(1, searchCache.stats().getRacedPuts());
+    }
+
+    @Test
+    public void searchesRacingWithBookingsNeverCacheAStaleResultTest() throws Exception {
+        for(int roomNo = 200; roomNo < 232; roomNo++) hotel.addRoom(roomNo, hotel.getFloors().get(1), 3);
+        AtomicBoolean booking = new AtomicBoolean(true);
+        Thread[] searchers = new Thread[3];
+        for(int i = 0; i < searchers.length; i++) {
+            int days = i + 1;
+            searchers[i] = new Thread(() -> {
+                while(booking.get()) hotel.findAvailability(startDate, days, 3, true, new ArrayList<Amenity>());
+            });
+            searchers[i].start();
+        }
+        try {
+            for(int roomNo = 200; roomNo < 232; roomNo++) {
+                hotel.makeReservation(hotel.getRooms().get(roomNo), startDate.plusDays(roomNo % 3), 1, new ArrayList<BookingAmenity>(), user);
+            }
+        } finally {
+            booking.set(false);
+            for(Thread searcher : searchers) searcher.join();
+        }
+
+        for(int days = 1; days <= searchers.length; days++) {
+            AvailabilityQuery query = hotel.availabilityQuery(startDate, days, 3, true, new ArrayList<Amenity>());
+            List<Room> cached = hotel.getSearchCache().get(SearchCache.key(query));
+            if(cached != null) assertEquals(new HashSet<Room>(hotel.getRoomIndex().findAvailable(query)), new HashSet<Room>(cached));
+        }
+    }
+}
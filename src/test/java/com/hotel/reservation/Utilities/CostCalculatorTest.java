@@ -0,0 +1,72 @@
+package com.hotel.reservation.Utilities;
+
+import com.hotel.reservation.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CostCalculatorTest {
+
+    Room twoBedroom;
+    Amenity petAmenity;
+    Amenity parkingAmenity;
+
+    @Before
+    public void init() {
+        Floor firstFloor = Floor.builder()
+                .floorNumber(1)
+                .isHandicapAccessible(true)
+                .restrictedAmenities(new ArrayList<Amenity>())
+                .build();
+
+        twoBedroom = Room.builder()
+                .roomNo(100)
+                .numberOfBeds(2)
+                .floor(firstFloor)
+                .build();
+
+        petAmenity = Amenity.builder()
+                .name("pet")
+                .limit(2)
+                .cost(new BigDecimal("20"))
+                .build();
+
+        parkingAmenity = Amenity.builder()
+                .name("parking")
+                .limit(1)
+                .cost(new BigDecimal("7.50"))
+                .build();
+    }
+
+    @Test
+    public void roomCostIsNightlyRateTimesNightsTest() {
+        assertEquals(22500, CostCalculator.getRoomCents(RatePlan.STANDARD, twoBedroom, LocalDate.of(2030, 1, 7).toEpochDay(), 3, 0));
+        assertEquals(BigDecimal.valueOf(225), CostCalculator.getRoomCosts(RatePlan.STANDARD, twoBedroom, LocalDate.of(2030, 1, 7), 3, 0));
+    }
+
+    @Test
+    public void amenitiesAreChargedPerCountAndNightTest() {
+        List<BookingAmenity> bookingAmenities = new ArrayList<BookingAmenity>();
+        bookingAmenities.add(BookingAmenity.builder().amenity(petAmenity).count(2).build());
+        bookingAmenities.add(BookingAmenity.builder().amenity(parkingAmenity).count(1).build());
+
+        assertEquals(3 * (2 * 2000 + 750), CostCalculator.getAmenityCents(bookingAmenities, 3));
+        assertEquals(new BigDecimal("367.50"), CostCalculator.calculateTotalCosts(RatePlan.STANDARD, twoBedroom, bookingAmenities, LocalDate.of(2030, 1, 7), 3, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeNumberOfDaysThrowsExceptionTest() {
+        CostCalculator.calculateTotalCosts(RatePlan.STANDARD, twoBedroom, new ArrayList<BookingAmenity>(), LocalDate.of(2030, 1, 7), -1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bedCountOutsideRateTableThrowsExceptionTest() {
+        RateTable.STANDARD.nightlyRateCents(RateTable.STANDARD.maxNumberOfBeds() + 1);
+    }
+}
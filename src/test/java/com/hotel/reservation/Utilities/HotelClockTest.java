@@ -0,0 +1,45 @@
+package com.hotel.reservation.Utilities;
+
+import org.junit.Test;
+
+import java.time.*;
+
+import static org.junit.Assert.*;
+
+public class HotelClockTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+    @Test
+    public void todayRollsOverAtMidnightInTheClocksZoneTest() {
+        MovableClock clock = new MovableClock(LocalDateTime.of(2030, 3, 9, 23, 59, 59).atZone(ZONE).toInstant(), ZONE);
+        HotelClock hotelClock = new HotelClock(clock);
+        assertEquals(LocalDate.of(2030, 3, 9), hotelClock.today());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(LocalDate.of(2030, 3, 10), hotelClock.today());
+
+        // The clocks go forward that night, the day is 23 hours long
+        clock.set(LocalDateTime.of(2030, 3, 10, 23, 59, 59).atZone(ZONE).toInstant());
+        assertEquals(LocalDate.of(2030, 3, 10), hotelClock.today());
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(LocalDate.of(2030, 3, 11), hotelClock.today());
+    }
+
+    @Test
+    public void todayFollowsAClockThatWentBackTest() {
+        MovableClock clock = new MovableClock(LocalDateTime.of(2030, 1, 2, 0, 0).atZone(ZONE).toInstant(), ZONE);
+        HotelClock hotelClock = new HotelClock(clock);
+        assertEquals(LocalDate.of(2030, 1, 2), hotelClock.today());
+
+        clock.advance(Duration.ofSeconds(-1));
+        assertEquals(LocalDate.of(2030, 1, 1), hotelClock.today());
+    }
+
+    @Test
+    public void fixedClockAlwaysReturnsTheSameDayTest() {
+        HotelClock hotelClock = HotelClock.fixed(LocalDate.of(2030, 6, 1));
+        assertEquals(LocalDate.of(2030, 6, 1), hotelClock.today());
+        assertEquals(LocalDate.of(2030, 6, 1).toEpochDay(), hotelClock.todayEpochDay());
+    }
+}
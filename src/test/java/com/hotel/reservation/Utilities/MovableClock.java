@@ -0,0 +1,56 @@
+package com.hotel.reservation.Utilities;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Clock the test moves by hand, e.g. past midnight or backwards. The clocks returned by withZone
+ * share its instant, so they move with it.
+ */
+public class MovableClock extends Clock {
+    private final AtomicReference<Instant> instant;
+    private final ZoneId zone;
+
+    public MovableClock(Instant instant) {
+        this(instant, ZoneOffset.UTC);
+    }
+
+    public MovableClock(Instant instant, ZoneId zone) {
+        this(new AtomicReference<Instant>(instant), zone);
+    }
+
+    private MovableClock(AtomicReference<Instant> instant, ZoneId zone) {
+        this.instant = instant;
+        this.zone = zone;
+    }
+
+    public void set(Instant instant) {
+        this.instant.set(instant);
+    }
+
+    /**
+     * Moves the clock by the duration, backwards if it is negative.
+     */
+    public void advance(Duration duration) {
+        instant.updateAndGet(current -> current.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new MovableClock(instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return instant.get();
+    }
+}
@@ -0,0 +1,85 @@
+package com.hotel.reservation.Utilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.*;
+
+import static org.junit.Assert.*;
+
+public class RatePlanTest {
+
+    // A Monday
+    LocalDate compiledFrom = LocalDate.of(2030, 1, 7);
+    RatePlan ratePlan;
+
+    @Before
+    public void init() {
+        ratePlan = RatePlan.builder(RateTable.STANDARD)
+                .compiledFrom(compiledFrom)
+                .horizonDays(60)
+                .weekendPercent(20)
+                .season(LocalDate.of(2030, 1, 21), LocalDate.of(2030, 1, 27), 50)
+                .lengthOfStayDiscount(7, 10)
+                .lengthOfStayDiscount(14, 20)
+                .surge(80, 25)
+                .build();
+    }
+
+    @Test
+    public void weekendAndSeasonAdjustNightlyRateTest() {
+        long monday = compiledFrom.toEpochDay();
+
+        assertEquals(5000, ratePlan.nightlyCents(1, monday));
+        assertEquals(6000, ratePlan.nightlyCents(1, monday + 4));
+        assertEquals(6000, ratePlan.nightlyCents(1, monday + 5));
+        assertEquals(5000, ratePlan.nightlyCents(1, monday + 6));
+        assertEquals(7500, ratePlan.nightlyCents(1, monday + 14));
+        assertEquals(8500, ratePlan.nightlyCents(1, monday + 18));
+    }
+
+    @Test
+    public void stayPriceMatchesSumOfNightsInsideAndOutsideTheCompiledWindowTest() {
+        for(long startDay = compiledFrom.toEpochDay() - 10; startDay < compiledFrom.toEpochDay() + 70; startDay += 3) {
+            for(int numberOfDays = 0; numberOfDays < 7; numberOfDays++) {
+                long expected = 0;
+                for(int day = 0; day < numberOfDays; day++) expected += ratePlan.nightlyCents(2, startDay + day);
+                assertEquals(expected, ratePlan.stayCents(2, startDay, numberOfDays, 0));
+            }
+        }
+    }
+
+    @Test
+    public void lengthOfStayDiscountAndSurgeApplyToTheWholeStayTest() {
+        long monday = compiledFrom.toEpochDay();
+        long week = 5 * 5000 + 2 * 6000;
+
+        assertEquals(week * 90 / 100, ratePlan.stayCents(1, monday, 7, 0));
+        assertEquals(2 * week * 80 / 100, ratePlan.stayCents(1, monday + 28, 14, 79));
+        assertEquals(week * 90 / 100 * 125 / 100, ratePlan.stayCents(1, monday, 7, 80));
+    }
+
+    @Test
+    public void windowSlidesAsTheClockRollsOverTest() {
+        MovableClock clock = new MovableClock(compiledFrom.atStartOfDay(ZoneOffset.UTC).toInstant());
+        RatePlan slidingPlan = RatePlan.builder(RateTable.STANDARD)
+                .clock(new HotelClock(clock))
+                .horizonDays(60)
+                .weekendPercent(20)
+                .build();
+        assertEquals(compiledFrom, slidingPlan.getCompiledFrom());
+
+        clock.advance(Duration.ofDays(100));
+        long friday = compiledFrom.plusDays(102).toEpochDay();
+        assertEquals(6000, slidingPlan.nightlyCents(1, friday));
+        assertEquals(compiledFrom.plusDays(100), slidingPlan.getCompiledFrom());
+        long expected = 0;
+        for(int day = 0; day < 7; day++) expected += slidingPlan.nightlyCents(2, friday + day);
+        assertEquals(expected, slidingPlan.stayCents(2, friday, 7, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownBedCountThrowsExceptionTest() {
+        ratePlan.stayCents(4, compiledFrom.toEpochDay(), 1, 0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.hotel.reservation.Utilities;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class TimeOrderedIdGeneratorTest {
+
+    @Test
+    public void idsSortInTheOrderTheyWereMadeTest() {
+        MovableClock clock = new MovableClock(Instant.parse("2030-06-01T12:00:00Z"));
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock);
+
+        List<UUID> ids = new ArrayList<UUID>();
+        for(int i = 0; i < 1000; i++) {
+            if(i % 100 == 0) clock.advance(Duration.ofMillis(1));
+            ids.add(generator.next());
+        }
+        List<UUID> sorted = new ArrayList<UUID>(ids);
+        Collections.sort(sorted);
+        assertEquals(ids, sorted);
+
+        UUID id = ids.get(ids.size() - 1);
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(clock.millis(), TimeOrderedIdGenerator.createdAt(id));
+        assertTrue(TimeOrderedIdGenerator.lowestIdAt(clock.millis()).compareTo(id) < 0);
+        assertTrue(TimeOrderedIdGenerator.lowestIdAt(clock.millis() + 1).compareTo(id) > 0);
+    }
+
+    @Test
+    public void idsDoNotGoBackWithTheClockTest() {
+        MovableClock clock = new MovableClock(Instant.parse("2030-06-01T12:00:00Z"));
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock);
+
+        UUID before = generator.next();
+        clock.advance(Duration.ofSeconds(-10));
+        UUID after = generator.next();
+
+        assertTrue(before.compareTo(after) < 0);
+        assertEquals(TimeOrderedIdGenerator.createdAt(before), TimeOrderedIdGenerator.createdAt(after));
+    }
+
+    @Test
+    public void threadsNeverMakeTheSameIdTest() throws Exception {
+        // One millisecond for every id, so only the thread slots and sequences keep them apart
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(Clock.fixed(Instant.parse("2030-06-01T12:00:00Z"), ZoneOffset.UTC));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<UUID>>> futures = new ArrayList<Future<List<UUID>>>();
+            for(int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    List<UUID> ids = new ArrayList<UUID>();
+                    for(int i = 0; i < 10_000; i++) ids.add(generator.next());
+                    return ids;
+                }));
+            }
+            Set<UUID> ids = new HashSet<UUID>();
+            for(Future<List<UUID>> future : futures) ids.addAll(future.get());
+            assertEquals(80_000, ids.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hotel.reservation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class WaitlistTest {
+
+    Hotel hotel;
+    Floor floor;
+    LocalDate startDate;
+
+    @Before
+    public void init() {
+        hotel = Hotel.builder()
+                .name("California")
+                .build();
+        floor = hotel.addFloor(1, false, new ArrayList<Amenity>()).get(1);
+        hotel.addRoom(100, floor, 2);
+        startDate = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    public void freeRoomIsBookedStraightAwayTest() {
+        WaitlistEntry entry = request(startDate, 2, 0);
+
+        assertEquals(WaitlistEntry.Status.ALLOCATED, entry.getStatus());
+        assertEquals(entry.getEntryId(), entry.getBooking().getBookingId());
+        assertSame(entry.getBooking(), hotel.getBookings().get(entry.getEntryId()));
+        assertEquals(Collections.singletonList(entry.getBooking()), hotel.getWaitlist().takeAllocations());
+        assertTrue(hotel.getWaitlist().takeAllocations().isEmpty());
+    }
+
+    @Test
+    public void waitlistedStayIsBookedWhenNightsAreFreedTest() {
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(100), startDate, 3, new ArrayList<BookingAmenity>(), user());
+        WaitlistEntry tooLong = request(startDate, 4, 0);
+        WaitlistEntry entry = request(startDate.plusDays(1), 2, 0);
+        assertEquals(WaitlistEntry.Status.WAITLISTED, entry.getStatus());
+        assertEquals(2, hotel.getWaitlist().size());
+
+        // Still overlaps the stay's first night
+        hotel.modifyReservation(booking.getBookingId(), hotel.getRooms().get(100), startDate, 1, new ArrayList<BookingAmenity>());
+
+        assertEquals(WaitlistEntry.Status.ALLOCATED, entry.getStatus());
+        assertEquals(WaitlistEntry.Status.WAITLISTED, tooLong.getStatus());
+        assertSame(entry.getBooking(), hotel.getBookingIndex().findByRoomAndNight(100, startDate.plusDays(2)));
+        assertEquals(Collections.singletonList(entry.getBooking()), hotel.getWaitlist().takeAllocations());
+        assertNull(hotel.getWaitlist().find(entry.getEntryId()));
+        assertSame(tooLong, hotel.getWaitlist().find(tooLong.getEntryId()));
+    }
+
+    @Test
+    public void stayIsOverbookedUpToTheAllowanceForEachNightTest() {
+        hotel.getWaitlist().getOverbookingAllowance().setAllowance(2, 1);
+        hotel.getWaitlist().getOverbookingAllowance().setAllowance(2, startDate.plusDays(5), 0);
+        hotel.makeReservation(hotel.getRooms().get(100), startDate, 10, new ArrayList<BookingAmenity>(), user());
+
+        WaitlistEntry overbooked = request(startDate, 2, 0);
+        WaitlistEntry waitlisted = request(startDate.plusDays(1), 2, 0);
+        WaitlistEntry holiday = request(startDate.plusDays(4), 2, 0);
+        assertEquals(WaitlistEntry.Status.OVERBOOKED, overbooked.getStatus());
+        assertEquals(WaitlistEntry.Status.WAITLISTED, waitlisted.getStatus());
+        assertEquals(WaitlistEntry.Status.WAITLISTED, holiday.getStatus());
+        assertEquals(1, hotel.getWaitlist().overbooked(2, startDate.plusDays(1)));
+        assertEquals(0, hotel.getWaitlist().overbooked(2, startDate.plusDays(2)));
+
+        assertSame(overbooked, hotel.leaveWaitlist(overbooked.getEntryId()));
+        assertEquals(WaitlistEntry.Status.WITHDRAWN, overbooked.getStatus());
+        assertEquals(0, hotel.getWaitlist().overbooked(2, startDate.plusDays(1)));
+        assertEquals(WaitlistEntry.Status.OVERBOOKED, request(startDate.plusDays(1), 2, 0).getStatus());
+        try {
+            hotel.leaveWaitlist(overbooked.getEntryId());
+            fail("Expected the entry to be gone");
+        } catch (NoSuchElementException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void overbookedStaysGoFirstThenByStrategyTest() {
+        hotel.getWaitlist().getOverbookingAllowance().setAllowance(2, startDate, 1);
+        Booking booking = hotel.makeReservation(hotel.getRooms().get(100), startDate, 3, new ArrayList<BookingAmenity>(), user());
+        WaitlistEntry overbooked = request(startDate, 1, 0);
+        WaitlistEntry longStay = request(startDate, 3, 0);
+        WaitlistEntry highPriority = request(startDate.plusDays(1), 2, 5);
+        assertEquals(WaitlistEntry.Status.OVERBOOKED, overbooked.getStatus());
+
+        hotel.getWaitlist().setStrategy(AllocationStrategy.LONGEST_STAY);
+        List<WaitlistEntry> candidates = hotel.getWaitlist().candidates(hotel.getRooms().get(100), startDate.toEpochDay(),
+                                                                         startDate.toEpochDay() + 3, startDate.toEpochDay());
+        assertEquals(3, candidates.size());
+        assertSame(overbooked, candidates.get(0));
+        assertSame(longStay, candidates.get(1));
+        assertSame(highPriority, candidates.get(2));
+
+        hotel.getWaitlist().setStrategy(AllocationStrategy.PRIORITY);
+        hotel.cancelReservation(booking.getBookingId());
+
+        // The overbooked night goes first, then the high priority stay fits after it and the long stay does not
+        assertEquals(WaitlistEntry.Status.ALLOCATED, overbooked.getStatus());
+        assertEquals(WaitlistEntry.Status.ALLOCATED, highPriority.getStatus());
+        assertEquals(WaitlistEntry.Status.WAITLISTED, longStay.getStatus());
+        assertEquals(0, hotel.getWaitlist().overbooked(2, startDate));
+        assertEquals(2, hotel.getWaitlist().takeAllocations().size());
+    }
+
+    @Test
+    public void newRoomIsOfferedToTheWaitlistTest() {
+        Amenity pet = hotel.addAmenity("pet", 2, BigDecimal.valueOf(20)).get("pet");
+        Floor noPets = hotel.addFloor(2, false, Collections.singletonList(pet)).get(2);
+        hotel.makeReservation(hotel.getRooms().get(100), startDate, 2, new ArrayList<BookingAmenity>(), user());
+        List<BookingAmenity> pets = new ArrayList<BookingAmenity>(Collections.singletonList(BookingAmenity.builder().amenity(pet).count(1).build()));
+        WaitlistEntry withPet = hotel.requestReservation(startDate, 2, 2, false, pets, user(), 0);
+        WaitlistEntry threeBeds = hotel.requestReservation(startDate, 2, 3, false, new ArrayList<BookingAmenity>(), user(), 0);
+
+        hotel.addRoom(200, noPets, 2);
+        hotel.addRoom(201, noPets, 3);
+        assertEquals(WaitlistEntry.Status.WAITLISTED, withPet.getStatus());
+        assertEquals(WaitlistEntry.Status.ALLOCATED, threeBeds.getStatus());
+        assertEquals(201, threeBeds.getBooking().getRoom().getRoomNo());
+
+        hotel.addRoom(101, floor, 2);
+        assertEquals(WaitlistEntry.Status.ALLOCATED, withPet.getStatus());
+        assertEquals(101, withPet.getBooking().getRoom().getRoomNo());
+        assertTrue(hotel.getWaitlist().isEmpty());
+    }
+
+    @Test
+    public void staysThatHaveStartedExpireTest() {
+        hotel.makeReservation(hotel.getRooms().get(100), startDate, 2, new ArrayList<BookingAmenity>(), user());
+        WaitlistEntry entry = request(startDate, 1, 0);
+
+        List<WaitlistEntry> candidates = hotel.getWaitlist().candidates(hotel.getRooms().get(100), startDate.toEpochDay() + 1);
+        assertTrue(candidates.isEmpty());
+        assertEquals(WaitlistEntry.Status.EXPIRED, entry.getStatus());
+        assertTrue(hotel.getWaitlist().isEmpty());
+    }
+
+    private WaitlistEntry request(LocalDate startDate, int numberOfDays, int priority) {
+        return hotel.requestReservation(startDate, numberOfDays, 2, false, new ArrayList<BookingAmenity>(), user(), priority);
+    }
+
+    private static User user() {
+        return User.builder()
+                .userId(UUID.randomUUID())
+                .firstName("Joe")
+                .lastName("Walsh")
+                .build();
+    }
+}